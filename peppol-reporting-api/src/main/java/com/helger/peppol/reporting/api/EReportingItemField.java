@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.base.id.IHasID;
+import com.helger.base.lang.EnumHelper;
+
+/**
+ * This enum defines the fields of a reporting item, e.g. to define the projection of a query. The
+ * order is the order of the fields in {@link PeppolReportingItem}.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+public enum EReportingItemField implements IHasID <String>
+{
+  EXCHANGE_DATETIME ("exchangedt"),
+  DIRECTION ("direction"),
+  C2_ID ("c2id"),
+  C3_ID ("c3id"),
+  DOCTYPE_ID_SCHEME ("dtscheme"),
+  DOCTYPE_ID_VALUE ("dtvalue"),
+  PROCESS_ID_SCHEME ("procscheme"),
+  PROCESS_ID_VALUE ("procvalue"),
+  TRANSPORT_PROTOCOL ("tp"),
+  C1_COUNTRY_CODE ("c1cc"),
+  C4_COUNTRY_CODE ("c4cc"),
+  END_USER_ID ("enduserid");
+
+  private final String m_sID;
+
+  EReportingItemField (@NonNull @Nonempty final String sID)
+  {
+    m_sID = sID;
+  }
+
+  @NonNull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  /**
+   * @return <code>true</code> if this field is always part of a projection, because it is required
+   *         for reading the items of a date range.
+   */
+  public boolean isAlwaysProjected ()
+  {
+    return this == EXCHANGE_DATETIME || this == DIRECTION;
+  }
+
+  /**
+   * Get the value of this field from the provided view as a string. The direction is returned as
+   * its ID.
+   *
+   * @param aView
+   *        The view to read from. May not be <code>null</code>.
+   * @return The string value. May only be <code>null</code> for {@link #C4_COUNTRY_CODE}.
+   */
+  @Nullable
+  public String getStringValue (@NonNull final IPeppolReportingItemView aView)
+  {
+    switch (this)
+    {
+      case EXCHANGE_DATETIME:
+        return aView.getExchangeDTUTC ().toString ();
+      case DIRECTION:
+        return aView.getDirection ().getID ();
+      case C2_ID:
+        return aView.getC2ID ();
+      case C3_ID:
+        return aView.getC3ID ();
+      case DOCTYPE_ID_SCHEME:
+        return aView.getDocTypeIDScheme ();
+      case DOCTYPE_ID_VALUE:
+        return aView.getDocTypeIDValue ();
+      case PROCESS_ID_SCHEME:
+        return aView.getProcessIDScheme ();
+      case PROCESS_ID_VALUE:
+        return aView.getProcessIDValue ();
+      case TRANSPORT_PROTOCOL:
+        return aView.getTransportProtocol ();
+      case C1_COUNTRY_CODE:
+        return aView.getC1CountryCode ();
+      case C4_COUNTRY_CODE:
+        return aView.getC4CountryCode ();
+      case END_USER_ID:
+        return aView.getEndUserID ();
+      default:
+        throw new IllegalStateException ("Unsupported field " + this);
+    }
+  }
+
+  @Nullable
+  public static EReportingItemField getFromIDOrNull (@Nullable final String sID)
+  {
+    return EnumHelper.getFromIDOrNull (EReportingItemField.class, sID);
+  }
+}
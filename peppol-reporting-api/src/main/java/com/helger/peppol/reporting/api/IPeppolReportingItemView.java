@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+
+/**
+ * Read-only view on the data of a single Peppol Reporting item. This is implemented by
+ * {@link PeppolReportingItem} itself, but also by backend specific cursors that expose the current
+ * row of a result set without creating a {@link PeppolReportingItem} for it. Such a cursor object is
+ * reused for all rows, so a view passed to a callback is only valid during that callback. Use
+ * {@link #getAsItem()} to keep the data for longer.
+ * <p>
+ * Views of a query with a projection may only contain the projected fields. The exchange date time
+ * and the direction are always available. The getters of fields that are not projected may return
+ * <code>null</code>, despite their annotations, and {@link #getAsItem()} then throws an
+ * {@link IllegalStateException}. All other views contain all fields.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+public interface IPeppolReportingItemView
+{
+  /**
+   * @return The exchange date time as milliseconds since the epoch.
+   */
+  long getExchangeEpochMillis ();
+
+  /**
+   * @return The exchange date time in UTC. Never <code>null</code>.
+   */
+  @NonNull
+  default OffsetDateTime getExchangeDTUTC ()
+  {
+    return Instant.ofEpochMilli (getExchangeEpochMillis ()).atOffset (ZoneOffset.UTC);
+  }
+
+  /**
+   * @return The direction of the reporting item. Never <code>null</code>.
+   */
+  @NonNull
+  EReportingDirection getDirection ();
+
+  /**
+   * @return <code>true</code> if this reporting item is for sending. <code>false</code> if it is
+   *         for receiving.
+   */
+  default boolean isSending ()
+  {
+    return getDirection ().isSending ();
+  }
+
+  /**
+   * @return <code>true</code> if this reporting item is for receiving. <code>false</code> if it is
+   *         for sending.
+   */
+  default boolean isReceiving ()
+  {
+    return getDirection ().isReceiving ();
+  }
+
+  /**
+   * @return The sending Service Provider (C2) ID. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  String getC2ID ();
+
+  /**
+   * @return The receiving Service Provider (C3) ID. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  String getC3ID ();
+
+  /**
+   * @return The ID of the other service provider. So if this item is for a sent message, this is
+   *         the C3-ID otherwise it is the C2 ID. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  default String getOtherServiceProviderID ()
+  {
+    return isSending () ? getC3ID () : getC2ID ();
+  }
+
+  /**
+   * @return The document type identifier scheme used. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  String getDocTypeIDScheme ();
+
+  /**
+   * @return The document type identifier value used. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  String getDocTypeIDValue ();
+
+  /**
+   * @return The process identifier scheme used. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  String getProcessIDScheme ();
+
+  /**
+   * @return The process identifier value used. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  String getProcessIDValue ();
+
+  /**
+   * @return The transport protocol used. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  String getTransportProtocol ();
+
+  /**
+   * @return The country code of C1. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  String getC1CountryCode ();
+
+  /**
+   * @return The country code of C4. May be <code>null</code> for sent messages.
+   */
+  @Nullable
+  String getC4CountryCode ();
+
+  /**
+   * @return The End User Country for EUSR. It's either C1 country code or C4 country code,
+   *         depending on the message direction.
+   */
+  @NonNull
+  @Nonempty
+  default String getEndUserCountryCode ()
+  {
+    return isSending () ? getC1CountryCode () : getC4CountryCode ();
+  }
+
+  /**
+   * @return The end user ID. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  String getEndUserID ();
+
+  /**
+   * Get the data of this view as a standalone immutable item that stays valid after the current
+   * cursor position changed.
+   *
+   * @return A {@link PeppolReportingItem} with the same content. Never <code>null</code>.
+   * @throws IllegalStateException
+   *         If this view does not contain all fields, because of a projection
+   */
+  @NonNull
+  default PeppolReportingItem getAsItem ()
+  {
+    return new PeppolReportingItem (getExchangeDTUTC (),
+                                    getDirection (),
+                                    getC2ID (),
+                                    getC3ID (),
+                                    getDocTypeIDScheme (),
+                                    getDocTypeIDValue (),
+                                    getProcessIDScheme (),
+                                    getProcessIDValue (),
+                                    getTransportProtocol (),
+                                    getC1CountryCode (),
+                                    getC4CountryCode (),
+                                    getEndUserID ());
+  }
+}
@@ -16,6 +16,8 @@
  */
 package com.helger.peppol.reporting.api;
 
+import java.time.Instant;
+
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 
@@ -108,4 +110,22 @@ public final class PeppolReportingHelper
     // All others are okay
     return true;
   }
+
+  /**
+   * Get the smallest epoch milliseconds value that is not before the provided instant. Reporting
+   * items have a precision of milliseconds, so this is the first possible exchange date time of a
+   * range starting at the provided instant.
+   *
+   * @param aInstant
+   *        The instant to convert. May not be <code>null</code>.
+   * @return The epoch milliseconds, rounded up if the instant has a sub millisecond fraction.
+   * @since 4.2.1
+   */
+  public static long getCeilingEpochMillis (@NonNull final Instant aInstant)
+  {
+    ValueEnforcer.notNull (aInstant, "Instant");
+    // toEpochMilli rounds down
+    final long nMillis = aInstant.toEpochMilli ();
+    return aInstant.getNano () % 1_000_000 == 0 ? nMillis : nMillis + 1;
+  }
 }
@@ -16,11 +16,11 @@
  */
 package com.helger.peppol.reporting.api;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoUnit;
 
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
@@ -51,7 +51,7 @@ import com.helger.peppolid.peppol.PeppolIdentifierHelper;
  */
 @Immutable
 @MustImplementEqualsAndHashcode
-public final class PeppolReportingItem
+public final class PeppolReportingItem implements IPeppolReportingItemView
 {
   public static final int MAX_LEN_C2_ID = 64;
   public static final int MAX_LEN_C3_ID = MAX_LEN_C2_ID;
@@ -66,7 +66,7 @@ public final class PeppolReportingItem
   public static final int MAX_LEN_END_USER_ID = 256;
 
   // TSR, EUSR
-  private final OffsetDateTime m_aExchangeDTUTC;
+  private final long m_nExchangeEpochMillis;
   // TSR, EUSR
   private final EReportingDirection m_eDirection;
   // TSR
@@ -87,6 +87,10 @@ public final class PeppolReportingItem
   private final String m_sC4CountryCode;
   // EUSR
   private final String m_sEndUserID;
+  // Lazily created from the epoch millis
+  private OffsetDateTime m_aExchangeDTUTC;
+  // Lazily calculated; 0 means not yet calculated
+  private int m_nHashCode;
 
   public PeppolReportingItem (@NonNull final OffsetDateTime aExchangeDT,
                               @NonNull final EReportingDirection eDirection,
@@ -101,25 +105,54 @@ public final class PeppolReportingItem
                               @Nullable final String sC4CC,
                               @NonNull @Nonempty final String sEndUserID)
   {
-    ValueEnforcer.notNull (aExchangeDT, "ExchangeDT");
-    ValueEnforcer.notNull (eDirection, "Direction");
-    ValueEnforcer.notEmpty (sC2ID, "C2ID");
-    ValueEnforcer.notEmpty (sC3ID, "C3ID");
-    ValueEnforcer.notEmpty (sDocTypeIDScheme, "DocTypeIDScheme");
-    ValueEnforcer.notEmpty (sDocTypeIDValue, "DocTypeIDValue");
-    ValueEnforcer.notEmpty (sProcessIDScheme, "ProcessIDScheme");
-    ValueEnforcer.notEmpty (sProcessIDValue, "ProcessIDValue");
-    ValueEnforcer.notEmpty (sTransportProtocol, "TransportProtocol");
-    ValueEnforcer.notEmpty (sC1CC, "C1CountryCode");
-    if (eDirection.isReceiving ())
-      ValueEnforcer.notEmpty (sC4CC, "C4CountryCode");
-    ValueEnforcer.notEmpty (sEndUserID, "EndUserID");
-
-    // Make sure it is UTC
+    // Make sure it is UTC with millisecond precision
     // For representation in a java.util.Date and in XSD this is necessary
-    m_aExchangeDTUTC = aExchangeDT.atZoneSameInstant (ZoneOffset.UTC)
-                                  .toOffsetDateTime ()
-                                  .truncatedTo (ChronoUnit.MILLIS);
+    this (ValueEnforcer.notNull (aExchangeDT, "ExchangeDT").toInstant ().toEpochMilli (),
+          eDirection,
+          sC2ID,
+          sC3ID,
+          sDocTypeIDScheme,
+          sDocTypeIDValue,
+          sProcessIDScheme,
+          sProcessIDValue,
+          sTransportProtocol,
+          sC1CC,
+          sC4CC,
+          sEndUserID,
+          true);
+  }
+
+  private PeppolReportingItem (final long nExchangeEpochMillis,
+                               @NonNull final EReportingDirection eDirection,
+                               @NonNull @Nonempty final String sC2ID,
+                               @NonNull @Nonempty final String sC3ID,
+                               @NonNull @Nonempty final String sDocTypeIDScheme,
+                               @NonNull @Nonempty final String sDocTypeIDValue,
+                               @NonNull @Nonempty final String sProcessIDScheme,
+                               @NonNull @Nonempty final String sProcessIDValue,
+                               @NonNull @Nonempty final String sTransportProtocol,
+                               @NonNull @Nonempty final String sC1CC,
+                               @Nullable final String sC4CC,
+                               @NonNull @Nonempty final String sEndUserID,
+                               final boolean bValidate)
+  {
+    if (bValidate)
+    {
+      ValueEnforcer.notNull (eDirection, "Direction");
+      ValueEnforcer.notEmpty (sC2ID, "C2ID");
+      ValueEnforcer.notEmpty (sC3ID, "C3ID");
+      ValueEnforcer.notEmpty (sDocTypeIDScheme, "DocTypeIDScheme");
+      ValueEnforcer.notEmpty (sDocTypeIDValue, "DocTypeIDValue");
+      ValueEnforcer.notEmpty (sProcessIDScheme, "ProcessIDScheme");
+      ValueEnforcer.notEmpty (sProcessIDValue, "ProcessIDValue");
+      ValueEnforcer.notEmpty (sTransportProtocol, "TransportProtocol");
+      ValueEnforcer.notEmpty (sC1CC, "C1CountryCode");
+      if (eDirection.isReceiving ())
+        ValueEnforcer.notEmpty (sC4CC, "C4CountryCode");
+      ValueEnforcer.notEmpty (sEndUserID, "EndUserID");
+    }
+
+    m_nExchangeEpochMillis = nExchangeEpochMillis;
     m_eDirection = eDirection;
     m_sC2ID = sC2ID;
     m_sC3ID = sC3ID;
@@ -133,13 +166,94 @@ public final class PeppolReportingItem
     m_sEndUserID = sEndUserID;
   }
 
+  /**
+   * Create a new item from data that was already validated when it was stored, e.g. by a backend
+   * reading its own storage. No consistency checks are performed, and all fields except the end
+   * user ID are interned via {@link PeppolReportingStringInterner}. Don't use this for data from
+   * untrusted sources - use the constructor or the {@link Builder} instead.
+   *
+   * @param nExchangeEpochMillis
+   *        The exchange date time in milliseconds since the epoch (UTC).
+   * @param eDirection
+   *        The direction. May not be <code>null</code>.
+   * @param sC2ID
+   *        C2 ID. May neither be <code>null</code> nor empty.
+   * @param sC3ID
+   *        C3 ID. May neither be <code>null</code> nor empty.
+   * @param sDocTypeIDScheme
+   *        Document type identifier scheme. May neither be <code>null</code> nor empty.
+   * @param sDocTypeIDValue
+   *        Document type identifier value. May neither be <code>null</code> nor empty.
+   * @param sProcessIDScheme
+   *        Process identifier scheme. May neither be <code>null</code> nor empty.
+   * @param sProcessIDValue
+   *        Process identifier value. May neither be <code>null</code> nor empty.
+   * @param sTransportProtocol
+   *        Transport protocol. May neither be <code>null</code> nor empty.
+   * @param sC1CC
+   *        C1 country code. May neither be <code>null</code> nor empty.
+   * @param sC4CC
+   *        C4 country code. May only be <code>null</code> for sending.
+   * @param sEndUserID
+   *        End user ID. May neither be <code>null</code> nor empty.
+   * @return The new item. Never <code>null</code>.
+   * @since 4.2.1
+   */
+  @NonNull
+  public static PeppolReportingItem createTrusted (final long nExchangeEpochMillis,
+                                                   @NonNull final EReportingDirection eDirection,
+                                                   @NonNull @Nonempty final String sC2ID,
+                                                   @NonNull @Nonempty final String sC3ID,
+                                                   @NonNull @Nonempty final String sDocTypeIDScheme,
+                                                   @NonNull @Nonempty final String sDocTypeIDValue,
+                                                   @NonNull @Nonempty final String sProcessIDScheme,
+                                                   @NonNull @Nonempty final String sProcessIDValue,
+                                                   @NonNull @Nonempty final String sTransportProtocol,
+                                                   @NonNull @Nonempty final String sC1CC,
+                                                   @Nullable final String sC4CC,
+                                                   @NonNull @Nonempty final String sEndUserID)
+  {
+    return new PeppolReportingItem (nExchangeEpochMillis,
+                                    eDirection,
+                                    PeppolReportingStringInterner.internGlobal (sC2ID),
+                                    PeppolReportingStringInterner.internGlobal (sC3ID),
+                                    PeppolReportingStringInterner.internGlobal (sDocTypeIDScheme),
+                                    PeppolReportingStringInterner.internGlobal (sDocTypeIDValue),
+                                    PeppolReportingStringInterner.internGlobal (sProcessIDScheme),
+                                    PeppolReportingStringInterner.internGlobal (sProcessIDValue),
+                                    PeppolReportingStringInterner.internGlobal (sTransportProtocol),
+                                    PeppolReportingStringInterner.internGlobal (sC1CC),
+                                    PeppolReportingStringInterner.internGlobal (sC4CC),
+                                    sEndUserID,
+                                    false);
+  }
+
   /**
    * @return The exchange date time in UTC. Never <code>null</code>.
    */
+  @Override
   @NonNull
   public OffsetDateTime getExchangeDTUTC ()
   {
-    return m_aExchangeDTUTC;
+    OffsetDateTime ret = m_aExchangeDTUTC;
+    if (ret == null)
+    {
+      // Racy but harmless, as the object is immutable
+      ret = Instant.ofEpochMilli (m_nExchangeEpochMillis).atOffset (ZoneOffset.UTC);
+      m_aExchangeDTUTC = ret;
+    }
+    return ret;
+  }
+
+  /**
+   * @return The exchange date time as milliseconds since the epoch. This is cheaper than
+   *         {@link #getExchangeDTUTC()}.
+   * @since 4.2.1
+   */
+  @Override
+  public long getExchangeEpochMillis ()
+  {
+    return m_nExchangeEpochMillis;
   }
 
   /**
@@ -147,6 +261,7 @@ public final class PeppolReportingItem
    * @see #isSending()
    * @see #isReceiving()
    */
+  @Override
   @NonNull
   public EReportingDirection getDirection ()
   {
@@ -158,6 +273,7 @@ public final class PeppolReportingItem
    *         for receiving.
    * @see #isReceiving()
    */
+  @Override
   public boolean isSending ()
   {
     return m_eDirection.isSending ();
@@ -168,6 +284,7 @@ public final class PeppolReportingItem
    *         for sending.
    * @see #isSending()
    */
+  @Override
   public boolean isReceiving ()
   {
     return m_eDirection.isReceiving ();
@@ -176,6 +293,7 @@ public final class PeppolReportingItem
   /**
    * @return The sending Service Provider (C2) ID. Neither <code>null</code> nor empty.
    */
+  @Override
   @NonNull
   @Nonempty
   public String getC2ID ()
@@ -186,6 +304,7 @@ public final class PeppolReportingItem
   /**
    * @return The receiving Service Provider (C3) ID. Neither <code>null</code> nor empty.
    */
+  @Override
   @NonNull
   @Nonempty
   public String getC3ID ()
@@ -201,6 +320,7 @@ public final class PeppolReportingItem
    * @see #getC2ID()
    * @see #getC3ID()
    */
+  @Override
   @NonNull
   @Nonempty
   public String getOtherServiceProviderID ()
@@ -212,6 +332,7 @@ public final class PeppolReportingItem
    * @return The document type identifier scheme used. Neither <code>null</code> nor empty.
    * @see #getDocTypeIDValue()
    */
+  @Override
   @NonNull
   @Nonempty
   public String getDocTypeIDScheme ()
@@ -223,6 +344,7 @@ public final class PeppolReportingItem
    * @return The document type identifier value used. Neither <code>null</code> nor empty.
    * @see #getDocTypeIDScheme()
    */
+  @Override
   @NonNull
   @Nonempty
   public String getDocTypeIDValue ()
@@ -234,6 +356,7 @@ public final class PeppolReportingItem
    * @return The process identifier scheme used. Neither <code>null</code> nor empty.
    * @see #getProcessIDValue()
    */
+  @Override
   @NonNull
   @Nonempty
   public String getProcessIDScheme ()
@@ -245,6 +368,7 @@ public final class PeppolReportingItem
    * @return The process identifier scheme value. Neither <code>null</code> nor empty.
    * @see #getProcessIDScheme()
    */
+  @Override
   @NonNull
   @Nonempty
   public String getProcessIDValue ()
@@ -256,6 +380,7 @@ public final class PeppolReportingItem
    * @return The country code of C1. Neither <code>null</code> nor empty. C2 knows it via KYC, C3
    *         knows it, because it is transferred in the SBDH (since v2.0.0).
    */
+  @Override
   @NonNull
   @Nonempty
   public String getC1CountryCode ()
@@ -267,6 +392,7 @@ public final class PeppolReportingItem
    * @return The country code of C4. May be <code>null</code> for sent messages, because C1/C2
    *         cannot necessarily know the country code of C4 in all cases.
    */
+  @Override
   @Nullable
   public String getC4CountryCode ()
   {
@@ -285,6 +411,7 @@ public final class PeppolReportingItem
   /**
    * @return The transport protocol used. Neither <code>null</code> nor empty.
    */
+  @Override
   @NonNull
   @Nonempty
   public String getTransportProtocol ()
@@ -300,6 +427,7 @@ public final class PeppolReportingItem
    * @see #getC1CountryCode()
    * @see #getC4CountryCode()
    */
+  @Override
   @NonNull
   @Nonempty
   public String getEndUserCountryCode ()
@@ -311,6 +439,7 @@ public final class PeppolReportingItem
    * @return The end user ID. The exact layout is implementation specific and varies from Service
    *         Provider to Service Provider.
    */
+  @Override
   @NonNull
   @Nonempty
   public String getEndUserID ()
@@ -318,6 +447,16 @@ public final class PeppolReportingItem
     return m_sEndUserID;
   }
 
+  /**
+   * @return this, as the item is already immutable.
+   */
+  @Override
+  @NonNull
+  public PeppolReportingItem getAsItem ()
+  {
+    return this;
+  }
+
   @Override
   public boolean equals (final Object o)
   {
@@ -326,7 +465,7 @@ public final class PeppolReportingItem
     if (o == null || !getClass ().equals (o.getClass ()))
       return false;
     final PeppolReportingItem rhs = (PeppolReportingItem) o;
-    return m_aExchangeDTUTC.equals (rhs.m_aExchangeDTUTC) &&
+    return m_nExchangeEpochMillis == rhs.m_nExchangeEpochMillis &&
            m_eDirection.equals (rhs.m_eDirection) &&
            m_sC2ID.equals (rhs.m_sC2ID) &&
            m_sC3ID.equals (rhs.m_sC3ID) &&
@@ -343,7 +482,18 @@ public final class PeppolReportingItem
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_aExchangeDTUTC)
+    int ret = m_nHashCode;
+    if (ret == 0)
+    {
+      ret = _calcHashCode ();
+      m_nHashCode = ret;
+    }
+    return ret;
+  }
+
+  private int _calcHashCode ()
+  {
+    return new HashCodeGenerator (this).append (m_nExchangeEpochMillis)
                                        .append (m_eDirection)
                                        .append (m_sC2ID)
                                        .append (m_sC3ID)
@@ -361,7 +511,7 @@ public final class PeppolReportingItem
   @Override
   public String toString ()
   {
-    return new ToStringGenerator (null).append ("ExchangeDTUTC", m_aExchangeDTUTC)
+    return new ToStringGenerator (null).append ("ExchangeDTUTC", getExchangeDTUTC ())
                                        .append ("Direction", m_eDirection)
                                        .append ("C2ID", m_sC2ID)
                                        .append ("C3ID", m_sC3ID)
@@ -694,17 +844,19 @@ public final class PeppolReportingItem
       if (!isComplete (true))
         throw new IllegalStateException ("The builder was not filled completely");
 
+      // Share the instances of the low cardinality fields. The end user ID is
+      // not interned, as it usually has many distinct values.
       return new PeppolReportingItem (m_aExchangeDT,
                                       m_eDirection,
-                                      m_sC2ID,
-                                      m_sC3ID,
-                                      m_sDocTypeIDScheme,
-                                      m_sDocTypeIDValue,
-                                      m_sProcessIDScheme,
-                                      m_sProcessIDValue,
-                                      m_sTransportProtocol,
-                                      m_sC1CountryCode,
-                                      m_sC4CountryCode,
+                                      PeppolReportingStringInterner.internGlobal (m_sC2ID),
+                                      PeppolReportingStringInterner.internGlobal (m_sC3ID),
+                                      PeppolReportingStringInterner.internGlobal (m_sDocTypeIDScheme),
+                                      PeppolReportingStringInterner.internGlobal (m_sDocTypeIDValue),
+                                      PeppolReportingStringInterner.internGlobal (m_sProcessIDScheme),
+                                      PeppolReportingStringInterner.internGlobal (m_sProcessIDValue),
+                                      PeppolReportingStringInterner.internGlobal (m_sTransportProtocol),
+                                      PeppolReportingStringInterner.internGlobal (m_sC1CountryCode),
+                                      PeppolReportingStringInterner.internGlobal (m_sC4CountryCode),
                                       m_sEndUserID);
     }
   }
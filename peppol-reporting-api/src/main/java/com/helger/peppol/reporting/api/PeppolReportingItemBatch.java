@@ -0,0 +1,443 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.annotation.style.ReturnsMutableObject;
+import com.helger.base.enforce.ValueEnforcer;
+
+/**
+ * A batch of up to a fixed number of reporting items in struct-of-arrays form: the exchange times
+ * as epoch milliseconds, the directions as a bit set and all string fields as dictionary coded
+ * <code>int</code> columns. It is meant to be filled by a backend in chunks and to be consumed by
+ * accumulators in tight loops over the columns, instead of calling a consumer per item.
+ * <p>
+ * The dictionary only covers the current chunk and is reset when the batch is cleared, so that high
+ * cardinality columns like the end user ID cannot grow it beyond the capacity of a single chunk.
+ * Codes must therefore not be compared across chunks. Within a chunk all codes refer to the same
+ * {@link String} instance, so reference comparisons of values returned by {@link #getString(int)}
+ * are valid. <code>null</code> values (only possible for the C4 country code) have the code
+ * {@link #CODE_NULL}.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@NotThreadSafe
+public final class PeppolReportingItemBatch
+{
+  /** The default number of items per batch */
+  public static final int DEFAULT_CAPACITY = 4096;
+  /** The code used for <code>null</code> values */
+  public static final int CODE_NULL = -1;
+
+  public static final int COL_C2ID = 0;
+  public static final int COL_C3ID = 1;
+  public static final int COL_DOCTYPE_SCHEME = 2;
+  public static final int COL_DOCTYPE_VALUE = 3;
+  public static final int COL_PROCESS_SCHEME = 4;
+  public static final int COL_PROCESS_VALUE = 5;
+  public static final int COL_TRANSPORT_PROTOCOL = 6;
+  public static final int COL_C1CC = 7;
+  public static final int COL_C4CC = 8;
+  public static final int COL_END_USER_ID = 9;
+  public static final int COL_COUNT = 10;
+
+  private static final int INITIAL_TABLE_SIZE = 256;
+
+  /**
+   * A view positioned on a single row of this batch.
+   */
+  private final class Cursor implements IPeppolReportingItemView
+  {
+    private int m_nIndex;
+
+    @Nullable
+    private String _get (final int nCol)
+    {
+      return getString (m_aCodes[nCol][m_nIndex]);
+    }
+
+    public long getExchangeEpochMillis ()
+    {
+      return m_aExchangeMillis[m_nIndex];
+    }
+
+    @NonNull
+    public EReportingDirection getDirection ()
+    {
+      return isReceiving (m_nIndex) ? EReportingDirection.RECEIVING : EReportingDirection.SENDING;
+    }
+
+    @NonNull
+    public String getC2ID ()
+    {
+      return _get (COL_C2ID);
+    }
+
+    @NonNull
+    public String getC3ID ()
+    {
+      return _get (COL_C3ID);
+    }
+
+    @NonNull
+    public String getDocTypeIDScheme ()
+    {
+      return _get (COL_DOCTYPE_SCHEME);
+    }
+
+    @NonNull
+    public String getDocTypeIDValue ()
+    {
+      return _get (COL_DOCTYPE_VALUE);
+    }
+
+    @NonNull
+    public String getProcessIDScheme ()
+    {
+      return _get (COL_PROCESS_SCHEME);
+    }
+
+    @NonNull
+    public String getProcessIDValue ()
+    {
+      return _get (COL_PROCESS_VALUE);
+    }
+
+    @NonNull
+    public String getTransportProtocol ()
+    {
+      return _get (COL_TRANSPORT_PROTOCOL);
+    }
+
+    @NonNull
+    public String getC1CountryCode ()
+    {
+      return _get (COL_C1CC);
+    }
+
+    @Nullable
+    public String getC4CountryCode ()
+    {
+      return _get (COL_C4CC);
+    }
+
+    @NonNull
+    public String getEndUserID ()
+    {
+      return _get (COL_END_USER_ID);
+    }
+  }
+
+  private final int m_nCapacity;
+  private final long [] m_aExchangeMillis;
+  // One bit per item, set for receiving
+  private final long [] m_aReceiving;
+  private final int [] [] m_aCodes;
+  private int m_nSize = 0;
+
+  // Open addressing hash table of (code + 1), 0 marks an empty slot. Its length is a power of 2.
+  private int [] m_aCodeTable = new int [INITIAL_TABLE_SIZE];
+  private String [] m_aValues = new String [INITIAL_TABLE_SIZE / 2];
+  private int m_nValueCount = 0;
+
+  public PeppolReportingItemBatch ()
+  {
+    this (DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param nCapacity
+   *        The maximum number of items in this batch. Must be &gt; 0.
+   */
+  public PeppolReportingItemBatch (@Nonnegative final int nCapacity)
+  {
+    ValueEnforcer.isGT0 (nCapacity, "Capacity");
+    m_nCapacity = nCapacity;
+    m_aExchangeMillis = new long [nCapacity];
+    m_aReceiving = new long [(nCapacity + Long.SIZE - 1) / Long.SIZE];
+    m_aCodes = new int [COL_COUNT] [nCapacity];
+  }
+
+  /**
+   * @return The maximum number of items in this batch. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getCapacity ()
+  {
+    return m_nCapacity;
+  }
+
+  /**
+   * @return The number of items currently contained. Always &ge; 0.
+   */
+  @Nonnegative
+  public int size ()
+  {
+    return m_nSize;
+  }
+
+  public boolean isEmpty ()
+  {
+    return m_nSize == 0;
+  }
+
+  public boolean isFull ()
+  {
+    return m_nSize == m_nCapacity;
+  }
+
+  /**
+   * Remove all items and reset the dictionary. The allocated arrays are kept.
+   */
+  public void clear ()
+  {
+    Arrays.fill (m_aReceiving, 0L);
+    m_nSize = 0;
+    Arrays.fill (m_aCodeTable, 0);
+    Arrays.fill (m_aValues, 0, m_nValueCount, null);
+    m_nValueCount = 0;
+  }
+
+  private static int _getSlot (@NonNull final String s, final int nMask)
+  {
+    // Spread the bits, because String hash codes are not well distributed in the lower bits
+    final int h = s.hashCode () * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & nMask;
+  }
+
+  private void _growCodeTable ()
+  {
+    final int [] aNewTable = new int [m_aCodeTable.length * 2];
+    final int nMask = aNewTable.length - 1;
+    for (int nCode = 0; nCode < m_nValueCount; ++nCode)
+    {
+      int nSlot = _getSlot (m_aValues[nCode], nMask);
+      while (aNewTable[nSlot] != 0)
+        nSlot = (nSlot + 1) & nMask;
+      aNewTable[nSlot] = nCode + 1;
+    }
+    m_aCodeTable = aNewTable;
+    m_aValues = Arrays.copyOf (m_aValues, aNewTable.length / 2);
+  }
+
+  private int _getOrAddCode (@Nullable final String s)
+  {
+    if (s == null)
+      return CODE_NULL;
+
+    final int nMask = m_aCodeTable.length - 1;
+    int nSlot = _getSlot (s, nMask);
+    int nEntry;
+    while ((nEntry = m_aCodeTable[nSlot]) != 0)
+    {
+      final String sValue = m_aValues[nEntry - 1];
+      if (sValue == s || sValue.equals (s))
+        return nEntry - 1;
+      nSlot = (nSlot + 1) & nMask;
+    }
+
+    final int ret = m_nValueCount++;
+    m_aValues[ret] = s;
+    m_aCodeTable[nSlot] = ret + 1;
+    // Keep the load factor at 1/2 at most
+    if (m_nValueCount == m_aValues.length)
+      _growCodeTable ();
+    return ret;
+  }
+
+  /**
+   * Append a single item from raw values, e.g. from a database row.
+   *
+   * @param nExchangeEpochMillis
+   *        The exchange date time in milliseconds since the epoch.
+   * @param bReceiving
+   *        <code>true</code> for receiving, <code>false</code> for sending.
+   * @param sC2ID
+   *        C2 ID.
+   * @param sC3ID
+   *        C3 ID.
+   * @param sDocTypeIDScheme
+   *        Document type identifier scheme.
+   * @param sDocTypeIDValue
+   *        Document type identifier value.
+   * @param sProcessIDScheme
+   *        Process identifier scheme.
+   * @param sProcessIDValue
+   *        Process identifier value.
+   * @param sTransportProtocol
+   *        Transport protocol.
+   * @param sC1CC
+   *        C1 country code.
+   * @param sC4CC
+   *        C4 country code. May be <code>null</code>.
+   * @param sEndUserID
+   *        End user ID.
+   * @throws IllegalStateException
+   *         If the batch is full
+   */
+  public void add (final long nExchangeEpochMillis,
+                   final boolean bReceiving,
+                   @NonNull final String sC2ID,
+                   @NonNull final String sC3ID,
+                   @NonNull final String sDocTypeIDScheme,
+                   @NonNull final String sDocTypeIDValue,
+                   @NonNull final String sProcessIDScheme,
+                   @NonNull final String sProcessIDValue,
+                   @NonNull final String sTransportProtocol,
+                   @NonNull final String sC1CC,
+                   @Nullable final String sC4CC,
+                   @NonNull final String sEndUserID)
+  {
+    if (m_nSize == m_nCapacity)
+      throw new IllegalStateException ("The reporting item batch is full");
+
+    final int nIndex = m_nSize;
+    m_aExchangeMillis[nIndex] = nExchangeEpochMillis;
+    if (bReceiving)
+      m_aReceiving[nIndex / Long.SIZE] |= 1L << (nIndex & (Long.SIZE - 1));
+    m_aCodes[COL_C2ID][nIndex] = _getOrAddCode (sC2ID);
+    m_aCodes[COL_C3ID][nIndex] = _getOrAddCode (sC3ID);
+    m_aCodes[COL_DOCTYPE_SCHEME][nIndex] = _getOrAddCode (sDocTypeIDScheme);
+    m_aCodes[COL_DOCTYPE_VALUE][nIndex] = _getOrAddCode (sDocTypeIDValue);
+    m_aCodes[COL_PROCESS_SCHEME][nIndex] = _getOrAddCode (sProcessIDScheme);
+    m_aCodes[COL_PROCESS_VALUE][nIndex] = _getOrAddCode (sProcessIDValue);
+    m_aCodes[COL_TRANSPORT_PROTOCOL][nIndex] = _getOrAddCode (sTransportProtocol);
+    m_aCodes[COL_C1CC][nIndex] = _getOrAddCode (sC1CC);
+    m_aCodes[COL_C4CC][nIndex] = _getOrAddCode (sC4CC);
+    m_aCodes[COL_END_USER_ID][nIndex] = _getOrAddCode (sEndUserID);
+    m_nSize++;
+  }
+
+  /**
+   * Append a single item.
+   *
+   * @param aItem
+   *        The item or view to append. May not be <code>null</code>. It is not referenced after
+   *        this call.
+   * @throws IllegalStateException
+   *         If the batch is full
+   */
+  public void add (@NonNull final IPeppolReportingItemView aItem)
+  {
+    ValueEnforcer.notNull (aItem, "Item");
+    add (aItem.getExchangeEpochMillis (),
+         aItem.isReceiving (),
+         aItem.getC2ID (),
+         aItem.getC3ID (),
+         aItem.getDocTypeIDScheme (),
+         aItem.getDocTypeIDValue (),
+         aItem.getProcessIDScheme (),
+         aItem.getProcessIDValue (),
+         aItem.getTransportProtocol (),
+         aItem.getC1CountryCode (),
+         aItem.getC4CountryCode (),
+         aItem.getEndUserID ());
+  }
+
+  /**
+   * @param nIndex
+   *        The item index. Must be &ge; 0 and &lt; {@link #size()}.
+   * @return The exchange date time of the item in milliseconds since the epoch.
+   */
+  public long getExchangeEpochMillis (@Nonnegative final int nIndex)
+  {
+    return m_aExchangeMillis[nIndex];
+  }
+
+  /**
+   * @param nIndex
+   *        The item index. Must be &ge; 0 and &lt; {@link #size()}.
+   * @return <code>true</code> if the item is for receiving, <code>false</code> if it is for
+   *         sending.
+   */
+  public boolean isReceiving (@Nonnegative final int nIndex)
+  {
+    return (m_aReceiving[nIndex / Long.SIZE] & (1L << (nIndex & (Long.SIZE - 1)))) != 0;
+  }
+
+  /**
+   * Get the code column for direct access in loops. Only the first {@link #size()} entries are
+   * valid.
+   *
+   * @param nCol
+   *        The column index. One of the <code>COL_*</code> constants.
+   * @return The internal array. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableObject ("Performance")
+  public int [] getCodes (@Nonnegative final int nCol)
+  {
+    return m_aCodes[nCol];
+  }
+
+  /**
+   * @param nCol
+   *        The column index. One of the <code>COL_*</code> constants.
+   * @param nIndex
+   *        The item index. Must be &ge; 0 and &lt; {@link #size()}.
+   * @return The dictionary code of the value.
+   */
+  public int getCode (@Nonnegative final int nCol, @Nonnegative final int nIndex)
+  {
+    return m_aCodes[nCol][nIndex];
+  }
+
+  /**
+   * @return The number of distinct values in the dictionary of the current chunk. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getDictionarySize ()
+  {
+    return m_nValueCount;
+  }
+
+  /**
+   * @param nCode
+   *        The dictionary code.
+   * @return The value for the code. <code>null</code> for {@link #CODE_NULL}.
+   */
+  @Nullable
+  public String getString (final int nCode)
+  {
+    return nCode == CODE_NULL ? null : m_aValues[nCode];
+  }
+
+  /**
+   * Pass a view of each item to the provided consumer. The same view object is used for all items.
+   *
+   * @param aConsumer
+   *        The consumer to invoke. May not be <code>null</code>.
+   */
+  public void forEachView (@NonNull final Consumer <? super IPeppolReportingItemView> aConsumer)
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+    final Cursor aCursor = new Cursor ();
+    for (int i = 0; i < m_nSize; ++i)
+    {
+      aCursor.m_nIndex = i;
+      aConsumer.accept (aCursor);
+    }
+  }
+}
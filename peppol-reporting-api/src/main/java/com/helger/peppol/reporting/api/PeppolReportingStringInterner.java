@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.concurrent.SimpleLock;
+import com.helger.base.enforce.ValueEnforcer;
+
+/**
+ * A bounded, concurrent pool of canonical string instances. Most fields of a
+ * {@link PeppolReportingItem} (service provider IDs, document type and process identifiers,
+ * transport protocol and country codes) only take a small number of distinct values, so sharing
+ * one instance per value considerably reduces the heap needed for large numbers of items. Once the
+ * maximum size is reached, the least recently used values are evicted, so that values that are no
+ * longer used do not stay in the pool forever. The pool is split into independently locked
+ * segments, each with its own least recently used order.
+ * <p>
+ * The global instance is used by {@link PeppolReportingItem.Builder} and by the backends when
+ * reading items. It can be replaced or disabled via {@link #setGlobalInstance(PeppolReportingStringInterner)}.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@ThreadSafe
+public final class PeppolReportingStringInterner
+{
+  /** The default maximum number of distinct values of the global instance */
+  public static final int DEFAULT_MAX_SIZE = 10_000;
+
+  private static volatile PeppolReportingStringInterner s_aGlobal = new PeppolReportingStringInterner (DEFAULT_MAX_SIZE);
+
+  private static final class Segment
+  {
+    private final SimpleLock m_aLock = new SimpleLock ();
+    private final Map <String, String> m_aMap;
+
+    Segment (final int nMaxSize)
+    {
+      m_aMap = new LinkedHashMap <> (16, 0.75f, true)
+      {
+        @Override
+        protected boolean removeEldestEntry (final Map.Entry <String, String> aEldest)
+        {
+          return size () > nMaxSize;
+        }
+      };
+    }
+  }
+
+  private final int m_nMaxSize;
+  private final Segment [] m_aSegments;
+
+  /**
+   * @param nMaxSize
+   *        The maximum number of distinct values to keep. Must be &gt; 0.
+   */
+  public PeppolReportingStringInterner (@Nonnegative final int nMaxSize)
+  {
+    ValueEnforcer.isGT0 (nMaxSize, "MaxSize");
+    m_nMaxSize = nMaxSize;
+    // Small pools use a single segment, so that the least recently used order is exact
+    final int nSegments = Integer.highestOneBit (Math.max (1, Math.min (16, nMaxSize / 256)));
+    m_aSegments = new Segment [nSegments];
+    for (int i = 0; i < nSegments; ++i)
+      m_aSegments[i] = new Segment ((nMaxSize + nSegments - 1 - i) / nSegments);
+  }
+
+  /**
+   * @return The maximum number of distinct values. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getMaxSize ()
+  {
+    return m_nMaxSize;
+  }
+
+  /**
+   * @return The number of distinct values currently contained. Always &ge; 0.
+   */
+  @Nonnegative
+  public int size ()
+  {
+    int ret = 0;
+    for (final Segment aSegment : m_aSegments)
+      ret += aSegment.m_aLock.lockedGet (aSegment.m_aMap::size).intValue ();
+    return ret;
+  }
+
+  /**
+   * Get the canonical instance of the provided string. If the pool is full, the least recently
+   * used value of the segment is evicted.
+   *
+   * @param s
+   *        The string to intern. May be <code>null</code>.
+   * @return The canonical instance, or the parameter itself if it is <code>null</code> or was not
+   *         contained yet.
+   */
+  @Nullable
+  public String intern (@Nullable final String s)
+  {
+    if (s == null)
+      return null;
+    final int nHash = s.hashCode ();
+    final Segment aSegment = m_aSegments[(nHash ^ (nHash >>> 16)) & (m_aSegments.length - 1)];
+    return aSegment.m_aLock.lockedGet ( () -> aSegment.m_aMap.computeIfAbsent (s, k -> k));
+  }
+
+  /**
+   * Remove all values from the pool.
+   */
+  public void clear ()
+  {
+    for (final Segment aSegment : m_aSegments)
+      aSegment.m_aLock.locked (aSegment.m_aMap::clear);
+  }
+
+  /**
+   * @return The global instance. May be <code>null</code> if interning was disabled.
+   */
+  @Nullable
+  public static PeppolReportingStringInterner getGlobalInstance ()
+  {
+    return s_aGlobal;
+  }
+
+  /**
+   * Set the global instance.
+   *
+   * @param aInterner
+   *        The new global instance. May be <code>null</code> to disable interning.
+   */
+  public static void setGlobalInstance (@Nullable final PeppolReportingStringInterner aInterner)
+  {
+    s_aGlobal = aInterner;
+  }
+
+  /**
+   * Intern the provided string with the global instance, if interning is enabled.
+   *
+   * @param s
+   *        The string to intern. May be <code>null</code>.
+   * @return The canonical instance or the parameter itself.
+   */
+  @Nullable
+  public static String internGlobal (@Nullable final String s)
+  {
+    final PeppolReportingStringInterner aGlobal = s_aGlobal;
+    return aGlobal == null ? s : aGlobal.intern (s);
+  }
+}
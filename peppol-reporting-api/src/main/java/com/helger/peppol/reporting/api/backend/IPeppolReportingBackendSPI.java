@@ -16,19 +16,34 @@
  */
 package com.helger.peppol.reporting.api.backend;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
 import com.helger.annotation.style.IsSPIInterface;
 import com.helger.base.enforce.ValueEnforcer;
 import com.helger.base.name.IHasDisplayName;
+import com.helger.base.numeric.mutable.MutableLong;
 import com.helger.base.state.ESuccess;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
 import com.helger.config.IConfig;
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.IPeppolReportingItemView;
+import com.helger.peppol.reporting.api.PeppolReportingHelper;
 import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.api.PeppolReportingItemBatch;
 
 /**
  * A generic interface for writing and reading reporting items.
@@ -83,6 +98,38 @@ public interface IPeppolReportingBackendSPI extends IHasDisplayName
    */
   void storeReportingItem (@NonNull PeppolReportingItem aReportingItem) throws PeppolReportingBackendException;
 
+  /**
+   * Write a new {@link PeppolReportingItem} to the data storage asynchronously. This allows the
+   * caller to hand off the item without waiting for remote I/O, while still seeing failures via
+   * the returned future. The default implementation runs
+   * {@link #storeReportingItem(PeppolReportingItem)} on the executor provided by
+   * {@link PeppolReportingBackend#getAsyncExecutor()}. Backends may override this with a native
+   * asynchronous implementation.
+   *
+   * @param aReportingItem
+   *        The reporting item to write. Must not be <code>null</code>.
+   * @return The future that is completed after the item was stored. If storing fails, it is
+   *         completed exceptionally with a {@link java.util.concurrent.CompletionException}
+   *         wrapping the {@link PeppolReportingBackendException}. Never <code>null</code>.
+   * @since 4.2.1
+   */
+  @NonNull
+  default CompletableFuture <Void> storeReportingItemAsync (@NonNull final PeppolReportingItem aReportingItem)
+  {
+    ValueEnforcer.notNull (aReportingItem, "ReportingItem");
+
+    return CompletableFuture.runAsync ( () -> {
+      try
+      {
+        storeReportingItem (aReportingItem);
+      }
+      catch (final PeppolReportingBackendException ex)
+      {
+        throw new CompletionException (ex);
+      }
+    }, PeppolReportingBackend.getAsyncExecutor ());
+  }
+
   /**
    * Iterate all {@link PeppolReportingItem} objects in the provided date range.
    * Both the start and the end date are <b>inclusive</b>. If the iteration is
@@ -109,6 +156,143 @@ public interface IPeppolReportingBackendSPI extends IHasDisplayName
   Iterable <PeppolReportingItem> iterateReportingItems (@NonNull LocalDate aStartDateIncl,
                                                         @NonNull LocalDate aEndDateIncl) throws PeppolReportingBackendException;
 
+  /**
+   * Stream all {@link PeppolReportingItem} objects in the provided date range. The stream is backed
+   * by a {@link PeppolReportingDayRangeSpliterator} that splits along day boundaries, so that
+   * {@link Stream#parallel()} reads disjoint sub ranges concurrently. The default implementation
+   * reads each sub range via {@link #iterateReportingItems(LocalDate, LocalDate)}. The stream
+   * should be closed after usage (e.g. via try-with-resources) to release all backend resources.
+   * Errors while reading are thrown as {@link IllegalStateException}. As with
+   * {@link #iterateReportingItems(LocalDate, LocalDate)} the ordering is <b>unspecified</b>.
+   *
+   * @param aStartDateIncl
+   *        The date to start iterating, including this date. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        The date to stop iterating, including this date. May not be <code>null</code>. Must not
+   *        be before the start date.
+   * @return A new lazy {@link Stream} over all matching reporting items. Never <code>null</code>.
+   * @throws PeppolReportingBackendException
+   *         In case of an unrecoverable error
+   * @since 4.2.1
+   */
+  @NonNull
+  default Stream <PeppolReportingItem> streamReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                                             @NonNull final LocalDate aEndDateIncl) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting backend " + getDisplayName () + " is not initialized");
+
+    return PeppolReportingDayRangeSpliterator.createStream (aStartDateIncl,
+                                                            aEndDateIncl,
+                                                            (aSubStart, aSubEnd) -> iterateReportingItems (aSubStart,
+                                                                                                           aSubEnd).iterator ());
+  }
+
+  /**
+   * Get a {@link Flow.Publisher} for all {@link PeppolReportingItem} objects in the provided date
+   * range. Items are only read from the backend if the subscriber signalled demand, and never more
+   * than requested. Each subscription reads the range anew. The default implementation reads one
+   * day after the other via {@link #iterateReportingItems(LocalDate, LocalDate)}. As with
+   * {@link #iterateReportingItems(LocalDate, LocalDate)} the ordering is <b>unspecified</b>.
+   *
+   * @param aStartDateIncl
+   *        The date to start iterating, including this date. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        The date to stop iterating, including this date. May not be <code>null</code>. Must not
+   *        be before the start date.
+   * @return A new {@link PeppolReportingItemPublisher}. Never <code>null</code>.
+   * @throws PeppolReportingBackendException
+   *         In case of an unrecoverable error
+   * @since 4.2.1
+   */
+  @NonNull
+  default Flow.Publisher <PeppolReportingItem> publishReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                                                      @NonNull final LocalDate aEndDateIncl) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting backend " + getDisplayName () + " is not initialized");
+
+    final PeppolReportingDayRangeSpliterator.IRangeReader aDayReader = (aDayStart,
+                                                                        aDayEnd) -> iterateReportingItems (aDayStart,
+                                                                                                           aDayEnd).iterator ();
+    return new PeppolReportingItemPublisher (nMaxChunkSize -> PeppolReportingItemPublisher.IChunkSource.ofDays (aStartDateIncl,
+                                                                                                                aEndDateIncl,
+                                                                                                                aDayReader));
+  }
+
+  /**
+   * Read a single page of {@link PeppolReportingItem} objects in the provided date range. This
+   * allows processing a large range in many small transactions, and to resume after a crash by
+   * persisting the continuation token. The default implementation uses the day and the index
+   * inside the day as the position, and reads each day via
+   * {@link #iterateReportingItems(LocalDate, LocalDate)}. It therefore needs to skip the already
+   * read items of the current day and requires a stable ordering within a day. Backends should
+   * override this with a native keyset pagination.
+   *
+   * @param aStartDateIncl
+   *        The date to start reading, including this date. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        The date to stop reading, including this date. May not be <code>null</code>. Must not
+   *        be before the start date.
+   * @param nPageSize
+   *        The maximum number of items per page. Must be &gt; 0.
+   * @param sContinuationToken
+   *        The continuation token of the previous page of the same date range. May be
+   *        <code>null</code> to read the first page.
+   * @return The page. Never <code>null</code>. If the page has no continuation token, it is the
+   *         last page.
+   * @throws PeppolReportingBackendException
+   *         In case of an unrecoverable error
+   * @throws IllegalArgumentException
+   *         If the continuation token is invalid
+   * @since 4.2.1
+   */
+  @NonNull
+  default PeppolReportingItemPage readReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                                      @NonNull final LocalDate aEndDateIncl,
+                                                      @Nonnegative final int nPageSize,
+                                                      @Nullable final String sContinuationToken) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    ValueEnforcer.isGT0 (nPageSize, "PageSize");
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting backend " + getDisplayName () + " is not initialized");
+
+    final PeppolReportingDayPosition aStartPos = PeppolReportingDayPosition.getStartPosition (aStartDateIncl,
+                                                                                              sContinuationToken);
+    final ICommonsList <PeppolReportingItem> ret = new CommonsArrayList <> ();
+    LocalDate aDay = aStartPos.getDay ();
+    long nSkip = aStartPos.getPosition ();
+    while (aDay.compareTo (aEndDateIncl) <= 0)
+    {
+      long nIndex = 0;
+      for (final PeppolReportingItem aItem : iterateReportingItems (aDay, aDay))
+      {
+        if (nIndex >= nSkip)
+        {
+          if (ret.size () == nPageSize)
+          {
+            // There is at least one more item
+            return new PeppolReportingItemPage (ret, new PeppolReportingDayPosition (aDay, nIndex).getAsToken ());
+          }
+          ret.add (aItem);
+        }
+        nIndex++;
+      }
+      aDay = aDay.plusDays (1);
+      nSkip = 0;
+    }
+    return PeppolReportingItemPage.createLastPage (ret);
+  }
+
   /**
    * Iterate all {@link PeppolReportingItem} objects in the provided month. If
    * the iteration is lazy or eager depends on the backing implementation. As
@@ -129,6 +313,49 @@ public interface IPeppolReportingBackendSPI extends IHasDisplayName
     return iterateReportingItems (aYearMonth.atDay (1), aYearMonth.atEndOfMonth ());
   }
 
+  /**
+   * Iterate all {@link PeppolReportingItem} objects with an exchange date time in the provided
+   * instant range, e.g. for incremental processing of the last hour. As with
+   * {@link #iterateReportingItems(LocalDate, LocalDate)} the ordering of the returned items is
+   * <b>unspecified</b>. The default implementation scans the UTC days of the range via
+   * {@link #forEachReportingItemView(LocalDate, LocalDate, Consumer)} and filters in Java, so
+   * backends with an index on the exchange date time should override it.
+   *
+   * @param aFromIncl
+   *        The first instant to include. May not be <code>null</code>.
+   * @param aToExcl
+   *        The first instant to exclude. May not be <code>null</code>. Must not be before the start
+   *        instant.
+   * @return An {@link Iterable} over all matching reporting items.
+   * @throws PeppolReportingBackendException
+   *         In case of an unrecoverable error
+   * @since 4.2.1
+   */
+  @NonNull
+  default Iterable <PeppolReportingItem> iterateReportingItems (@NonNull final Instant aFromIncl,
+                                                               @NonNull final Instant aToExcl) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aFromIncl, "FromIncl");
+    ValueEnforcer.notNull (aToExcl, "ToExcl");
+    ValueEnforcer.isFalse ( () -> aToExcl.isBefore (aFromIncl), "ToExcl must be >= FromIncl");
+
+    final ICommonsList <PeppolReportingItem> ret = new CommonsArrayList <> ();
+    final long nFromMillis = PeppolReportingHelper.getCeilingEpochMillis (aFromIncl);
+    final long nToMillis = PeppolReportingHelper.getCeilingEpochMillis (aToExcl);
+    if (nFromMillis < nToMillis)
+    {
+      // Exchange date times are stored in UTC
+      final LocalDate aStartDate = LocalDate.ofInstant (Instant.ofEpochMilli (nFromMillis), ZoneOffset.UTC);
+      final LocalDate aEndDate = LocalDate.ofInstant (Instant.ofEpochMilli (nToMillis - 1), ZoneOffset.UTC);
+      forEachReportingItemView (aStartDate, aEndDate, aView -> {
+        final long nMillis = aView.getExchangeEpochMillis ();
+        if (nMillis >= nFromMillis && nMillis < nToMillis)
+          ret.add (aView.getAsItem ());
+      });
+    }
+    return ret;
+  }
+
   /**
    * Iterate all {@link PeppolReportingItem} objects in the provided date range,
    * in the correct order.
@@ -177,4 +404,320 @@ public interface IPeppolReportingBackendSPI extends IHasDisplayName
   {
     iterateReportingItems (aYearMonth).forEach (aConsumer);
   }
+
+  /**
+   * Scan all reporting items in the provided date range and pass a read-only view of each one to
+   * the provided consumer. Backends may implement this with a single cursor object that is
+   * positioned on the current row, so that no {@link PeppolReportingItem} needs to be created per
+   * row. Therefore the view passed to the consumer is only valid during the invocation of the
+   * consumer and must not be stored - use {@link IPeppolReportingItemView#getAsItem()} instead. As
+   * with {@link #iterateReportingItems(LocalDate, LocalDate)} the ordering is <b>unspecified</b>.
+   *
+   * @param aStartDateIncl
+   *        The date to start iterating, including this date. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        The date to stop iterating, including this date. May not be <code>null</code>. Must not
+   *        be before the start date.
+   * @param aConsumer
+   *        The consumer to be invoked for each item found. May not be <code>null</code>.
+   * @throws PeppolReportingBackendException
+   *         In case of an unrecoverable error
+   * @see #forEachReportingItem(LocalDate, LocalDate, Consumer)
+   * @since 4.2.1
+   */
+  default void forEachReportingItemView (@NonNull final LocalDate aStartDateIncl,
+                                         @NonNull final LocalDate aEndDateIncl,
+                                         @NonNull final Consumer <? super IPeppolReportingItemView> aConsumer) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+    forEachReportingItem (aStartDateIncl, aEndDateIncl, aConsumer);
+  }
+
+  /**
+   * Scan all reporting items in the provided month and pass a read-only view of each one to the
+   * provided consumer. The same restrictions as for
+   * {@link #forEachReportingItemView(LocalDate, LocalDate, Consumer)} apply.
+   *
+   * @param aYearMonth
+   *        The year and month to iterate. May not be <code>null</code>.
+   * @param aConsumer
+   *        The consumer to be invoked for each item found. May not be <code>null</code>.
+   * @throws PeppolReportingBackendException
+   *         In case of an unrecoverable error
+   * @see #forEachReportingItemView(LocalDate, LocalDate, Consumer)
+   * @since 4.2.1
+   */
+  default void forEachReportingItemView (@NonNull final YearMonth aYearMonth,
+                                         @NonNull final Consumer <? super IPeppolReportingItemView> aConsumer) throws PeppolReportingBackendException
+  {
+    forEachReportingItemView (aYearMonth.atDay (1), aYearMonth.atEndOfMonth (), aConsumer);
+  }
+
+  /**
+   * Scan all reporting items in the provided date range in chunks of up to the provided size. The
+   * same {@link PeppolReportingItemBatch} object is filled and passed to the consumer repeatedly,
+   * so it is only valid during the invocation of the consumer. Its dictionary is reset for every
+   * chunk. The default implementation fills the batch from
+   * {@link #forEachReportingItemView(LocalDate, LocalDate, Consumer)}.
+   *
+   * @param aStartDateIncl
+   *        The date to start iterating, including this date. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        The date to stop iterating, including this date. May not be <code>null</code>. Must not
+   *        be before the start date.
+   * @param nBatchSize
+   *        The maximum number of items per batch. Must be &gt; 0.
+   * @param aConsumer
+   *        The consumer to be invoked for each non-empty batch. May not be <code>null</code>.
+   * @throws PeppolReportingBackendException
+   *         In case of an unrecoverable error
+   * @since 4.2.1
+   */
+  default void forEachReportingItemBatch (@NonNull final LocalDate aStartDateIncl,
+                                          @NonNull final LocalDate aEndDateIncl,
+                                          @Nonnegative final int nBatchSize,
+                                          @NonNull final Consumer <? super PeppolReportingItemBatch> aConsumer) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    final PeppolReportingItemBatch aBatch = new PeppolReportingItemBatch (nBatchSize);
+    forEachReportingItemView (aStartDateIncl, aEndDateIncl, aView -> {
+      aBatch.add (aView);
+      if (aBatch.isFull ())
+      {
+        aConsumer.accept (aBatch);
+        aBatch.clear ();
+      }
+    });
+    if (!aBatch.isEmpty ())
+      aConsumer.accept (aBatch);
+  }
+
+  /**
+   * Count the reporting items in the provided date range, optionally restricted to one direction,
+   * without transferring the items themselves. This is e.g. meant for monitoring and for
+   * pre-sizing report buffers. The default implementation counts the views of
+   * {@link #forEachReportingItemView(LocalDate, LocalDate, Consumer)}, so backends should override
+   * it with a native count.
+   *
+   * @param aStartDateIncl
+   *        The date to start counting, including this date. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        The date to stop counting, including this date. May not be <code>null</code>. Must not
+   *        be before the start date.
+   * @param eDirection
+   *        The direction to count. May be <code>null</code> to count both directions.
+   * @return The number of matching reporting items. Always &ge; 0.
+   * @throws PeppolReportingBackendException
+   *         In case of an unrecoverable error
+   * @since 4.2.1
+   */
+  @Nonnegative
+  default long countReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                    @NonNull final LocalDate aEndDateIncl,
+                                    @Nullable final EReportingDirection eDirection) throws PeppolReportingBackendException
+  {
+    final MutableLong aCount = new MutableLong (0);
+    forEachReportingItemView (aStartDateIncl, aEndDateIncl, aView -> {
+      if (eDirection == null || aView.getDirection () == eDirection)
+        aCount.inc ();
+    });
+    return aCount.longValue ();
+  }
+
+  /**
+   * Count all reporting items in the provided date range, without transferring the items
+   * themselves.
+   *
+   * @param aStartDateIncl
+   *        The date to start counting, including this date. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        The date to stop counting, including this date. May not be <code>null</code>. Must not
+   *        be before the start date.
+   * @return The number of reporting items. Always &ge; 0.
+   * @throws PeppolReportingBackendException
+   *         In case of an unrecoverable error
+   * @see #countReportingItems(LocalDate, LocalDate, EReportingDirection)
+   * @since 4.2.1
+   */
+  @Nonnegative
+  default long countReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                    @NonNull final LocalDate aEndDateIncl) throws PeppolReportingBackendException
+  {
+    return countReportingItems (aStartDateIncl, aEndDateIncl, null);
+  }
+
+  /**
+   * Scan all reporting items in the provided date range that match the criteria of the provided
+   * query and pass a read-only view of each one to the provided consumer. Only the fields of the
+   * projection of the query are guaranteed to be filled - the values of all other fields are
+   * undefined and may be <code>null</code>, and {@link IPeppolReportingItemView#getAsItem()} may
+   * fail for a partial projection. The same restrictions as for
+   * {@link #forEachReportingItemView(LocalDate, LocalDate, Consumer)} apply. The default
+   * implementation filters all views in Java, so backends should override it with a native query.
+   *
+   * @param aStartDateIncl
+   *        The date to start iterating, including this date. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        The date to stop iterating, including this date. May not be <code>null</code>. Must not
+   *        be before the start date.
+   * @param aQuery
+   *        The query with the criteria and the projection. May not be <code>null</code>.
+   * @param aConsumer
+   *        The consumer to be invoked for each matching item. May not be <code>null</code>.
+   * @throws PeppolReportingBackendException
+   *         In case of an unrecoverable error
+   * @since 4.2.1
+   */
+  default void forEachReportingItemView (@NonNull final LocalDate aStartDateIncl,
+                                         @NonNull final LocalDate aEndDateIncl,
+                                         @NonNull final PeppolReportingItemQuery aQuery,
+                                         @NonNull final Consumer <? super IPeppolReportingItemView> aConsumer) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aQuery, "Query");
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    if (aQuery.hasCriteria ())
+      forEachReportingItemView (aStartDateIncl, aEndDateIncl, aView -> {
+        if (aQuery.matches (aView))
+          aConsumer.accept (aView);
+      });
+    else
+      forEachReportingItemView (aStartDateIncl, aEndDateIncl, aConsumer);
+  }
+
+  /**
+   * Iterate all reporting items in the provided date range that match the criteria of the provided
+   * query. The projection of the query is ignored, as complete items are created. This uses
+   * {@link #forEachReportingItemView(LocalDate, LocalDate, PeppolReportingItemQuery, Consumer)}.
+   *
+   * @param aStartDateIncl
+   *        The date to start iterating, including this date. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        The date to stop iterating, including this date. May not be <code>null</code>. Must not
+   *        be before the start date.
+   * @param aQuery
+   *        The query with the criteria. May not be <code>null</code>.
+   * @param aConsumer
+   *        The consumer to be invoked for each matching item. May not be <code>null</code>.
+   * @throws PeppolReportingBackendException
+   *         In case of an unrecoverable error
+   * @since 4.2.1
+   */
+  default void forEachReportingItem (@NonNull final LocalDate aStartDateIncl,
+                                     @NonNull final LocalDate aEndDateIncl,
+                                     @NonNull final PeppolReportingItemQuery aQuery,
+                                     @NonNull final Consumer <? super PeppolReportingItem> aConsumer) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aQuery, "Query");
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    // Complete items require all fields
+    final PeppolReportingItemQuery aFullQuery = aQuery.isFullProjection () ? aQuery
+                                                                          : new PeppolReportingItemQuery (aQuery).projectionAll ();
+    forEachReportingItemView (aStartDateIncl, aEndDateIncl, aFullQuery, aView -> aConsumer.accept (aView.getAsItem ()));
+  }
+
+  /**
+   * Check if this backend assigns a monotonically increasing store sequence to each stored item, so
+   * that {@link #getCurrentStoreSequence()} and {@link #iterateStoredSince(long, long, int)} can be
+   * used.
+   *
+   * @return <code>true</code> if the store sequence is supported, <code>false</code> if not.
+   * @since 4.2.1
+   */
+  default boolean isStoreSequenceSupported ()
+  {
+    return false;
+  }
+
+  /**
+   * Get the highest store sequence assigned so far. Sequences start at 1 and may contain gaps.
+   *
+   * @return The current store sequence or 0 if no item was stored so far.
+   * @throws PeppolReportingBackendException
+   *         In case of an unrecoverable error
+   * @throws UnsupportedOperationException
+   *         If {@link #isStoreSequenceSupported()} returns <code>false</code>
+   * @since 4.2.1
+   */
+  @Nonnegative
+  default long getCurrentStoreSequence () throws PeppolReportingBackendException
+  {
+    throw new UnsupportedOperationException ("The store sequence is not supported by " + getDisplayName ());
+  }
+
+  /**
+   * Get the highest store sequence up to which every stored item is visible. Items with a lower or
+   * equal sequence that are not visible yet will never become visible, so reading the change feed
+   * up to this sequence never misses an item. With concurrent writers this may be lower than
+   * {@link #getCurrentStoreSequence()}, because items are not necessarily committed in the order
+   * of their sequence.
+   *
+   * @return The safe store sequence or 0 if no item was stored so far.
+   * @throws PeppolReportingBackendException
+   *         In case of an unrecoverable error
+   * @throws UnsupportedOperationException
+   *         If {@link #isStoreSequenceSupported()} returns <code>false</code>
+   * @since 4.2.1
+   */
+  @Nonnegative
+  default long getSafeStoreSequence () throws PeppolReportingBackendException
+  {
+    return getCurrentStoreSequence ();
+  }
+
+  /**
+   * Read the reporting items in store order, that were stored after the provided store sequence,
+   * independent of their exchange date. This is a change feed for incremental processing and
+   * replication: start with sequence 0 and pass {@link PeppolReportingChangeBatch#getLastSequence()}
+   * to the next call. Only items up to {@link #getSafeStoreSequence()} are returned, so that no item
+   * is skipped when concurrent writers commit out of order.
+   *
+   * @param nSequenceExcl
+   *        The last store sequence already processed. Must be &ge; 0.
+   * @param nMaxItems
+   *        The maximum number of items to return. Must be &gt; 0.
+   * @return The batch of items and never <code>null</code>.
+   * @throws PeppolReportingBackendException
+   *         In case of an unrecoverable error
+   * @throws UnsupportedOperationException
+   *         If {@link #isStoreSequenceSupported()} returns <code>false</code>
+   * @see #iterateStoredSince(long, long, int)
+   * @since 4.2.1
+   */
+  @NonNull
+  default PeppolReportingChangeBatch iterateStoredSince (@Nonnegative final long nSequenceExcl,
+                                                         @Nonnegative final int nMaxItems) throws PeppolReportingBackendException
+  {
+    return iterateStoredSince (nSequenceExcl, getSafeStoreSequence (), nMaxItems);
+  }
+
+  /**
+   * Read the reporting items in store order, that were stored after the provided store sequence
+   * and up to the provided upper bound, independent of their exchange date. The last sequence of
+   * the returned batch is the sequence up to which all visible items were returned, and never
+   * exceeds the upper bound. Backends may advance it over gaps in the sequence, so an upper bound
+   * above {@link #getSafeStoreSequence()} may skip items that are not yet visible.
+   *
+   * @param nSequenceExcl
+   *        The last store sequence already processed. Must be &ge; 0.
+   * @param nSequenceToIncl
+   *        The highest store sequence to read. Must be &ge; 0.
+   * @param nMaxItems
+   *        The maximum number of items to return. Must be &gt; 0.
+   * @return The batch of items and never <code>null</code>.
+   * @throws PeppolReportingBackendException
+   *         In case of an unrecoverable error
+   * @throws UnsupportedOperationException
+   *         If {@link #isStoreSequenceSupported()} returns <code>false</code>
+   * @since 4.2.1
+   */
+  @NonNull
+  default PeppolReportingChangeBatch iterateStoredSince (@Nonnegative final long nSequenceExcl,
+                                                         @Nonnegative final long nSequenceToIncl,
+                                                         @Nonnegative final int nMaxItems) throws PeppolReportingBackendException
+  {
+    throw new UnsupportedOperationException ("The store sequence is not supported by " + getDisplayName ());
+  }
 }
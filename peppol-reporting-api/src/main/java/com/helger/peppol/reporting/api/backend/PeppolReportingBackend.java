@@ -16,13 +16,22 @@
  */
 package com.helger.peppol.reporting.api.backend;
 
+import java.lang.reflect.Method;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.helger.annotation.Nonnegative;
 import com.helger.annotation.concurrent.GuardedBy;
 import com.helger.annotation.concurrent.ThreadSafe;
 import com.helger.base.concurrent.SimpleReadWriteLock;
@@ -30,6 +39,7 @@ import com.helger.base.enforce.ValueEnforcer;
 import com.helger.base.functional.IThrowingConsumer;
 import com.helger.base.spi.ServiceLoaderHelper;
 import com.helger.base.state.ESuccess;
+import com.helger.config.ConfigFactory;
 import com.helger.config.IConfig;
 import com.helger.peppol.reporting.api.PeppolReportingAPIVersion;
 
@@ -42,11 +52,30 @@ import com.helger.peppol.reporting.api.PeppolReportingAPIVersion;
 @ThreadSafe
 public class PeppolReportingBackend
 {
+  /**
+   * Configuration key for the maximum number of threads of the default asynchronous executor, if
+   * virtual threads are not available.
+   *
+   * @since 4.2.1
+   */
+  public static final String CONFIG_PEPPOL_REPORTING_ASYNC_MAX_THREADS = "peppol.reporting.async.max-threads";
+  public static final int DEFAULT_PEPPOL_REPORTING_ASYNC_MAX_THREADS = 16;
+  /**
+   * Configuration key for the number of tasks that the default asynchronous executor queues, if
+   * virtual threads are not available. If the queue is full, the task is run by the calling thread.
+   *
+   * @since 4.2.1
+   */
+  public static final String CONFIG_PEPPOL_REPORTING_ASYNC_QUEUE_CAPACITY = "peppol.reporting.async.queue-capacity";
+  public static final int DEFAULT_PEPPOL_REPORTING_ASYNC_QUEUE_CAPACITY = 10_000;
+
   private static final Logger LOGGER = LoggerFactory.getLogger (PeppolReportingBackend.class);
 
   private static final SimpleReadWriteLock RW_LOCK = new SimpleReadWriteLock ();
   @GuardedBy ("RW_LOCK")
   private static IPeppolReportingBackendSPI s_aBackendService = _loadBackendService ();
+  @GuardedBy ("RW_LOCK")
+  private static Executor s_aAsyncExecutor;
 
   @Nullable
   private static IPeppolReportingBackendSPI _loadBackendService ()
@@ -112,6 +141,110 @@ public class PeppolReportingBackend
     return getBackendService () != null;
   }
 
+  /**
+   * Create a bounded executor for asynchronous operations, that uses a fixed maximum number of
+   * daemon threads and a bounded queue. If the queue is full, the task is run by the calling thread,
+   * so that callers are slowed down instead of tasks being dropped. Idle threads are terminated
+   * after one minute.
+   *
+   * @param nMaxThreads
+   *        The maximum number of threads. Must be &gt; 0.
+   * @param nQueueCapacity
+   *        The maximum number of queued tasks. Must be &gt; 0.
+   * @return A new executor. Never <code>null</code>.
+   * @since 4.2.1
+   */
+  @NonNull
+  public static ThreadPoolExecutor createBoundedAsyncExecutor (@Nonnegative final int nMaxThreads,
+                                                               @Nonnegative final int nQueueCapacity)
+  {
+    ValueEnforcer.isGT0 (nMaxThreads, "MaxThreads");
+    ValueEnforcer.isGT0 (nQueueCapacity, "QueueCapacity");
+
+    final AtomicInteger aThreadIndex = new AtomicInteger (0);
+    final ThreadFactory aThreadFactory = r -> {
+      final Thread t = new Thread (r, "peppol-reporting-async-" + aThreadIndex.incrementAndGet ());
+      t.setDaemon (true);
+      return t;
+    };
+    final ThreadPoolExecutor ret = new ThreadPoolExecutor (nMaxThreads,
+                                                           nMaxThreads,
+                                                           1,
+                                                           TimeUnit.MINUTES,
+                                                           new ArrayBlockingQueue <> (nQueueCapacity),
+                                                           aThreadFactory,
+                                                           new ThreadPoolExecutor.CallerRunsPolicy ());
+    ret.allowCoreThreadTimeOut (true);
+    return ret;
+  }
+
+  @NonNull
+  private static Executor _createDefaultAsyncExecutor ()
+  {
+    try
+    {
+      // Virtual threads are only available since Java 21
+      final Method aMethod = Executors.class.getMethod ("newVirtualThreadPerTaskExecutor");
+      final Executor ret = (Executor) aMethod.invoke (null);
+      LOGGER.info ("Using virtual threads for asynchronous Peppol Reporting operations");
+      return ret;
+    }
+    catch (final ReflectiveOperationException | RuntimeException ex)
+    {
+      if (LOGGER.isDebugEnabled ())
+        LOGGER.debug ("Virtual threads are not available - using a bounded daemon thread pool instead");
+    }
+
+    final IConfig aConfig = ConfigFactory.getDefaultConfig ();
+    final int nMaxThreads = aConfig.getAsInt (CONFIG_PEPPOL_REPORTING_ASYNC_MAX_THREADS,
+                                              DEFAULT_PEPPOL_REPORTING_ASYNC_MAX_THREADS);
+    final int nQueueCapacity = aConfig.getAsInt (CONFIG_PEPPOL_REPORTING_ASYNC_QUEUE_CAPACITY,
+                                                 DEFAULT_PEPPOL_REPORTING_ASYNC_QUEUE_CAPACITY);
+    return createBoundedAsyncExecutor (Math.max (1, nMaxThreads), Math.max (1, nQueueCapacity));
+  }
+
+  /**
+   * Get the executor that is used by the default implementation of
+   * {@link IPeppolReportingBackendSPI#storeReportingItemAsync(com.helger.peppol.reporting.api.PeppolReportingItem)}.
+   * If none was set explicitly, an executor using virtual threads is created on Java 21 and later,
+   * and a bounded pool of daemon threads on older Java versions (see
+   * {@link #createBoundedAsyncExecutor(int, int)}), that is configured via
+   * {@link #CONFIG_PEPPOL_REPORTING_ASYNC_MAX_THREADS} and
+   * {@link #CONFIG_PEPPOL_REPORTING_ASYNC_QUEUE_CAPACITY} in the default configuration.
+   *
+   * @return The executor for asynchronous operations. Never <code>null</code>.
+   * @since 4.2.1
+   */
+  @NonNull
+  public static Executor getAsyncExecutor ()
+  {
+    final Executor ret = RW_LOCK.readLockedGet ( () -> s_aAsyncExecutor);
+    if (ret != null)
+      return ret;
+
+    return RW_LOCK.writeLockedGet ( () -> {
+      // Try again in write lock
+      if (s_aAsyncExecutor == null)
+        s_aAsyncExecutor = _createDefaultAsyncExecutor ();
+      return s_aAsyncExecutor;
+    });
+  }
+
+  /**
+   * Set the executor to be used for asynchronous operations. The previous executor is not shut
+   * down - this remains the responsibility of the caller.
+   *
+   * @param aAsyncExecutor
+   *        The executor to use. May not be <code>null</code>.
+   * @since 4.2.1
+   */
+  public static void setAsyncExecutor (@NonNull final Executor aAsyncExecutor)
+  {
+    ValueEnforcer.notNull (aAsyncExecutor, "AsyncExecutor");
+
+    RW_LOCK.writeLocked ( () -> s_aAsyncExecutor = aAsyncExecutor);
+  }
+
   /**
    * This is a helper method that ensures that all activities with an
    * {@link IPeppolReportingBackendSPI} are wrapped in the proper init and shutdown method calls.
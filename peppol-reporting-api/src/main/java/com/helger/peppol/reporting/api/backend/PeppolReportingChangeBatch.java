@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api.backend;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * A batch of reporting items in store order, as returned by
+ * {@link IPeppolReportingBackendSPI#iterateStoredSince(long, long, int)}. The last sequence is the
+ * watermark that needs to be passed to the next call, to continue directly after the items of this
+ * batch. It may be stored persistently together with the result of processing this batch.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@Immutable
+public final class PeppolReportingChangeBatch
+{
+  private final ICommonsList <PeppolReportingItem> m_aItems;
+  private final long m_nLastSequence;
+  private final boolean m_bMoreAvailable;
+
+  /**
+   * Constructor
+   *
+   * @param aItems
+   *        The items of this batch in store order. May not be <code>null</code>.
+   * @param nLastSequence
+   *        The store sequence up to which all visible items were read. This is at least the
+   *        sequence of the last item of this batch, and the requested sequence if nothing was
+   *        read. Must be &ge; 0.
+   * @param bMoreAvailable
+   *        <code>true</code> if the maximum number of items was reached and more items may be
+   *        available directly.
+   */
+  public PeppolReportingChangeBatch (@NonNull final ICommonsList <PeppolReportingItem> aItems,
+                                     @Nonnegative final long nLastSequence,
+                                     final boolean bMoreAvailable)
+  {
+    ValueEnforcer.notNull (aItems, "Items");
+    ValueEnforcer.isGE0 (nLastSequence, "LastSequence");
+    m_aItems = aItems.getClone ();
+    m_nLastSequence = nLastSequence;
+    m_bMoreAvailable = bMoreAvailable;
+  }
+
+  /**
+   * @return A copy of all items of this batch in store order. Never <code>null</code> but maybe
+   *         empty.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <PeppolReportingItem> getAllItems ()
+  {
+    return m_aItems.getClone ();
+  }
+
+  /**
+   * @return The number of items in this batch. Always &ge; 0.
+   */
+  public int getItemCount ()
+  {
+    return m_aItems.size ();
+  }
+
+  /**
+   * @return The store sequence to pass to the next call. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getLastSequence ()
+  {
+    return m_nLastSequence;
+  }
+
+  /**
+   * @return <code>true</code> if more items may be read directly, <code>false</code> if all items
+   *         stored so far were read.
+   */
+  public boolean isMoreAvailable ()
+  {
+    return m_bMoreAvailable;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("ItemCount", m_aItems.size ())
+                                       .append ("LastSequence", m_nLastSequence)
+                                       .append ("MoreAvailable", m_bMoreAvailable)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api.backend;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+
+/**
+ * A position inside the items of a single exchange day, used as continuation token by backends
+ * that store the reporting items per day. The meaning of the position (item index or byte offset)
+ * is up to the backend.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@Immutable
+public final class PeppolReportingDayPosition
+{
+  private static final char SEPARATOR = ':';
+
+  private final LocalDate m_aDay;
+  private final long m_nPosition;
+
+  /**
+   * Constructor
+   *
+   * @param aDay
+   *        The exchange day. May not be <code>null</code>.
+   * @param nPosition
+   *        The position inside the day. Must be &ge; 0.
+   */
+  public PeppolReportingDayPosition (@NonNull final LocalDate aDay, @Nonnegative final long nPosition)
+  {
+    ValueEnforcer.notNull (aDay, "Day");
+    ValueEnforcer.isGE0 (nPosition, "Position");
+    m_aDay = aDay;
+    m_nPosition = nPosition;
+  }
+
+  /**
+   * @return The exchange day. Never <code>null</code>.
+   */
+  @NonNull
+  public LocalDate getDay ()
+  {
+    return m_aDay;
+  }
+
+  /**
+   * @return The position inside the day. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getPosition ()
+  {
+    return m_nPosition;
+  }
+
+  /**
+   * @return The continuation token representing this position. Never <code>null</code>.
+   * @see #parseToken(String)
+   */
+  @NonNull
+  @Nonempty
+  public String getAsToken ()
+  {
+    return m_aDay.toString () + SEPARATOR + m_nPosition;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Day", m_aDay).append ("Position", m_nPosition).getToString ();
+  }
+
+  /**
+   * Parse a continuation token created by {@link #getAsToken()}.
+   *
+   * @param sToken
+   *        The token to parse. May not be <code>null</code>.
+   * @return The position. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the token is invalid
+   */
+  @NonNull
+  public static PeppolReportingDayPosition parseToken (@NonNull final String sToken)
+  {
+    ValueEnforcer.notNull (sToken, "Token");
+
+    final int nIdx = sToken.indexOf (SEPARATOR);
+    if (nIdx > 0)
+    {
+      try
+      {
+        final LocalDate aDay = LocalDate.parse (sToken.substring (0, nIdx));
+        final long nPosition = Long.parseLong (sToken.substring (nIdx + 1));
+        if (nPosition >= 0)
+          return new PeppolReportingDayPosition (aDay, nPosition);
+      }
+      catch (final DateTimeParseException | NumberFormatException ex)
+      {
+        // Fall through
+      }
+    }
+    throw new IllegalArgumentException ("Invalid Peppol Reporting continuation token '" + sToken + "'");
+  }
+
+  /**
+   * Get the position to start reading a date range at.
+   *
+   * @param aStartDateIncl
+   *        The first day of the range. May not be <code>null</code>.
+   * @param sToken
+   *        The continuation token of the previous page. May be <code>null</code> to start at the
+   *        beginning.
+   * @return The position to start at. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the token is invalid
+   */
+  @NonNull
+  public static PeppolReportingDayPosition getStartPosition (@NonNull final LocalDate aStartDateIncl,
+                                                             @Nullable final String sToken)
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+
+    if (sToken != null)
+    {
+      final PeppolReportingDayPosition ret = parseToken (sToken);
+      if (ret.getDay ().compareTo (aStartDateIncl) >= 0)
+        return ret;
+    }
+    return new PeppolReportingDayPosition (aStartDateIncl, 0);
+  }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api.backend;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * A {@link Spliterator} over all reporting items of an inclusive date range that splits along day
+ * boundaries. Each part reads its own sub range via a {@link IRangeReader}, so that a parallel
+ * stream reads disjoint ranges from the backend. Once a part started reading, it can no longer be
+ * split.
+ * <p>
+ * If an iterator returned by the reader implements {@link AutoCloseable} it is closed when it is
+ * exhausted, and in any case when the stream created via {@link #createStream(LocalDate, LocalDate,
+ * IRangeReader)} is closed.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@NotThreadSafe
+public final class PeppolReportingDayRangeSpliterator implements Spliterator <PeppolReportingItem>, AutoCloseable
+{
+  /**
+   * Reads all reporting items of an inclusive date range.
+   *
+   * @author Philip Helger
+   */
+  @FunctionalInterface
+  public interface IRangeReader
+  {
+    /**
+     * @param aStartDateIncl
+     *        The first date to read. Never <code>null</code>.
+     * @param aEndDateIncl
+     *        The last date to read. Never <code>null</code>.
+     * @return The iterator over all items of the range. Never <code>null</code>.
+     * @throws PeppolReportingBackendException
+     *         In case of an unrecoverable error
+     */
+    @NonNull
+    Iterator <PeppolReportingItem> read (@NonNull LocalDate aStartDateIncl,
+                                         @NonNull LocalDate aEndDateIncl) throws PeppolReportingBackendException;
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolReportingDayRangeSpliterator.class);
+
+  private LocalDate m_aStartDateIncl;
+  private final LocalDate m_aEndDateIncl;
+  private final IRangeReader m_aReader;
+  // Shared between all parts of a stream
+  private final Queue <AutoCloseable> m_aOpenResources;
+  private Iterator <PeppolReportingItem> m_aIterator;
+
+  private PeppolReportingDayRangeSpliterator (@NonNull final LocalDate aStartDateIncl,
+                                              @NonNull final LocalDate aEndDateIncl,
+                                              @NonNull final IRangeReader aReader,
+                                              @NonNull final Queue <AutoCloseable> aOpenResources)
+  {
+    m_aStartDateIncl = aStartDateIncl;
+    m_aEndDateIncl = aEndDateIncl;
+    m_aReader = aReader;
+    m_aOpenResources = aOpenResources;
+  }
+
+  /**
+   * @param aStartDateIncl
+   *        The first date to read. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        The last date to read. May not be <code>null</code>. Must not be before the start date.
+   * @param aReader
+   *        The reader for the sub ranges. May not be <code>null</code>.
+   */
+  public PeppolReportingDayRangeSpliterator (@NonNull final LocalDate aStartDateIncl,
+                                             @NonNull final LocalDate aEndDateIncl,
+                                             @NonNull final IRangeReader aReader)
+  {
+    this (aStartDateIncl, aEndDateIncl, aReader, new ConcurrentLinkedQueue <> ());
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    ValueEnforcer.notNull (aReader, "Reader");
+  }
+
+  @NonNull
+  private Iterator <PeppolReportingItem> _getIterator ()
+  {
+    Iterator <PeppolReportingItem> ret = m_aIterator;
+    if (ret == null)
+    {
+      try
+      {
+        ret = m_aReader.read (m_aStartDateIncl, m_aEndDateIncl);
+      }
+      catch (final PeppolReportingBackendException ex)
+      {
+        throw new IllegalStateException ("Failed to read Peppol Reporting Items between " +
+                                         m_aStartDateIncl +
+                                         " and " +
+                                         m_aEndDateIncl,
+                                         ex);
+      }
+      if (ret instanceof final AutoCloseable aCloseable)
+        m_aOpenResources.add (aCloseable);
+      m_aIterator = ret;
+    }
+    return ret;
+  }
+
+  private static void _close (@NonNull final AutoCloseable aCloseable)
+  {
+    try
+    {
+      aCloseable.close ();
+    }
+    catch (final Exception ex)
+    {
+      LOGGER.warn ("Failed to close Peppol Reporting resource " + aCloseable, ex);
+    }
+  }
+
+  private void _closeIterator ()
+  {
+    if (m_aIterator instanceof final AutoCloseable aCloseable && m_aOpenResources.remove (aCloseable))
+      _close (aCloseable);
+  }
+
+  public boolean tryAdvance (@NonNull final Consumer <? super PeppolReportingItem> aAction)
+  {
+    final Iterator <PeppolReportingItem> aIter = _getIterator ();
+    if (aIter.hasNext ())
+    {
+      aAction.accept (aIter.next ());
+      return true;
+    }
+    _closeIterator ();
+    return false;
+  }
+
+  @Override
+  public void forEachRemaining (@NonNull final Consumer <? super PeppolReportingItem> aAction)
+  {
+    _getIterator ().forEachRemaining (aAction);
+    _closeIterator ();
+  }
+
+  public PeppolReportingDayRangeSpliterator trySplit ()
+  {
+    if (m_aIterator != null)
+      return null;
+
+    final long nDays = ChronoUnit.DAYS.between (m_aStartDateIncl, m_aEndDateIncl) + 1;
+    if (nDays < 2)
+      return null;
+
+    // The prefix is split off, this instance keeps the suffix
+    final LocalDate aPrefixEnd = m_aStartDateIncl.plusDays (nDays / 2 - 1);
+    final PeppolReportingDayRangeSpliterator ret = new PeppolReportingDayRangeSpliterator (m_aStartDateIncl,
+                                                                                           aPrefixEnd,
+                                                                                           m_aReader,
+                                                                                           m_aOpenResources);
+    m_aStartDateIncl = aPrefixEnd.plusDays (1);
+    return ret;
+  }
+
+  public long estimateSize ()
+  {
+    // Unknown
+    return Long.MAX_VALUE;
+  }
+
+  public int characteristics ()
+  {
+    return NONNULL;
+  }
+
+  /**
+   * Close all resources that are still open - of this part and of all parts split off from it.
+   */
+  public void close ()
+  {
+    AutoCloseable aCloseable;
+    while ((aCloseable = m_aOpenResources.poll ()) != null)
+      _close (aCloseable);
+  }
+
+  /**
+   * Create a new sequential stream over the provided date range. Call {@link Stream#parallel()} to
+   * process the days in parallel. The stream should be closed to release all backend resources,
+   * e.g. via try-with-resources.
+   *
+   * @param aStartDateIncl
+   *        The first date to read. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        The last date to read. May not be <code>null</code>. Must not be before the start date.
+   * @param aReader
+   *        The reader for the sub ranges. May not be <code>null</code>.
+   * @return The new stream. Never <code>null</code>.
+   */
+  @NonNull
+  public static Stream <PeppolReportingItem> createStream (@NonNull final LocalDate aStartDateIncl,
+                                                           @NonNull final LocalDate aEndDateIncl,
+                                                           @NonNull final IRangeReader aReader)
+  {
+    final PeppolReportingDayRangeSpliterator aSpliterator = new PeppolReportingDayRangeSpliterator (aStartDateIncl,
+                                                                                                    aEndDateIncl,
+                                                                                                    aReader);
+    return StreamSupport.stream (aSpliterator, false).onClose (aSpliterator::close);
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api.backend;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.string.StringHelper;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * A single page of reporting items as returned by
+ * {@link IPeppolReportingBackendSPI#readReportingItems(java.time.LocalDate, java.time.LocalDate, int, String)}.
+ * The continuation token is opaque and specific to the backend that created it. It may be stored
+ * persistently to resume reading later on, with the same date range.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@Immutable
+public final class PeppolReportingItemPage
+{
+  private final ICommonsList <PeppolReportingItem> m_aItems;
+  private final String m_sContinuationToken;
+
+  /**
+   * Constructor
+   *
+   * @param aItems
+   *        The items of this page. May not be <code>null</code>.
+   * @param sContinuationToken
+   *        The token to read the next page. May be <code>null</code> if this is the last page.
+   */
+  public PeppolReportingItemPage (@NonNull final ICommonsList <PeppolReportingItem> aItems,
+                                  @Nullable final String sContinuationToken)
+  {
+    ValueEnforcer.notNull (aItems, "Items");
+    m_aItems = aItems.getClone ();
+    m_sContinuationToken = sContinuationToken;
+  }
+
+  /**
+   * @return A copy of all items of this page. Never <code>null</code> but maybe empty.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <PeppolReportingItem> getAllItems ()
+  {
+    return m_aItems.getClone ();
+  }
+
+  /**
+   * @return The number of items on this page. Always &ge; 0.
+   */
+  public int getItemCount ()
+  {
+    return m_aItems.size ();
+  }
+
+  /**
+   * @return The opaque token to read the next page. <code>null</code> if this is the last page.
+   */
+  @Nullable
+  public String getContinuationToken ()
+  {
+    return m_sContinuationToken;
+  }
+
+  /**
+   * @return <code>true</code> if another page may follow, <code>false</code> if this is the last
+   *         page.
+   */
+  public boolean hasContinuationToken ()
+  {
+    return StringHelper.isNotEmpty (m_sContinuationToken);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("ItemCount", m_aItems.size ())
+                                       .appendIfNotNull ("ContinuationToken", m_sContinuationToken)
+                                       .getToString ();
+  }
+
+  /**
+   * Create the last page.
+   *
+   * @param aItems
+   *        The items of the last page. May not be <code>null</code>.
+   * @return The new page. Never <code>null</code>.
+   */
+  @NonNull
+  public static PeppolReportingItemPage createLastPage (@NonNull final ICommonsList <PeppolReportingItem> aItems)
+  {
+    return new PeppolReportingItemPage (aItems, null);
+  }
+
+  /**
+   * @return An empty last page. Never <code>null</code>.
+   */
+  @NonNull
+  public static PeppolReportingItemPage createEmpty ()
+  {
+    return createLastPage (new CommonsArrayList <> ());
+  }
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api.backend;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * A {@link Flow.Publisher} of reporting items with demand driven backpressure. Each subscription
+ * opens its own {@link IChunkSource} and only reads the next chunk from it, if the subscriber
+ * signalled demand. A chunk never contains more items than requested, so neither are items
+ * buffered without demand nor is the backend queried per item. All signals to the subscriber are
+ * emitted on the provided {@link Executor}.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@ThreadSafe
+public final class PeppolReportingItemPublisher implements Flow.Publisher <PeppolReportingItem>
+{
+  /** The default maximum number of items read from the backend at once */
+  public static final int DEFAULT_MAX_CHUNK_SIZE = 1000;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolReportingItemPublisher.class);
+
+  /**
+   * A source of reporting items that is read in chunks.
+   *
+   * @author Philip Helger
+   */
+  public interface IChunkSource extends AutoCloseable
+  {
+    /**
+     * Read the next chunk of items.
+     *
+     * @param nMaxItems
+     *        The maximum number of items to read. Always &gt; 0.
+     * @return The next items. Never <code>null</code>. An empty list indicates the end of the
+     *         source.
+     * @throws PeppolReportingBackendException
+     *         In case of an unrecoverable error
+     */
+    @NonNull
+    ICommonsList <PeppolReportingItem> readNextChunk (@Nonnegative int nMaxItems) throws PeppolReportingBackendException;
+
+    /**
+     * Release all resources of this source. Does nothing by default.
+     *
+     * @throws PeppolReportingBackendException
+     *         In case of an error
+     */
+    default void close () throws PeppolReportingBackendException
+    {}
+
+    /**
+     * Create a chunk source reading from an iterator. If the iterator implements
+     * {@link AutoCloseable} it is closed together with the source.
+     *
+     * @param aIterator
+     *        The iterator to read from. May not be <code>null</code>.
+     * @return The new chunk source. Never <code>null</code>.
+     */
+    @NonNull
+    static IChunkSource ofIterator (@NonNull final Iterator <PeppolReportingItem> aIterator)
+    {
+      ValueEnforcer.notNull (aIterator, "Iterator");
+      return new IChunkSource ()
+      {
+        @Override
+        @NonNull
+        public ICommonsList <PeppolReportingItem> readNextChunk (@Nonnegative final int nMaxItems)
+        {
+          final ICommonsList <PeppolReportingItem> ret = new CommonsArrayList <> (Math.min (nMaxItems, 64));
+          while (ret.size () < nMaxItems && aIterator.hasNext ())
+            ret.add (aIterator.next ());
+          return ret;
+        }
+
+        @Override
+        public void close () throws PeppolReportingBackendException
+        {
+          if (aIterator instanceof final AutoCloseable aCloseable)
+          {
+            try
+            {
+              aCloseable.close ();
+            }
+            catch (final Exception ex)
+            {
+              throw new PeppolReportingBackendException ("Failed to close Peppol Reporting Item iterator", ex);
+            }
+          }
+        }
+      };
+    }
+
+    /**
+     * Create a chunk source that reads one day after the other, so that for backends with eager
+     * iteration at most the items of a single day are held in memory.
+     *
+     * @param aStartDateIncl
+     *        The first date to read. May not be <code>null</code>.
+     * @param aEndDateIncl
+     *        The last date to read. May not be <code>null</code>.
+     * @param aReader
+     *        The reader for a single day. May not be <code>null</code>.
+     * @return The new chunk source. Never <code>null</code>.
+     */
+    @NonNull
+    static IChunkSource ofDays (@NonNull final LocalDate aStartDateIncl,
+                                @NonNull final LocalDate aEndDateIncl,
+                                @NonNull final PeppolReportingDayRangeSpliterator.IRangeReader aReader)
+    {
+      ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+      ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+      ValueEnforcer.notNull (aReader, "Reader");
+      return new IChunkSource ()
+      {
+        private LocalDate m_aNextDate = aStartDateIncl;
+        private IChunkSource m_aCurSource;
+
+        @Override
+        @NonNull
+        public ICommonsList <PeppolReportingItem> readNextChunk (@Nonnegative final int nMaxItems) throws PeppolReportingBackendException
+        {
+          while (true)
+          {
+            if (m_aCurSource == null)
+            {
+              if (m_aNextDate.isAfter (aEndDateIncl))
+                return new CommonsArrayList <> ();
+              m_aCurSource = ofIterator (aReader.read (m_aNextDate, m_aNextDate));
+              m_aNextDate = m_aNextDate.plusDays (1);
+            }
+
+            final ICommonsList <PeppolReportingItem> ret = m_aCurSource.readNextChunk (nMaxItems);
+            if (ret.isNotEmpty ())
+              return ret;
+
+            // Day is exhausted
+            close ();
+          }
+        }
+
+        @Override
+        public void close () throws PeppolReportingBackendException
+        {
+          if (m_aCurSource != null)
+          {
+            final IChunkSource aSource = m_aCurSource;
+            m_aCurSource = null;
+            aSource.close ();
+          }
+        }
+      };
+    }
+  }
+
+  /**
+   * Opens a new {@link IChunkSource} per subscription.
+   *
+   * @author Philip Helger
+   */
+  @FunctionalInterface
+  public interface IChunkSourceFactory
+  {
+    /**
+     * @param nMaxChunkSize
+     *        The maximum number of items that will be requested per chunk. May be used as fetch or
+     *        batch size. Always &gt; 0.
+     * @return The new source. Never <code>null</code>.
+     * @throws PeppolReportingBackendException
+     *         In case of an unrecoverable error
+     */
+    @NonNull
+    IChunkSource open (@Nonnegative int nMaxChunkSize) throws PeppolReportingBackendException;
+  }
+
+  /**
+   * The subscription of a single subscriber. All interaction with the subscriber and the source is
+   * serialized on the executor.
+   */
+  private static final class ItemSubscription implements Flow.Subscription
+  {
+    private final Flow.Subscriber <? super PeppolReportingItem> m_aSubscriber;
+    private final IChunkSourceFactory m_aSourceFactory;
+    private final Executor m_aExecutor;
+    private final int m_nMaxChunkSize;
+    private final AtomicLong m_aDemand = new AtomicLong (0);
+    private final AtomicInteger m_aWIP = new AtomicInteger (0);
+    private volatile boolean m_bCancelled = false;
+    private volatile IllegalArgumentException m_aInvalidRequest;
+    // Only accessed by the drain loop
+    private boolean m_bDone = false;
+    private IChunkSource m_aSource;
+
+    ItemSubscription (@NonNull final Flow.Subscriber <? super PeppolReportingItem> aSubscriber,
+                      @NonNull final IChunkSourceFactory aSourceFactory,
+                      @NonNull final Executor aExecutor,
+                      final int nMaxChunkSize)
+    {
+      m_aSubscriber = aSubscriber;
+      m_aSourceFactory = aSourceFactory;
+      m_aExecutor = aExecutor;
+      m_nMaxChunkSize = nMaxChunkSize;
+    }
+
+    @Override
+    public void request (final long n)
+    {
+      if (n <= 0)
+        m_aInvalidRequest = new IllegalArgumentException ("The requested number of items must be > 0 but is " + n);
+      else
+        m_aDemand.getAndUpdate (x -> x + n < 0 ? Long.MAX_VALUE : x + n);
+      _schedule ();
+    }
+
+    @Override
+    public void cancel ()
+    {
+      m_bCancelled = true;
+      _schedule ();
+    }
+
+    private void _schedule ()
+    {
+      if (m_aWIP.getAndIncrement () == 0)
+      {
+        try
+        {
+          m_aExecutor.execute (this::_drain);
+        }
+        catch (final RejectedExecutionException ex)
+        {
+          // No drain loop is running and none will ever run again
+          m_bDone = true;
+          m_aSubscriber.onError (ex);
+        }
+      }
+    }
+
+    private void _drain ()
+    {
+      int nMissed = 1;
+      do
+      {
+        _emit ();
+        nMissed = m_aWIP.addAndGet (-nMissed);
+      } while (nMissed != 0);
+    }
+
+    private void _finish ()
+    {
+      m_bDone = true;
+      if (m_aSource != null)
+      {
+        try
+        {
+          m_aSource.close ();
+        }
+        catch (final PeppolReportingBackendException ex)
+        {
+          LOGGER.warn ("Failed to close Peppol Reporting chunk source", ex);
+        }
+        m_aSource = null;
+      }
+    }
+
+    private void _emit ()
+    {
+      if (m_bDone)
+        return;
+
+      try
+      {
+        while (!m_bCancelled)
+        {
+          final IllegalArgumentException aInvalidRequest = m_aInvalidRequest;
+          if (aInvalidRequest != null)
+          {
+            _finish ();
+            m_aSubscriber.onError (aInvalidRequest);
+            return;
+          }
+
+          final long nDemand = m_aDemand.get ();
+          if (nDemand == 0)
+            return;
+
+          if (m_aSource == null)
+            m_aSource = m_aSourceFactory.open (m_nMaxChunkSize);
+
+          final ICommonsList <PeppolReportingItem> aChunk = m_aSource.readNextChunk ((int) Math.min (nDemand,
+                                                                                                   m_nMaxChunkSize));
+          if (aChunk.isEmpty ())
+          {
+            _finish ();
+            m_aSubscriber.onComplete ();
+            return;
+          }
+
+          for (final PeppolReportingItem aItem : aChunk)
+          {
+            if (m_bCancelled)
+              break;
+            m_aSubscriber.onNext (aItem);
+          }
+          m_aDemand.addAndGet (-aChunk.size ());
+        }
+        // Cancelled
+        _finish ();
+      }
+      catch (final PeppolReportingBackendException | RuntimeException ex)
+      {
+        _finish ();
+        m_aSubscriber.onError (ex);
+      }
+    }
+  }
+
+  private final IChunkSourceFactory m_aSourceFactory;
+  private final Executor m_aExecutor;
+  private final int m_nMaxChunkSize;
+
+  /**
+   * Constructor using the default asynchronous executor of {@link PeppolReportingBackend} and the
+   * default maximum chunk size.
+   *
+   * @param aSourceFactory
+   *        The factory for the chunk source of each subscription. May not be <code>null</code>.
+   */
+  public PeppolReportingItemPublisher (@NonNull final IChunkSourceFactory aSourceFactory)
+  {
+    this (aSourceFactory, PeppolReportingBackend.getAsyncExecutor (), DEFAULT_MAX_CHUNK_SIZE);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aSourceFactory
+   *        The factory for the chunk source of each subscription. May not be <code>null</code>.
+   * @param aExecutor
+   *        The executor on which the chunks are read and the subscribers are signalled. May not be
+   *        <code>null</code>.
+   * @param nMaxChunkSize
+   *        The maximum number of items read at once. Must be &gt; 0.
+   */
+  public PeppolReportingItemPublisher (@NonNull final IChunkSourceFactory aSourceFactory,
+                                       @NonNull final Executor aExecutor,
+                                       @Nonnegative final int nMaxChunkSize)
+  {
+    ValueEnforcer.notNull (aSourceFactory, "SourceFactory");
+    ValueEnforcer.notNull (aExecutor, "Executor");
+    ValueEnforcer.isGT0 (nMaxChunkSize, "MaxChunkSize");
+    m_aSourceFactory = aSourceFactory;
+    m_aExecutor = aExecutor;
+    m_nMaxChunkSize = nMaxChunkSize;
+  }
+
+  /**
+   * @return The maximum number of items read at once. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getMaxChunkSize ()
+  {
+    return m_nMaxChunkSize;
+  }
+
+  public void subscribe (@NonNull final Flow.Subscriber <? super PeppolReportingItem> aSubscriber)
+  {
+    ValueEnforcer.notNull (aSubscriber, "Subscriber");
+    aSubscriber.onSubscribe (new ItemSubscription (aSubscriber, m_aSourceFactory, m_aExecutor, m_nMaxChunkSize));
+  }
+}
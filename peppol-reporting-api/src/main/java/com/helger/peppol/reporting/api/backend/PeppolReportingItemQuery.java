@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api.backend;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.EReportingItemField;
+import com.helger.peppol.reporting.api.IPeppolReportingItemView;
+
+/**
+ * A typed query for reporting items of a date range. It consists of criteria, that all need to
+ * match (logical AND), and a projection, that defines the fields to be read. Backends translate the
+ * query into a native query (e.g. an SQL <code>WHERE</code> clause with a column list) where
+ * possible, and fall back to {@link #matches(IPeppolReportingItemView)} otherwise.<br>
+ * The exchange date time and the direction are always part of the projection.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@NotThreadSafe
+public class PeppolReportingItemQuery
+{
+  private final Map <EReportingItemField, String> m_aCriteria = new EnumMap <> (EReportingItemField.class);
+  private final Set <EReportingItemField> m_aProjection = EnumSet.allOf (EReportingItemField.class);
+
+  /**
+   * Create a new query without criteria and with all fields projected.
+   */
+  public PeppolReportingItemQuery ()
+  {}
+
+  /**
+   * Copy constructor
+   *
+   * @param aOther
+   *        The query to copy from. May not be <code>null</code>.
+   */
+  public PeppolReportingItemQuery (@NonNull final PeppolReportingItemQuery aOther)
+  {
+    ValueEnforcer.notNull (aOther, "Other");
+    m_aCriteria.putAll (aOther.m_aCriteria);
+    m_aProjection.clear ();
+    m_aProjection.addAll (aOther.m_aProjection);
+  }
+
+  /**
+   * Set or remove the criterion of a single field.
+   *
+   * @param eField
+   *        The field to match. May not be <code>null</code> and may not be
+   *        {@link EReportingItemField#EXCHANGE_DATETIME}, as this is covered by the date range.
+   * @param sValue
+   *        The value the field must be equal to. May be <code>null</code> to remove the criterion
+   *        but may not be empty.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolReportingItemQuery criterion (@NonNull final EReportingItemField eField, @Nullable final String sValue)
+  {
+    ValueEnforcer.notNull (eField, "Field");
+    ValueEnforcer.isFalse ( () -> eField == EReportingItemField.EXCHANGE_DATETIME,
+                            "The exchange date time cannot be used as criterion");
+    if (sValue != null)
+    {
+      ValueEnforcer.notEmpty (sValue, "Value");
+      if (eField == EReportingItemField.DIRECTION)
+        ValueEnforcer.notNull (EReportingDirection.getFromIDOrNull (sValue), "Direction");
+    }
+    if (sValue == null)
+      m_aCriteria.remove (eField);
+    else
+      m_aCriteria.put (eField, sValue);
+    return this;
+  }
+
+  @NonNull
+  public PeppolReportingItemQuery direction (@Nullable final EReportingDirection eDirection)
+  {
+    return criterion (EReportingItemField.DIRECTION, eDirection == null ? null : eDirection.getID ());
+  }
+
+  @NonNull
+  public PeppolReportingItemQuery directionSending ()
+  {
+    return direction (EReportingDirection.SENDING);
+  }
+
+  @NonNull
+  public PeppolReportingItemQuery directionReceiving ()
+  {
+    return direction (EReportingDirection.RECEIVING);
+  }
+
+  @NonNull
+  public PeppolReportingItemQuery c2ID (@Nullable final String s)
+  {
+    return criterion (EReportingItemField.C2_ID, s);
+  }
+
+  @NonNull
+  public PeppolReportingItemQuery c3ID (@Nullable final String s)
+  {
+    return criterion (EReportingItemField.C3_ID, s);
+  }
+
+  @NonNull
+  public PeppolReportingItemQuery docTypeIDScheme (@Nullable final String s)
+  {
+    return criterion (EReportingItemField.DOCTYPE_ID_SCHEME, s);
+  }
+
+  @NonNull
+  public PeppolReportingItemQuery docTypeIDValue (@Nullable final String s)
+  {
+    return criterion (EReportingItemField.DOCTYPE_ID_VALUE, s);
+  }
+
+  @NonNull
+  public PeppolReportingItemQuery processIDScheme (@Nullable final String s)
+  {
+    return criterion (EReportingItemField.PROCESS_ID_SCHEME, s);
+  }
+
+  @NonNull
+  public PeppolReportingItemQuery processIDValue (@Nullable final String s)
+  {
+    return criterion (EReportingItemField.PROCESS_ID_VALUE, s);
+  }
+
+  @NonNull
+  public PeppolReportingItemQuery transportProtocol (@Nullable final String s)
+  {
+    return criterion (EReportingItemField.TRANSPORT_PROTOCOL, s);
+  }
+
+  @NonNull
+  public PeppolReportingItemQuery c1CountryCode (@Nullable final String s)
+  {
+    return criterion (EReportingItemField.C1_COUNTRY_CODE, s);
+  }
+
+  @NonNull
+  public PeppolReportingItemQuery c4CountryCode (@Nullable final String s)
+  {
+    return criterion (EReportingItemField.C4_COUNTRY_CODE, s);
+  }
+
+  @NonNull
+  public PeppolReportingItemQuery endUserID (@Nullable final String s)
+  {
+    return criterion (EReportingItemField.END_USER_ID, s);
+  }
+
+  /**
+   * @return <code>true</code> if at least one criterion is present.
+   */
+  public boolean hasCriteria ()
+  {
+    return !m_aCriteria.isEmpty ();
+  }
+
+  /**
+   * @param eField
+   *        The field to query. May be <code>null</code>.
+   * @return The value the field must be equal to or <code>null</code> if there is no criterion
+   *         for this field.
+   */
+  @Nullable
+  public String getCriterion (@Nullable final EReportingItemField eField)
+  {
+    return eField == null ? null : m_aCriteria.get (eField);
+  }
+
+  /**
+   * @return The required direction or <code>null</code> if both directions match.
+   */
+  @Nullable
+  public EReportingDirection getDirection ()
+  {
+    return EReportingDirection.getFromIDOrNull (m_aCriteria.get (EReportingItemField.DIRECTION));
+  }
+
+  /**
+   * @return A copy of all criteria in field order. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public Map <EReportingItemField, String> getAllCriteria ()
+  {
+    return new EnumMap <> (m_aCriteria);
+  }
+
+  /**
+   * Define the fields to be read. The exchange date time and the direction are always read.
+   *
+   * @param aFields
+   *        The fields to read. May not be <code>null</code>. If empty only the fields that are always
+   *        read are projected.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolReportingItemQuery projection (@NonNull final EReportingItemField... aFields)
+  {
+    ValueEnforcer.notNullNoNullValue (aFields, "Fields");
+    m_aProjection.clear ();
+    for (final EReportingItemField e : EReportingItemField.values ())
+      if (e.isAlwaysProjected ())
+        m_aProjection.add (e);
+    for (final EReportingItemField e : aFields)
+      m_aProjection.add (e);
+    return this;
+  }
+
+  /**
+   * Project all fields. This is the default.
+   *
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolReportingItemQuery projectionAll ()
+  {
+    m_aProjection.addAll (EnumSet.allOf (EReportingItemField.class));
+    return this;
+  }
+
+  /**
+   * @param eField
+   *        The field to check. May be <code>null</code>.
+   * @return <code>true</code> if the field is part of the projection.
+   */
+  public boolean isProjected (@Nullable final EReportingItemField eField)
+  {
+    return eField != null && m_aProjection.contains (eField);
+  }
+
+  /**
+   * @return <code>true</code> if all fields are projected, so that complete items can be created.
+   */
+  public boolean isFullProjection ()
+  {
+    return m_aProjection.size () == EReportingItemField.values ().length;
+  }
+
+  /**
+   * @return A copy of all projected fields in field order. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public Set <EReportingItemField> getAllProjectedFields ()
+  {
+    return EnumSet.copyOf (m_aProjection);
+  }
+
+  /**
+   * Check if all criteria match the provided view. This is the generic fallback for backends
+   * without a native query translation.
+   *
+   * @param aView
+   *        The view to check. May not be <code>null</code>.
+   * @return <code>true</code> if all criteria match.
+   */
+  public boolean matches (@NonNull final IPeppolReportingItemView aView)
+  {
+    for (final Map.Entry <EReportingItemField, String> aEntry : m_aCriteria.entrySet ())
+      if (!aEntry.getValue ().equals (aEntry.getKey ().getStringValue (aView)))
+        return false;
+    return true;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Criteria", m_aCriteria)
+                                       .append ("Projection", m_aProjection)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,485 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * Compact, versioned binary encoding of a single {@link PeppolReportingItem}. The encoding consists
+ * of:
+ * <ul>
+ * <li>1 byte format version</li>
+ * <li>8 bytes exchange date time as epoch milliseconds (big endian)</li>
+ * <li>1 byte direction (0 for sending, 1 for receiving)</li>
+ * <li>10 string fields in the order C2 ID, C3 ID, document type scheme and value, process scheme and
+ * value, transport protocol, C1 country code, C4 country code and end user ID. Each field starts
+ * with a varint header: 0 for <code>null</code>, an odd value <code>2n+1</code> for an inline
+ * string of <code>n</code> UTF-8 bytes that follow, and an even value <code>2n+2</code> for a
+ * reference to index <code>n</code> of a {@link PeppolReportingItemDictionary}.</li>
+ * </ul>
+ * Dictionary references are only written if a dictionary is provided when encoding and it contains
+ * the respective string.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@Immutable
+public final class PeppolReportingItemCodec
+{
+  /** The format version written by this codec */
+  public static final byte FORMAT_VERSION = 1;
+
+  private static final byte DIRECTION_SENDING = 0;
+  private static final byte DIRECTION_RECEIVING = 1;
+  private static final int FIELD_COUNT = 10;
+
+  private PeppolReportingItemCodec ()
+  {}
+
+  static void writeVarInt (@NonNull final OutputStream aOS, final int nValue) throws IOException
+  {
+    int n = nValue;
+    while ((n & ~0x7f) != 0)
+    {
+      aOS.write ((n & 0x7f) | 0x80);
+      n >>>= 7;
+    }
+    aOS.write (n);
+  }
+
+  private static void _putVarInt (@NonNull final ByteBuffer aBB, final int nValue)
+  {
+    int n = nValue;
+    while ((n & ~0x7f) != 0)
+    {
+      aBB.put ((byte) ((n & 0x7f) | 0x80));
+      n >>>= 7;
+    }
+    aBB.put ((byte) n);
+  }
+
+  private static int _getVarIntLength (final int nValue)
+  {
+    int ret = 1;
+    int n = nValue;
+    while ((n & ~0x7f) != 0)
+    {
+      ret++;
+      n >>>= 7;
+    }
+    return ret;
+  }
+
+  static int readVarInt (@NonNull final ByteBuffer aBB)
+  {
+    int ret = 0;
+    int nShift = 0;
+    byte b;
+    do
+    {
+      if (nShift > 28)
+        throw new IllegalArgumentException ("Malformed varint");
+      b = aBB.get ();
+      ret |= (b & 0x7f) << nShift;
+      nShift += 7;
+    } while ((b & 0x80) != 0);
+    return ret;
+  }
+
+  static int readVarInt (@NonNull final InputStream aIS) throws IOException
+  {
+    int ret = 0;
+    int nShift = 0;
+    int b;
+    do
+    {
+      if (nShift > 28)
+        throw new IOException ("Malformed varint");
+      b = aIS.read ();
+      if (b < 0)
+        throw new EOFException ();
+      ret |= (b & 0x7f) << nShift;
+      nShift += 7;
+    } while ((b & 0x80) != 0);
+    return ret;
+  }
+
+  @NonNull
+  static String readUTF8 (@NonNull final ByteBuffer aBB, @Nonnegative final int nLength)
+  {
+    if (nLength > aBB.remaining ())
+      throw new BufferUnderflowException ();
+    if (aBB.hasArray ())
+    {
+      final String ret = new String (aBB.array (),
+                                    aBB.arrayOffset () + aBB.position (),
+                                    nLength,
+                                    StandardCharsets.UTF_8);
+      aBB.position (aBB.position () + nLength);
+      return ret;
+    }
+    final byte [] aBytes = new byte [nLength];
+    aBB.get (aBytes);
+    return new String (aBytes, StandardCharsets.UTF_8);
+  }
+
+  @NonNull
+  static byte [] readFully (@NonNull final InputStream aIS, @Nonnegative final int nLength) throws IOException
+  {
+    final byte [] ret = aIS.readNBytes (nLength);
+    if (ret.length != nLength)
+      throw new EOFException ();
+    return ret;
+  }
+
+  @NonNull
+  private static String [] _getFields (@NonNull final PeppolReportingItem aItem)
+  {
+    return new String [] { aItem.getC2ID (),
+                            aItem.getC3ID (),
+                            aItem.getDocTypeIDScheme (),
+                            aItem.getDocTypeIDValue (),
+                            aItem.getProcessIDScheme (),
+                            aItem.getProcessIDValue (),
+                            aItem.getTransportProtocol (),
+                            aItem.getC1CountryCode (),
+                            aItem.getC4CountryCode (),
+                            aItem.getEndUserID () };
+  }
+
+  /**
+   * Determine the field headers and the inline string bytes of the provided item.
+   *
+   * @param aItem
+   *        The item to encode. May not be <code>null</code>.
+   * @param aDict
+   *        The optional dictionary to reference strings from. May be <code>null</code>.
+   * @param aHeaders
+   *        The array to be filled with one header per field.
+   * @param aInline
+   *        The array to be filled with the UTF-8 bytes of the inline strings.
+   * @return The total encoded length in bytes.
+   */
+  @Nonnegative
+  private static int _prepare (@NonNull final PeppolReportingItem aItem,
+                               @Nullable final PeppolReportingItemDictionary aDict,
+                               @NonNull final int [] aHeaders,
+                               @NonNull final byte [] [] aInline)
+  {
+    final String [] aFields = _getFields (aItem);
+    int nLength = 1 + 8 + 1;
+    for (int i = 0; i < FIELD_COUNT; ++i)
+    {
+      final String s = aFields[i];
+      if (s != null)
+      {
+        final int nIndex = aDict == null ? -1 : aDict.getIndex (s);
+        if (nIndex >= 0)
+          aHeaders[i] = (nIndex << 1) + 2;
+        else
+        {
+          aInline[i] = s.getBytes (StandardCharsets.UTF_8);
+          aHeaders[i] = (aInline[i].length << 1) | 1;
+          nLength += aInline[i].length;
+        }
+      }
+      nLength += _getVarIntLength (aHeaders[i]);
+    }
+    return nLength;
+  }
+
+  private static void _put (@NonNull final PeppolReportingItem aItem,
+                            @NonNull final int [] aHeaders,
+                            @NonNull final byte [] [] aInline,
+                            @NonNull final ByteBuffer aBB)
+  {
+    aBB.put (FORMAT_VERSION);
+    aBB.putLong (aItem.getExchangeEpochMillis ());
+    aBB.put (aItem.isSending () ? DIRECTION_SENDING : DIRECTION_RECEIVING);
+    for (int i = 0; i < FIELD_COUNT; ++i)
+    {
+      _putVarInt (aBB, aHeaders[i]);
+      if (aInline[i] != null)
+        aBB.put (aInline[i]);
+    }
+  }
+
+  /**
+   * Encode the provided item into a new byte array.
+   *
+   * @param aItem
+   *        The item to encode. May not be <code>null</code>.
+   * @param aDict
+   *        The optional dictionary to reference strings from. May be <code>null</code>.
+   * @return The encoded bytes. Never <code>null</code>.
+   */
+  @NonNull
+  public static byte [] encode (@NonNull final PeppolReportingItem aItem,
+                                @Nullable final PeppolReportingItemDictionary aDict)
+  {
+    ValueEnforcer.notNull (aItem, "Item");
+
+    final int [] aHeaders = new int [FIELD_COUNT];
+    final byte [] [] aInline = new byte [FIELD_COUNT] [];
+    final ByteBuffer aBB = ByteBuffer.allocate (_prepare (aItem, aDict, aHeaders, aInline));
+    _put (aItem, aHeaders, aInline, aBB);
+    return aBB.array ();
+  }
+
+  /**
+   * Encode the provided item without a dictionary into a new byte array.
+   *
+   * @param aItem
+   *        The item to encode. May not be <code>null</code>.
+   * @return The encoded bytes. Never <code>null</code>.
+   */
+  @NonNull
+  public static byte [] encode (@NonNull final PeppolReportingItem aItem)
+  {
+    return encode (aItem, null);
+  }
+
+  /**
+   * Encode the provided item into the provided buffer, starting at its current position.
+   *
+   * @param aItem
+   *        The item to encode. May not be <code>null</code>.
+   * @param aTarget
+   *        The buffer to write to. May not be <code>null</code>.
+   * @param aDict
+   *        The optional dictionary to reference strings from. May be <code>null</code>.
+   * @throws BufferOverflowException
+   *         If the buffer is too small. Nothing was written in this case.
+   */
+  public static void encode (@NonNull final PeppolReportingItem aItem,
+                             @NonNull final ByteBuffer aTarget,
+                             @Nullable final PeppolReportingItemDictionary aDict)
+  {
+    ValueEnforcer.notNull (aItem, "Item");
+    ValueEnforcer.notNull (aTarget, "Target");
+
+    // Write directly into the target buffer
+    final int [] aHeaders = new int [FIELD_COUNT];
+    final byte [] [] aInline = new byte [FIELD_COUNT] [];
+    if (_prepare (aItem, aDict, aHeaders, aInline) > aTarget.remaining ())
+      throw new BufferOverflowException ();
+    _put (aItem, aHeaders, aInline, aTarget);
+  }
+
+  /**
+   * Write the encoded item to the provided stream.
+   *
+   * @param aItem
+   *        The item to encode. May not be <code>null</code>.
+   * @param aOS
+   *        The stream to write to. May not be <code>null</code>.
+   * @param aDict
+   *        The optional dictionary to reference strings from. May be <code>null</code>.
+   * @throws IOException
+   *         On IO error
+   */
+  public static void write (@NonNull final PeppolReportingItem aItem,
+                            @NonNull final OutputStream aOS,
+                            @Nullable final PeppolReportingItemDictionary aDict) throws IOException
+  {
+    ValueEnforcer.notNull (aOS, "OutputStream");
+    aOS.write (encode (aItem, aDict));
+  }
+
+  @NonNull
+  private static EReportingDirection _getDirection (final int nDirection)
+  {
+    if (nDirection == DIRECTION_SENDING)
+      return EReportingDirection.SENDING;
+    if (nDirection == DIRECTION_RECEIVING)
+      return EReportingDirection.RECEIVING;
+    throw new IllegalArgumentException ("Unsupported reporting direction " + nDirection);
+  }
+
+  private static void _checkVersion (final int nVersion)
+  {
+    if (nVersion != FORMAT_VERSION)
+      throw new IllegalArgumentException ("Unsupported reporting item format version " + nVersion);
+  }
+
+  @Nullable
+  private static String _getDictString (@Nullable final PeppolReportingItemDictionary aDict, final int nHeader)
+  {
+    final int nIndex = (nHeader >>> 1) - 1;
+    if (aDict == null || nIndex >= aDict.size ())
+      throw new IllegalArgumentException ("Invalid reporting item dictionary reference " + nIndex);
+    return aDict.getString (nIndex);
+  }
+
+  private static void _checkMandatory (@Nullable final String sValue, @NonNull final String sName)
+  {
+    if (sValue == null || sValue.isEmpty ())
+      throw new IllegalArgumentException ("The encoded reporting item has no " + sName);
+  }
+
+  @NonNull
+  private static PeppolReportingItem _create (final long nExchangeMillis,
+                                              @NonNull final EReportingDirection eDirection,
+                                              @NonNull final String [] aFields)
+  {
+    // The encoded data comes from a file or the network, so it may be corrupt or forged even if it
+    // was validated before it was encoded
+    _checkMandatory (aFields[0], "C2ID");
+    _checkMandatory (aFields[1], "C3ID");
+    _checkMandatory (aFields[2], "DocTypeIDScheme");
+    _checkMandatory (aFields[3], "DocTypeIDValue");
+    _checkMandatory (aFields[4], "ProcessIDScheme");
+    _checkMandatory (aFields[5], "ProcessIDValue");
+    _checkMandatory (aFields[6], "TransportProtocol");
+    _checkMandatory (aFields[7], "C1CountryCode");
+    if (eDirection.isReceiving ())
+      _checkMandatory (aFields[8], "C4CountryCode");
+    _checkMandatory (aFields[9], "EndUserID");
+
+    return PeppolReportingItem.createTrusted (nExchangeMillis,
+                                              eDirection,
+                                              aFields[0],
+                                              aFields[1],
+                                              aFields[2],
+                                              aFields[3],
+                                              aFields[4],
+                                              aFields[5],
+                                              aFields[6],
+                                              aFields[7],
+                                              aFields[8],
+                                              aFields[9]);
+  }
+
+  /**
+   * Decode an item from the current position of the provided buffer. Afterwards the position is
+   * right after the item.
+   *
+   * @param aSource
+   *        The buffer to read from. May not be <code>null</code>.
+   * @param aDict
+   *        The dictionary used for encoding. Must be provided if the item was encoded with a
+   *        dictionary. May be <code>null</code>.
+   * @return The decoded item. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the encoded data is invalid or a mandatory field is missing
+   * @throws java.nio.BufferUnderflowException
+   *         If the buffer does not contain the complete item
+   */
+  @NonNull
+  public static PeppolReportingItem decode (@NonNull final ByteBuffer aSource,
+                                            @Nullable final PeppolReportingItemDictionary aDict)
+  {
+    ValueEnforcer.notNull (aSource, "Source");
+
+    _checkVersion (aSource.get ());
+    final long nExchangeMillis = aSource.getLong ();
+    final EReportingDirection eDirection = _getDirection (aSource.get ());
+    final String [] aFields = new String [FIELD_COUNT];
+    for (int i = 0; i < FIELD_COUNT; ++i)
+    {
+      final int nHeader = readVarInt (aSource);
+      if (nHeader == 0)
+        aFields[i] = null;
+      else
+        if ((nHeader & 1) != 0)
+          aFields[i] = readUTF8 (aSource, nHeader >>> 1);
+        else
+          aFields[i] = _getDictString (aDict, nHeader);
+    }
+    return _create (nExchangeMillis, eDirection, aFields);
+  }
+
+  /**
+   * Decode an item without dictionary from the provided bytes.
+   *
+   * @param aBytes
+   *        The bytes to read from. May not be <code>null</code>.
+   * @return The decoded item. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the encoded data is invalid or a mandatory field is missing
+   */
+  @NonNull
+  public static PeppolReportingItem decode (@NonNull final byte [] aBytes)
+  {
+    ValueEnforcer.notNull (aBytes, "Bytes");
+    return decode (ByteBuffer.wrap (aBytes), null);
+  }
+
+  /**
+   * Read the next item from the provided stream.
+   *
+   * @param aIS
+   *        The stream to read from. May not be <code>null</code>.
+   * @param aDict
+   *        The dictionary used for encoding. Must be provided if the item was encoded with a
+   *        dictionary. May be <code>null</code>.
+   * @return The read item or <code>null</code> if the stream ended before the first byte of an item.
+   * @throws IOException
+   *         On IO error, if the stream ends within an item, if the data is invalid or if a mandatory
+   *         field is missing
+   */
+  @Nullable
+  public static PeppolReportingItem read (@NonNull final InputStream aIS,
+                                          @Nullable final PeppolReportingItemDictionary aDict) throws IOException
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+
+    final int nVersion = aIS.read ();
+    if (nVersion < 0)
+      return null;
+    try
+    {
+      _checkVersion (nVersion);
+      final ByteBuffer aFixed = ByteBuffer.wrap (readFully (aIS, 8 + 1));
+      final long nExchangeMillis = aFixed.getLong ();
+      final EReportingDirection eDirection = _getDirection (aFixed.get ());
+      final String [] aFields = new String [FIELD_COUNT];
+      for (int i = 0; i < FIELD_COUNT; ++i)
+      {
+        final int nHeader = readVarInt (aIS);
+        if (nHeader == 0)
+          aFields[i] = null;
+        else
+          if ((nHeader & 1) != 0)
+            aFields[i] = new String (readFully (aIS, nHeader >>> 1), StandardCharsets.UTF_8);
+          else
+            aFields[i] = _getDictString (aDict, nHeader);
+      }
+      return _create (nExchangeMillis, eDirection, aFields);
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      throw new IOException ("Failed to read Peppol Reporting Item", ex);
+    }
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * A dictionary of strings that can be referenced by index from items encoded with
+ * {@link PeppolReportingItemCodec}. Encoder and decoder must use a dictionary with the same content,
+ * e.g. by writing it in front of a block of items via {@link #writeTo(OutputStream)}.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@NotThreadSafe
+public final class PeppolReportingItemDictionary
+{
+  private final Map <String, Integer> m_aIndex = new HashMap <> ();
+  private final ICommonsList <String> m_aStrings = new CommonsArrayList <> ();
+
+  public PeppolReportingItemDictionary ()
+  {}
+
+  /**
+   * @return The number of contained strings. Always &ge; 0.
+   */
+  @Nonnegative
+  public int size ()
+  {
+    return m_aStrings.size ();
+  }
+
+  /**
+   * Get the index of the provided string.
+   *
+   * @param s
+   *        The string to search. May be <code>null</code>.
+   * @return The index or <code>-1</code> if the string is not contained.
+   */
+  public int getIndex (@Nullable final String s)
+  {
+    if (s == null)
+      return -1;
+    final Integer aIndex = m_aIndex.get (s);
+    return aIndex == null ? -1 : aIndex.intValue ();
+  }
+
+  /**
+   * Get the string at the provided index.
+   *
+   * @param nIndex
+   *        The index to query. Must be &ge; 0 and &lt; {@link #size()}.
+   * @return The string. Never <code>null</code>.
+   */
+  @NonNull
+  public String getString (@Nonnegative final int nIndex)
+  {
+    return m_aStrings.get (nIndex);
+  }
+
+  /**
+   * Add the provided string, if it is not yet contained.
+   *
+   * @param s
+   *        The string to add. May not be <code>null</code>.
+   * @return The index of the string. Always &ge; 0.
+   */
+  @Nonnegative
+  public int add (@NonNull final String s)
+  {
+    ValueEnforcer.notNull (s, "String");
+    return m_aIndex.computeIfAbsent (s, k -> {
+      m_aStrings.add (k);
+      return Integer.valueOf (m_aStrings.size () - 1);
+    }).intValue ();
+  }
+
+  /**
+   * Add all string fields of the provided item.
+   *
+   * @param aItem
+   *        The item to use. May not be <code>null</code>.
+   */
+  public void addAll (@NonNull final PeppolReportingItem aItem)
+  {
+    ValueEnforcer.notNull (aItem, "Item");
+    add (aItem.getC2ID ());
+    add (aItem.getC3ID ());
+    add (aItem.getDocTypeIDScheme ());
+    add (aItem.getDocTypeIDValue ());
+    add (aItem.getProcessIDScheme ());
+    add (aItem.getProcessIDValue ());
+    add (aItem.getTransportProtocol ());
+    add (aItem.getC1CountryCode ());
+    if (aItem.hasC4CountryCode ())
+      add (aItem.getC4CountryCode ());
+    add (aItem.getEndUserID ());
+  }
+
+  /**
+   * Write all strings of this dictionary as a varint count, followed by each string as varint
+   * length and UTF-8 bytes.
+   *
+   * @param aOS
+   *        The stream to write to. May not be <code>null</code>.
+   * @throws IOException
+   *         On IO error
+   */
+  public void writeTo (@NonNull final OutputStream aOS) throws IOException
+  {
+    ValueEnforcer.notNull (aOS, "OutputStream");
+    PeppolReportingItemCodec.writeVarInt (aOS, m_aStrings.size ());
+    for (final String s : m_aStrings)
+    {
+      final byte [] aBytes = s.getBytes (StandardCharsets.UTF_8);
+      PeppolReportingItemCodec.writeVarInt (aOS, aBytes.length);
+      aOS.write (aBytes);
+    }
+  }
+
+  /**
+   * Read a dictionary written by {@link #writeTo(OutputStream)}.
+   *
+   * @param aBB
+   *        The buffer to read from, starting at its current position. May not be
+   *        <code>null</code>.
+   * @return The read dictionary. Never <code>null</code>.
+   */
+  @NonNull
+  public static PeppolReportingItemDictionary readFrom (@NonNull final ByteBuffer aBB)
+  {
+    ValueEnforcer.notNull (aBB, "ByteBuffer");
+    final PeppolReportingItemDictionary ret = new PeppolReportingItemDictionary ();
+    final int nSize = PeppolReportingItemCodec.readVarInt (aBB);
+    for (int i = 0; i < nSize; ++i)
+      ret.add (PeppolReportingItemCodec.readUTF8 (aBB, PeppolReportingItemCodec.readVarInt (aBB)));
+    return ret;
+  }
+
+  /**
+   * Read a dictionary written by {@link #writeTo(OutputStream)}.
+   *
+   * @param aIS
+   *        The stream to read from. May not be <code>null</code>.
+   * @return The read dictionary. Never <code>null</code>.
+   * @throws IOException
+   *         On IO error or if the stream ends prematurely
+   */
+  @NonNull
+  public static PeppolReportingItemDictionary readFrom (@NonNull final InputStream aIS) throws IOException
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    final PeppolReportingItemDictionary ret = new PeppolReportingItemDictionary ();
+    final int nSize = PeppolReportingItemCodec.readVarInt (aIS);
+    for (int i = 0; i < nSize; ++i)
+      ret.add (new String (PeppolReportingItemCodec.readFully (aIS, PeppolReportingItemCodec.readVarInt (aIS)),
+                           StandardCharsets.UTF_8));
+    return ret;
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.OffsetDateTime;
+
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.datetime.helper.PDTFactory;
+import com.helger.peppolid.peppol.doctype.EPredefinedDocumentTypeIdentifier;
+import com.helger.peppolid.peppol.process.EPredefinedProcessIdentifier;
+
+/**
+ * Test class for class {@link PeppolReportingItemBatch}
+ *
+ * @author Philip Helger
+ */
+public final class PeppolReportingItemBatchTest
+{
+  private static PeppolReportingItem _createItem (final boolean bReceiving, final String sEndUserID)
+  {
+    final OffsetDateTime aNow = PDTFactory.getCurrentOffsetDateTimeMillisOnly ();
+    final PeppolReportingItem.Builder aBuilder = PeppolReportingItem.builder ()
+                                                                    .exchangeDateTime (aNow)
+                                                                    .c2ID ("POP000002")
+                                                                    .c3ID ("PAT000001")
+                                                                    .docTypeID (EPredefinedDocumentTypeIdentifier.INVOICE_EN16931_PEPPOL_V30)
+                                                                    .processID (EPredefinedProcessIdentifier.BIS3_BILLING)
+                                                                    .transportProtocolPeppolAS4v2 ()
+                                                                    .c1CountryCode ("FI")
+                                                                    .endUserID (sEndUserID);
+    if (bReceiving)
+      aBuilder.directionReceiving ().c4CountryCode ("AT");
+    else
+      aBuilder.directionSending ();
+    return aBuilder.build ();
+  }
+
+  @Test
+  public void testBasic ()
+  {
+    final PeppolReportingItemBatch aBatch = new PeppolReportingItemBatch (3);
+    assertEquals (3, aBatch.getCapacity ());
+    assertTrue (aBatch.isEmpty ());
+
+    final PeppolReportingItem aItem1 = _createItem (false, "abc");
+    final PeppolReportingItem aItem2 = _createItem (true, "def");
+    final PeppolReportingItem aItem3 = _createItem (true, "abc");
+    aBatch.add (aItem1);
+    aBatch.add (aItem2);
+    aBatch.add (aItem3);
+    assertTrue (aBatch.isFull ());
+    try
+    {
+      aBatch.add (aItem1);
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+
+    assertFalse (aBatch.isReceiving (0));
+    assertTrue (aBatch.isReceiving (1));
+    assertEquals (aItem2.getExchangeEpochMillis (), aBatch.getExchangeEpochMillis (1));
+    // Same value, same code
+    assertEquals (aBatch.getCode (PeppolReportingItemBatch.COL_END_USER_ID, 0),
+                  aBatch.getCode (PeppolReportingItemBatch.COL_END_USER_ID, 2));
+    assertEquals (PeppolReportingItemBatch.CODE_NULL, aBatch.getCode (PeppolReportingItemBatch.COL_C4CC, 0));
+    assertNull (aBatch.getString (PeppolReportingItemBatch.CODE_NULL));
+
+    final ICommonsList <PeppolReportingItem> aItems = new CommonsArrayList <> ();
+    aBatch.forEachView (x -> aItems.add (x.getAsItem ()));
+    assertEquals (new CommonsArrayList <> (aItem1, aItem2, aItem3), aItems);
+
+    // The dictionary is reset
+    final String sC2ID = aBatch.getString (aBatch.getCode (PeppolReportingItemBatch.COL_C2ID, 0));
+    aBatch.clear ();
+    assertTrue (aBatch.isEmpty ());
+    assertEquals (0, aBatch.getDictionarySize ());
+
+    aBatch.add (aItem2);
+    assertTrue (aBatch.isReceiving (0));
+    assertEquals (sC2ID, aBatch.getString (aBatch.getCode (PeppolReportingItemBatch.COL_C2ID, 0)));
+    assertEquals ("def", aBatch.getString (aBatch.getCode (PeppolReportingItemBatch.COL_END_USER_ID, 0)));
+  }
+
+  @Test
+  public void testManyDistinctValues ()
+  {
+    final PeppolReportingItemBatch aBatch = new PeppolReportingItemBatch (1000);
+    for (int i = 0; i < 1000; ++i)
+      aBatch.add (_createItem ((i & 1) == 0, "eu" + i));
+    assertTrue (aBatch.isFull ());
+
+    // The dictionary grows beyond its initial size and keeps all codes
+    for (int i = 0; i < 1000; ++i)
+    {
+      assertEquals ((i & 1) == 0, aBatch.isReceiving (i));
+      assertEquals ("eu" + i, aBatch.getString (aBatch.getCode (PeppolReportingItemBatch.COL_END_USER_ID, i)));
+    }
+    assertEquals (aBatch.getCode (PeppolReportingItemBatch.COL_C2ID, 0),
+                  aBatch.getCode (PeppolReportingItemBatch.COL_C2ID, 999));
+    final int nDictSize = aBatch.getDictionarySize ();
+    assertTrue (nDictSize > 1000);
+
+    // The next chunk does not keep the end user IDs of the previous chunk
+    aBatch.clear ();
+    for (int i = 0; i < 10; ++i)
+      aBatch.add (_createItem (false, "eu" + (1000 + i)));
+    assertTrue (aBatch.getDictionarySize () < 20);
+  }
+}
@@ -121,6 +121,44 @@ public final class PeppolReportingItemTest
     assertEquals ("abc", aItem.getEndUserID ());
   }
 
+  @Test
+  public void testCreateTrusted ()
+  {
+    final OffsetDateTime aNow = PDTFactory.getCurrentOffsetDateTimeMillisOnly ();
+    final PeppolReportingItem aItem = PeppolReportingItem.builder ()
+                                                         .exchangeDateTime (aNow)
+                                                         .directionReceiving ()
+                                                         .c2ID ("POP000002")
+                                                         .c3ID ("PAT000001")
+                                                         .docTypeID (EPredefinedDocumentTypeIdentifier.INVOICE_EN16931_PEPPOL_V30)
+                                                         .processID (EPredefinedProcessIdentifier.BIS3_BILLING)
+                                                         .transportProtocolPeppolAS4v2 ()
+                                                         .c1CountryCode ("FI")
+                                                         .c4CountryCode ("AT")
+                                                         .endUserID ("abc")
+                                                         .build ();
+    assertEquals (aNow.toInstant ().toEpochMilli (), aItem.getExchangeEpochMillis ());
+
+    final PeppolReportingItem aTrusted = PeppolReportingItem.createTrusted (aItem.getExchangeEpochMillis (),
+                                                                            aItem.getDirection (),
+                                                                            aItem.getC2ID (),
+                                                                            aItem.getC3ID (),
+                                                                            aItem.getDocTypeIDScheme (),
+                                                                            aItem.getDocTypeIDValue (),
+                                                                            aItem.getProcessIDScheme (),
+                                                                            aItem.getProcessIDValue (),
+                                                                            aItem.getTransportProtocol (),
+                                                                            aItem.getC1CountryCode (),
+                                                                            aItem.getC4CountryCode (),
+                                                                            aItem.getEndUserID ());
+    assertEquals (aItem.getExchangeDTUTC (), aTrusted.getExchangeDTUTC ());
+    assertEquals (ZoneOffset.UTC, aTrusted.getExchangeDTUTC ().getOffset ());
+    // The hash code is cached
+    assertEquals (aItem.hashCode (), aTrusted.hashCode ());
+    assertEquals (aTrusted.hashCode (), aTrusted.hashCode ());
+    TestHelper.testDefaultImplementationWithEqualContentObject (aItem, aTrusted);
+  }
+
   @Test
   public void testIsComplete ()
   {
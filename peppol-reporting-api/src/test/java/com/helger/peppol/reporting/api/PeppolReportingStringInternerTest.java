@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.time.OffsetDateTime;
+
+import org.junit.Test;
+
+import com.helger.datetime.helper.PDTFactory;
+import com.helger.peppolid.peppol.doctype.EPredefinedDocumentTypeIdentifier;
+import com.helger.peppolid.peppol.process.EPredefinedProcessIdentifier;
+
+/**
+ * Test class for class {@link PeppolReportingStringInterner}
+ *
+ * @author Philip Helger
+ */
+public final class PeppolReportingStringInternerTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final PeppolReportingStringInterner aInterner = new PeppolReportingStringInterner (2);
+    assertNull (aInterner.intern (null));
+
+    final String s1 = aInterner.intern (new String ("abc"));
+    assertSame (s1, aInterner.intern (new String ("abc")));
+    aInterner.intern ("def");
+    assertEquals (2, aInterner.size ());
+
+    // Pool is full - the least recently used value "abc" is evicted
+    final String s3 = new String ("ghi");
+    assertSame (s3, aInterner.intern (s3));
+    assertSame (s3, aInterner.intern (new String ("ghi")));
+    assertEquals (2, aInterner.size ());
+    assertNotSame (s1, aInterner.intern (new String ("abc")));
+    assertEquals (2, aInterner.size ());
+
+    aInterner.clear ();
+    assertEquals (0, aInterner.size ());
+  }
+
+  @Test
+  public void testBuilderSharesInstances ()
+  {
+    final OffsetDateTime aNow = PDTFactory.getCurrentOffsetDateTimeMillisOnly ();
+    final PeppolReportingItem aItem1 = PeppolReportingItem.builder ()
+                                                          .exchangeDateTime (aNow)
+                                                          .directionSending ()
+                                                          .c2ID (new String ("PAT000001"))
+                                                          .c3ID ("POP000002")
+                                                          .docTypeID (EPredefinedDocumentTypeIdentifier.INVOICE_EN16931_PEPPOL_V30)
+                                                          .processID (EPredefinedProcessIdentifier.BIS3_BILLING)
+                                                          .transportProtocolPeppolAS4v2 ()
+                                                          .c1CountryCode ("FI")
+                                                          .endUserID ("abc")
+                                                          .build ();
+    final PeppolReportingItem aItem2 = PeppolReportingItem.builder ()
+                                                          .exchangeDateTime (aNow)
+                                                          .directionSending ()
+                                                          .c2ID (new String ("PAT000001"))
+                                                          .c3ID ("POP000002")
+                                                          .docTypeID (EPredefinedDocumentTypeIdentifier.INVOICE_EN16931_PEPPOL_V30)
+                                                          .processID (EPredefinedProcessIdentifier.BIS3_BILLING)
+                                                          .transportProtocolPeppolAS4v2 ()
+                                                          .c1CountryCode ("FI")
+                                                          .endUserID ("abc")
+                                                          .build ();
+    if (PeppolReportingStringInterner.getGlobalInstance () != null)
+      assertSame (aItem1.getC2ID (), aItem2.getC2ID ());
+  }
+}
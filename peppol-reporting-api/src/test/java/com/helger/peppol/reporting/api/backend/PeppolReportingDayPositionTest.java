@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link PeppolReportingDayPosition}
+ *
+ * @author Philip Helger
+ */
+public final class PeppolReportingDayPositionTest
+{
+  @Test
+  public void testTokenRoundTrip ()
+  {
+    final PeppolReportingDayPosition aPos = new PeppolReportingDayPosition (LocalDate.of (2024, 2, 29), 4711);
+    final String sToken = aPos.getAsToken ();
+    assertEquals ("2024-02-29:4711", sToken);
+
+    final PeppolReportingDayPosition aParsed = PeppolReportingDayPosition.parseToken (sToken);
+    assertEquals (aPos.getDay (), aParsed.getDay ());
+    assertEquals (aPos.getPosition (), aParsed.getPosition ());
+  }
+
+  @Test
+  public void testStartPosition ()
+  {
+    final LocalDate aStart = LocalDate.of (2024, 3, 1);
+
+    PeppolReportingDayPosition aPos = PeppolReportingDayPosition.getStartPosition (aStart, null);
+    assertEquals (aStart, aPos.getDay ());
+    assertEquals (0, aPos.getPosition ());
+
+    aPos = PeppolReportingDayPosition.getStartPosition (aStart, "2024-03-02:5");
+    assertEquals (aStart.plusDays (1), aPos.getDay ());
+    assertEquals (5, aPos.getPosition ());
+
+    // Tokens before the range start at the beginning
+    aPos = PeppolReportingDayPosition.getStartPosition (aStart, "2024-02-01:5");
+    assertEquals (aStart, aPos.getDay ());
+    assertEquals (0, aPos.getPosition ());
+  }
+
+  @Test
+  public void testInvalidToken ()
+  {
+    for (final String sToken : new String [] { "", "abc", "2024-03-01", "2024-03-01:", "2024-03-01:-1", "x:1" })
+      try
+      {
+        PeppolReportingDayPosition.parseToken (sToken);
+        fail ("Token '" + sToken + "' should be invalid");
+      }
+      catch (final IllegalArgumentException ex)
+      {
+        // expected
+      }
+  }
+}
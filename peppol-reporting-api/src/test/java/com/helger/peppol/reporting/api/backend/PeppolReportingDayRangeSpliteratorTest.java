@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsSet;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppolid.peppol.doctype.EPredefinedDocumentTypeIdentifier;
+import com.helger.peppolid.peppol.process.EPredefinedProcessIdentifier;
+
+/**
+ * Test class for class {@link PeppolReportingDayRangeSpliterator}
+ *
+ * @author Philip Helger
+ */
+public final class PeppolReportingDayRangeSpliteratorTest
+{
+  private static final LocalDate START = LocalDate.of (2025, 1, 1);
+  private static final LocalDate END = LocalDate.of (2025, 1, 31);
+
+  @NonNull
+  private static PeppolReportingItem _createItem (@NonNull final LocalDate aDay)
+  {
+    return PeppolReportingItem.builder ()
+                              .exchangeDateTime (aDay.atTime (12, 0).atOffset (ZoneOffset.UTC))
+                              .directionSending ()
+                              .c2ID ("POP000002")
+                              .c3ID ("PAT000001")
+                              .docTypeID (EPredefinedDocumentTypeIdentifier.INVOICE_EN16931_PEPPOL_V30)
+                              .processID (EPredefinedProcessIdentifier.BIS3_BILLING)
+                              .transportProtocolPeppolAS4v2 ()
+                              .c1CountryCode ("FI")
+                              .endUserID ("user-" + aDay)
+                              .build ();
+  }
+
+  /**
+   * A closeable iterator that counts the open instances.
+   */
+  private static final class CountingIterator implements Iterator <PeppolReportingItem>, AutoCloseable
+  {
+    private final Iterator <PeppolReportingItem> m_aIter;
+    private final AtomicInteger m_aOpen;
+
+    CountingIterator (@NonNull final Iterator <PeppolReportingItem> aIter, @NonNull final AtomicInteger aOpen)
+    {
+      m_aIter = aIter;
+      m_aOpen = aOpen;
+      aOpen.incrementAndGet ();
+    }
+
+    @Override
+    public boolean hasNext ()
+    {
+      return m_aIter.hasNext ();
+    }
+
+    @Override
+    public PeppolReportingItem next ()
+    {
+      return m_aIter.next ();
+    }
+
+    @Override
+    public void close ()
+    {
+      m_aOpen.decrementAndGet ();
+    }
+  }
+
+  @NonNull
+  private static PeppolReportingDayRangeSpliterator.IRangeReader _createReader (@NonNull final AtomicInteger aOpen)
+  {
+    return (aStart, aEnd) -> {
+      final ICommonsList <PeppolReportingItem> aList = new CommonsArrayList <> ();
+      for (LocalDate aDay = aStart; !aDay.isAfter (aEnd); aDay = aDay.plusDays (1))
+        aList.add (_createItem (aDay));
+      return new CountingIterator (aList.iterator (), aOpen);
+    };
+  }
+
+  @Test
+  public void testSplit ()
+  {
+    final AtomicInteger aOpen = new AtomicInteger (0);
+    final PeppolReportingDayRangeSpliterator aSuffix = new PeppolReportingDayRangeSpliterator (START,
+                                                                                               END,
+                                                                                               _createReader (aOpen));
+    final PeppolReportingDayRangeSpliterator aPrefix = aSuffix.trySplit ();
+    assertNotNull (aPrefix);
+
+    final ICommonsSet <PeppolReportingItem> aPrefixItems = new CommonsHashSet <> ();
+    aPrefix.forEachRemaining (aPrefixItems::add);
+    assertEquals (15, aPrefixItems.size ());
+
+    // Started reading - no more split
+    final ICommonsSet <PeppolReportingItem> aSuffixItems = new CommonsHashSet <> ();
+    aSuffix.tryAdvance (aSuffixItems::add);
+    assertNull (aSuffix.trySplit ());
+    aSuffix.forEachRemaining (aSuffixItems::add);
+    assertEquals (16, aSuffixItems.size ());
+
+    // Exhausted iterators are closed
+    assertEquals (0, aOpen.get ());
+
+    // A single day can not be split
+    assertNull (new PeppolReportingDayRangeSpliterator (START, START, _createReader (aOpen)).trySplit ());
+  }
+
+  @Test
+  public void testParallelStream ()
+  {
+    final AtomicInteger aOpen = new AtomicInteger (0);
+    try (final Stream <PeppolReportingItem> aStream = PeppolReportingDayRangeSpliterator.createStream (START,
+                                                                                                      END,
+                                                                                                      _createReader (aOpen)))
+    {
+      final ICommonsSet <PeppolReportingItem> aItems = new CommonsHashSet <> (aStream.parallel ()
+                                                                                     .collect (Collectors.toList ()));
+      assertEquals (31, aItems.size ());
+    }
+    assertEquals (0, aOpen.get ());
+  }
+
+  @Test
+  public void testCloseUnfinished ()
+  {
+    final AtomicInteger aOpen = new AtomicInteger (0);
+    try (final Stream <PeppolReportingItem> aStream = PeppolReportingDayRangeSpliterator.createStream (START,
+                                                                                                      END,
+                                                                                                      _createReader (aOpen)))
+    {
+      assertEquals (3, aStream.limit (3).count ());
+    }
+    // Closing the stream closes the open iterator
+    assertEquals (0, aOpen.get ());
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.Flow;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppolid.peppol.doctype.EPredefinedDocumentTypeIdentifier;
+import com.helger.peppolid.peppol.process.EPredefinedProcessIdentifier;
+
+/**
+ * Test class for class {@link PeppolReportingItemPublisher}
+ *
+ * @author Philip Helger
+ */
+public final class PeppolReportingItemPublisherTest
+{
+  private static final int ITEM_COUNT = 10;
+
+  @NonNull
+  private static PeppolReportingItem _createItem (final int nIndex)
+  {
+    return PeppolReportingItem.builder ()
+                              .exchangeDateTime (LocalDate.of (2025, 1, 1).atTime (12, 0).atOffset (ZoneOffset.UTC))
+                              .directionSending ()
+                              .c2ID ("POP000002")
+                              .c3ID ("PAT000001")
+                              .docTypeID (EPredefinedDocumentTypeIdentifier.INVOICE_EN16931_PEPPOL_V30)
+                              .processID (EPredefinedProcessIdentifier.BIS3_BILLING)
+                              .transportProtocolPeppolAS4v2 ()
+                              .c1CountryCode ("FI")
+                              .endUserID ("user" + nIndex)
+                              .build ();
+  }
+
+  /**
+   * A chunk source that remembers the largest requested chunk and whether it was closed.
+   */
+  private static final class TestSource implements PeppolReportingItemPublisher.IChunkSource
+  {
+    private int m_nRead = 0;
+    private int m_nMaxRequested = 0;
+    private boolean m_bClosed = false;
+
+    @NonNull
+    public ICommonsList <PeppolReportingItem> readNextChunk (final int nMaxItems)
+    {
+      m_nMaxRequested = Math.max (m_nMaxRequested, nMaxItems);
+      final ICommonsList <PeppolReportingItem> ret = new CommonsArrayList <> ();
+      while (ret.size () < nMaxItems && m_nRead < ITEM_COUNT)
+        ret.add (_createItem (m_nRead++));
+      return ret;
+    }
+
+    @Override
+    public void close ()
+    {
+      m_bClosed = true;
+    }
+  }
+
+  /**
+   * A subscriber that requests a fixed number of items whenever the previous request is fulfilled.
+   */
+  private static final class TestSubscriber implements Flow.Subscriber <PeppolReportingItem>
+  {
+    private final int m_nRequest;
+    private final int m_nCancelAfter;
+    private Flow.Subscription m_aSubscription;
+    private int m_nOutstanding = 0;
+    private final ICommonsList <PeppolReportingItem> m_aItems = new CommonsArrayList <> ();
+    private boolean m_bCompleted = false;
+    private Throwable m_aError;
+
+    TestSubscriber (final int nRequest, final int nCancelAfter)
+    {
+      m_nRequest = nRequest;
+      m_nCancelAfter = nCancelAfter;
+    }
+
+    private void _request ()
+    {
+      m_nOutstanding = m_nRequest;
+      m_aSubscription.request (m_nRequest);
+    }
+
+    public void onSubscribe (@NonNull final Flow.Subscription aSubscription)
+    {
+      m_aSubscription = aSubscription;
+      _request ();
+    }
+
+    public void onNext (@NonNull final PeppolReportingItem aItem)
+    {
+      assertTrue ("More items than requested", m_nOutstanding > 0);
+      m_aItems.add (aItem);
+      if (m_aItems.size () == m_nCancelAfter)
+        m_aSubscription.cancel ();
+      else
+        if (--m_nOutstanding == 0)
+          _request ();
+    }
+
+    public void onError (@NonNull final Throwable t)
+    {
+      m_aError = t;
+    }
+
+    public void onComplete ()
+    {
+      m_bCompleted = true;
+    }
+  }
+
+  @Test
+  public void testDemandDriven ()
+  {
+    final TestSource aSource = new TestSource ();
+    // Run synchronously in the calling thread
+    final PeppolReportingItemPublisher aPublisher = new PeppolReportingItemPublisher (n -> aSource, Runnable::run, 4);
+    final TestSubscriber aSubscriber = new TestSubscriber (3, -1);
+    aPublisher.subscribe (aSubscriber);
+
+    assertNull (aSubscriber.m_aError);
+    assertTrue (aSubscriber.m_bCompleted);
+    assertEquals (ITEM_COUNT, aSubscriber.m_aItems.size ());
+    // Never read more than requested
+    assertEquals (3, aSource.m_nMaxRequested);
+    assertTrue (aSource.m_bClosed);
+  }
+
+  @Test
+  public void testMaxChunkSize ()
+  {
+    final TestSource aSource = new TestSource ();
+    final PeppolReportingItemPublisher aPublisher = new PeppolReportingItemPublisher (n -> aSource, Runnable::run, 4);
+    final TestSubscriber aSubscriber = new TestSubscriber (Integer.MAX_VALUE, -1);
+    aPublisher.subscribe (aSubscriber);
+
+    assertTrue (aSubscriber.m_bCompleted);
+    assertEquals (ITEM_COUNT, aSubscriber.m_aItems.size ());
+    assertEquals (4, aSource.m_nMaxRequested);
+  }
+
+  @Test
+  public void testCancel ()
+  {
+    final TestSource aSource = new TestSource ();
+    final PeppolReportingItemPublisher aPublisher = new PeppolReportingItemPublisher (n -> aSource, Runnable::run, 4);
+    final TestSubscriber aSubscriber = new TestSubscriber (2, 5);
+    aPublisher.subscribe (aSubscriber);
+
+    assertFalse (aSubscriber.m_bCompleted);
+    assertEquals (5, aSubscriber.m_aItems.size ());
+    assertTrue (aSource.m_bClosed);
+  }
+
+  @Test
+  public void testInvalidRequest ()
+  {
+    final TestSource aSource = new TestSource ();
+    final PeppolReportingItemPublisher aPublisher = new PeppolReportingItemPublisher (n -> aSource, Runnable::run, 4);
+    final TestSubscriber aSubscriber = new TestSubscriber (0, -1);
+    aPublisher.subscribe (aSubscriber);
+
+    assertNotNull (aSubscriber.m_aError);
+    assertTrue (aSubscriber.m_aError instanceof IllegalArgumentException);
+  }
+
+  @Test
+  public void testOfDays ()
+  {
+    final LocalDate aStart = LocalDate.of (2025, 1, 1);
+    // One item per day
+    final PeppolReportingDayRangeSpliterator.IRangeReader aDayReader = (aDayStart,
+                                                                        aDayEnd) -> new CommonsArrayList <> (_createItem (aDayStart.getDayOfMonth ())).iterator ();
+    final PeppolReportingItemPublisher aPublisher = new PeppolReportingItemPublisher (n -> PeppolReportingItemPublisher.IChunkSource.ofDays (aStart,
+                                                                                                                                             aStart.plusDays (2),
+                                                                                                                                             aDayReader),
+                                                                                      Runnable::run,
+                                                                                      4);
+    final TestSubscriber aSubscriber = new TestSubscriber (2, -1);
+    aPublisher.subscribe (aSubscriber);
+
+    assertTrue (aSubscriber.m_bCompleted);
+    assertEquals (3, aSubscriber.m_aItems.size ());
+  }
+}
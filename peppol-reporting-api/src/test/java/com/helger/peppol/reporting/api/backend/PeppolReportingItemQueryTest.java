@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import org.junit.Test;
+
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.EReportingItemField;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppolid.peppol.doctype.EPredefinedDocumentTypeIdentifier;
+import com.helger.peppolid.peppol.process.EPredefinedProcessIdentifier;
+
+/**
+ * Test class for class {@link PeppolReportingItemQuery}
+ *
+ * @author Philip Helger
+ */
+public final class PeppolReportingItemQueryTest
+{
+  private static final PeppolReportingItem ITEM = PeppolReportingItem.builder ()
+                                                                     .exchangeDateTime (OffsetDateTime.of (2024,
+                                                                                                           3,
+                                                                                                           1,
+                                                                                                           12,
+                                                                                                           0,
+                                                                                                           0,
+                                                                                                           0,
+                                                                                                           ZoneOffset.UTC))
+                                                                     .directionReceiving ()
+                                                                     .c2ID ("pop000001")
+                                                                     .c3ID ("pop000002")
+                                                                     .docTypeID (EPredefinedDocumentTypeIdentifier.INVOICE_EN16931_PEPPOL_V30)
+                                                                     .processID (EPredefinedProcessIdentifier.BIS3_BILLING)
+                                                                     .transportProtocolPeppolAS4v2 ()
+                                                                     .c1CountryCode ("FI")
+                                                                     .endUserID ("eu1")
+                                                                     .build ();
+
+  @Test
+  public void testMatches ()
+  {
+    assertTrue (new PeppolReportingItemQuery ().matches (ITEM));
+    assertTrue (new PeppolReportingItemQuery ().directionReceiving ().c2ID ("pop000001").matches (ITEM));
+    assertFalse (new PeppolReportingItemQuery ().directionSending ().matches (ITEM));
+    assertFalse (new PeppolReportingItemQuery ().endUserID ("eu2").matches (ITEM));
+    // The item has no C4 country code
+    assertFalse (new PeppolReportingItemQuery ().c4CountryCode ("DE").matches (ITEM));
+
+    // Removing a criterion
+    final PeppolReportingItemQuery aQuery = new PeppolReportingItemQuery ().endUserID ("eu2");
+    assertTrue (aQuery.hasCriteria ());
+    aQuery.endUserID (null);
+    assertFalse (aQuery.hasCriteria ());
+    assertTrue (aQuery.matches (ITEM));
+  }
+
+  @Test
+  public void testDirection ()
+  {
+    final PeppolReportingItemQuery aQuery = new PeppolReportingItemQuery ();
+    assertNull (aQuery.getDirection ());
+    aQuery.directionSending ();
+    assertEquals (EReportingDirection.SENDING, aQuery.getDirection ());
+    aQuery.direction (null);
+    assertNull (aQuery.getDirection ());
+  }
+
+  @Test
+  public void testProjection ()
+  {
+    final PeppolReportingItemQuery aQuery = new PeppolReportingItemQuery ();
+    assertTrue (aQuery.isFullProjection ());
+
+    aQuery.projection (EReportingItemField.C2_ID);
+    assertFalse (aQuery.isFullProjection ());
+    // Always projected
+    assertTrue (aQuery.isProjected (EReportingItemField.EXCHANGE_DATETIME));
+    assertTrue (aQuery.isProjected (EReportingItemField.DIRECTION));
+    assertTrue (aQuery.isProjected (EReportingItemField.C2_ID));
+    assertFalse (aQuery.isProjected (EReportingItemField.C3_ID));
+    assertEquals (3, aQuery.getAllProjectedFields ().size ());
+
+    // The copy is independent
+    final PeppolReportingItemQuery aCopy = new PeppolReportingItemQuery (aQuery).projectionAll ();
+    assertTrue (aCopy.isFullProjection ());
+    assertFalse (aQuery.isFullProjection ());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testExchangeDateTimeCriterion ()
+  {
+    new PeppolReportingItemQuery ().criterion (EReportingItemField.EXCHANGE_DATETIME, "2024-03-01");
+  }
+}
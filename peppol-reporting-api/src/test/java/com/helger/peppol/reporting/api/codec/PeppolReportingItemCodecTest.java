@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.api.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.datetime.helper.PDTFactory;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppolid.peppol.doctype.EPredefinedDocumentTypeIdentifier;
+import com.helger.peppolid.peppol.process.EPredefinedProcessIdentifier;
+
+/**
+ * Test class for class {@link PeppolReportingItemCodec}
+ *
+ * @author Philip Helger
+ */
+public final class PeppolReportingItemCodecTest
+{
+  @NonNull
+  private static PeppolReportingItem _createItem (final boolean bSending, @NonNull final String sEndUserID)
+  {
+    final OffsetDateTime aNow = PDTFactory.getCurrentOffsetDateTimeMillisOnly ();
+    final PeppolReportingItem.Builder aBuilder = PeppolReportingItem.builder ()
+                                                                    .exchangeDateTime (aNow)
+                                                                    .c2ID ("PAT000001")
+                                                                    .c3ID ("POP000002")
+                                                                    .docTypeID (EPredefinedDocumentTypeIdentifier.INVOICE_EN16931_PEPPOL_V30)
+                                                                    .processID (EPredefinedProcessIdentifier.BIS3_BILLING)
+                                                                    .transportProtocolPeppolAS4v2 ()
+                                                                    .c1CountryCode ("FI")
+                                                                    .endUserID (sEndUserID);
+    if (bSending)
+      aBuilder.directionSending ();
+    else
+      aBuilder.directionReceiving ().c4CountryCode ("AT");
+    return aBuilder.build ();
+  }
+
+  @Test
+  public void testRoundTripByteBuffer ()
+  {
+    for (final PeppolReportingItem aItem : new PeppolReportingItem [] { _createItem (true, "abc"),
+                                                                        _createItem (false, "Ümlaut €") })
+    {
+      final byte [] aBytes = PeppolReportingItemCodec.encode (aItem);
+      assertEquals (PeppolReportingItemCodec.FORMAT_VERSION, aBytes[0]);
+      assertEquals (aItem, PeppolReportingItemCodec.decode (aBytes));
+
+      // Multiple items in one buffer
+      final ByteBuffer aBB = ByteBuffer.allocate (aBytes.length * 2);
+      PeppolReportingItemCodec.encode (aItem, aBB, null);
+      PeppolReportingItemCodec.encode (aItem, aBB, null);
+      aBB.flip ();
+      assertEquals (aItem, PeppolReportingItemCodec.decode (aBB, null));
+      assertEquals (aItem, PeppolReportingItemCodec.decode (aBB, null));
+      assertEquals (0, aBB.remaining ());
+    }
+  }
+
+  @Test
+  public void testRoundTripStreamWithDictionary () throws IOException
+  {
+    final PeppolReportingItem aItem1 = _createItem (true, "abc");
+    final PeppolReportingItem aItem2 = _createItem (false, "def");
+
+    final PeppolReportingItemDictionary aDict = new PeppolReportingItemDictionary ();
+    aDict.addAll (aItem1);
+    aDict.addAll (aItem2);
+    // Shared strings are only contained once
+    assertEquals (11, aDict.size ());
+
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    aDict.writeTo (aBAOS);
+    PeppolReportingItemCodec.write (aItem1, aBAOS, aDict);
+    PeppolReportingItemCodec.write (aItem2, aBAOS, aDict);
+
+    // References are much shorter than inline strings
+    assertTrue (PeppolReportingItemCodec.encode (aItem1, aDict).length <
+                PeppolReportingItemCodec.encode (aItem1).length / 4);
+
+    final byte [] aBytes = aBAOS.toByteArray ();
+    try (final ByteArrayInputStream aBAIS = new ByteArrayInputStream (aBytes))
+    {
+      final PeppolReportingItemDictionary aReadDict = PeppolReportingItemDictionary.readFrom (aBAIS);
+      assertEquals (aDict.size (), aReadDict.size ());
+      assertEquals (aItem1, PeppolReportingItemCodec.read (aBAIS, aReadDict));
+      assertEquals (aItem2, PeppolReportingItemCodec.read (aBAIS, aReadDict));
+      assertNull (PeppolReportingItemCodec.read (aBAIS, aReadDict));
+    }
+
+    final ByteBuffer aBB = ByteBuffer.wrap (aBytes);
+    final PeppolReportingItemDictionary aReadDict = PeppolReportingItemDictionary.readFrom (aBB);
+    assertEquals (aItem1, PeppolReportingItemCodec.decode (aBB, aReadDict));
+    assertEquals (aItem2, PeppolReportingItemCodec.decode (aBB, aReadDict));
+  }
+
+  @Test
+  public void testInvalid () throws IOException
+  {
+    final PeppolReportingItem aItem = _createItem (true, "abc");
+    final PeppolReportingItemDictionary aDict = new PeppolReportingItemDictionary ();
+    aDict.addAll (aItem);
+
+    // Dictionary reference without dictionary
+    try
+    {
+      PeppolReportingItemCodec.decode (ByteBuffer.wrap (PeppolReportingItemCodec.encode (aItem, aDict)), null);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+
+    // Unknown version
+    final byte [] aBytes = PeppolReportingItemCodec.encode (aItem);
+    aBytes[0] = 99;
+    try
+    {
+      PeppolReportingItemCodec.decode (aBytes);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+
+    // Truncated stream
+    final byte [] aTruncated = PeppolReportingItemCodec.encode (aItem);
+    try (final ByteArrayInputStream aBAIS = new ByteArrayInputStream (aTruncated, 0, aTruncated.length - 1))
+    {
+      PeppolReportingItemCodec.read (aBAIS, null);
+      fail ();
+    }
+    catch (final EOFException ex)
+    {
+      // expected
+    }
+
+    // Only null fields
+    final byte [] aEmpty = new byte [1 + 8 + 1 + 10];
+    aEmpty[0] = PeppolReportingItemCodec.FORMAT_VERSION;
+    try
+    {
+      PeppolReportingItemCodec.decode (aEmpty);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+    try (final ByteArrayInputStream aBAIS = new ByteArrayInputStream (aEmpty))
+    {
+      PeppolReportingItemCodec.read (aBAIS, null);
+      fail ();
+    }
+    catch (final IOException ex)
+    {
+      // expected
+    }
+
+    // Target buffer too small
+    final ByteBuffer aSmall = ByteBuffer.allocate (aBytes.length - 1);
+    try
+    {
+      PeppolReportingItemCodec.encode (aItem, aSmall, null);
+      fail ();
+    }
+    catch (final BufferOverflowException ex)
+    {
+      // expected
+    }
+    assertEquals (0, aSmall.position ());
+  }
+}
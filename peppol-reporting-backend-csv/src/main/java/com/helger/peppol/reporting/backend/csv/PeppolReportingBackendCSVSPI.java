@@ -16,20 +16,27 @@
  */
 package com.helger.peppol.reporting.backend.csv;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
 import com.helger.annotation.concurrent.ELockType;
 import com.helger.annotation.concurrent.GuardedBy;
 import com.helger.annotation.concurrent.MustBeLocked;
@@ -43,15 +50,20 @@ import com.helger.collection.commons.CommonsArrayList;
 import com.helger.collection.commons.ICommonsList;
 import com.helger.config.IConfig;
 import com.helger.csv.CCSV;
+import com.helger.csv.CSVParser;
 import com.helger.csv.CSVReader;
 import com.helger.csv.CSVWriter;
 import com.helger.datetime.format.PDTFromString;
 import com.helger.io.file.FileHelper;
 import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.EReportingItemField;
+import com.helger.peppol.reporting.api.IPeppolReportingItemView;
 import com.helger.peppol.reporting.api.PeppolReportingHelper;
 import com.helger.peppol.reporting.api.PeppolReportingItem;
 import com.helger.peppol.reporting.api.backend.IPeppolReportingBackendSPI;
 import com.helger.peppol.reporting.api.backend.PeppolReportingBackendException;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemPage;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemQuery;
 import com.helger.peppolid.CIdentifier;
 
 /**
@@ -68,6 +80,7 @@ public class PeppolReportingBackendCSVSPI implements IPeppolReportingBackendSPI
   public static final String CONFIG_PEPPOL_REPORTING_CSV_ESCAPE_CHAR = "peppol.reporting.csv.escape-char";
 
   private static final Logger LOGGER = LoggerFactory.getLogger (PeppolReportingBackendCSVSPI.class);
+  private static final int PAGE_READ_BUFFER_SIZE = 64 * 1024;
 
   private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
   private File m_aCSVFile;
@@ -271,9 +284,17 @@ public class PeppolReportingBackendCSVSPI implements IPeppolReportingBackendSPI
                               .build ();
   }
 
-  public void forEachReportingItem (@NonNull final LocalDate aStartDateIncl,
-                                    @NonNull final LocalDate aEndDateIncl,
-                                    @NonNull final Consumer <? super PeppolReportingItem> aConsumer) throws PeppolReportingBackendException
+  private void _forEachLine (@NonNull final LocalDate aStartDateIncl,
+                             @NonNull final LocalDate aEndDateIncl,
+                             @NonNull final Consumer <ICommonsList <String>> aConsumer) throws PeppolReportingBackendException
+  {
+    _forEachLine (aStartDateIncl, aEndDateIncl, null, aConsumer);
+  }
+
+  private void _forEachLine (@NonNull final LocalDate aStartDateIncl,
+                             @NonNull final LocalDate aEndDateIncl,
+                             @Nullable final Predicate <ICommonsList <String>> aLineFilter,
+                             @NonNull final Consumer <ICommonsList <String>> aConsumer) throws PeppolReportingBackendException
   {
     ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
     ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
@@ -301,14 +322,16 @@ public class PeppolReportingBackendCSVSPI implements IPeppolReportingBackendSPI
       ICommonsList <String> aLine;
       while ((aLine = aReader.readNext ()) != null)
       {
+        // The cheap column comparisons come before the date parsing
+        if (aLineFilter != null && !aLineFilter.test (aLine))
+          continue;
+
         // First check the date
         final LocalDate aExchangeDate = PDTFromString.getLocalDateFromString (aLine.get (1),
                                                                               DateTimeFormatter.ISO_LOCAL_DATE);
         if (aExchangeDate.compareTo (aStartDateIncl) >= 0 && aExchangeDate.compareTo (aEndDateIncl) <= 0)
         {
-          // Build only on match
-          final PeppolReportingItem aReportingItem = asItem (aLine);
-          aConsumer.accept (aReportingItem);
+          aConsumer.accept (aLine);
           ++nCounter;
         }
       }
@@ -322,6 +345,73 @@ public class PeppolReportingBackendCSVSPI implements IPeppolReportingBackendSPI
       LOGGER.debug ("Found a total of " + nCounter + " matching documents in CSV '" + sCSVFilename + "'");
   }
 
+  public void forEachReportingItem (@NonNull final LocalDate aStartDateIncl,
+                                    @NonNull final LocalDate aEndDateIncl,
+                                    @NonNull final Consumer <? super PeppolReportingItem> aConsumer) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+    // Build only on match
+    _forEachLine (aStartDateIncl, aEndDateIncl, aLine -> aConsumer.accept (asItem (aLine)));
+  }
+
+  public void forEachReportingItemView (@NonNull final LocalDate aStartDateIncl,
+                                        @NonNull final LocalDate aEndDateIncl,
+                                        @NonNull final Consumer <? super IPeppolReportingItemView> aConsumer) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+    // One view for all lines
+    final ReportingCSVItemView aView = new ReportingCSVItemView ();
+    _forEachLine (aStartDateIncl, aEndDateIncl, aLine -> {
+      aView.setLine (aLine);
+      aConsumer.accept (aView);
+    });
+  }
+
+  /**
+   * The criteria are compared with the raw CSV columns, before the exchange date is parsed and
+   * before the view is positioned on the line. The projection is not relevant, as all columns are
+   * read anyway.
+   */
+  public void forEachReportingItemView (@NonNull final LocalDate aStartDateIncl,
+                                        @NonNull final LocalDate aEndDateIncl,
+                                        @NonNull final PeppolReportingItemQuery aQuery,
+                                        @NonNull final Consumer <? super IPeppolReportingItemView> aConsumer) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aQuery, "Query");
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    if (!aQuery.hasCriteria ())
+    {
+      forEachReportingItemView (aStartDateIncl, aEndDateIncl, aConsumer);
+      return;
+    }
+
+    // The CSV column of each field is the field ordinal + 1, as the second column is the exchange
+    // date. The direction is written with its ID and a missing C4 country code as an empty string.
+    final Map <EReportingItemField, String> aCriteria = aQuery.getAllCriteria ();
+    final int [] aColumns = new int [aCriteria.size ()];
+    final String [] aValues = new String [aCriteria.size ()];
+    int nIndex = 0;
+    for (final Map.Entry <EReportingItemField, String> aEntry : aCriteria.entrySet ())
+    {
+      aColumns[nIndex] = aEntry.getKey ().ordinal () + 1;
+      aValues[nIndex] = aEntry.getValue ();
+      ++nIndex;
+    }
+
+    // One view for all lines
+    final ReportingCSVItemView aView = new ReportingCSVItemView ();
+    _forEachLine (aStartDateIncl, aEndDateIncl, aLine -> {
+      for (int i = 0; i < aColumns.length; ++i)
+        if (!aValues[i].equals (aLine.get (aColumns[i])))
+          return false;
+      return true;
+    }, aLine -> {
+      aView.setLine (aLine);
+      aConsumer.accept (aView);
+    });
+  }
+
   @NonNull
   public Iterable <PeppolReportingItem> iterateReportingItems (@NonNull final LocalDate aStartDateIncl,
                                                                @NonNull final LocalDate aEndDateIncl) throws PeppolReportingBackendException
@@ -330,4 +420,130 @@ public class PeppolReportingBackendCSVSPI implements IPeppolReportingBackendSPI
     forEachReportingItem (aStartDateIncl, aEndDateIncl, ret::add);
     return ret;
   }
+
+  /**
+   * Read a single complete record with the same settings as the CSV file itself, so that line
+   * breaks inside quoted values are kept.
+   *
+   * @param sRecord
+   *        The complete text of the record, including all its physical lines.
+   * @return <code>null</code> if the text contains no record.
+   */
+  @Nullable
+  private ICommonsList <String> _readRecord (@NonNull final String sRecord) throws IOException
+  {
+    try (final CSVReader aReader = new CSVReader (new StringReader (sRecord)))
+    {
+      aReader.setSeparatorChar (m_cSeparatorChar).setQuoteChar (m_cQuoteChar).setEscapeChar (m_cEscapeChar);
+      return aReader.readNext ();
+    }
+  }
+
+  /**
+   * Keyset pagination on the byte offset of the records in the CSV file. The continuation token is
+   * the byte offset of the next matching record, so reading continues directly at that position
+   * without parsing the previous records again. An incomplete last line (without a line break)
+   * is not read.
+   */
+  @NonNull
+  public PeppolReportingItemPage readReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                                     @NonNull final LocalDate aEndDateIncl,
+                                                     @Nonnegative final int nPageSize,
+                                                     @Nullable final String sContinuationToken) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    ValueEnforcer.isGT0 (nPageSize, "PageSize");
+
+    final String sCSVFilename = _getCSVFilename ();
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting CSV backend '" + sCSVFilename + "' is not initialized");
+
+    long nOffset = 0;
+    if (sContinuationToken != null)
+    {
+      try
+      {
+        nOffset = Long.parseLong (sContinuationToken);
+      }
+      catch (final NumberFormatException ex)
+      {
+        throw new IllegalArgumentException ("Invalid continuation token '" + sContinuationToken + "' provided", ex);
+      }
+      if (nOffset < 0)
+        throw new IllegalArgumentException ("Invalid continuation token '" + sContinuationToken + "' provided");
+    }
+
+    final ICommonsList <PeppolReportingItem> ret = new CommonsArrayList <> (nPageSize);
+    // Writers must not append while the records are read by byte offset
+    m_aRWLock.readLock ().lock ();
+    try (final FileInputStream aFIS = new FileInputStream (m_aCSVFile))
+    {
+      aFIS.getChannel ().position (nOffset);
+
+      // Only used to find the end of each record
+      final CSVParser aParser = new CSVParser ().setSeparatorChar (m_cSeparatorChar)
+                                                .setQuoteChar (m_cQuoteChar)
+                                                .setEscapeChar (m_cEscapeChar);
+      final ByteArrayOutputStream aLineBytes = new ByteArrayOutputStream ();
+      final StringBuilder aRecordText = new StringBuilder ();
+      final byte [] aBuffer = new byte [PAGE_READ_BUFFER_SIZE];
+      long nBufferStart = nOffset;
+      long nRecordStart = nOffset;
+      int nRead;
+      while ((nRead = aFIS.read (aBuffer)) > 0)
+      {
+        int nLineStart = 0;
+        for (int i = 0; i < nRead; ++i)
+          if (aBuffer[i] == '\n')
+          {
+            // One complete physical line - the line break is a single byte in UTF-8
+            aLineBytes.write (aBuffer, nLineStart, i - nLineStart);
+            nLineStart = i + 1;
+
+            final String sLine = aLineBytes.toString (StandardCharsets.UTF_8);
+            aLineBytes.reset ();
+            aRecordText.append (sLine).append ('\n');
+
+            // A quoted value may span multiple physical lines
+            aParser.parseLineMulti (sLine.endsWith ("\r") ? sLine.substring (0, sLine.length () - 1) : sLine);
+            if (aParser.isPending ())
+              continue;
+
+            final ICommonsList <String> aLine = _readRecord (aRecordText.toString ());
+            final long nThisRecordStart = nRecordStart;
+            aRecordText.setLength (0);
+            nRecordStart = nBufferStart + i + 1;
+            if (aLine == null)
+              continue;
+
+            final LocalDate aExchangeDate = PDTFromString.getLocalDateFromString (aLine.get (1),
+                                                                                  DateTimeFormatter.ISO_LOCAL_DATE);
+            if (aExchangeDate.compareTo (aStartDateIncl) >= 0 && aExchangeDate.compareTo (aEndDateIncl) <= 0)
+            {
+              if (ret.size () == nPageSize)
+              {
+                // Continue at this record next time
+                return new PeppolReportingItemPage (ret, Long.toString (nThisRecordStart));
+              }
+              ret.add (asItem (aLine));
+            }
+          }
+        // Remember the rest of the buffer for the next read
+        aLineBytes.write (aBuffer, nLineStart, nRead - nLineStart);
+        nBufferStart += nRead;
+      }
+    }
+    catch (final IOException ex)
+    {
+      throw new PeppolReportingBackendException ("IO error in reading CSV '" + sCSVFilename + "'", ex);
+    }
+    finally
+    {
+      m_aRWLock.readLock ().unlock ();
+    }
+    return PeppolReportingItemPage.createLastPage (ret);
+  }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.csv;
+
+import java.time.format.DateTimeFormatter;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.string.StringHelper;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.datetime.format.PDTFromString;
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.IPeppolReportingItemView;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * A reusable {@link IPeppolReportingItemView} positioned on a single CSV line, as written by
+ * {@link PeppolReportingBackendCSVSPI#asCSV(PeppolReportingItem)}.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@NotThreadSafe
+final class ReportingCSVItemView implements IPeppolReportingItemView
+{
+  private ICommonsList <String> m_aLine;
+  private EReportingDirection m_eDirection;
+
+  void setLine (@NonNull final ICommonsList <String> aLine)
+  {
+    m_aLine = aLine;
+    m_eDirection = EReportingDirection.getFromIDOrThrow (aLine.get (2));
+  }
+
+  public long getExchangeEpochMillis ()
+  {
+    return PDTFromString.getOffsetDateTimeFromString (m_aLine.get (0), DateTimeFormatter.ISO_DATE_TIME)
+                        .toInstant ()
+                        .toEpochMilli ();
+  }
+
+  @NonNull
+  public EReportingDirection getDirection ()
+  {
+    return m_eDirection;
+  }
+
+  @NonNull
+  @Nonempty
+  public String getC2ID ()
+  {
+    return m_aLine.get (3);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getC3ID ()
+  {
+    return m_aLine.get (4);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getDocTypeIDScheme ()
+  {
+    return m_aLine.get (5);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getDocTypeIDValue ()
+  {
+    return m_aLine.get (6);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getProcessIDScheme ()
+  {
+    return m_aLine.get (7);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getProcessIDValue ()
+  {
+    return m_aLine.get (8);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getTransportProtocol ()
+  {
+    return m_aLine.get (9);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getC1CountryCode ()
+  {
+    return m_aLine.get (10);
+  }
+
+  @Nullable
+  public String getC4CountryCode ()
+  {
+    return StringHelper.getNotEmpty (m_aLine.get (11), (String) null);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getEndUserID ()
+  {
+    return m_aLine.get (12);
+  }
+
+  @NonNull
+  public PeppolReportingItem getAsItem ()
+  {
+    return PeppolReportingBackendCSVSPI.asItem (m_aLine);
+  }
+}
@@ -16,10 +16,22 @@
  */
 package com.helger.peppol.reporting.backend.csv;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+
 import org.jspecify.annotations.NonNull;
+import org.junit.Test;
 
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
 import com.helger.peppol.reporting.api.backend.IPeppolReportingBackendSPI;
+import com.helger.peppol.reporting.api.backend.PeppolReportingBackendException;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemPage;
 import com.helger.peppol.reporting.testbackend.AbstractPeppolReportingBackendSPITest;
+import com.helger.peppol.reporting.testbackend.PeppolReportingTestItems;
 
 /**
  * SPI contract test for {@link PeppolReportingBackendCSVSPI}.
@@ -34,4 +46,39 @@ public final class PeppolReportingBackendCSVSPITest extends AbstractPeppolReport
   {
     return new PeppolReportingBackendCSVSPI ();
   }
-}
+
+  @Test
+  public void testReadPagesKeepsLineBreaksInValues () throws PeppolReportingBackendException
+  {
+    final LocalDate aBase = testRunBaseDate ();
+    final PeppolReportingItem aTemplate = PeppolReportingTestItems.sendingItem (aBase, 580);
+    final PeppolReportingItem aItem = PeppolReportingItem.builder ()
+                                                         .exchangeDateTime (aTemplate.getExchangeDTUTC ())
+                                                         .direction (aTemplate.getDirection ())
+                                                         .c2ID (aTemplate.getC2ID ())
+                                                         .c3ID (aTemplate.getC3ID ())
+                                                         .docTypeIDScheme (aTemplate.getDocTypeIDScheme ())
+                                                         .docTypeIDValue (aTemplate.getDocTypeIDValue ())
+                                                         .processIDScheme (aTemplate.getProcessIDScheme ())
+                                                         .processIDValue (aTemplate.getProcessIDValue ())
+                                                         .transportProtocol (aTemplate.getTransportProtocol ())
+                                                         .c1CountryCode (aTemplate.getC1CountryCode ())
+                                                         .endUserID ("eu\n580")
+                                                         .build ();
+    m_aBackend.storeReportingItem (aItem);
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aBase, 581));
+
+    // Read with pages of one item, so that a continuation token follows the multi-line record
+    final ICommonsList <PeppolReportingItem> aViaPages = new CommonsArrayList <> ();
+    String sToken = null;
+    do
+    {
+      final PeppolReportingItemPage aPage = m_aBackend.readReportingItems (aBase, aBase, 1, sToken);
+      aViaPages.addAll (aPage.getAllItems ());
+      sToken = aPage.getContinuationToken ();
+    } while (sToken != null);
+
+    assertTrue (aViaPages.contains (aItem));
+    assertEquals (m_aBackend.countReportingItems (aBase, aBase), aViaPages.size ());
+  }
+}
\ No newline at end of file
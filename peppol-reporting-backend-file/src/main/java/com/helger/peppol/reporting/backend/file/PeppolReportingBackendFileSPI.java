@@ -0,0 +1,510 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.GuardedBy;
+import com.helger.annotation.style.IsSPIImplementation;
+import com.helger.base.concurrent.SimpleReadWriteLock;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.state.ESuccess;
+import com.helger.base.string.StringHelper;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.config.IConfig;
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.PeppolReportingHelper;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.api.backend.IPeppolReportingBackendSPI;
+import com.helger.peppol.reporting.api.backend.PeppolReportingBackendException;
+import com.helger.peppol.reporting.api.backend.PeppolReportingDayPosition;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemPage;
+import com.helger.peppolid.CIdentifier;
+
+/**
+ * SPI implementation of {@link IPeppolReportingBackendSPI} that stores all reporting items in an
+ * append-only binary log on the local file system. There is one segment file per exchange day
+ * (UTC), so that a range query is a sequential read of exactly the matching segments. Reading is
+ * done via memory mapped files.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@IsSPIImplementation
+public class PeppolReportingBackendFileSPI implements IPeppolReportingBackendSPI
+{
+  public static final String CONFIG_PEPPOL_REPORTING_FILE_DIRECTORY = "peppol.reporting.file.directory";
+  public static final String CONFIG_PEPPOL_REPORTING_FILE_FSYNC_ENABLED = "peppol.reporting.file.fsync.enabled";
+  public static final String CONFIG_PEPPOL_REPORTING_FILE_GROUP_COMMIT_DELAY_MS = "peppol.reporting.file.group-commit.delay-ms";
+  public static final String CONFIG_PEPPOL_REPORTING_FILE_MAX_OPEN_SEGMENTS = "peppol.reporting.file.max-open-segments";
+
+  public static final boolean DEFAULT_FSYNC_ENABLED = true;
+  public static final long DEFAULT_GROUP_COMMIT_DELAY_MS = 0;
+  public static final int DEFAULT_MAX_OPEN_SEGMENTS = 4;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolReportingBackendFileSPI.class);
+
+  private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
+  @GuardedBy ("m_aRWLock")
+  private File m_aDirectory;
+  @GuardedBy ("m_aRWLock")
+  private final Map <LocalDate, ReportingFileSegment> m_aOpenSegments = new LinkedHashMap <> (16, 0.75f, true);
+  private boolean m_bFsyncEnabled;
+  private long m_nGroupCommitDelayMillis;
+  private int m_nMaxOpenSegments;
+
+  @NonNull
+  @Nonempty
+  public String getDisplayName ()
+  {
+    return "File";
+  }
+
+  @NonNull
+  public ESuccess initBackend (@NonNull final IConfig aConfig)
+  {
+    final String sDirectory = aConfig.getAsString (CONFIG_PEPPOL_REPORTING_FILE_DIRECTORY);
+    if (StringHelper.isEmpty (sDirectory))
+    {
+      LOGGER.error ("The reporting directory is missing in the configuration. See property '" +
+                    CONFIG_PEPPOL_REPORTING_FILE_DIRECTORY +
+                    "'");
+      return ESuccess.FAILURE;
+    }
+    final File aDirectory = new File (sDirectory).getAbsoluteFile ();
+    try
+    {
+      Files.createDirectories (aDirectory.toPath ());
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.error ("Failed to create the reporting directory '" + aDirectory.getAbsolutePath () + "'", ex);
+      return ESuccess.FAILURE;
+    }
+    if (!aDirectory.canRead () || !aDirectory.canWrite ())
+    {
+      LOGGER.error ("The reporting directory '" +
+                    aDirectory.getAbsolutePath () +
+                    "' is missing the necessary access rights to read and write");
+      return ESuccess.FAILURE;
+    }
+
+    m_bFsyncEnabled = aConfig.getAsBoolean (CONFIG_PEPPOL_REPORTING_FILE_FSYNC_ENABLED, DEFAULT_FSYNC_ENABLED);
+    m_nGroupCommitDelayMillis = Math.max (0,
+                                          aConfig.getAsLong (CONFIG_PEPPOL_REPORTING_FILE_GROUP_COMMIT_DELAY_MS,
+                                                             DEFAULT_GROUP_COMMIT_DELAY_MS));
+    m_nMaxOpenSegments = Math.max (1,
+                                   aConfig.getAsInt (CONFIG_PEPPOL_REPORTING_FILE_MAX_OPEN_SEGMENTS,
+                                                     DEFAULT_MAX_OPEN_SEGMENTS));
+
+    m_aRWLock.writeLocked ( () -> m_aDirectory = aDirectory);
+
+    LOGGER.info ("Using Peppol Reporting segment directory '" +
+                 aDirectory.getAbsolutePath () +
+                 "' (fsync " +
+                 (m_bFsyncEnabled ? "enabled" : "disabled") +
+                 ")");
+    return ESuccess.SUCCESS;
+  }
+
+  public boolean isInitialized ()
+  {
+    return m_aRWLock.readLockedBoolean ( () -> m_aDirectory != null);
+  }
+
+  public void shutdownBackend ()
+  {
+    if (isInitialized ())
+    {
+      final ICommonsList <ReportingFileSegment> aSegments = m_aRWLock.writeLockedGet ( () -> {
+        LOGGER.info ("Shutting down Peppol Reporting File backend");
+        final ICommonsList <ReportingFileSegment> ret = new CommonsArrayList <> (m_aOpenSegments.values ());
+        m_aOpenSegments.clear ();
+        m_aDirectory = null;
+        return ret;
+      });
+      aSegments.forEach (PeppolReportingBackendFileSPI::_closeSegment);
+    }
+    else
+      LOGGER.warn ("The Peppol Reporting File backend cannot be shutdown, because it was never properly initialized");
+  }
+
+  private static void _closeSegment (@NonNull final ReportingFileSegment aSegment)
+  {
+    try
+    {
+      aSegment.close ();
+    }
+    catch (final IOException ex)
+    {
+      // Writers waiting for durability of this segment get the error from syncUpTo
+      LOGGER.error ("Failed to close reporting segment '" + aSegment.getFile ().getAbsolutePath () + "'", ex);
+    }
+  }
+
+  @NonNull
+  private File _getDirectory ()
+  {
+    final File ret = m_aRWLock.readLockedGet ( () -> m_aDirectory);
+    if (ret == null)
+      throw new IllegalStateException ("The Peppol Reporting File backend is not initialized");
+    return ret;
+  }
+
+  @NonNull
+  private ReportingFileSegment _getOrOpenSegment (@NonNull final LocalDate aDay) throws IOException
+  {
+    ReportingFileSegment ret = m_aRWLock.writeLockedGet ( () -> m_aOpenSegments.get (aDay));
+    if (ret != null)
+      return ret;
+
+    final ICommonsList <ReportingFileSegment> aEvicted = new CommonsArrayList <> ();
+    m_aRWLock.writeLock ().lock ();
+    try
+    {
+      if (m_aDirectory == null)
+        throw new IllegalStateException ("The Peppol Reporting File backend is not initialized");
+
+      ret = m_aOpenSegments.get (aDay);
+      if (ret == null)
+      {
+        ret = ReportingFileSegment.open (m_aDirectory, aDay);
+        m_aOpenSegments.put (aDay, ret);
+
+        // Close the least recently used segments
+        final Iterator <ReportingFileSegment> it = m_aOpenSegments.values ().iterator ();
+        while (m_aOpenSegments.size () > m_nMaxOpenSegments && it.hasNext ())
+        {
+          final ReportingFileSegment aCur = it.next ();
+          if (aCur != ret)
+          {
+            aEvicted.add (aCur);
+            it.remove ();
+          }
+        }
+      }
+    }
+    finally
+    {
+      m_aRWLock.writeLock ().unlock ();
+    }
+    aEvicted.forEach (PeppolReportingBackendFileSPI::_closeSegment);
+    return ret;
+  }
+
+  public void storeReportingItem (@NonNull final PeppolReportingItem aReportingItem) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aReportingItem, "ReportingItem");
+
+    if (PeppolReportingHelper.isDocumentTypeEligableForReporting (aReportingItem.getDocTypeIDScheme (),
+                                                                  aReportingItem.getDocTypeIDValue ()))
+    {
+      if (LOGGER.isDebugEnabled ())
+        LOGGER.debug ("Trying to store Peppol Reporting Item in segment file");
+
+      if (!isInitialized ())
+        throw new IllegalStateException ("The Peppol Reporting File backend is not initialized");
+
+      final ByteBuffer aRecord = ReportingFileRecordCodec.encodeRecord (aReportingItem);
+      final LocalDate aDay = aReportingItem.getExchangeDTUTC ().toLocalDate ();
+      try
+      {
+        while (true)
+        {
+          final ReportingFileSegment aSegment = _getOrOpenSegment (aDay);
+          final long nEndPos = aSegment.append (aRecord);
+          if (nEndPos >= 0)
+          {
+            if (m_bFsyncEnabled)
+              aSegment.syncUpTo (nEndPos, m_nGroupCommitDelayMillis);
+            break;
+          }
+          // The segment was closed concurrently - retry with a new one
+        }
+      }
+      catch (final IOException ex)
+      {
+        throw new PeppolReportingBackendException ("Failed to append Peppol Reporting Item to the segment of " + aDay,
+                                                   ex);
+      }
+
+      if (LOGGER.isDebugEnabled ())
+        LOGGER.debug ("Successfully stored Peppol Reporting Item in segment file");
+    }
+    else
+    {
+      LOGGER.info ("Not storing Peppol Reporting Item in segment file, as the document type is not eligable for reporting (" +
+                   CIdentifier.getURIEncoded (aReportingItem.getDocTypeIDScheme (),
+                                              aReportingItem.getDocTypeIDValue ()) +
+                   ")");
+    }
+  }
+
+  /**
+   * Map the readable part of the provided segment. For open segments this is the length of all
+   * completely written records, otherwise it is the offset after the last valid record. A torn
+   * tail may be truncated when the segment is opened for writing, so it is never mapped.
+   */
+  @Nullable
+  private ByteBuffer _mapSegment (@NonNull final File aFile, @NonNull final LocalDate aDay) throws IOException
+  {
+    try (final FileChannel aChannel = FileChannel.open (aFile.toPath (), StandardOpenOption.READ))
+    {
+      final ReportingFileSegment aOpen = m_aRWLock.readLockedGet ( () -> m_aOpenSegments.get (aDay));
+      final long nLength = aOpen != null ? Math.min (aOpen.getWrittenLength (), aChannel.size ())
+                                         : ReportingFileSegment.getValidLength (aChannel, aFile);
+      if (nLength <= ReportingFileSegment.FILE_HEADER_LENGTH)
+        return null;
+
+      // The mapping stays valid after the channel is closed
+      final ByteBuffer ret = ReportingFileSegment.mapReadOnly (aChannel, nLength);
+      ReportingFileSegment.checkFileHeader (ret, aFile);
+      ret.position (ReportingFileSegment.FILE_HEADER_LENGTH);
+      return ret;
+    }
+  }
+
+  /**
+   * Determine the days of all segments in the provided range, in ascending order.
+   */
+  @NonNull
+  private static ICommonsList <LocalDate> _getSegmentDays (@NonNull final File aDirectory,
+                                                           @NonNull final LocalDate aStartDateIncl,
+                                                           @NonNull final LocalDate aEndDateIncl) throws PeppolReportingBackendException
+  {
+    final String [] aFilenames = aDirectory.list ();
+    if (aFilenames == null)
+      throw new PeppolReportingBackendException ("Failed to list the reporting directory '" +
+                                                 aDirectory.getAbsolutePath () +
+                                                 "'");
+
+    final ICommonsList <LocalDate> ret = new CommonsArrayList <> ();
+    for (final String sFilename : aFilenames)
+    {
+      final LocalDate aDay = ReportingFileSegment.getDayFromFilename (sFilename);
+      if (aDay != null && aDay.compareTo (aStartDateIncl) >= 0 && aDay.compareTo (aEndDateIncl) <= 0)
+        ret.add (aDay);
+    }
+    ret.sort (LocalDate::compareTo);
+    return ret;
+  }
+
+  @NonNull
+  public Iterable <PeppolReportingItem> iterateReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                                               @NonNull final LocalDate aEndDateIncl) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Querying Peppol Reporting Items from segment files between " +
+                    aStartDateIncl +
+                    " and " +
+                    aEndDateIncl);
+
+    final File aDirectory = _getDirectory ();
+    final ICommonsList <LocalDate> aDays = _getSegmentDays (aDirectory, aStartDateIncl, aEndDateIncl);
+
+    return () -> new Iterator <> ()
+    {
+      private int m_nDayIndex = 0;
+      private ByteBuffer m_aCurSegment;
+      private File m_aCurFile;
+      private int m_nNextRecordLength = -1;
+
+      private void _findNextRecord ()
+      {
+        while (true)
+        {
+          if (m_aCurSegment != null)
+          {
+            m_nNextRecordLength = ReportingFileRecordCodec.getValidRecordLength (m_aCurSegment);
+            if (m_nNextRecordLength > 0)
+              return;
+            if (m_aCurSegment.hasRemaining ())
+              LOGGER.warn ("Ignoring " +
+                           m_aCurSegment.remaining () +
+                           " invalid bytes at the end of reporting segment '" +
+                           m_aCurFile.getAbsolutePath () +
+                           "'");
+            m_aCurSegment = null;
+          }
+
+          if (m_nDayIndex >= aDays.size ())
+            return;
+
+          // Open the next segment
+          final LocalDate aDay = aDays.get (m_nDayIndex++);
+          m_aCurFile = new File (aDirectory, ReportingFileSegment.getFilename (aDay));
+          try
+          {
+            m_aCurSegment = _mapSegment (m_aCurFile, aDay);
+          }
+          catch (final IOException ex)
+          {
+            throw new UncheckedIOException ("Failed to read reporting segment '" + m_aCurFile.getAbsolutePath () + "'",
+                                            ex);
+          }
+        }
+      }
+
+      public boolean hasNext ()
+      {
+        if (m_nNextRecordLength <= 0)
+          _findNextRecord ();
+        return m_nNextRecordLength > 0;
+      }
+
+      @NonNull
+      public PeppolReportingItem next ()
+      {
+        if (!hasNext ())
+          throw new NoSuchElementException ();
+        m_nNextRecordLength = -1;
+        return ReportingFileRecordCodec.decodeRecord (m_aCurSegment);
+      }
+    };
+  }
+
+  /**
+   * The continuation token is the day and the byte offset of the next record inside the segment
+   * file of that day.
+   */
+  @NonNull
+  public PeppolReportingItemPage readReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                                     @NonNull final LocalDate aEndDateIncl,
+                                                     @Nonnegative final int nPageSize,
+                                                     @Nullable final String sContinuationToken) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    ValueEnforcer.isGT0 (nPageSize, "PageSize");
+
+    final PeppolReportingDayPosition aStartPos = PeppolReportingDayPosition.getStartPosition (aStartDateIncl,
+                                                                                              sContinuationToken);
+    final ICommonsList <PeppolReportingItem> ret = new CommonsArrayList <> ();
+    if (aStartPos.getDay ().compareTo (aEndDateIncl) > 0)
+      return PeppolReportingItemPage.createLastPage (ret);
+
+    final File aDirectory = _getDirectory ();
+    for (final LocalDate aDay : _getSegmentDays (aDirectory, aStartPos.getDay (), aEndDateIncl))
+    {
+      final File aFile = new File (aDirectory, ReportingFileSegment.getFilename (aDay));
+      final ByteBuffer aSegment;
+      try
+      {
+        aSegment = _mapSegment (aFile, aDay);
+      }
+      catch (final IOException ex)
+      {
+        throw new PeppolReportingBackendException ("Failed to read reporting segment '" + aFile.getAbsolutePath () + "'",
+                                                   ex);
+      }
+      if (aSegment == null)
+        continue;
+
+      if (aDay.equals (aStartPos.getDay ()))
+      {
+        // Continue directly at the stored record offset
+        final long nOffset = Math.max (aStartPos.getPosition (), ReportingFileSegment.FILE_HEADER_LENGTH);
+        if (nOffset >= aSegment.limit ())
+          continue;
+        aSegment.position ((int) nOffset);
+      }
+
+      while (ReportingFileRecordCodec.getValidRecordLength (aSegment) > 0)
+      {
+        if (ret.size () == nPageSize)
+        {
+          // There is at least one more item
+          return new PeppolReportingItemPage (ret,
+                                              new PeppolReportingDayPosition (aDay, aSegment.position ()).getAsToken ());
+        }
+        ret.add (ReportingFileRecordCodec.decodeRecord (aSegment));
+      }
+    }
+    return PeppolReportingItemPage.createLastPage (ret);
+  }
+
+  /**
+   * Counting all items only walks the record headers of the segment files without decoding the
+   * records.
+   */
+  @Nonnegative
+  public long countReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                   @NonNull final LocalDate aEndDateIncl,
+                                   @Nullable final EReportingDirection eDirection) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+
+    long ret = 0;
+    final File aDirectory = _getDirectory ();
+    for (final LocalDate aDay : _getSegmentDays (aDirectory, aStartDateIncl, aEndDateIncl))
+    {
+      final File aFile = new File (aDirectory, ReportingFileSegment.getFilename (aDay));
+      final ByteBuffer aSegment;
+      try
+      {
+        aSegment = _mapSegment (aFile, aDay);
+      }
+      catch (final IOException ex)
+      {
+        throw new PeppolReportingBackendException ("Failed to read reporting segment '" + aFile.getAbsolutePath () + "'",
+                                                   ex);
+      }
+      if (aSegment == null)
+        continue;
+
+      int nRecordLength;
+      while ((nRecordLength = ReportingFileRecordCodec.getValidRecordLength (aSegment)) > 0)
+      {
+        if (eDirection == null)
+        {
+          aSegment.position (aSegment.position () + nRecordLength);
+          ret++;
+        }
+        else
+          if (ReportingFileRecordCodec.decodeRecord (aSegment).getDirection () == eDirection)
+            ret++;
+      }
+    }
+    return ret;
+  }
+}
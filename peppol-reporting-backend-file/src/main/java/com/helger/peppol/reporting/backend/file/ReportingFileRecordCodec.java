@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.file;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.api.codec.PeppolReportingItemCodec;
+
+/**
+ * Binary encoding of a single {@link PeppolReportingItem} as a record inside a segment file. Each
+ * record consists of a 4 byte payload length, a 4 byte CRC32 checksum of the payload and the
+ * payload itself, which is encoded with {@link PeppolReportingItemCodec}. All numbers are big
+ * endian.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@Immutable
+final class ReportingFileRecordCodec
+{
+  /** The number of bytes in front of the payload (length and CRC) */
+  static final int RECORD_HEADER_LENGTH = 8;
+  /** The upper bound of a single payload. Anything larger is considered corrupt. */
+  static final int MAX_PAYLOAD_LENGTH = 64 * 1024;
+
+  private ReportingFileRecordCodec ()
+  {}
+
+  /**
+   * Encode the provided item to a complete record including the record header.
+   *
+   * @param aItem
+   *        The item to encode. May not be <code>null</code>.
+   * @return A buffer that is ready for reading and contains the complete record. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  static ByteBuffer encodeRecord (@NonNull final PeppolReportingItem aItem)
+  {
+    ValueEnforcer.notNull (aItem, "Item");
+
+    final byte [] aPayload = PeppolReportingItemCodec.encode (aItem);
+    final int nPayloadLength = aPayload.length;
+    if (nPayloadLength > MAX_PAYLOAD_LENGTH)
+      throw new IllegalArgumentException ("The encoded reporting item is too large (" + nPayloadLength + " bytes)");
+
+    final ByteBuffer aBB = ByteBuffer.allocate (RECORD_HEADER_LENGTH + nPayloadLength);
+    aBB.position (RECORD_HEADER_LENGTH);
+    aBB.put (aPayload);
+
+    final CRC32 aCRC = new CRC32 ();
+    aCRC.update (aBB.array (), RECORD_HEADER_LENGTH, nPayloadLength);
+    aBB.putInt (0, nPayloadLength);
+    aBB.putInt (4, (int) aCRC.getValue ());
+    aBB.flip ();
+    return aBB;
+  }
+
+  /**
+   * Check if a complete and uncorrupted record starts at the current position of the provided
+   * buffer.
+   *
+   * @param aBB
+   *        The buffer to check. May not be <code>null</code>. The position is not modified.
+   * @return The total length of the record (header plus payload) or <code>-1</code> if no valid
+   *         record is present.
+   */
+  static int getValidRecordLength (@NonNull final ByteBuffer aBB)
+  {
+    final int nPos = aBB.position ();
+    if (aBB.remaining () < RECORD_HEADER_LENGTH)
+      return -1;
+    final int nPayloadLength = aBB.getInt (nPos);
+    if (nPayloadLength <= 0 ||
+        nPayloadLength > MAX_PAYLOAD_LENGTH ||
+        nPayloadLength > aBB.remaining () - RECORD_HEADER_LENGTH)
+      return -1;
+
+    final ByteBuffer aPayload = aBB.duplicate ();
+    aPayload.position (nPos + RECORD_HEADER_LENGTH);
+    aPayload.limit (nPos + RECORD_HEADER_LENGTH + nPayloadLength);
+    final CRC32 aCRC = new CRC32 ();
+    aCRC.update (aPayload);
+    if ((int) aCRC.getValue () != aBB.getInt (nPos + 4))
+      return -1;
+    return RECORD_HEADER_LENGTH + nPayloadLength;
+  }
+
+  /**
+   * Decode the record at the current position of the provided buffer. The record must have been
+   * validated with {@link #getValidRecordLength(ByteBuffer)} before. After the call, the position
+   * of the buffer is right after the record.
+   *
+   * @param aBB
+   *        The buffer to read from. May not be <code>null</code>.
+   * @return The decoded item. Never <code>null</code>.
+   */
+  @NonNull
+  static PeppolReportingItem decodeRecord (@NonNull final ByteBuffer aBB)
+  {
+    final int nPayloadLength = aBB.getInt ();
+    // Skip CRC
+    aBB.getInt ();
+    final int nEnd = aBB.position () + nPayloadLength;
+
+    final PeppolReportingItem ret = PeppolReportingItemCodec.decode (aBB, null);
+    aBB.position (nEnd);
+    return ret;
+  }
+}
@@ -0,0 +1,449 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.concurrent.GuardedBy;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.concurrent.SimpleLock;
+import com.helger.base.enforce.ValueEnforcer;
+
+/**
+ * A single append-only segment file that contains all reporting records of one exchange day (in
+ * UTC). Appends are serialized, whereas the fsync is performed as a group commit: the first writer
+ * that needs durability forces the channel and thereby also makes all records durable that were
+ * appended by other threads in the meantime.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@ThreadSafe
+final class ReportingFileSegment
+{
+  /** The file extension of segment files */
+  static final String FILE_EXTENSION = ".seg";
+  /** The file header of each segment file: magic bytes and format version */
+  static final int FILE_HEADER_LENGTH = 8;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (ReportingFileSegment.class);
+  private static final int FILE_MAGIC = 0x50525347;
+  private static final int FILE_VERSION = 1;
+  /** Big enough to always contain at least one complete record after compacting */
+  private static final int SCAN_BUFFER_SIZE = 2 *
+                                              (ReportingFileRecordCodec.RECORD_HEADER_LENGTH +
+                                               ReportingFileRecordCodec.MAX_PAYLOAD_LENGTH);
+
+  private final LocalDate m_aDay;
+  private final File m_aFile;
+  private final FileChannel m_aChannel;
+  private final SimpleLock m_aAppendLock = new SimpleLock ();
+  private final SimpleLock m_aSyncLock = new SimpleLock ();
+  @GuardedBy ("m_aAppendLock")
+  private long m_nWritePos;
+  @GuardedBy ("m_aAppendLock")
+  private boolean m_bClosed = false;
+  private volatile long m_nSyncedPos;
+
+  private ReportingFileSegment (@NonNull final LocalDate aDay,
+                                @NonNull final File aFile,
+                                @NonNull final FileChannel aChannel,
+                                final long nWritePos)
+  {
+    m_aDay = aDay;
+    m_aFile = aFile;
+    m_aChannel = aChannel;
+    m_nWritePos = nWritePos;
+    m_nSyncedPos = nWritePos;
+  }
+
+  @NonNull
+  static String getFilename (@NonNull final LocalDate aDay)
+  {
+    return DateTimeFormatter.BASIC_ISO_DATE.format (aDay) + FILE_EXTENSION;
+  }
+
+  /**
+   * Try to extract the day from a segment filename.
+   *
+   * @param sFilename
+   *        The filename to parse. May be <code>null</code>.
+   * @return <code>null</code> if the filename is not a segment filename.
+   */
+  @Nullable
+  static LocalDate getDayFromFilename (@Nullable final String sFilename)
+  {
+    if (sFilename == null || sFilename.length () != 8 + FILE_EXTENSION.length () || !sFilename.endsWith (FILE_EXTENSION))
+      return null;
+    for (int i = 0; i < 8; ++i)
+      if (sFilename.charAt (i) < '0' || sFilename.charAt (i) > '9')
+        return null;
+    try
+    {
+      return LocalDate.parse (sFilename.substring (0, 8), DateTimeFormatter.BASIC_ISO_DATE);
+    }
+    catch (final RuntimeException ex)
+    {
+      return null;
+    }
+  }
+
+  @NonNull
+  private static ByteBuffer _createFileHeader ()
+  {
+    final ByteBuffer ret = ByteBuffer.allocate (FILE_HEADER_LENGTH);
+    ret.putInt (FILE_MAGIC).putInt (FILE_VERSION).flip ();
+    return ret;
+  }
+
+  /**
+   * Check the file header of the provided segment content.
+   *
+   * @param aBB
+   *        The complete segment content. May not be <code>null</code>.
+   * @param aFile
+   *        The file the content belongs to. Only used for error messages.
+   * @throws IOException
+   *         if the file is not a valid segment file
+   */
+  static void checkFileHeader (@NonNull final ByteBuffer aBB, @NonNull final File aFile) throws IOException
+  {
+    if (aBB.limit () < FILE_HEADER_LENGTH ||
+        aBB.getInt (0) != FILE_MAGIC ||
+        aBB.getInt (4) != FILE_VERSION)
+      throw new IOException ("The file '" + aFile.getAbsolutePath () + "' is not a valid reporting segment file");
+  }
+
+  private static long _fill (@NonNull final FileChannel aChannel,
+                             @NonNull final ByteBuffer aBuf,
+                             final long nReadPos,
+                             final long nSize) throws IOException
+  {
+    long nPos = nReadPos;
+    while (aBuf.hasRemaining () && nPos < nSize)
+    {
+      final int nRead = aChannel.read (aBuf, nPos);
+      if (nRead < 0)
+        break;
+      nPos += nRead;
+    }
+    return nPos;
+  }
+
+  /**
+   * Get the offset after the last valid record of the provided segment file. The file is read
+   * through the channel, so no mapping is created and bytes that are concurrently appended or
+   * truncated are never accessed through a mapping.
+   *
+   * @param aChannel
+   *        The channel to read from. May not be <code>null</code>.
+   * @param aFile
+   *        The file the channel belongs to. Only used for error messages.
+   * @return The offset of the first byte that is not part of a valid record or 0 if the file does
+   *         not even contain the complete file header.
+   * @throws IOException
+   *         On IO error or if the file is not a valid segment file
+   */
+  static long getValidLength (@NonNull final FileChannel aChannel, @NonNull final File aFile) throws IOException
+  {
+    final long nSize = aChannel.size ();
+    if (nSize < FILE_HEADER_LENGTH)
+      return 0;
+
+    final ByteBuffer aBuf = ByteBuffer.allocate (SCAN_BUFFER_SIZE);
+    long nReadPos = _fill (aChannel, aBuf, 0, nSize);
+    aBuf.flip ();
+    checkFileHeader (aBuf, aFile);
+    aBuf.position (FILE_HEADER_LENGTH);
+
+    long ret = FILE_HEADER_LENGTH;
+    while (true)
+    {
+      int nRecordLength = ReportingFileRecordCodec.getValidRecordLength (aBuf);
+      if (nRecordLength <= 0 && nReadPos < nSize)
+      {
+        // The record may only be incomplete in the buffer
+        aBuf.compact ();
+        nReadPos = _fill (aChannel, aBuf, nReadPos, nSize);
+        aBuf.flip ();
+        nRecordLength = ReportingFileRecordCodec.getValidRecordLength (aBuf);
+      }
+      if (nRecordLength <= 0)
+        return ret;
+      aBuf.position (aBuf.position () + nRecordLength);
+      ret += nRecordLength;
+    }
+  }
+
+  @NonNull
+  static MappedByteBuffer mapReadOnly (@NonNull final FileChannel aChannel, final long nLength) throws IOException
+  {
+    if (nLength > Integer.MAX_VALUE)
+      throw new IOException ("Reporting segment files larger than 2GB are not supported");
+    return aChannel.map (FileChannel.MapMode.READ_ONLY, 0, nLength);
+  }
+
+  /**
+   * Open or create the segment for the provided day. An existing segment is scanned and a torn or
+   * corrupted tail, e.g. from a crash in the middle of a write, is truncated. The segment is never
+   * mapped here, so the truncation cannot affect an open mapping.
+   *
+   * @param aDirectory
+   *        The base directory. May not be <code>null</code>.
+   * @param aDay
+   *        The exchange day of the segment. May not be <code>null</code>.
+   * @return The opened segment. Never <code>null</code>.
+   * @throws IOException
+   *         On IO error
+   */
+  @NonNull
+  static ReportingFileSegment open (@NonNull final File aDirectory, @NonNull final LocalDate aDay) throws IOException
+  {
+    ValueEnforcer.notNull (aDirectory, "Directory");
+    ValueEnforcer.notNull (aDay, "Day");
+
+    final File aFile = new File (aDirectory, getFilename (aDay));
+    final FileChannel aChannel = FileChannel.open (aFile.toPath (),
+                                                   StandardOpenOption.CREATE,
+                                                   StandardOpenOption.READ,
+                                                   StandardOpenOption.WRITE);
+    try
+    {
+      final long nSize = aChannel.size ();
+      long nWritePos;
+      if (nSize < FILE_HEADER_LENGTH)
+      {
+        // New file or torn header
+        aChannel.truncate (0);
+        final ByteBuffer aHeader = _createFileHeader ();
+        while (aHeader.hasRemaining ())
+          aChannel.write (aHeader, aHeader.position ());
+        aChannel.force (true);
+        nWritePos = FILE_HEADER_LENGTH;
+      }
+      else
+      {
+        nWritePos = getValidLength (aChannel, aFile);
+        if (nWritePos < nSize)
+        {
+          LOGGER.warn ("Truncating reporting segment '" +
+                       aFile.getAbsolutePath () +
+                       "' from " +
+                       nSize +
+                       " to " +
+                       nWritePos +
+                       " bytes, because the tail does not contain valid records");
+          aChannel.truncate (nWritePos);
+          aChannel.force (true);
+        }
+      }
+      return new ReportingFileSegment (aDay, aFile, aChannel, nWritePos);
+    }
+    catch (final IOException | RuntimeException ex)
+    {
+      aChannel.close ();
+      throw ex;
+    }
+  }
+
+  @NonNull
+  LocalDate getDay ()
+  {
+    return m_aDay;
+  }
+
+  @NonNull
+  File getFile ()
+  {
+    return m_aFile;
+  }
+
+  /**
+   * @return The number of bytes of this segment that contain complete records.
+   */
+  long getWrittenLength ()
+  {
+    m_aAppendLock.lock ();
+    try
+    {
+      return m_nWritePos;
+    }
+    finally
+    {
+      m_aAppendLock.unlock ();
+    }
+  }
+
+  /**
+   * Append a single encoded record at the end of the segment.
+   *
+   * @param aRecord
+   *        The complete record as created by {@link ReportingFileRecordCodec}. May not be
+   *        <code>null</code>.
+   * @return The end offset of the written record or <code>-1</code> if the segment was already
+   *         closed.
+   * @throws IOException
+   *         On IO error
+   */
+  long append (@NonNull final ByteBuffer aRecord) throws IOException
+  {
+    m_aAppendLock.lock ();
+    try
+    {
+      if (m_bClosed)
+        return -1;
+
+      final long nStartPos = m_nWritePos;
+      long nPos = nStartPos;
+      try
+      {
+        while (aRecord.hasRemaining ())
+          nPos += m_aChannel.write (aRecord, nPos);
+      }
+      catch (final IOException ex)
+      {
+        // Remove a partially written record, so that later records stay readable
+        m_aChannel.truncate (nStartPos);
+        throw ex;
+      }
+      m_nWritePos = nPos;
+      return nPos;
+    }
+    finally
+    {
+      m_aAppendLock.unlock ();
+    }
+  }
+
+  /**
+   * Make sure that all bytes up to the provided offset are durable. If another thread already
+   * synced past that offset, nothing happens. Otherwise this thread becomes the leader and forces
+   * everything that was appended so far.
+   *
+   * @param nEndPos
+   *        The offset that must be durable.
+   * @param nGroupCommitDelayMillis
+   *        The number of milliseconds the leader waits before forcing, so that more records can be
+   *        collected into one fsync. 0 to force immediately.
+   * @throws IOException
+   *         On IO error
+   */
+  void syncUpTo (final long nEndPos, final long nGroupCommitDelayMillis) throws IOException
+  {
+    if (m_nSyncedPos >= nEndPos)
+      return;
+
+    m_aSyncLock.lock ();
+    try
+    {
+      // Another leader may have synced in the meantime
+      if (m_nSyncedPos >= nEndPos)
+        return;
+
+      if (nGroupCommitDelayMillis > 0)
+      {
+        try
+        {
+          Thread.sleep (nGroupCommitDelayMillis);
+        }
+        catch (final InterruptedException ex)
+        {
+          Thread.currentThread ().interrupt ();
+        }
+      }
+
+      final long nTargetPos;
+      m_aAppendLock.lock ();
+      try
+      {
+        if (m_bClosed)
+        {
+          // Closing forces the channel, unless that failed
+          if (m_nSyncedPos < nEndPos)
+            throw new IOException ("The reporting segment '" +
+                                   m_aFile.getAbsolutePath () +
+                                   "' was closed without being synced");
+          return;
+        }
+        nTargetPos = m_nWritePos;
+      }
+      finally
+      {
+        m_aAppendLock.unlock ();
+      }
+
+      m_aChannel.force (false);
+      m_nSyncedPos = nTargetPos;
+    }
+    finally
+    {
+      m_aSyncLock.unlock ();
+    }
+  }
+
+  /**
+   * Force and close the segment. Afterwards all appends return <code>-1</code>. If forcing fails,
+   * all later calls to {@link #syncUpTo(long, long)} for records that were not synced yet fail as
+   * well.
+   *
+   * @throws IOException
+   *         If forcing or closing the channel failed
+   */
+  void close () throws IOException
+  {
+    m_aSyncLock.lock ();
+    try
+    {
+      m_aAppendLock.lock ();
+      try
+      {
+        if (m_bClosed)
+          return;
+        m_bClosed = true;
+        try
+        {
+          m_aChannel.force (false);
+          m_nSyncedPos = m_nWritePos;
+        }
+        finally
+        {
+          m_aChannel.close ();
+        }
+      }
+      finally
+      {
+        m_aAppendLock.unlock ();
+      }
+    }
+    finally
+    {
+      m_aSyncLock.unlock ();
+    }
+  }
+}
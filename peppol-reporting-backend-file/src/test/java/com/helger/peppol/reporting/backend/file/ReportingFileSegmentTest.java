@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.testbackend.PeppolReportingTestItems;
+
+/**
+ * Test class for class {@link ReportingFileSegment}.
+ *
+ * @author Philip Helger
+ */
+public final class ReportingFileSegmentTest
+{
+  private static final File DIR = new File ("target/segment-test");
+
+  @Test
+  public void testFilename ()
+  {
+    final LocalDate aDay = LocalDate.of (2026, 3, 7);
+    assertEquals ("20260307.seg", ReportingFileSegment.getFilename (aDay));
+    assertEquals (aDay, ReportingFileSegment.getDayFromFilename ("20260307.seg"));
+    assertNull (ReportingFileSegment.getDayFromFilename ("20260307.txt"));
+    assertNull (ReportingFileSegment.getDayFromFilename ("2026030.seg"));
+    assertNull (ReportingFileSegment.getDayFromFilename ("20261307.seg"));
+    assertNull (ReportingFileSegment.getDayFromFilename (null));
+  }
+
+  @Test
+  public void testRecordRoundTrip ()
+  {
+    final PeppolReportingItem aItem = PeppolReportingTestItems.receivingItem (LocalDate.of (2026, 3, 7), 17);
+    final ByteBuffer aRecord = ReportingFileRecordCodec.encodeRecord (aItem);
+    assertEquals (aRecord.remaining (), ReportingFileRecordCodec.getValidRecordLength (aRecord));
+    assertEquals (aItem, ReportingFileRecordCodec.decodeRecord (aRecord));
+    assertEquals (0, aRecord.remaining ());
+
+    // Flip one payload byte
+    final ByteBuffer aCorrupt = ReportingFileRecordCodec.encodeRecord (aItem);
+    aCorrupt.put (20, (byte) (aCorrupt.get (20) ^ 0x01));
+    assertEquals (-1, ReportingFileRecordCodec.getValidRecordLength (aCorrupt));
+  }
+
+  @Test
+  public void testTornTailIsTruncated () throws IOException
+  {
+    DIR.mkdirs ();
+    final LocalDate aDay = LocalDate.of (1899, 12, 31);
+    final File aFile = new File (DIR, ReportingFileSegment.getFilename (aDay));
+    aFile.delete ();
+
+    ReportingFileSegment aSegment = ReportingFileSegment.open (DIR, aDay);
+    assertEquals (ReportingFileSegment.FILE_HEADER_LENGTH, aSegment.getWrittenLength ());
+    aSegment.append (ReportingFileRecordCodec.encodeRecord (PeppolReportingTestItems.sendingItem (aDay, 1)));
+    final ByteBuffer aRecord2 = ReportingFileRecordCodec.encodeRecord (PeppolReportingTestItems.sendingItem (aDay, 2));
+    final long nValidLength = aSegment.append (aRecord2);
+    aSegment.syncUpTo (nValidLength, 0);
+    aSegment.close ();
+
+    // Appending to a closed segment is not possible
+    final ByteBuffer aRecord3 = ReportingFileRecordCodec.encodeRecord (PeppolReportingTestItems.sendingItem (aDay, 3));
+    assertEquals (-1, aSegment.append (aRecord3));
+
+    // Simulate a crash in the middle of a write
+    try (final FileOutputStream aFOS = new FileOutputStream (aFile, true))
+    {
+      aFOS.write (new byte [] { 0, 0, 0, 42, 1, 2, 3 });
+    }
+    assertTrue (aFile.length () > nValidLength);
+
+    aSegment = ReportingFileSegment.open (DIR, aDay);
+    try
+    {
+      assertEquals (nValidLength, aSegment.getWrittenLength ());
+      assertEquals (nValidLength, aFile.length ());
+    }
+    finally
+    {
+      aSegment.close ();
+    }
+  }
+}
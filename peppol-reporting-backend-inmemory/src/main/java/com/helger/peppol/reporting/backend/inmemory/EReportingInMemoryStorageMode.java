@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.base.id.IHasID;
+import com.helger.base.lang.EnumHelper;
+
+/**
+ * The different ways how the in-memory backend keeps the reporting items of a day.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+public enum EReportingInMemoryStorageMode implements IHasID <String>
+{
+  /**
+   * Keep the reporting item objects as they are. Fastest iteration, highest memory consumption.
+   */
+  OBJECT ("object"),
+  /**
+   * Keep the reporting items column by column with dictionary coded strings. Items are
+   * materialized during iteration only.
+   */
+  COLUMNAR ("columnar"),
+  /**
+   * Keep the encoded reporting items in direct buffers outside of the Java heap, one set of buffers
+   * per day. Items are materialized during iteration only.
+   */
+  OFFHEAP ("offheap");
+
+  public static final EReportingInMemoryStorageMode DEFAULT = OBJECT;
+
+  private final String m_sID;
+
+  EReportingInMemoryStorageMode (@NonNull @Nonempty final String sID)
+  {
+    m_sID = sID;
+  }
+
+  @NonNull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  @Nullable
+  public static EReportingInMemoryStorageMode getFromIDCaseInsensitiveOrNull (@Nullable final String sID)
+  {
+    return EnumHelper.getFromIDCaseInsensitiveOrNull (EReportingInMemoryStorageMode.class, sID);
+  }
+}
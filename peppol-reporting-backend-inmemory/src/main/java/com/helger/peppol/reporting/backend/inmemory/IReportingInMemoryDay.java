@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.base.numeric.mutable.MutableInt;
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.IPeppolReportingItemView;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * The storage of all reporting items of a single exchange day in the in-memory backend.
+ * Implementations must allow concurrent appends without blocking readers.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+interface IReportingInMemoryDay
+{
+  /**
+   * Append a new item. It is visible to readers as soon as this method returns.
+   *
+   * @param aItem
+   *        The item to append. May not be <code>null</code>.
+   */
+  void add (@NonNull PeppolReportingItem aItem);
+
+  /**
+   * @return The number of items visible to readers. This is the snapshot size to be used for
+   *         {@link #iterator(int)}.
+   */
+  @Nonnegative
+  int size ();
+
+  /**
+   * Iterate the first items of this day. Items appended later are not part of the iteration.
+   *
+   * @param nSnapshotSize
+   *        The number of items to iterate, as returned by {@link #size()} before.
+   * @return A new iterator. Never <code>null</code>.
+   */
+  @NonNull
+  Iterator <PeppolReportingItem> iterator (@Nonnegative int nSnapshotSize);
+
+  /**
+   * Iterate the items of this day starting at the provided index. The default implementation skips
+   * the leading items of {@link #iterator(int)}. Implementations with random access should
+   * override this.
+   *
+   * @param nStartIndex
+   *        The index of the first item to iterate. Must be &ge; 0 and &le; the snapshot size.
+   * @param nSnapshotSize
+   *        The number of items of the snapshot, as returned by {@link #size()} before.
+   * @return A new iterator. Never <code>null</code>.
+   */
+  @NonNull
+  default Iterator <PeppolReportingItem> iterator (@Nonnegative final int nStartIndex,
+                                                   @Nonnegative final int nSnapshotSize)
+  {
+    final Iterator <PeppolReportingItem> ret = iterator (nSnapshotSize);
+    for (int i = 0; i < nStartIndex && ret.hasNext (); ++i)
+      ret.next ();
+    return ret;
+  }
+
+  /**
+   * Pass a view of each of the first items of this day to the provided consumer. Implementations
+   * may reuse the same view object for all items. The default implementation passes the items of
+   * {@link #iterator(int)}.
+   *
+   * @param nSnapshotSize
+   *        The number of items to scan, as returned by {@link #size()} before.
+   * @param aConsumer
+   *        The consumer to invoke. May not be <code>null</code>.
+   */
+  default void forEachView (@Nonnegative final int nSnapshotSize,
+                            @NonNull final Consumer <? super IPeppolReportingItemView> aConsumer)
+  {
+    iterator (nSnapshotSize).forEachRemaining (aConsumer);
+  }
+
+  /**
+   * Count the first items of this day with the provided direction. The default implementation
+   * counts the views of {@link #forEachView(int, Consumer)}.
+   *
+   * @param nSnapshotSize
+   *        The number of items to scan, as returned by {@link #size()} before.
+   * @param eDirection
+   *        The direction to count. May be <code>null</code> to count all items.
+   * @return The number of matching items. Always &ge; 0.
+   */
+  @Nonnegative
+  default int count (@Nonnegative final int nSnapshotSize, @Nullable final EReportingDirection eDirection)
+  {
+    if (eDirection == null)
+      return nSnapshotSize;
+
+    final MutableInt aCount = new MutableInt (0);
+    forEachView (nSnapshotSize, aView -> {
+      if (aView.getDirection () == eDirection)
+        aCount.inc ();
+    });
+    return aCount.intValue ();
+  }
+
+  /**
+   * @return The estimated number of heap bytes required per item by this implementation. Used to
+   *         enforce the heap budget.
+   */
+  @Nonnegative
+  int getEstimatedBytesPerItem ();
+
+  /**
+   * Release all resources of this day, after it was removed from the backend. Running iterations
+   * may still complete, so memory that they can still read is only reclaimed by the garbage
+   * collector later on. The default implementation does nothing and leaves it to the garbage
+   * collector.
+   */
+  default void release ()
+  {}
+}
@@ -16,46 +16,92 @@
  */
 package com.helger.peppol.reporting.backend.inmemory;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.time.LocalDate;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.helger.annotation.Nonempty;
-import com.helger.annotation.concurrent.GuardedBy;
+import com.helger.annotation.Nonnegative;
 import com.helger.annotation.style.IsSPIImplementation;
-import com.helger.base.concurrent.SimpleReadWriteLock;
 import com.helger.base.enforce.ValueEnforcer;
 import com.helger.base.state.ESuccess;
+import com.helger.base.string.StringHelper;
 import com.helger.collection.commons.CommonsArrayList;
-import com.helger.collection.commons.CommonsHashMap;
 import com.helger.collection.commons.ICommonsList;
-import com.helger.collection.commons.ICommonsMap;
 import com.helger.config.IConfig;
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.IPeppolReportingItemView;
 import com.helger.peppol.reporting.api.PeppolReportingHelper;
 import com.helger.peppol.reporting.api.PeppolReportingItem;
 import com.helger.peppol.reporting.api.backend.IPeppolReportingBackendSPI;
 import com.helger.peppol.reporting.api.backend.PeppolReportingBackendException;
+import com.helger.peppol.reporting.api.backend.PeppolReportingDayPosition;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemPage;
 import com.helger.peppolid.CIdentifier;
 
 /**
  * SPI implementation of {@link IPeppolReportingBackendSPI} that keeps all reporting items in
- * memory. Intended for testing only — data is lost on JVM restart.
+ * memory. By default nothing is persisted and all data is lost on JVM restart - see below for the
+ * optional persistence.
+ * <p>
+ * Since v4.2.1 the items of each day are stored in an append-only structure, so that writers never
+ * block readers. Depending on the {@link EReportingInMemoryStorageMode} the items are kept as
+ * objects, column by column or encoded outside of the Java heap. Only the off-heap mode serializes
+ * writers of the same day. Each iteration works on a snapshot of the item counts per day that is
+ * taken when {@link #iterateReportingItems(LocalDate, LocalDate)} is called.
+ * <p>
+ * Optionally (since v4.2.1) the content can be persisted in a directory via a periodic snapshot
+ * and an append-only journal, so that it survives restarts. By default each journal record is
+ * forced to disk before storing returns, with concurrent writers sharing a single fsync (group
+ * commit). If fsync is disabled, a JVM crash loses nothing, but an operating system crash or power
+ * loss may lose the most recently stored items.
+ * <p>
+ * Optionally (since v4.2.1) a heap budget can be configured. If it is exceeded, the least recently
+ * accessed days are moved to local spill files and read back transparently when iterating.
  *
  * @author Philip Helger
  */
 @IsSPIImplementation
 public class PeppolReportingBackendInMemorySPI implements IPeppolReportingBackendSPI
 {
+  public static final String CONFIG_PEPPOL_REPORTING_INMEMORY_PERSISTENCE_DIRECTORY = "peppol.reporting.inmemory.persistence.directory";
+  public static final String CONFIG_PEPPOL_REPORTING_INMEMORY_SNAPSHOT_INTERVAL_SECONDS = "peppol.reporting.inmemory.snapshot.interval-seconds";
+  public static final String CONFIG_PEPPOL_REPORTING_INMEMORY_FSYNC_ENABLED = "peppol.reporting.inmemory.fsync.enabled";
+  public static final String CONFIG_PEPPOL_REPORTING_INMEMORY_GROUP_COMMIT_DELAY_MS = "peppol.reporting.inmemory.group-commit.delay-ms";
+  public static final String CONFIG_PEPPOL_REPORTING_INMEMORY_STORAGE_MODE = "peppol.reporting.inmemory.storage-mode";
+  public static final String CONFIG_PEPPOL_REPORTING_INMEMORY_MAX_HEAP_BYTES = "peppol.reporting.inmemory.max-heap-bytes";
+  public static final String CONFIG_PEPPOL_REPORTING_INMEMORY_SPILL_DIRECTORY = "peppol.reporting.inmemory.spill.directory";
+
+  public static final long DEFAULT_SNAPSHOT_INTERVAL_SECONDS = 300;
+  public static final boolean DEFAULT_FSYNC_ENABLED = true;
+  public static final long DEFAULT_GROUP_COMMIT_DELAY_MS = 0;
+
   private static final Logger LOGGER = LoggerFactory.getLogger (PeppolReportingBackendInMemorySPI.class);
 
-  private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
-  @GuardedBy ("m_aRWLock")
-  private final ICommonsMap <LocalDate, ICommonsList <PeppolReportingItem>> m_aMap = new CommonsHashMap <> ();
-  @GuardedBy ("m_aRWLock")
-  private boolean m_bInitialized = false;
+  private final NavigableMap <LocalDate, IReportingInMemoryDay> m_aMap = new ConcurrentSkipListMap <> ();
+  private final AtomicBoolean m_aInitialized = new AtomicBoolean (false);
+  private EReportingInMemoryStorageMode m_eStorageMode = EReportingInMemoryStorageMode.DEFAULT;
+  // Only used in columnar mode
+  private ReportingInMemoryStringDictionary m_aDict;
+  // Only set if a heap budget is configured
+  private ReportingInMemorySpillManager m_aSpillManager;
+  // Only set if persistence is enabled
+  private volatile ReportingInMemoryPersistence m_aPersistence;
 
   @NonNull
   @Nonempty
@@ -67,21 +113,293 @@ public class PeppolReportingBackendInMemorySPI implements IPeppolReportingBacken
   @NonNull
   public ESuccess initBackend (@NonNull final IConfig aConfig)
   {
-    m_aRWLock.writeLocked ( () -> m_bInitialized = true);
+    final String sStorageMode = aConfig.getAsString (CONFIG_PEPPOL_REPORTING_INMEMORY_STORAGE_MODE);
+    if (StringHelper.isNotEmpty (sStorageMode))
+    {
+      final EReportingInMemoryStorageMode eStorageMode = EReportingInMemoryStorageMode.getFromIDCaseInsensitiveOrNull (sStorageMode);
+      if (eStorageMode == null)
+      {
+        LOGGER.error ("The in-memory storage mode '" +
+                      sStorageMode +
+                      "' is not supported. See property '" +
+                      CONFIG_PEPPOL_REPORTING_INMEMORY_STORAGE_MODE +
+                      "'");
+        return ESuccess.FAILURE;
+      }
+      m_eStorageMode = eStorageMode;
+    }
+    else
+      m_eStorageMode = EReportingInMemoryStorageMode.DEFAULT;
+    m_aDict = m_eStorageMode == EReportingInMemoryStorageMode.COLUMNAR ? new ReportingInMemoryStringDictionary ()
+                                                                       : null;
+
+    final long nMaxHeapBytes = aConfig.getAsLong (CONFIG_PEPPOL_REPORTING_INMEMORY_MAX_HEAP_BYTES, 0);
+    if (nMaxHeapBytes > 0)
+    {
+      final String sSpillDirectory = aConfig.getAsString (CONFIG_PEPPOL_REPORTING_INMEMORY_SPILL_DIRECTORY);
+      try
+      {
+        final File aSpillDirectory;
+        if (StringHelper.isNotEmpty (sSpillDirectory))
+        {
+          aSpillDirectory = new File (sSpillDirectory).getAbsoluteFile ();
+          Files.createDirectories (aSpillDirectory.toPath ());
+        }
+        else
+          aSpillDirectory = Files.createTempDirectory ("peppol-reporting-spill").toFile ();
+        m_aSpillManager = new ReportingInMemorySpillManager (aSpillDirectory,
+                                                             nMaxHeapBytes,
+                                                             StringHelper.isEmpty (sSpillDirectory));
+      }
+      catch (final IOException ex)
+      {
+        LOGGER.error ("Failed to create the Peppol Reporting spill directory", ex);
+        return ESuccess.FAILURE;
+      }
+    }
+    else
+      m_aSpillManager = null;
+
+    final String sDirectory = aConfig.getAsString (CONFIG_PEPPOL_REPORTING_INMEMORY_PERSISTENCE_DIRECTORY);
+    if (StringHelper.isNotEmpty (sDirectory))
+    {
+      final File aDirectory = new File (sDirectory).getAbsoluteFile ();
+      final ReportingInMemoryPersistence aPersistence = new ReportingInMemoryPersistence (aDirectory,
+                                                                                          m_aMap,
+                                                                                          this::_createDay,
+                                                                                          aConfig.getAsBoolean (CONFIG_PEPPOL_REPORTING_INMEMORY_FSYNC_ENABLED,
+                                                                                                                DEFAULT_FSYNC_ENABLED),
+                                                                                          aConfig.getAsLong (CONFIG_PEPPOL_REPORTING_INMEMORY_GROUP_COMMIT_DELAY_MS,
+                                                                                                             DEFAULT_GROUP_COMMIT_DELAY_MS));
+      try
+      {
+        Files.createDirectories (aDirectory.toPath ());
+        m_aMap.clear ();
+        aPersistence.restore (aConfig.getAsLong (CONFIG_PEPPOL_REPORTING_INMEMORY_SNAPSHOT_INTERVAL_SECONDS,
+                                                 DEFAULT_SNAPSHOT_INTERVAL_SECONDS));
+      }
+      catch (final IOException ex)
+      {
+        LOGGER.error ("Failed to restore the Peppol Reporting Items from '" + aDirectory.getAbsolutePath () + "'",
+                      ex);
+        m_aMap.clear ();
+        _closeSpillManager ();
+        return ESuccess.FAILURE;
+      }
+      m_aPersistence = aPersistence;
+    }
+
+    m_aInitialized.set (true);
     return ESuccess.SUCCESS;
   }
 
   public boolean isInitialized ()
   {
-    return m_aRWLock.readLockedBoolean ( () -> m_bInitialized);
+    return m_aInitialized.get ();
   }
 
   public void shutdownBackend ()
   {
-    m_aRWLock.writeLocked ( () -> {
+    if (m_aInitialized.compareAndSet (true, false))
+    {
+      final ReportingInMemoryPersistence aPersistence = m_aPersistence;
+      if (aPersistence != null)
+      {
+        aPersistence.close ();
+        m_aPersistence = null;
+      }
       m_aMap.clear ();
-      m_bInitialized = false;
-    });
+      m_aDict = null;
+      _closeSpillManager ();
+    }
+  }
+
+  private void _closeSpillManager ()
+  {
+    if (m_aSpillManager != null)
+    {
+      m_aSpillManager.close ();
+      m_aSpillManager = null;
+    }
+  }
+
+  /**
+   * @return The storage mode used. Never <code>null</code>.
+   * @since 4.2.1
+   */
+  @NonNull
+  public EReportingInMemoryStorageMode getStorageMode ()
+  {
+    return m_eStorageMode;
+  }
+
+  /**
+   * @return The configured heap budget in bytes or 0 if it is unlimited.
+   * @since 4.2.1
+   */
+  @Nonnegative
+  public long getMaxHeapBytes ()
+  {
+    final ReportingInMemorySpillManager aSpillManager = m_aSpillManager;
+    return aSpillManager == null ? 0 : aSpillManager.getMaxBytes ();
+  }
+
+  @NonNull
+  private IReportingInMemoryDay _createResidentDay (@NonNull final LocalDate aDay)
+  {
+    switch (m_eStorageMode)
+    {
+      case COLUMNAR:
+        return new ReportingInMemoryColumnarDay (m_aDict);
+      case OFFHEAP:
+        return new ReportingInMemoryOffHeapDay ();
+      default:
+        return new ReportingInMemoryObjectDay ();
+    }
+  }
+
+  @NonNull
+  private IReportingInMemoryDay _createDay (@NonNull final LocalDate aDay)
+  {
+    final ReportingInMemorySpillManager aSpillManager = m_aSpillManager;
+    if (aSpillManager != null)
+      return new ReportingInMemorySpillableDay (aDay, this::_createResidentDay, aSpillManager);
+    return _createResidentDay (aDay);
+  }
+
+  /**
+   * @return <code>true</code> if the content is persisted via snapshot and journal,
+   *         <code>false</code> if not.
+   * @since 4.2.1
+   */
+  public boolean isPersistenceEnabled ()
+  {
+    return m_aPersistence != null;
+  }
+
+  /**
+   * Write a snapshot of the current content immediately, independent of the configured interval.
+   * This only has an effect if persistence is enabled.
+   *
+   * @throws PeppolReportingBackendException
+   *         If writing the snapshot failed
+   * @since 4.2.1
+   */
+  public void writeSnapshot () throws PeppolReportingBackendException
+  {
+    final ReportingInMemoryPersistence aPersistence = m_aPersistence;
+    if (aPersistence != null)
+      try
+      {
+        aPersistence.snapshot ();
+      }
+      catch (final IOException ex)
+      {
+        throw new PeppolReportingBackendException ("Failed to write the Peppol Reporting in-memory snapshot", ex);
+      }
+  }
+
+  /**
+   * Remove all reporting items of the days before the provided date. The days are no longer
+   * referenced by the backend afterwards, but their memory is reclaimed by the garbage collector
+   * once no running iteration uses them any longer. In the off-heap storage mode the direct buffers
+   * are freed by their cleaner after that, so the native memory may stay allocated until the next
+   * garbage collection. If persistence is enabled, a new snapshot is written afterwards, so that
+   * the removed days are not restored.
+   *
+   * @param aDateExcl
+   *        The first day to keep. May not be <code>null</code>.
+   * @return The number of removed days. Always &ge; 0.
+   * @throws PeppolReportingBackendException
+   *         If writing the snapshot failed
+   * @since 4.2.1
+   */
+  @Nonnegative
+  public int removeDaysBefore (@NonNull final LocalDate aDateExcl) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aDateExcl, "DateExcl");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting InMemory backend is not initialized");
+
+    final int nRemoved;
+    final ReportingInMemoryPersistence aPersistence = m_aPersistence;
+    if (aPersistence != null)
+      try
+      {
+        nRemoved = aPersistence.removeDaysBefore (aDateExcl);
+      }
+      catch (final IOException ex)
+      {
+        throw new PeppolReportingBackendException ("Failed to write the Peppol Reporting in-memory snapshot", ex);
+      }
+    else
+      nRemoved = removeDays (m_aMap, aDateExcl);
+
+    if (nRemoved > 0)
+      LOGGER.info ("Removed the Peppol Reporting Items of " + nRemoved + " day(s) before " + aDateExcl + " from memory");
+    return nRemoved;
+  }
+
+  /**
+   * Remove and release all days before the provided date. Each day is removed from the map before it
+   * is released.
+   *
+   * @param aMap
+   *        The map of all days. May not be <code>null</code>.
+   * @param aDateExcl
+   *        The first day to keep. May not be <code>null</code>.
+   * @return The number of removed days. Always &ge; 0.
+   */
+  @Nonnegative
+  static int removeDays (@NonNull final NavigableMap <LocalDate, IReportingInMemoryDay> aMap,
+                         @NonNull final LocalDate aDateExcl)
+  {
+    int nRemoved = 0;
+    for (final Map.Entry <LocalDate, IReportingInMemoryDay> aEntry : aMap.headMap (aDateExcl, false).entrySet ())
+      if (aMap.remove (aEntry.getKey (), aEntry.getValue ()))
+      {
+        aEntry.getValue ().release ();
+        nRemoved++;
+      }
+    return nRemoved;
+  }
+
+  /**
+   * Add the provided item to its day, creating the day on demand. If the day is concurrently removed
+   * by {@link #removeDaysBefore(LocalDate)}, the item is added to a new day instead, so that it is
+   * never lost in a detached or released day.
+   *
+   * @param aMap
+   *        The map of all days. May not be <code>null</code>.
+   * @param aDayFactory
+   *        The factory for new days. May not be <code>null</code>.
+   * @param aItem
+   *        The item to add. May not be <code>null</code>.
+   */
+  static void addToDay (@NonNull final NavigableMap <LocalDate, IReportingInMemoryDay> aMap,
+                        @NonNull final Function <LocalDate, ? extends IReportingInMemoryDay> aDayFactory,
+                        @NonNull final PeppolReportingItem aItem)
+  {
+    final LocalDate aDate = aItem.getExchangeDTUTC ().toLocalDate ();
+    while (true)
+    {
+      final IReportingInMemoryDay aDay = aMap.computeIfAbsent (aDate, aDayFactory);
+      try
+      {
+        aDay.add (aItem);
+      }
+      catch (final IllegalStateException ex)
+      {
+        // Days are removed from the map before they are released
+        if (aMap.get (aDate) == aDay)
+          throw ex;
+        continue;
+      }
+      // Retry if the day was removed before the item was added
+      if (aMap.get (aDate) == aDay)
+        return;
+    }
   }
 
   public void storeReportingItem (@NonNull final PeppolReportingItem aReportingItem) throws PeppolReportingBackendException
@@ -97,8 +415,31 @@ public class PeppolReportingBackendInMemorySPI implements IPeppolReportingBacken
       if (!isInitialized ())
         throw new IllegalStateException ("The Peppol Reporting InMemory backend is not initialized");
 
-      m_aRWLock.writeLocked ( () -> m_aMap.computeIfAbsent (aReportingItem.getExchangeDTUTC ().toLocalDate (),
-                                                            k -> new CommonsArrayList <> ()).add (aReportingItem));
+      final ReportingInMemoryPersistence aPersistence = m_aPersistence;
+      if (aPersistence != null)
+      {
+        try
+        {
+          aPersistence.store (aReportingItem);
+        }
+        catch (final IOException ex)
+        {
+          throw new PeppolReportingBackendException ("Failed to journal Peppol Reporting Item", ex);
+        }
+        catch (final UncheckedIOException ex)
+        {
+          throw new PeppolReportingBackendException ("Failed to reload spilled Peppol Reporting Items", ex.getCause ());
+        }
+      }
+      else
+        try
+        {
+          addToDay (m_aMap, this::_createDay, aReportingItem);
+        }
+        catch (final UncheckedIOException ex)
+        {
+          throw new PeppolReportingBackendException ("Failed to reload spilled Peppol Reporting Items", ex.getCause ());
+        }
 
       if (LOGGER.isDebugEnabled ())
         LOGGER.debug ("Successfully stored Peppol Reporting Item in memory");
@@ -112,9 +453,7 @@ public class PeppolReportingBackendInMemorySPI implements IPeppolReportingBacken
     }
   }
 
-  @NonNull
-  public Iterable <PeppolReportingItem> iterateReportingItems (@NonNull final LocalDate aStartDateIncl,
-                                                               @NonNull final LocalDate aEndDateIncl) throws PeppolReportingBackendException
+  private void _checkDateRange (@NonNull final LocalDate aStartDateIncl, @NonNull final LocalDate aEndDateIncl)
   {
     ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
     ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
@@ -128,60 +467,167 @@ public class PeppolReportingBackendInMemorySPI implements IPeppolReportingBacken
 
     if (!isInitialized ())
       throw new IllegalStateException ("The Peppol Reporting InMemory backend is not initialized");
+  }
 
-    final Iterator <PeppolReportingItem> it = new Iterator <> ()
+  /**
+   * Take the snapshot: the days in range in ascending order, each with the number of items
+   * published so far.
+   */
+  private void _takeSnapshot (@NonNull final LocalDate aStartDateIncl,
+                              @NonNull final LocalDate aEndDateIncl,
+                              @NonNull final ICommonsList <IReportingInMemoryDay> aDays,
+                              @NonNull final ICommonsList <Integer> aSizes)
+  {
+    final NavigableMap <LocalDate, IReportingInMemoryDay> aRange = m_aMap.subMap (aStartDateIncl,
+                                                                                  true,
+                                                                                  aEndDateIncl,
+                                                                                  true);
+    for (final Map.Entry <LocalDate, IReportingInMemoryDay> aEntry : aRange.entrySet ())
     {
-      private LocalDate m_aCurDate = aStartDateIncl;
-      private ICommonsList <PeppolReportingItem> m_aAllItemsOfDate;
-      private int m_nDateIndex = 0;
-
-      private void _findNextDayWithItems ()
+      final int nSize = aEntry.getValue ().size ();
+      if (nSize > 0)
       {
-        m_nDateIndex = 0;
+        aDays.add (aEntry.getValue ());
+        aSizes.add (Integer.valueOf (nSize));
+      }
+    }
+  }
 
-        // Find between date, but order by exchange date and time
-        while (m_aCurDate.compareTo (aEndDateIncl) <= 0)
-        {
-          m_aAllItemsOfDate = m_aRWLock.readLockedGet ( () -> m_aMap.get (m_aCurDate));
-          if (m_aAllItemsOfDate != null && m_aAllItemsOfDate.isNotEmpty ())
-            break;
+  @NonNull
+  public Iterable <PeppolReportingItem> iterateReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                                               @NonNull final LocalDate aEndDateIncl) throws PeppolReportingBackendException
+  {
+    _checkDateRange (aStartDateIncl, aEndDateIncl);
 
-          m_aCurDate = m_aCurDate.plusDays (1);
-        }
-      }
+    final ICommonsList <IReportingInMemoryDay> aDays = new CommonsArrayList <> ();
+    final ICommonsList <Integer> aSizes = new CommonsArrayList <> ();
+    _takeSnapshot (aStartDateIncl, aEndDateIncl, aDays, aSizes);
+
+    return () -> new Iterator <> ()
+    {
+      private int m_nDayIndex = 0;
+      private Iterator <PeppolReportingItem> m_aCurDay;
 
       public boolean hasNext ()
       {
-        if (m_aAllItemsOfDate == null)
-        {
-          // Initial call
-          _findNextDayWithItems ();
-          if (m_aAllItemsOfDate == null)
-            return false;
-        }
-
-        if (m_nDateIndex >= m_aAllItemsOfDate.size ())
+        while (m_aCurDay == null || !m_aCurDay.hasNext ())
         {
-          // Next day
-          m_aCurDate = m_aCurDate.plusDays (1);
-          m_aAllItemsOfDate = null;
-
-          _findNextDayWithItems ();
-          if (m_aAllItemsOfDate == null)
+          if (m_nDayIndex >= aDays.size ())
             return false;
+          m_aCurDay = aDays.get (m_nDayIndex).iterator (aSizes.get (m_nDayIndex).intValue ());
+          m_nDayIndex++;
         }
-
         return true;
       }
 
       @NonNull
       public PeppolReportingItem next ()
       {
-        final PeppolReportingItem ret = m_aAllItemsOfDate.get (m_nDateIndex);
-        m_nDateIndex++;
-        return ret;
+        if (!hasNext ())
+          throw new NoSuchElementException ();
+        return m_aCurDay.next ();
       }
     };
-    return () -> it;
+  }
+
+  public void forEachReportingItemView (@NonNull final LocalDate aStartDateIncl,
+                                        @NonNull final LocalDate aEndDateIncl,
+                                        @NonNull final Consumer <? super IPeppolReportingItemView> aConsumer) throws PeppolReportingBackendException
+  {
+    _checkDateRange (aStartDateIncl, aEndDateIncl);
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    final ICommonsList <IReportingInMemoryDay> aDays = new CommonsArrayList <> ();
+    final ICommonsList <Integer> aSizes = new CommonsArrayList <> ();
+    _takeSnapshot (aStartDateIncl, aEndDateIncl, aDays, aSizes);
+
+    try
+    {
+      for (int i = 0; i < aDays.size (); ++i)
+        aDays.get (i).forEachView (aSizes.get (i).intValue (), aConsumer);
+    }
+    catch (final UncheckedIOException ex)
+    {
+      throw new PeppolReportingBackendException ("Failed to read spilled Peppol Reporting Items", ex.getCause ());
+    }
+  }
+
+  /**
+   * The continuation token is the day and the index inside the day bucket. Object and columnar
+   * days start reading directly at the index.
+   */
+  @NonNull
+  public PeppolReportingItemPage readReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                                     @NonNull final LocalDate aEndDateIncl,
+                                                     @Nonnegative final int nPageSize,
+                                                     @Nullable final String sContinuationToken) throws PeppolReportingBackendException
+  {
+    _checkDateRange (aStartDateIncl, aEndDateIncl);
+    ValueEnforcer.isGT0 (nPageSize, "PageSize");
+
+    final PeppolReportingDayPosition aStartPos = PeppolReportingDayPosition.getStartPosition (aStartDateIncl,
+                                                                                              sContinuationToken);
+    final ICommonsList <PeppolReportingItem> ret = new CommonsArrayList <> ();
+    if (aStartPos.getDay ().compareTo (aEndDateIncl) > 0)
+      return PeppolReportingItemPage.createLastPage (ret);
+
+    final NavigableMap <LocalDate, IReportingInMemoryDay> aRange = m_aMap.subMap (aStartPos.getDay (),
+                                                                                  true,
+                                                                                  aEndDateIncl,
+                                                                                  true);
+    try
+    {
+      for (final Map.Entry <LocalDate, IReportingInMemoryDay> aEntry : aRange.entrySet ())
+      {
+        final int nSize = aEntry.getValue ().size ();
+        int nIndex = aEntry.getKey ().equals (aStartPos.getDay ()) ? (int) Math.min (aStartPos.getPosition (), nSize)
+                                                                   : 0;
+        final Iterator <PeppolReportingItem> aIter = aEntry.getValue ().iterator (nIndex, nSize);
+        while (aIter.hasNext ())
+        {
+          if (ret.size () == nPageSize)
+          {
+            // There is at least one more item
+            return new PeppolReportingItemPage (ret,
+                                                new PeppolReportingDayPosition (aEntry.getKey (), nIndex).getAsToken ());
+          }
+          ret.add (aIter.next ());
+          nIndex++;
+        }
+      }
+    }
+    catch (final UncheckedIOException ex)
+    {
+      throw new PeppolReportingBackendException ("Failed to read spilled Peppol Reporting Items", ex.getCause ());
+    }
+    return PeppolReportingItemPage.createLastPage (ret);
+  }
+
+  /**
+   * Counting all items only sums up the sizes of the day buckets, counting a single direction
+   * scans the views of the day buckets.
+   */
+  @Nonnegative
+  public long countReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                   @NonNull final LocalDate aEndDateIncl,
+                                   @Nullable final EReportingDirection eDirection) throws PeppolReportingBackendException
+  {
+    _checkDateRange (aStartDateIncl, aEndDateIncl);
+
+    final ICommonsList <IReportingInMemoryDay> aDays = new CommonsArrayList <> ();
+    final ICommonsList <Integer> aSizes = new CommonsArrayList <> ();
+    _takeSnapshot (aStartDateIncl, aEndDateIncl, aDays, aSizes);
+
+    long ret = 0;
+    try
+    {
+      for (int i = 0; i < aDays.size (); ++i)
+        ret += aDays.get (i).count (aSizes.get (i).intValue (), eDirection);
+    }
+    catch (final UncheckedIOException ex)
+    {
+      throw new PeppolReportingBackendException ("Failed to read spilled Peppol Reporting Items", ex.getCause ());
+    }
+    return ret;
   }
 }
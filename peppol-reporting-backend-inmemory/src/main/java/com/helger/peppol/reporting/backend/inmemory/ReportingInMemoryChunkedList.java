@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+
+/**
+ * A lock-free, append-only list that stores its elements in chunks of exponentially growing size.
+ * Existing chunks are never copied or moved, so readers never need a lock. Writers make sure the
+ * chunk of the next slot exists, reserve that slot and publish the element with a single volatile
+ * write into it, without waiting for any other writer. Nothing can fail between reserving and
+ * publishing, so every reserved slot is eventually published. Readers only ever see the prefix up
+ * to the first empty slot, so the size taken at any point in time is a consistent snapshot. A slot
+ * whose writer is still busy hides the later slots for that short time, but never blocks another
+ * writer.
+ *
+ * @author Philip Helger
+ * @param <T>
+ *        The element type
+ * @since 4.2.1
+ */
+@ThreadSafe
+final class ReportingInMemoryChunkedList <T>
+{
+  private static final int FIRST_CHUNK_SHIFT = 6;
+  private static final int FIRST_CHUNK_SIZE = 1 << FIRST_CHUNK_SHIFT;
+  // Chunk k has a size of FIRST_CHUNK_SIZE << k
+  static final int MAX_CHUNKS = 31 - FIRST_CHUNK_SHIFT;
+  static final int MAX_SIZE = Integer.MAX_VALUE - FIRST_CHUNK_SIZE;
+
+  private final AtomicReferenceArray <AtomicReferenceArray <T>> m_aChunks = new AtomicReferenceArray <> (MAX_CHUNKS);
+  private final AtomicInteger m_aReserved = new AtomicInteger (0);
+  // Lower bound of the published prefix, only moved forward by readers
+  private final AtomicInteger m_aPublished = new AtomicInteger (0);
+
+  static int getChunkSize (final int nChunkIndex)
+  {
+    return FIRST_CHUNK_SIZE << nChunkIndex;
+  }
+
+  static int getChunkIndex (final int nIndex)
+  {
+    final int nPos = nIndex + FIRST_CHUNK_SIZE;
+    return 31 - Integer.numberOfLeadingZeros (nPos) - FIRST_CHUNK_SHIFT;
+  }
+
+  static int getChunkOffset (final int nIndex)
+  {
+    final int nPos = nIndex + FIRST_CHUNK_SIZE;
+    return nPos - Integer.highestOneBit (nPos);
+  }
+
+  @NonNull
+  private AtomicReferenceArray <T> _getOrCreateChunk (final int nChunkIndex)
+  {
+    AtomicReferenceArray <T> ret = m_aChunks.get (nChunkIndex);
+    if (ret == null)
+    {
+      final AtomicReferenceArray <T> aNewChunk = new AtomicReferenceArray <> (getChunkSize (nChunkIndex));
+      if (m_aChunks.compareAndSet (nChunkIndex, null, aNewChunk))
+        ret = aNewChunk;
+      else
+        ret = m_aChunks.get (nChunkIndex);
+    }
+    return ret;
+  }
+
+  /**
+   * Append a new element. Without concurrent writers, the element is visible to readers as soon as
+   * this method returns. With concurrent writers, it only becomes part of {@link #size()} once all
+   * writers that reserved a lower index returned as well, so that readers never see a gap. It can
+   * always be read with {@link #get(int)} using the returned index.
+   *
+   * @param aElement
+   *        The element to append. May not be <code>null</code>.
+   * @return The index of the element.
+   */
+  @Nonnegative
+  int add (@NonNull final T aElement)
+  {
+    ValueEnforcer.notNull (aElement, "Element");
+
+    while (true)
+    {
+      final int nIndex = m_aReserved.get ();
+      if (nIndex >= MAX_SIZE)
+        throw new IllegalStateException ("The chunked list is full");
+
+      // Allocate the chunk before reserving the slot, as this may fail
+      final AtomicReferenceArray <T> aChunk = _getOrCreateChunk (getChunkIndex (nIndex));
+      if (m_aReserved.compareAndSet (nIndex, nIndex + 1))
+      {
+        // The volatile write publishes the element
+        aChunk.set (getChunkOffset (nIndex), aElement);
+        return nIndex;
+      }
+    }
+  }
+
+  @Nullable
+  private T _getSlot (final int nIndex)
+  {
+    final AtomicReferenceArray <T> aChunk = m_aChunks.get (getChunkIndex (nIndex));
+    return aChunk == null ? null : aChunk.get (getChunkOffset (nIndex));
+  }
+
+  /**
+   * @return The number of published elements, up to the first slot that is still empty. This is
+   *         the snapshot size to be used for {@link #iterator(int)}.
+   */
+  @Nonnegative
+  int size ()
+  {
+    final int nReserved = Math.min (m_aReserved.get (), MAX_SIZE);
+    int n = m_aPublished.get ();
+    while (n < nReserved && _getSlot (n) != null)
+      n++;
+    return m_aPublished.accumulateAndGet (n, Math::max);
+  }
+
+  /**
+   * Get the element at the provided index. The element must have been published, e.g. because the
+   * index was returned by {@link #add(Object)} or is &lt; {@link #size()}.
+   *
+   * @param nIndex
+   *        The index to query. Must be &ge; 0.
+   * @return The element. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the element at the provided index is not published
+   */
+  @NonNull
+  T get (@Nonnegative final int nIndex)
+  {
+    ValueEnforcer.isGE0 (nIndex, "Index");
+    final T ret = nIndex < MAX_SIZE ? _getSlot (nIndex) : null;
+    if (ret == null)
+      throw new IllegalArgumentException ("The element at index " + nIndex + " is not published");
+    return ret;
+  }
+
+  /**
+   * Iterate the first elements of this list. Elements appended later are not part of the
+   * iteration.
+   *
+   * @param nSnapshotSize
+   *        The number of elements to iterate, as returned by {@link #size()} before.
+   * @return A new iterator. Never <code>null</code>.
+   */
+  @NonNull
+  Iterator <T> iterator (@Nonnegative final int nSnapshotSize)
+  {
+    return iterator (0, nSnapshotSize);
+  }
+
+  /**
+   * Iterate the elements of this list starting at the provided index, without touching the
+   * elements before. Elements appended later are not part of the iteration.
+   *
+   * @param nStartIndex
+   *        The index of the first element to iterate. Must be &ge; 0 and &le; the snapshot size.
+   * @param nSnapshotSize
+   *        The number of elements of the snapshot, as returned by {@link #size()} before.
+   * @return A new iterator. Never <code>null</code>.
+   */
+  @NonNull
+  Iterator <T> iterator (@Nonnegative final int nStartIndex, @Nonnegative final int nSnapshotSize)
+  {
+    ValueEnforcer.isBetweenInclusive (nSnapshotSize, "SnapshotSize", 0, size ());
+    ValueEnforcer.isBetweenInclusive (nStartIndex, "StartIndex", 0, nSnapshotSize);
+    return new Iterator <> ()
+    {
+      private int m_nIndex = nStartIndex;
+      private int m_nChunkIndex = getChunkIndex (nStartIndex);
+      private AtomicReferenceArray <T> m_aChunk;
+      private int m_nChunkOffset = getChunkOffset (nStartIndex);
+
+      public boolean hasNext ()
+      {
+        return m_nIndex < nSnapshotSize;
+      }
+
+      public T next ()
+      {
+        if (m_nIndex >= nSnapshotSize)
+          throw new NoSuchElementException ();
+        if (m_aChunk == null)
+          m_aChunk = m_aChunks.get (m_nChunkIndex);
+        else
+          if (m_nChunkOffset >= m_aChunk.length ())
+          {
+            m_nChunkIndex++;
+            m_aChunk = m_aChunks.get (m_nChunkIndex);
+            m_nChunkOffset = 0;
+          }
+        m_nIndex++;
+        return m_aChunk.get (m_nChunkOffset++);
+      }
+    };
+  }
+}
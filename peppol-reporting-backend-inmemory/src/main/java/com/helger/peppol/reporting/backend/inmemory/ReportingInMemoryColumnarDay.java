@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.IPeppolReportingItemView;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * Implementation of {@link IReportingInMemoryDay} that stores the items column by column: the
+ * exchange time as epoch milliseconds, the direction as a bit set and all string fields as
+ * dictionary codes. Items are only materialized during iteration, and not at all when scanning
+ * via {@link #forEachView(int, Consumer)}. The chunk layout and the per slot publishing are the
+ * same as in {@link ReportingInMemoryChunkedList}.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@ThreadSafe
+final class ReportingInMemoryColumnarDay implements IReportingInMemoryDay
+{
+  private static final int COL_C2ID = 0;
+  private static final int COL_C3ID = 1;
+  private static final int COL_DOCTYPE_SCHEME = 2;
+  private static final int COL_DOCTYPE_VALUE = 3;
+  private static final int COL_PROCESS_SCHEME = 4;
+  private static final int COL_PROCESS_VALUE = 5;
+  private static final int COL_TRANSPORT_PROTOCOL = 6;
+  private static final int COL_C1CC = 7;
+  private static final int COL_C4CC = 8;
+  private static final int COL_END_USER_ID = 9;
+  private static final int COL_COUNT = 10;
+
+  private static final class Chunk
+  {
+    private final long [] m_aExchangeMillis;
+    // One bit per item, set for receiving
+    private final AtomicLongArray m_aReceiving;
+    // One bit per item, set as the last write when all columns of the item are filled
+    private final AtomicLongArray m_aPublished;
+    private final int [] [] m_aCodes;
+
+    Chunk (final int nSize)
+    {
+      m_aExchangeMillis = new long [nSize];
+      m_aReceiving = new AtomicLongArray (nSize / Long.SIZE);
+      m_aPublished = new AtomicLongArray (nSize / Long.SIZE);
+      m_aCodes = new int [COL_COUNT] [nSize];
+    }
+  }
+
+  /**
+   * A view positioned on a single slot of a chunk. Reading a field only resolves the dictionary
+   * code.
+   */
+  private final class Cursor implements IPeppolReportingItemView
+  {
+    private Chunk m_aChunk;
+    private int m_nOfs;
+
+    void setPosition (@NonNull final Chunk aChunk, final int nOfs)
+    {
+      m_aChunk = aChunk;
+      m_nOfs = nOfs;
+    }
+
+    @Nullable
+    private String _get (final int nCol)
+    {
+      return m_aDict.getValue (m_aChunk.m_aCodes[nCol][m_nOfs]);
+    }
+
+    public long getExchangeEpochMillis ()
+    {
+      return m_aChunk.m_aExchangeMillis[m_nOfs];
+    }
+
+    @NonNull
+    public EReportingDirection getDirection ()
+    {
+      return _isReceiving (m_aChunk, m_nOfs) ? EReportingDirection.RECEIVING : EReportingDirection.SENDING;
+    }
+
+    @NonNull
+    public String getC2ID ()
+    {
+      return _get (COL_C2ID);
+    }
+
+    @NonNull
+    public String getC3ID ()
+    {
+      return _get (COL_C3ID);
+    }
+
+    @NonNull
+    public String getDocTypeIDScheme ()
+    {
+      return _get (COL_DOCTYPE_SCHEME);
+    }
+
+    @NonNull
+    public String getDocTypeIDValue ()
+    {
+      return _get (COL_DOCTYPE_VALUE);
+    }
+
+    @NonNull
+    public String getProcessIDScheme ()
+    {
+      return _get (COL_PROCESS_SCHEME);
+    }
+
+    @NonNull
+    public String getProcessIDValue ()
+    {
+      return _get (COL_PROCESS_VALUE);
+    }
+
+    @NonNull
+    public String getTransportProtocol ()
+    {
+      return _get (COL_TRANSPORT_PROTOCOL);
+    }
+
+    @NonNull
+    public String getC1CountryCode ()
+    {
+      return _get (COL_C1CC);
+    }
+
+    @Nullable
+    public String getC4CountryCode ()
+    {
+      return _get (COL_C4CC);
+    }
+
+    @NonNull
+    public String getEndUserID ()
+    {
+      return _get (COL_END_USER_ID);
+    }
+
+    @NonNull
+    public PeppolReportingItem getAsItem ()
+    {
+      return _materialize (m_aChunk, m_nOfs);
+    }
+  }
+
+  private final ReportingInMemoryStringDictionary m_aDict;
+  private final AtomicReferenceArray <Chunk> m_aChunks = new AtomicReferenceArray <> (ReportingInMemoryChunkedList.MAX_CHUNKS);
+  private final AtomicInteger m_aReserved = new AtomicInteger (0);
+  // Lower bound of the published prefix, only moved forward by readers
+  private final AtomicInteger m_aPublished = new AtomicInteger (0);
+
+  /**
+   * @param aDict
+   *        The dictionary to use. Usually shared between all days. May not be <code>null</code>.
+   */
+  ReportingInMemoryColumnarDay (@NonNull final ReportingInMemoryStringDictionary aDict)
+  {
+    ValueEnforcer.notNull (aDict, "Dict");
+    m_aDict = aDict;
+  }
+
+  @NonNull
+  private Chunk _getOrCreateChunk (final int nChunkIndex)
+  {
+    Chunk ret = m_aChunks.get (nChunkIndex);
+    if (ret == null)
+    {
+      final Chunk aNewChunk = new Chunk (ReportingInMemoryChunkedList.getChunkSize (nChunkIndex));
+      if (m_aChunks.compareAndSet (nChunkIndex, null, aNewChunk))
+        ret = aNewChunk;
+      else
+        ret = m_aChunks.get (nChunkIndex);
+    }
+    return ret;
+  }
+
+  public void add (@NonNull final PeppolReportingItem aItem)
+  {
+    ValueEnforcer.notNull (aItem, "Item");
+
+    final int nIndex = m_aReserved.getAndIncrement ();
+    if (nIndex < 0 || nIndex >= ReportingInMemoryChunkedList.MAX_SIZE)
+      throw new IllegalStateException ("The columnar day is full");
+
+    final Chunk aChunk = _getOrCreateChunk (ReportingInMemoryChunkedList.getChunkIndex (nIndex));
+    final int nOfs = ReportingInMemoryChunkedList.getChunkOffset (nIndex);
+    aChunk.m_aExchangeMillis[nOfs] = aItem.getExchangeEpochMillis ();
+    final long nMask = 1L << (nOfs & (Long.SIZE - 1));
+    if (aItem.isReceiving ())
+      aChunk.m_aReceiving.getAndAccumulate (nOfs / Long.SIZE, nMask, (a, b) -> a | b);
+    final int [] [] aCodes = aChunk.m_aCodes;
+    aCodes[COL_C2ID][nOfs] = m_aDict.getOrAddCode (aItem.getC2ID ());
+    aCodes[COL_C3ID][nOfs] = m_aDict.getOrAddCode (aItem.getC3ID ());
+    aCodes[COL_DOCTYPE_SCHEME][nOfs] = m_aDict.getOrAddCode (aItem.getDocTypeIDScheme ());
+    aCodes[COL_DOCTYPE_VALUE][nOfs] = m_aDict.getOrAddCode (aItem.getDocTypeIDValue ());
+    aCodes[COL_PROCESS_SCHEME][nOfs] = m_aDict.getOrAddCode (aItem.getProcessIDScheme ());
+    aCodes[COL_PROCESS_VALUE][nOfs] = m_aDict.getOrAddCode (aItem.getProcessIDValue ());
+    aCodes[COL_TRANSPORT_PROTOCOL][nOfs] = m_aDict.getOrAddCode (aItem.getTransportProtocol ());
+    aCodes[COL_C1CC][nOfs] = m_aDict.getOrAddCode (aItem.getC1CountryCode ());
+    aCodes[COL_C4CC][nOfs] = m_aDict.getOrAddCode (aItem.getC4CountryCode ());
+    aCodes[COL_END_USER_ID][nOfs] = m_aDict.getOrAddCode (aItem.getEndUserID ());
+
+    // Publish the slot - the volatile write makes all columns visible
+    aChunk.m_aPublished.getAndAccumulate (nOfs / Long.SIZE, nMask, (a, b) -> a | b);
+  }
+
+  private boolean _isPublished (final int nIndex)
+  {
+    final Chunk aChunk = m_aChunks.get (ReportingInMemoryChunkedList.getChunkIndex (nIndex));
+    if (aChunk == null)
+      return false;
+    final int nOfs = ReportingInMemoryChunkedList.getChunkOffset (nIndex);
+    return (aChunk.m_aPublished.get (nOfs / Long.SIZE) & (1L << (nOfs & (Long.SIZE - 1)))) != 0;
+  }
+
+  /**
+   * @return The number of published items, up to the first slot that is still being written. A
+   *         slow writer hides the later slots, but never blocks another writer.
+   */
+  @Nonnegative
+  public int size ()
+  {
+    final int nReserved = Math.min (m_aReserved.get (), ReportingInMemoryChunkedList.MAX_SIZE);
+    int n = m_aPublished.get ();
+    while (n < nReserved && _isPublished (n))
+      n++;
+    return m_aPublished.accumulateAndGet (n, Math::max);
+  }
+
+  private static boolean _isReceiving (@NonNull final Chunk aChunk, final int nOfs)
+  {
+    return (aChunk.m_aReceiving.get (nOfs / Long.SIZE) & (1L << (nOfs & (Long.SIZE - 1)))) != 0;
+  }
+
+  @NonNull
+  private PeppolReportingItem _materialize (@NonNull final Chunk aChunk, final int nOfs)
+  {
+    final int [] [] aCodes = aChunk.m_aCodes;
+    return PeppolReportingItem.createTrusted (aChunk.m_aExchangeMillis[nOfs],
+                                              _isReceiving (aChunk, nOfs) ? EReportingDirection.RECEIVING
+                                                                          : EReportingDirection.SENDING,
+                                              m_aDict.getValue (aCodes[COL_C2ID][nOfs]),
+                                              m_aDict.getValue (aCodes[COL_C3ID][nOfs]),
+                                              m_aDict.getValue (aCodes[COL_DOCTYPE_SCHEME][nOfs]),
+                                              m_aDict.getValue (aCodes[COL_DOCTYPE_VALUE][nOfs]),
+                                              m_aDict.getValue (aCodes[COL_PROCESS_SCHEME][nOfs]),
+                                              m_aDict.getValue (aCodes[COL_PROCESS_VALUE][nOfs]),
+                                              m_aDict.getValue (aCodes[COL_TRANSPORT_PROTOCOL][nOfs]),
+                                              m_aDict.getValue (aCodes[COL_C1CC][nOfs]),
+                                              m_aDict.getValue (aCodes[COL_C4CC][nOfs]),
+                                              m_aDict.getValue (aCodes[COL_END_USER_ID][nOfs]));
+  }
+
+  @NonNull
+  public Iterator <PeppolReportingItem> iterator (@Nonnegative final int nSnapshotSize)
+  {
+    return iterator (0, nSnapshotSize);
+  }
+
+  @Override
+  @NonNull
+  public Iterator <PeppolReportingItem> iterator (@Nonnegative final int nStartIndex,
+                                                  @Nonnegative final int nSnapshotSize)
+  {
+    ValueEnforcer.isBetweenInclusive (nSnapshotSize, "SnapshotSize", 0, size ());
+    ValueEnforcer.isBetweenInclusive (nStartIndex, "StartIndex", 0, nSnapshotSize);
+    return new Iterator <> ()
+    {
+      private int m_nIndex = nStartIndex;
+      private int m_nChunkIndex = ReportingInMemoryChunkedList.getChunkIndex (nStartIndex);
+      private Chunk m_aChunk;
+      private int m_nChunkOffset = ReportingInMemoryChunkedList.getChunkOffset (nStartIndex);
+
+      public boolean hasNext ()
+      {
+        return m_nIndex < nSnapshotSize;
+      }
+
+      @NonNull
+      public PeppolReportingItem next ()
+      {
+        if (m_nIndex >= nSnapshotSize)
+          throw new NoSuchElementException ();
+        if (m_aChunk == null)
+          m_aChunk = m_aChunks.get (m_nChunkIndex);
+        else
+          if (m_nChunkOffset >= m_aChunk.m_aExchangeMillis.length)
+          {
+            m_nChunkIndex++;
+            m_aChunk = m_aChunks.get (m_nChunkIndex);
+            m_nChunkOffset = 0;
+          }
+        m_nIndex++;
+        return _materialize (m_aChunk, m_nChunkOffset++);
+      }
+    };
+  }
+
+  @Override
+  public void forEachView (@Nonnegative final int nSnapshotSize,
+                           @NonNull final Consumer <? super IPeppolReportingItemView> aConsumer)
+  {
+    ValueEnforcer.isBetweenInclusive (nSnapshotSize, "SnapshotSize", 0, size ());
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    final Cursor aCursor = new Cursor ();
+    int nRemaining = nSnapshotSize;
+    int nChunkIndex = 0;
+    while (nRemaining > 0)
+    {
+      final Chunk aChunk = m_aChunks.get (nChunkIndex++);
+      final int nCount = Math.min (nRemaining, aChunk.m_aExchangeMillis.length);
+      for (int nOfs = 0; nOfs < nCount; ++nOfs)
+      {
+        aCursor.setPosition (aChunk, nOfs);
+        aConsumer.accept (aCursor);
+      }
+      nRemaining -= nCount;
+    }
+  }
+
+  /**
+   * Counting by direction only needs a bit count on the direction bit set.
+   */
+  @Override
+  @Nonnegative
+  public int count (@Nonnegative final int nSnapshotSize, @Nullable final EReportingDirection eDirection)
+  {
+    ValueEnforcer.isBetweenInclusive (nSnapshotSize, "SnapshotSize", 0, size ());
+    if (eDirection == null)
+      return nSnapshotSize;
+
+    int nReceiving = 0;
+    int nRemaining = nSnapshotSize;
+    int nChunkIndex = 0;
+    while (nRemaining > 0)
+    {
+      final Chunk aChunk = m_aChunks.get (nChunkIndex++);
+      final int nCount = Math.min (nRemaining, aChunk.m_aExchangeMillis.length);
+      final int nFullWords = nCount / Long.SIZE;
+      for (int i = 0; i < nFullWords; ++i)
+        nReceiving += Long.bitCount (aChunk.m_aReceiving.get (i));
+      final int nRestBits = nCount & (Long.SIZE - 1);
+      if (nRestBits > 0)
+        nReceiving += Long.bitCount (aChunk.m_aReceiving.get (nFullWords) & ((1L << nRestBits) - 1));
+      nRemaining -= nCount;
+    }
+    return eDirection.isReceiving () ? nReceiving : nSnapshotSize - nReceiving;
+  }
+
+  @Nonnegative
+  public int getEstimatedBytesPerItem ()
+  {
+    // One long, one bit and ten int codes
+    return 8 + 1 + 10 * 4;
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.api.codec.PeppolReportingItemCodec;
+import com.helger.peppol.reporting.api.codec.PeppolReportingItemDictionary;
+
+/**
+ * Compact binary encoding of all items of a single day, as used for snapshots and spill files of
+ * the in-memory backend. The encoding starts with a {@link PeppolReportingItemDictionary} of all
+ * distinct strings of that day, followed by the items encoded with {@link PeppolReportingItemCodec}
+ * referencing the dictionary.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@Immutable
+final class ReportingInMemoryDayCodec
+{
+  private ReportingInMemoryDayCodec ()
+  {}
+
+  /**
+   * Encode items.
+   *
+   * @param aItems
+   *        The items to encode. May not be <code>null</code>.
+   * @param nCount
+   *        The number of items the iterator delivers. Only used for sizing.
+   * @return The encoded bytes. Never <code>null</code>.
+   */
+  @NonNull
+  static byte [] encode (@NonNull final Iterator <PeppolReportingItem> aItems, @Nonnegative final int nCount)
+  {
+    try
+    {
+      final PeppolReportingItemDictionary aDict = new PeppolReportingItemDictionary ();
+      final ByteArrayOutputStream aItemBytes = new ByteArrayOutputStream (nCount * 24);
+      while (aItems.hasNext ())
+      {
+        final PeppolReportingItem aItem = aItems.next ();
+        aDict.addAll (aItem);
+        PeppolReportingItemCodec.write (aItem, aItemBytes, aDict);
+      }
+
+      final ByteArrayOutputStream aResult = new ByteArrayOutputStream (aItemBytes.size () + aDict.size () * 16);
+      aDict.writeTo (aResult);
+      aItemBytes.writeTo (aResult);
+      return aResult.toByteArray ();
+    }
+    catch (final IOException ex)
+    {
+      // Cannot happen on byte arrays
+      throw new IllegalStateException (ex);
+    }
+  }
+
+  /**
+   * Decode items lazily. The dictionary is read immediately.
+   *
+   * @param aBB
+   *        The buffer to read from, starting at its current position. May not be
+   *        <code>null</code>.
+   * @param nCount
+   *        The number of items to decode. Must not be larger than the number of encoded items.
+   * @return An iterator over the decoded items. Never <code>null</code>.
+   */
+  @NonNull
+  static Iterator <PeppolReportingItem> decode (@NonNull final ByteBuffer aBB, @Nonnegative final int nCount)
+  {
+    final PeppolReportingItemDictionary aDict = PeppolReportingItemDictionary.readFrom (aBB);
+
+    return new Iterator <> ()
+    {
+      private int m_nIndex = 0;
+
+      public boolean hasNext ()
+      {
+        return m_nIndex < nCount;
+      }
+
+      @NonNull
+      public PeppolReportingItem next ()
+      {
+        if (m_nIndex >= nCount)
+          throw new NoSuchElementException ();
+        m_nIndex++;
+        return PeppolReportingItemCodec.decode (aBB, aDict);
+      }
+    };
+  }
+}
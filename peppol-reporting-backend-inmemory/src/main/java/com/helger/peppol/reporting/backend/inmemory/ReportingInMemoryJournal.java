@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.GuardedBy;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.concurrent.SimpleLock;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.api.codec.PeppolReportingItemCodec;
+
+/**
+ * An append-only journal file of the in-memory backend. Each record consists of a 4 byte payload
+ * length, a 4 byte CRC32 of the payload and the payload created by
+ * {@link PeppolReportingItemCodec}. Appending only writes to the OS page cache. Durability is
+ * achieved via {@link #syncUpTo(long, long)}, where concurrent writers share a single fsync.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@ThreadSafe
+final class ReportingInMemoryJournal
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (ReportingInMemoryJournal.class);
+  private static final String FILENAME_PREFIX = "journal-";
+  private static final String FILENAME_SUFFIX = ".log";
+  private static final int RECORD_HEADER_LENGTH = 8;
+  private static final int MAX_PAYLOAD_LENGTH = 64 * 1024;
+
+  private final File m_aFile;
+  private final FileChannel m_aChannel;
+  // Only one thread forces the channel at a time
+  private final SimpleLock m_aSyncLock = new SimpleLock ();
+  @GuardedBy ("this")
+  private long m_nWritePos;
+  @GuardedBy ("this")
+  private boolean m_bClosed;
+  private volatile long m_nSyncedPos;
+
+  private ReportingInMemoryJournal (@NonNull final File aFile, @NonNull final FileChannel aChannel)
+  {
+    m_aFile = aFile;
+    m_aChannel = aChannel;
+  }
+
+  @NonNull
+  static String getFilename (@Nonnegative final long nSeq)
+  {
+    return FILENAME_PREFIX + nSeq + FILENAME_SUFFIX;
+  }
+
+  /**
+   * @param sFilename
+   *        The filename to check. May not be <code>null</code>.
+   * @return The sequence number of the journal or -1 if the filename is not a journal filename.
+   */
+  static long getSeqFromFilename (@NonNull final String sFilename)
+  {
+    if (!sFilename.startsWith (FILENAME_PREFIX) || !sFilename.endsWith (FILENAME_SUFFIX))
+      return -1;
+    final String sSeq = sFilename.substring (FILENAME_PREFIX.length (), sFilename.length () - FILENAME_SUFFIX.length ());
+    if (sSeq.isEmpty () || sSeq.length () > 18)
+      return -1;
+    for (final char c : sSeq.toCharArray ())
+      if (c < '0' || c > '9')
+        return -1;
+    return Long.parseLong (sSeq);
+  }
+
+  @NonNull
+  static ReportingInMemoryJournal open (@NonNull final File aDirectory, @Nonnegative final long nSeq) throws IOException
+  {
+    final File aFile = new File (aDirectory, getFilename (nSeq));
+    final FileChannel aChannel = FileChannel.open (aFile.toPath (),
+                                                   StandardOpenOption.CREATE,
+                                                   StandardOpenOption.WRITE,
+                                                   StandardOpenOption.APPEND);
+    return new ReportingInMemoryJournal (aFile, aChannel);
+  }
+
+  /**
+   * Append a single item to the journal. The record is not necessarily durable when this method
+   * returns - use {@link #syncUpTo(long, long)} for that.
+   *
+   * @param aItem
+   *        The item to append. May not be <code>null</code>.
+   * @return The end offset of the appended record, to be passed to {@link #syncUpTo(long, long)}.
+   * @throws IOException
+   *         On IO error
+   */
+  long append (@NonNull final PeppolReportingItem aItem) throws IOException
+  {
+    ValueEnforcer.notNull (aItem, "Item");
+
+    final byte [] aPayload = PeppolReportingItemCodec.encode (aItem);
+    final CRC32 aCRC = new CRC32 ();
+    aCRC.update (aPayload);
+    final ByteBuffer aBB = ByteBuffer.allocate (RECORD_HEADER_LENGTH + aPayload.length);
+    aBB.putInt (aPayload.length).putInt ((int) aCRC.getValue ()).put (aPayload).flip ();
+
+    // Keep the records of concurrent writers apart
+    synchronized (this)
+    {
+      if (m_bClosed)
+        throw new IOException ("The journal '" + m_aFile.getAbsolutePath () + "' is already closed");
+      while (aBB.hasRemaining ())
+        m_nWritePos += m_aChannel.write (aBB);
+      return m_nWritePos;
+    }
+  }
+
+  /**
+   * Make sure that all records up to the provided offset are durable. If another thread already
+   * synced past that offset, nothing happens. Otherwise this thread becomes the leader and forces
+   * everything that was appended so far.
+   *
+   * @param nEndPos
+   *        The offset that must be durable, as returned by {@link #append(PeppolReportingItem)}.
+   * @param nGroupCommitDelayMillis
+   *        The number of milliseconds the leader waits before forcing, so that more records can be
+   *        collected into one fsync. 0 to force immediately.
+   * @throws IOException
+   *         On IO error
+   */
+  void syncUpTo (final long nEndPos, final long nGroupCommitDelayMillis) throws IOException
+  {
+    if (m_nSyncedPos >= nEndPos)
+      return;
+
+    m_aSyncLock.lock ();
+    try
+    {
+      // Another leader may have synced in the meantime
+      if (m_nSyncedPos >= nEndPos)
+        return;
+
+      if (nGroupCommitDelayMillis > 0)
+      {
+        try
+        {
+          Thread.sleep (nGroupCommitDelayMillis);
+        }
+        catch (final InterruptedException ex)
+        {
+          Thread.currentThread ().interrupt ();
+        }
+      }
+
+      final long nTargetPos;
+      synchronized (this)
+      {
+        if (m_bClosed)
+        {
+          // Closing forces the channel
+          return;
+        }
+        nTargetPos = m_nWritePos;
+      }
+
+      m_aChannel.force (false);
+      m_nSyncedPos = nTargetPos;
+    }
+    finally
+    {
+      m_aSyncLock.unlock ();
+    }
+  }
+
+  void close () throws IOException
+  {
+    m_aSyncLock.lock ();
+    try
+    {
+      synchronized (this)
+      {
+        if (m_bClosed)
+          return;
+        m_bClosed = true;
+        try
+        {
+          m_aChannel.force (false);
+          m_nSyncedPos = m_nWritePos;
+        }
+        finally
+        {
+          m_aChannel.close ();
+        }
+      }
+    }
+    finally
+    {
+      m_aSyncLock.unlock ();
+    }
+  }
+
+  /**
+   * Read all valid records of the provided journal file. Reading stops at the first incomplete or
+   * corrupted record, as that can only be the result of a crash while writing.
+   *
+   * @param aFile
+   *        The journal file to read. May not be <code>null</code>.
+   * @param aConsumer
+   *        The consumer for each item read. May not be <code>null</code>.
+   * @return The number of items read.
+   * @throws IOException
+   *         On IO error
+   */
+  static long replay (@NonNull final File aFile, @NonNull final Consumer <? super PeppolReportingItem> aConsumer) throws IOException
+  {
+    long nCount = 0;
+    try (final FileChannel aChannel = FileChannel.open (aFile.toPath (), StandardOpenOption.READ))
+    {
+      final long nSize = aChannel.size ();
+      if (nSize > Integer.MAX_VALUE)
+        throw new IOException ("Journal files larger than 2GB are not supported");
+      final ByteBuffer aBB = aChannel.map (FileChannel.MapMode.READ_ONLY, 0, nSize);
+      final CRC32 aCRC = new CRC32 ();
+      while (aBB.remaining () >= RECORD_HEADER_LENGTH)
+      {
+        final int nPos = aBB.position ();
+        final int nLength = aBB.getInt (nPos);
+        if (nLength <= 0 || nLength > MAX_PAYLOAD_LENGTH || nLength > aBB.remaining () - RECORD_HEADER_LENGTH)
+          break;
+        final ByteBuffer aPayload = aBB.duplicate ();
+        aPayload.position (nPos + RECORD_HEADER_LENGTH).limit (nPos + RECORD_HEADER_LENGTH + nLength);
+        aCRC.reset ();
+        aCRC.update (aPayload.duplicate ());
+        if ((int) aCRC.getValue () != aBB.getInt (nPos + 4))
+          break;
+        aConsumer.accept (PeppolReportingItemCodec.decode (aPayload, null));
+        aBB.position (nPos + RECORD_HEADER_LENGTH + nLength);
+        nCount++;
+      }
+      if (aBB.hasRemaining ())
+        LOGGER.warn ("Ignoring " +
+                     aBB.remaining () +
+                     " bytes at the end of journal '" +
+                     aFile.getAbsolutePath () +
+                     "' that do not contain valid records");
+    }
+    return nCount;
+  }
+
+  @NonNull
+  File getFile ()
+  {
+    return m_aFile;
+  }
+}
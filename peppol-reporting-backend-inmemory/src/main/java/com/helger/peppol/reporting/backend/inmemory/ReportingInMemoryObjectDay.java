@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import java.util.Iterator;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * Implementation of {@link IReportingInMemoryDay} that keeps the {@link PeppolReportingItem}
+ * objects as they are.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@ThreadSafe
+final class ReportingInMemoryObjectDay implements IReportingInMemoryDay
+{
+  // Item object, OffsetDateTime and slot reference; the strings are mostly
+  // shared with other items
+  private static final int ESTIMATED_BYTES_PER_ITEM = 320;
+
+  private final ReportingInMemoryChunkedList <PeppolReportingItem> m_aItems = new ReportingInMemoryChunkedList <> ();
+
+  public void add (@NonNull final PeppolReportingItem aItem)
+  {
+    m_aItems.add (aItem);
+  }
+
+  @Nonnegative
+  public int size ()
+  {
+    return m_aItems.size ();
+  }
+
+  @NonNull
+  public Iterator <PeppolReportingItem> iterator (@Nonnegative final int nSnapshotSize)
+  {
+    return m_aItems.iterator (nSnapshotSize);
+  }
+
+  @Override
+  @NonNull
+  public Iterator <PeppolReportingItem> iterator (@Nonnegative final int nStartIndex,
+                                                  @Nonnegative final int nSnapshotSize)
+  {
+    return m_aItems.iterator (nStartIndex, nSnapshotSize);
+  }
+
+  @Nonnegative
+  public int getEstimatedBytesPerItem ()
+  {
+    return ESTIMATED_BYTES_PER_ITEM;
+  }
+}
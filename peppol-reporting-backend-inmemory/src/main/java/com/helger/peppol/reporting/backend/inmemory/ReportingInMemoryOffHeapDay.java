@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.GuardedBy;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.concurrent.SimpleLock;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.api.codec.PeppolReportingItemCodec;
+
+/**
+ * Implementation of {@link IReportingInMemoryDay} that keeps the encoded items in direct
+ * {@link ByteBuffer} arenas outside of the Java heap. Only the list of arenas and a few counters
+ * are kept on heap, so the stored items do not add to the work of the garbage collector. Appends
+ * are serialized, while readers never block: an item becomes visible by increasing the published
+ * count after it was completely written.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@ThreadSafe
+final class ReportingInMemoryOffHeapDay implements IReportingInMemoryDay
+{
+  static final int FIRST_ARENA_SIZE = 64 * 1024;
+  static final int MAX_ARENA_SIZE = 16 * 1024 * 1024;
+
+  private static final class Arena
+  {
+    private final ByteBuffer m_aBuffer;
+    // The end of the last record, once no more records are appended. -1 while
+    // the arena is the current one.
+    private volatile int m_nSealedEnd = -1;
+
+    Arena (final int nCapacity)
+    {
+      m_aBuffer = ByteBuffer.allocateDirect (nCapacity);
+    }
+  }
+
+  private final SimpleLock m_aWriteLock = new SimpleLock ();
+  // Only appended by writers, read lock-free
+  private final List <Arena> m_aArenas = new CopyOnWriteArrayList <> ();
+  @GuardedBy ("m_aWriteLock")
+  private int m_nWritePos;
+  private volatile int m_nPublished;
+  private volatile long m_nAllocatedBytes;
+  private volatile boolean m_bReleased;
+
+  @GuardedBy ("m_aWriteLock")
+  @NonNull
+  private Arena _getArenaFor (final int nLength)
+  {
+    final int nArenas = m_aArenas.size ();
+    if (nArenas > 0)
+    {
+      final Arena aCur = m_aArenas.get (nArenas - 1);
+      if (m_nWritePos + nLength <= aCur.m_aBuffer.capacity ())
+        return aCur;
+      aCur.m_nSealedEnd = m_nWritePos;
+    }
+
+    // Arenas grow exponentially, but a record always fits
+    final int nSize = nArenas == 0 ? FIRST_ARENA_SIZE
+                                   : Math.min (m_aArenas.get (nArenas - 1).m_aBuffer.capacity () * 2, MAX_ARENA_SIZE);
+    final Arena aNew = new Arena (Math.max (nSize, nLength));
+    m_aArenas.add (aNew);
+    m_nWritePos = 0;
+    m_nAllocatedBytes += aNew.m_aBuffer.capacity ();
+    return aNew;
+  }
+
+  public void add (@NonNull final PeppolReportingItem aItem)
+  {
+    ValueEnforcer.notNull (aItem, "Item");
+
+    // Encode outside of the lock
+    final byte [] aRecord = PeppolReportingItemCodec.encode (aItem);
+
+    m_aWriteLock.lock ();
+    try
+    {
+      if (m_bReleased)
+        throw new IllegalStateException ("The off-heap day was already released");
+      final Arena aArena = _getArenaFor (aRecord.length);
+      // Absolute put, so that the buffer position is never shared with readers
+      aArena.m_aBuffer.put (m_nWritePos, aRecord);
+      m_nWritePos += aRecord.length;
+      m_nPublished++;
+    }
+    finally
+    {
+      m_aWriteLock.unlock ();
+    }
+  }
+
+  @Nonnegative
+  public int size ()
+  {
+    return m_nPublished;
+  }
+
+  /**
+   * @return The number of off-heap bytes allocated by this day.
+   */
+  @Nonnegative
+  long getAllocatedBytes ()
+  {
+    return m_nAllocatedBytes;
+  }
+
+  @NonNull
+  public Iterator <PeppolReportingItem> iterator (@Nonnegative final int nSnapshotSize)
+  {
+    // All published records are contained in the arenas existing now
+    final List <Arena> aArenas = List.copyOf (m_aArenas);
+    if (m_bReleased)
+      return Collections.emptyIterator ();
+    ValueEnforcer.isBetweenInclusive (nSnapshotSize, "SnapshotSize", 0, size ());
+
+    return new Iterator <> ()
+    {
+      private int m_nIndex = 0;
+      private int m_nArenaIndex = -1;
+      private Arena m_aArena;
+      private ByteBuffer m_aReadBuffer;
+
+      public boolean hasNext ()
+      {
+        return m_nIndex < nSnapshotSize;
+      }
+
+      @NonNull
+      public PeppolReportingItem next ()
+      {
+        if (m_nIndex >= nSnapshotSize)
+          throw new NoSuchElementException ();
+        // An arena that is not yet sealed contains all remaining published
+        // records
+        while (m_aArena == null || (m_aArena.m_nSealedEnd >= 0 && m_aReadBuffer.position () >= m_aArena.m_nSealedEnd))
+        {
+          m_nArenaIndex++;
+          m_aArena = aArenas.get (m_nArenaIndex);
+          m_aReadBuffer = m_aArena.m_aBuffer.duplicate ();
+        }
+        m_nIndex++;
+        return PeppolReportingItemCodec.decode (m_aReadBuffer, null);
+      }
+    };
+  }
+
+  @Nonnegative
+  public int getEstimatedBytesPerItem ()
+  {
+    // The records are not on the heap
+    return 0;
+  }
+
+  public void release ()
+  {
+    // The direct buffers are not freed here, as running iterators may still
+    // read them. Their native memory is freed by the cleaner, after the
+    // garbage collector found them unreachable.
+    m_aWriteLock.lock ();
+    try
+    {
+      m_bReleased = true;
+      m_aArenas.clear ();
+      m_nAllocatedBytes = 0;
+    }
+    finally
+    {
+      m_aWriteLock.unlock ();
+    }
+  }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.GuardedBy;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.concurrent.SimpleLock;
+import com.helger.base.concurrent.SimpleReadWriteLock;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * Persistence of the in-memory backend based on a periodic snapshot and an append-only journal.
+ * Every stored item is first appended to the current journal. Taking a snapshot switches to a new
+ * journal, writes all items stored so far and afterwards deletes all journals covered by it. On
+ * startup the snapshot is loaded and all newer journals are replayed. If fsync is enabled, storing
+ * only returns after the journal record is durable, otherwise it may be lost if the operating
+ * system crashes (but not if only the JVM crashes).
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@ThreadSafe
+final class ReportingInMemoryPersistence
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (ReportingInMemoryPersistence.class);
+
+  private final File m_aDirectory;
+  private final NavigableMap <LocalDate, IReportingInMemoryDay> m_aMap;
+  private final Function <LocalDate, ? extends IReportingInMemoryDay> m_aDayFactory;
+  private final boolean m_bFsyncEnabled;
+  private final long m_nGroupCommitDelayMillis;
+  // Stores hold the read lock, switching the journal requires the write lock
+  private final SimpleReadWriteLock m_aJournalLock = new SimpleReadWriteLock ();
+  private final SimpleLock m_aSnapshotLock = new SimpleLock ();
+  @GuardedBy ("m_aJournalLock")
+  private long m_nJournalSeq;
+  @GuardedBy ("m_aJournalLock")
+  private ReportingInMemoryJournal m_aJournal;
+  private ScheduledExecutorService m_aScheduler;
+
+  ReportingInMemoryPersistence (@NonNull final File aDirectory,
+                                @NonNull final NavigableMap <LocalDate, IReportingInMemoryDay> aMap,
+                                @NonNull final Function <LocalDate, ? extends IReportingInMemoryDay> aDayFactory,
+                                final boolean bFsyncEnabled,
+                                final long nGroupCommitDelayMillis)
+  {
+    m_aDirectory = aDirectory;
+    m_aMap = aMap;
+    m_aDayFactory = aDayFactory;
+    m_bFsyncEnabled = bFsyncEnabled;
+    m_nGroupCommitDelayMillis = Math.max (0, nGroupCommitDelayMillis);
+  }
+
+  @NonNull
+  private IReportingInMemoryDay _getDay (@NonNull final LocalDate aDay)
+  {
+    return m_aMap.computeIfAbsent (aDay, m_aDayFactory);
+  }
+
+  /**
+   * Restore the content of the snapshot and all newer journals into the map and open a new
+   * journal.
+   *
+   * @param nSnapshotIntervalSeconds
+   *        The interval in seconds in which snapshots should be taken. Values &le; 0 mean that
+   *        snapshots are only taken on shutdown.
+   * @throws IOException
+   *         On IO error
+   */
+  void restore (final long nSnapshotIntervalSeconds) throws IOException
+  {
+    final long nStartNanos = System.nanoTime ();
+
+    final long nCoveredSeq = ReportingInMemorySnapshot.read (m_aDirectory, m_aDayFactory, m_aMap::put);
+    long nSnapshotItems = 0;
+    for (final IReportingInMemoryDay aDay : m_aMap.values ())
+      nSnapshotItems += aDay.size ();
+
+    // Find all journals
+    final TreeMap <Long, File> aJournals = new TreeMap <> ();
+    final File [] aFiles = m_aDirectory.listFiles ();
+    if (aFiles == null)
+      throw new IOException ("Failed to list the directory '" + m_aDirectory.getAbsolutePath () + "'");
+    for (final File aFile : aFiles)
+    {
+      final long nSeq = ReportingInMemoryJournal.getSeqFromFilename (aFile.getName ());
+      if (nSeq >= 0)
+        aJournals.put (Long.valueOf (nSeq), aFile);
+    }
+
+    long nJournalItems = 0;
+    long nMaxSeq = nCoveredSeq;
+    for (final Map.Entry <Long, File> aEntry : aJournals.entrySet ())
+    {
+      final long nSeq = aEntry.getKey ().longValue ();
+      if (nSeq <= nCoveredSeq)
+      {
+        // Left over from a crash after writing the snapshot
+        _deleteJournal (aEntry.getValue ());
+      }
+      else
+      {
+        nJournalItems += ReportingInMemoryJournal.replay (aEntry.getValue (),
+                                                          x -> _getDay (x.getExchangeDTUTC ().toLocalDate ()).add (x));
+        nMaxSeq = nSeq;
+      }
+    }
+
+    final long nNewSeq = nMaxSeq + 1;
+    m_aJournalLock.writeLockedThrowing ( () -> {
+      m_nJournalSeq = nNewSeq;
+      m_aJournal = ReportingInMemoryJournal.open (m_aDirectory, m_nJournalSeq);
+    });
+
+    LOGGER.info ("Restored " +
+                 nSnapshotItems +
+                 " Peppol Reporting Items from the snapshot and " +
+                 nJournalItems +
+                 " from " +
+                 aJournals.tailMap (Long.valueOf (nCoveredSeq), false).size () +
+                 " journal(s) in " +
+                 (System.nanoTime () - nStartNanos) / 1_000_000 +
+                 " ms");
+
+    if (nSnapshotIntervalSeconds > 0)
+    {
+      m_aScheduler = Executors.newSingleThreadScheduledExecutor (r -> {
+        final Thread t = new Thread (r, "peppol-reporting-inmemory-snapshot");
+        t.setDaemon (true);
+        return t;
+      });
+      m_aScheduler.scheduleWithFixedDelay ( () -> {
+        try
+        {
+          snapshot ();
+        }
+        catch (final IOException | RuntimeException ex)
+        {
+          LOGGER.error ("Failed to write the Peppol Reporting in-memory snapshot", ex);
+        }
+      }, nSnapshotIntervalSeconds, nSnapshotIntervalSeconds, TimeUnit.SECONDS);
+    }
+  }
+
+  private static void _deleteJournal (@NonNull final File aFile)
+  {
+    if (!aFile.delete ())
+      LOGGER.warn ("Failed to delete the obsolete journal '" + aFile.getAbsolutePath () + "'");
+  }
+
+  /**
+   * Journal the provided item and add it to memory afterwards. If fsync is enabled, this method
+   * returns only after the journal record is durable.
+   *
+   * @param aItem
+   *        The item to store. May not be <code>null</code>.
+   * @throws IOException
+   *         If journaling failed. In that case the item is not added to memory.
+   */
+  void store (@NonNull final PeppolReportingItem aItem) throws IOException
+  {
+    final ReportingInMemoryJournal aJournal;
+    final long nEndPos;
+    // Adding to memory must happen inside the lock, so that a snapshot contains
+    // exactly the items of the journals it replaces
+    m_aJournalLock.readLock ().lock ();
+    try
+    {
+      aJournal = m_aJournal;
+      if (aJournal == null)
+        throw new IllegalStateException ("The in-memory persistence is already closed");
+      nEndPos = aJournal.append (aItem);
+      PeppolReportingBackendInMemorySPI.addToDay (m_aMap, m_aDayFactory, aItem);
+    }
+    finally
+    {
+      m_aJournalLock.readLock ().unlock ();
+    }
+
+    // Outside of the lock, so that taking a snapshot is not delayed. If the journal was switched in
+    // the meantime, closing it already forced it.
+    if (m_bFsyncEnabled)
+      aJournal.syncUpTo (nEndPos, m_nGroupCommitDelayMillis);
+  }
+
+  /**
+   * Write a new snapshot of everything stored so far and delete the journals that are no longer
+   * needed.
+   *
+   * @throws IOException
+   *         On IO error
+   */
+  void snapshot () throws IOException
+  {
+    m_aSnapshotLock.lock ();
+    try
+    {
+      final long nStartNanos = System.nanoTime ();
+
+      // Switch the journal and capture the item counts atomically
+      final Map <LocalDate, Integer> aSizes = new TreeMap <> ();
+      final long nCoveredSeq;
+      final ReportingInMemoryJournal aOldJournal;
+      m_aJournalLock.writeLock ().lock ();
+      try
+      {
+        final ReportingInMemoryJournal aNewJournal = ReportingInMemoryJournal.open (m_aDirectory, m_nJournalSeq + 1);
+        nCoveredSeq = m_nJournalSeq;
+        aOldJournal = m_aJournal;
+        m_nJournalSeq++;
+        m_aJournal = aNewJournal;
+        for (final Map.Entry <LocalDate, IReportingInMemoryDay> aEntry : m_aMap.entrySet ())
+        {
+          final int nSize = aEntry.getValue ().size ();
+          if (nSize > 0)
+            aSizes.put (aEntry.getKey (), Integer.valueOf (nSize));
+        }
+      }
+      finally
+      {
+        m_aJournalLock.writeLock ().unlock ();
+      }
+      aOldJournal.close ();
+
+      ReportingInMemorySnapshot.write (m_aDirectory, nCoveredSeq, m_aMap, aSizes);
+
+      // Delete all covered journals
+      final File [] aFiles = m_aDirectory.listFiles ();
+      if (aFiles != null)
+        for (final File aFile : aFiles)
+        {
+          final long nSeq = ReportingInMemoryJournal.getSeqFromFilename (aFile.getName ());
+          if (nSeq >= 0 && nSeq <= nCoveredSeq)
+            _deleteJournal (aFile);
+        }
+
+      if (LOGGER.isDebugEnabled ())
+        LOGGER.debug ("Wrote Peppol Reporting in-memory snapshot of " +
+                      aSizes.size () +
+                      " day(s) in " +
+                      (System.nanoTime () - nStartNanos) / 1_000_000 +
+                      " ms");
+    }
+    finally
+    {
+      m_aSnapshotLock.unlock ();
+    }
+  }
+
+  /**
+   * Remove all days before the provided date and write a new snapshot, so that the removed days are
+   * not restored. Holding the snapshot lock makes sure that no day is released while a snapshot
+   * encodes it.
+   *
+   * @param aDateExcl
+   *        The first day to keep. May not be <code>null</code>.
+   * @return The number of removed days. Always &ge; 0.
+   * @throws IOException
+   *         If writing the snapshot failed
+   */
+  @Nonnegative
+  int removeDaysBefore (@NonNull final LocalDate aDateExcl) throws IOException
+  {
+    m_aSnapshotLock.lock ();
+    try
+    {
+      final int nRemoved = PeppolReportingBackendInMemorySPI.removeDays (m_aMap, aDateExcl);
+      if (nRemoved > 0)
+        snapshot ();
+      return nRemoved;
+    }
+    finally
+    {
+      m_aSnapshotLock.unlock ();
+    }
+  }
+
+  /**
+   * Stop the periodic snapshots, write a final snapshot and close the journal.
+   */
+  void close ()
+  {
+    if (m_aScheduler != null)
+    {
+      m_aScheduler.shutdown ();
+      try
+      {
+        m_aScheduler.awaitTermination (1, TimeUnit.MINUTES);
+      }
+      catch (final InterruptedException ex)
+      {
+        Thread.currentThread ().interrupt ();
+      }
+      m_aScheduler = null;
+    }
+
+    try
+    {
+      snapshot ();
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.error ("Failed to write the final Peppol Reporting in-memory snapshot - the journal is kept", ex);
+    }
+
+    final ReportingInMemoryJournal aJournal = m_aJournalLock.writeLockedGet ( () -> {
+      final ReportingInMemoryJournal ret = m_aJournal;
+      m_aJournal = null;
+      return ret;
+    });
+    if (aJournal != null)
+      try
+      {
+        aJournal.close ();
+      }
+      catch (final IOException ex)
+      {
+        LOGGER.error ("Failed to close the Peppol Reporting in-memory journal", ex);
+      }
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * Reading and writing of the snapshot file of the in-memory backend. The snapshot consists of a
+ * header, a table of contents with one entry per day and one independent block per day, encoded
+ * with {@link ReportingInMemoryDayCodec}. The blocks are encoded and written one after the other,
+ * so that only one encoded day is on the heap at a time. Because the blocks are independent, they
+ * are decoded in parallel.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@Immutable
+final class ReportingInMemorySnapshot
+{
+  static final String FILENAME = "snapshot.bin";
+
+  private static final int FILE_MAGIC = 0x5052494d;
+  private static final int FILE_VERSION = 1;
+  // magic, version, covered journal sequence, day count
+  private static final int FILE_HEADER_LENGTH = 4 + 4 + 8 + 4;
+  // epoch day, item count, offset, length, CRC
+  private static final int TOC_ENTRY_LENGTH = 8 + 4 + 8 + 4 + 4;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (ReportingInMemorySnapshot.class);
+
+  private ReportingInMemorySnapshot ()
+  {}
+
+  /**
+   * Write a new snapshot. The file is first written to a temporary file and then atomically moved
+   * to its final name, so that a crash never leaves a broken snapshot. Afterwards the directory is
+   * forced, so that the move itself is durable as well. The table of contents is written after
+   * all blocks, as the block lengths are only known after encoding.
+   *
+   * @param aDirectory
+   *        The persistence directory. May not be <code>null</code>.
+   * @param nCoveredJournalSeq
+   *        The sequence number of the last journal whose content is fully contained in this
+   *        snapshot.
+   * @param aDays
+   *        The days to write. May not be <code>null</code>.
+   * @param aSizes
+   *        The number of items to write per day. Contains the same keys as aDays.
+   * @throws IOException
+   *         On IO error
+   */
+  static void write (@NonNull final File aDirectory,
+                     final long nCoveredJournalSeq,
+                     @NonNull final Map <LocalDate, IReportingInMemoryDay> aDays,
+                     @NonNull final Map <LocalDate, Integer> aSizes) throws IOException
+  {
+    final int nDays = aSizes.size ();
+    final ByteBuffer aTOC = ByteBuffer.allocate (nDays * TOC_ENTRY_LENGTH);
+    final File aTmpFile = new File (aDirectory, FILENAME + ".tmp");
+    try (final FileChannel aChannel = FileChannel.open (aTmpFile.toPath (),
+                                                        StandardOpenOption.CREATE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING,
+                                                        StandardOpenOption.WRITE))
+    {
+      final ByteBuffer aHeader = ByteBuffer.allocate (FILE_HEADER_LENGTH);
+      aHeader.putInt (FILE_MAGIC).putInt (FILE_VERSION).putLong (nCoveredJournalSeq).putInt (nDays).flip ();
+      _writeFully (aChannel, aHeader, 0);
+
+      // Encode and write one day after the other
+      long nOffset = FILE_HEADER_LENGTH + (long) nDays * TOC_ENTRY_LENGTH;
+      for (final Map.Entry <LocalDate, Integer> aEntry : aSizes.entrySet ())
+      {
+        final int nCount = aEntry.getValue ().intValue ();
+        final byte [] aBytes = ReportingInMemoryDayCodec.encode (aDays.get (aEntry.getKey ()).iterator (nCount),
+                                                                 nCount);
+        final CRC32 aCRC = new CRC32 ();
+        aCRC.update (aBytes);
+        aTOC.putLong (aEntry.getKey ().toEpochDay ())
+            .putInt (nCount)
+            .putLong (nOffset)
+            .putInt (aBytes.length)
+            .putInt ((int) aCRC.getValue ());
+        _writeFully (aChannel, ByteBuffer.wrap (aBytes), nOffset);
+        nOffset += aBytes.length;
+      }
+      aTOC.flip ();
+      _writeFully (aChannel, aTOC, FILE_HEADER_LENGTH);
+      aChannel.force (true);
+    }
+    Files.move (aTmpFile.toPath (),
+                new File (aDirectory, FILENAME).toPath (),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    _forceDirectory (aDirectory);
+  }
+
+  private static void _writeFully (@NonNull final FileChannel aChannel,
+                                   @NonNull final ByteBuffer aBB,
+                                   final long nPosition) throws IOException
+  {
+    long nPos = nPosition;
+    while (aBB.hasRemaining ())
+      nPos += aChannel.write (aBB, nPos);
+  }
+
+  private static void _forceDirectory (@NonNull final File aDirectory) throws IOException
+  {
+    final FileChannel aChannel;
+    try
+    {
+      aChannel = FileChannel.open (aDirectory.toPath (), StandardOpenOption.READ);
+    }
+    catch (final IOException ex)
+    {
+      // Directories cannot be opened on all platforms (e.g. Windows)
+      if (LOGGER.isDebugEnabled ())
+        LOGGER.debug ("Failed to open directory '" + aDirectory.getAbsolutePath () + "' for forcing", ex);
+      return;
+    }
+    try (aChannel)
+    {
+      aChannel.force (true);
+    }
+  }
+
+  /**
+   * Read an existing snapshot. All days are decoded in parallel.
+   *
+   * @param aDirectory
+   *        The persistence directory. May not be <code>null</code>.
+   * @param aDayFactory
+   *        The factory for the restored days, invoked with the day. May not be <code>null</code>.
+   * @param aConsumer
+   *        The consumer that receives each restored day. Is invoked from multiple threads. May not
+   *        be <code>null</code>.
+   * @return The sequence number of the last journal covered by the snapshot or <code>-1</code> if
+   *         no snapshot exists.
+   * @throws IOException
+   *         On IO error or if the snapshot is corrupt
+   */
+  static long read (@NonNull final File aDirectory,
+                    @NonNull final Function <LocalDate, ? extends IReportingInMemoryDay> aDayFactory,
+                    @NonNull final BiConsumer <LocalDate, IReportingInMemoryDay> aConsumer) throws IOException
+  {
+    final File aFile = new File (aDirectory, FILENAME);
+    if (!aFile.isFile ())
+      return -1;
+
+    try (final FileChannel aChannel = FileChannel.open (aFile.toPath (), StandardOpenOption.READ))
+    {
+      final ByteBuffer aHeader = aChannel.map (FileChannel.MapMode.READ_ONLY, 0, FILE_HEADER_LENGTH);
+      if (aHeader.getInt () != FILE_MAGIC || aHeader.getInt () != FILE_VERSION)
+        throw new IOException ("The file '" + aFile.getAbsolutePath () + "' is not a valid snapshot file");
+      final long nCoveredJournalSeq = aHeader.getLong ();
+      final int nDays = aHeader.getInt ();
+      final ByteBuffer aTOC = aChannel.map (FileChannel.MapMode.READ_ONLY,
+                                            FILE_HEADER_LENGTH,
+                                            (long) nDays * TOC_ENTRY_LENGTH);
+
+      final ICommonsList <Runnable> aTasks = new CommonsArrayList <> (nDays);
+      for (int i = 0; i < nDays; ++i)
+      {
+        final LocalDate aDay = LocalDate.ofEpochDay (aTOC.getLong ());
+        final int nCount = aTOC.getInt ();
+        final long nOffset = aTOC.getLong ();
+        final int nLength = aTOC.getInt ();
+        final int nCRC = aTOC.getInt ();
+        final ByteBuffer aBlock = aChannel.map (FileChannel.MapMode.READ_ONLY, nOffset, nLength);
+        aTasks.add ( () -> {
+          final CRC32 aCRC = new CRC32 ();
+          aCRC.update (aBlock.duplicate ());
+          if ((int) aCRC.getValue () != nCRC)
+            throw new IllegalStateException ("The snapshot block of " + aDay + " is corrupt");
+          final IReportingInMemoryDay aDayItems = aDayFactory.apply (aDay);
+          ReportingInMemoryDayCodec.decode (aBlock, nCount).forEachRemaining (aDayItems::add);
+          aConsumer.accept (aDay, aDayItems);
+        });
+      }
+      try
+      {
+        aTasks.parallelStream ().forEach (Runnable::run);
+      }
+      catch (final IllegalStateException | IllegalArgumentException | BufferUnderflowException ex)
+      {
+        throw new IOException ("Failed to read snapshot '" + aFile.getAbsolutePath () + "'", ex);
+      }
+      return nCoveredJournalSeq;
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * Enforces the heap budget of the in-memory backend. It tracks the estimated heap usage of all
+ * resident days and spills the least recently accessed days to local files when the budget is
+ * exceeded. The most recently accessed day always stays resident.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@ThreadSafe
+final class ReportingInMemorySpillManager
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (ReportingInMemorySpillManager.class);
+  private static final String FILENAME_PREFIX = "spill-";
+  private static final String FILENAME_SUFFIX = ".bin";
+
+  private final File m_aDirectory;
+  private final long m_nMaxBytes;
+  private final boolean m_bDeleteDirectory;
+  private final AtomicLong m_aResidentBytes = new AtomicLong (0);
+  private final AtomicLong m_aClock = new AtomicLong (0);
+  private final Set <ReportingInMemorySpillableDay> m_aDays = ConcurrentHashMap.newKeySet ();
+  // Only one thread spills at a time, all others continue
+  private final ReentrantLock m_aSpillLock = new ReentrantLock ();
+
+  /**
+   * @param aDirectory
+   *        The existing directory for the spill files. May not be <code>null</code>.
+   * @param nMaxBytes
+   *        The heap budget in bytes. Must be &gt; 0.
+   * @param bDeleteDirectory
+   *        <code>true</code> to delete the directory itself on {@link #close()}.
+   */
+  ReportingInMemorySpillManager (@NonNull final File aDirectory,
+                                 @Nonnegative final long nMaxBytes,
+                                 final boolean bDeleteDirectory)
+  {
+    m_aDirectory = aDirectory;
+    m_nMaxBytes = nMaxBytes;
+    m_bDeleteDirectory = bDeleteDirectory;
+    // Left overs from a previous run are never valid
+    _deleteSpillFiles ();
+  }
+
+  /**
+   * @return The heap budget in bytes. Always &gt; 0.
+   */
+  @Nonnegative
+  long getMaxBytes ()
+  {
+    return m_nMaxBytes;
+  }
+
+  @NonNull
+  File getSpillFile (@NonNull final LocalDate aDay)
+  {
+    return new File (m_aDirectory, FILENAME_PREFIX + aDay.format (DateTimeFormatter.BASIC_ISO_DATE) + FILENAME_SUFFIX);
+  }
+
+  /**
+   * @return A new, strictly increasing access tick.
+   */
+  long tick ()
+  {
+    return m_aClock.incrementAndGet ();
+  }
+
+  void register (@NonNull final ReportingInMemorySpillableDay aDay)
+  {
+    m_aDays.add (aDay);
+  }
+
+  void unregister (@NonNull final ReportingInMemorySpillableDay aDay, final long nFreedBytes)
+  {
+    m_aDays.remove (aDay);
+    m_aResidentBytes.addAndGet (-nFreedBytes);
+  }
+
+  /**
+   * @return The estimated heap bytes used by all resident days.
+   */
+  long getResidentBytes ()
+  {
+    return m_aResidentBytes.get ();
+  }
+
+  /**
+   * Account additional resident bytes and spill days if the budget is exceeded.
+   *
+   * @param nBytes
+   *        The number of bytes that became resident.
+   */
+  void onResident (final long nBytes)
+  {
+    if (m_aResidentBytes.addAndGet (nBytes) > m_nMaxBytes)
+      _spill ();
+  }
+
+  private void _spill ()
+  {
+    if (!m_aSpillLock.tryLock ())
+      return;
+    try
+    {
+      final ICommonsList <ReportingInMemorySpillableDay> aResident = new CommonsArrayList <> ();
+      for (final ReportingInMemorySpillableDay aDay : m_aDays)
+        if (aDay.isResident ())
+          aResident.add (aDay);
+      aResident.sort (Comparator.comparingLong (ReportingInMemorySpillableDay::getLastAccess));
+
+      final long nTargetBytes = m_nMaxBytes / 10 * 9;
+      int nSpilled = 0;
+      // Never spill the most recently accessed day
+      for (int i = 0; i < aResident.size () - 1 && m_aResidentBytes.get () > nTargetBytes; ++i)
+      {
+        final long nFreed = aResident.get (i).spill ();
+        if (nFreed > 0)
+        {
+          m_aResidentBytes.addAndGet (-nFreed);
+          nSpilled++;
+        }
+      }
+
+      if (nSpilled > 0 && LOGGER.isDebugEnabled ())
+        LOGGER.debug ("Spilled " + nSpilled + " day(s) of Peppol Reporting Items to '" + m_aDirectory + "'");
+    }
+    finally
+    {
+      m_aSpillLock.unlock ();
+    }
+  }
+
+  private void _deleteSpillFiles ()
+  {
+    final File [] aFiles = m_aDirectory.listFiles ();
+    if (aFiles != null)
+      for (final File aFile : aFiles)
+      {
+        final String sName = aFile.getName ();
+        if (sName.startsWith (FILENAME_PREFIX) && (sName.endsWith (FILENAME_SUFFIX) || sName.endsWith (".tmp")))
+          if (!aFile.delete ())
+            LOGGER.warn ("Failed to delete the spill file '" + aFile.getAbsolutePath () + "'");
+      }
+  }
+
+  /**
+   * Delete all spill files. Spilled days are no longer readable afterwards.
+   */
+  void close ()
+  {
+    m_aDays.clear ();
+    _deleteSpillFiles ();
+    if (m_bDeleteDirectory && !m_aDirectory.delete ())
+      LOGGER.warn ("Failed to delete the spill directory '" + m_aDirectory.getAbsolutePath () + "'");
+  }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.GuardedBy;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.concurrent.SimpleReadWriteLock;
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.IPeppolReportingItemView;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * Implementation of {@link IReportingInMemoryDay} that wraps another implementation and can move
+ * its content to a local spill file on request of the {@link ReportingInMemorySpillManager}.
+ * Iterating a spilled day reads the spill file without making it resident again, while adding to a
+ * spilled day loads it back into memory first.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@ThreadSafe
+final class ReportingInMemorySpillableDay implements IReportingInMemoryDay
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (ReportingInMemorySpillableDay.class);
+
+  private final LocalDate m_aDay;
+  private final Function <LocalDate, ? extends IReportingInMemoryDay> m_aDelegateFactory;
+  private final ReportingInMemorySpillManager m_aManager;
+  private final int m_nBytesPerItem;
+  // Adds to a resident day hold the read lock, spilling and reloading require
+  // the write lock
+  private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
+  // null if spilled
+  @GuardedBy ("m_aRWLock")
+  private IReportingInMemoryDay m_aResident;
+  @GuardedBy ("m_aRWLock")
+  private int m_nSpilledCount;
+  @GuardedBy ("m_aRWLock")
+  private boolean m_bReleased;
+  private volatile long m_nLastAccess;
+
+  ReportingInMemorySpillableDay (@NonNull final LocalDate aDay,
+                                 @NonNull final Function <LocalDate, ? extends IReportingInMemoryDay> aDelegateFactory,
+                                 @NonNull final ReportingInMemorySpillManager aManager)
+  {
+    m_aDay = aDay;
+    m_aDelegateFactory = aDelegateFactory;
+    m_aManager = aManager;
+    m_aResident = aDelegateFactory.apply (aDay);
+    m_nBytesPerItem = m_aResident.getEstimatedBytesPerItem ();
+    m_nLastAccess = aManager.tick ();
+    aManager.register (this);
+  }
+
+  long getLastAccess ()
+  {
+    return m_nLastAccess;
+  }
+
+  boolean isResident ()
+  {
+    m_aRWLock.readLock ().lock ();
+    try
+    {
+      return m_aResident != null;
+    }
+    finally
+    {
+      m_aRWLock.readLock ().unlock ();
+    }
+  }
+
+  @GuardedBy ("m_aRWLock")
+  private long _reload ()
+  {
+    final File aFile = m_aManager.getSpillFile (m_aDay);
+    final IReportingInMemoryDay aResident = m_aDelegateFactory.apply (m_aDay);
+    try
+    {
+      ReportingInMemoryDayCodec.decode (ByteBuffer.wrap (Files.readAllBytes (aFile.toPath ())), m_nSpilledCount)
+                               .forEachRemaining (aResident::add);
+    }
+    catch (final IOException ex)
+    {
+      throw new UncheckedIOException ("Failed to read the spill file '" + aFile.getAbsolutePath () + "'", ex);
+    }
+    m_aResident = aResident;
+    if (!aFile.delete ())
+      LOGGER.warn ("Failed to delete the spill file '" + aFile.getAbsolutePath () + "'");
+    final long ret = (long) m_nSpilledCount * m_nBytesPerItem;
+    m_nSpilledCount = 0;
+    return ret;
+  }
+
+  public void add (@NonNull final PeppolReportingItem aItem)
+  {
+    m_nLastAccess = m_aManager.tick ();
+
+    boolean bAdded = false;
+    long nReloadedBytes = 0;
+    m_aRWLock.readLock ().lock ();
+    try
+    {
+      if (m_aResident != null)
+      {
+        m_aResident.add (aItem);
+        bAdded = true;
+      }
+    }
+    finally
+    {
+      m_aRWLock.readLock ().unlock ();
+    }
+
+    if (!bAdded)
+    {
+      m_aRWLock.writeLock ().lock ();
+      try
+      {
+        if (m_bReleased)
+          throw new IllegalStateException ("The day " + m_aDay + " was already released");
+        if (m_aResident == null)
+          nReloadedBytes = _reload ();
+        m_aResident.add (aItem);
+      }
+      finally
+      {
+        m_aRWLock.writeLock ().unlock ();
+      }
+    }
+
+    // Account outside of the lock, as it may spill other days
+    m_aManager.onResident (nReloadedBytes + m_nBytesPerItem);
+  }
+
+  @Nonnegative
+  public int size ()
+  {
+    m_aRWLock.readLock ().lock ();
+    try
+    {
+      return m_aResident != null ? m_aResident.size () : m_nSpilledCount;
+    }
+    finally
+    {
+      m_aRWLock.readLock ().unlock ();
+    }
+  }
+
+  @NonNull
+  public Iterator <PeppolReportingItem> iterator (@Nonnegative final int nSnapshotSize)
+  {
+    m_nLastAccess = m_aManager.tick ();
+
+    m_aRWLock.readLock ().lock ();
+    try
+    {
+      if (m_aResident != null)
+        return m_aResident.iterator (nSnapshotSize);
+      if (m_bReleased)
+        return Collections.emptyIterator ();
+
+      // Read the spilled items without making the day resident again. The spill
+      // file always contains at least the snapshot size, because items are only
+      // appended.
+      final File aFile = m_aManager.getSpillFile (m_aDay);
+      try
+      {
+        return ReportingInMemoryDayCodec.decode (ByteBuffer.wrap (Files.readAllBytes (aFile.toPath ())), nSnapshotSize);
+      }
+      catch (final IOException ex)
+      {
+        throw new UncheckedIOException ("Failed to read the spill file '" + aFile.getAbsolutePath () + "'", ex);
+      }
+    }
+    finally
+    {
+      m_aRWLock.readLock ().unlock ();
+    }
+  }
+
+  @Override
+  @NonNull
+  public Iterator <PeppolReportingItem> iterator (@Nonnegative final int nStartIndex,
+                                                  @Nonnegative final int nSnapshotSize)
+  {
+    final IReportingInMemoryDay aResident;
+    m_aRWLock.readLock ().lock ();
+    try
+    {
+      aResident = m_aResident;
+    }
+    finally
+    {
+      m_aRWLock.readLock ().unlock ();
+    }
+
+    if (aResident != null)
+    {
+      m_nLastAccess = m_aManager.tick ();
+      return aResident.iterator (nStartIndex, nSnapshotSize);
+    }
+    // Spilled - skip the decoded items
+    return IReportingInMemoryDay.super.iterator (nStartIndex, nSnapshotSize);
+  }
+
+  @Override
+  public void forEachView (@Nonnegative final int nSnapshotSize,
+                           @NonNull final Consumer <? super IPeppolReportingItemView> aConsumer)
+  {
+    final IReportingInMemoryDay aResident;
+    m_aRWLock.readLock ().lock ();
+    try
+    {
+      aResident = m_aResident;
+    }
+    finally
+    {
+      m_aRWLock.readLock ().unlock ();
+    }
+
+    if (aResident != null)
+    {
+      m_nLastAccess = m_aManager.tick ();
+      aResident.forEachView (nSnapshotSize, aConsumer);
+    }
+    else
+    {
+      // Spilled - use the decoded items
+      IReportingInMemoryDay.super.forEachView (nSnapshotSize, aConsumer);
+    }
+  }
+
+  @Override
+  @Nonnegative
+  public int count (@Nonnegative final int nSnapshotSize, @Nullable final EReportingDirection eDirection)
+  {
+    if (eDirection == null)
+      return nSnapshotSize;
+
+    final IReportingInMemoryDay aResident;
+    m_aRWLock.readLock ().lock ();
+    try
+    {
+      aResident = m_aResident;
+    }
+    finally
+    {
+      m_aRWLock.readLock ().unlock ();
+    }
+
+    if (aResident != null)
+    {
+      // Counting does not count as access for the spilling order
+      return aResident.count (nSnapshotSize, eDirection);
+    }
+    // Spilled - use the decoded items
+    return IReportingInMemoryDay.super.count (nSnapshotSize, eDirection);
+  }
+
+  @Nonnegative
+  public int getEstimatedBytesPerItem ()
+  {
+    return m_nBytesPerItem;
+  }
+
+  @Override
+  public void release ()
+  {
+    long nFreed = 0;
+    m_aRWLock.writeLock ().lock ();
+    try
+    {
+      if (m_aResident != null)
+      {
+        nFreed = (long) m_aResident.size () * m_nBytesPerItem;
+        m_aResident.release ();
+        m_aResident = null;
+      }
+      else
+      {
+        final File aFile = m_aManager.getSpillFile (m_aDay);
+        if (aFile.exists () && !aFile.delete ())
+          LOGGER.warn ("Failed to delete the spill file '" + aFile.getAbsolutePath () + "'");
+      }
+      m_nSpilledCount = 0;
+      m_bReleased = true;
+    }
+    finally
+    {
+      m_aRWLock.writeLock ().unlock ();
+    }
+    m_aManager.unregister (this, nFreed);
+  }
+
+  /**
+   * Write all items of this day to the spill file and release them from memory.
+   *
+   * @return The estimated number of heap bytes released. 0 if the day was not resident or writing
+   *         the spill file failed.
+   */
+  long spill ()
+  {
+    m_aRWLock.writeLock ().lock ();
+    try
+    {
+      if (m_aResident == null)
+        return 0;
+
+      final int nCount = m_aResident.size ();
+      final File aFile = m_aManager.getSpillFile (m_aDay);
+      final File aTmpFile = new File (aFile.getParentFile (), aFile.getName () + ".tmp");
+      try
+      {
+        Files.write (aTmpFile.toPath (), ReportingInMemoryDayCodec.encode (m_aResident.iterator (nCount), nCount));
+        Files.move (aTmpFile.toPath (),
+                    aFile.toPath (),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+      }
+      catch (final IOException ex)
+      {
+        LOGGER.error ("Failed to spill the Peppol Reporting Items of " + m_aDay + " to '" + aFile.getAbsolutePath () + "'",
+                      ex);
+        return 0;
+      }
+      m_aResident = null;
+      m_nSpilledCount = nCount;
+      return (long) nCount * m_nBytesPerItem;
+    }
+    finally
+    {
+      m_aRWLock.writeLock ().unlock ();
+    }
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+
+/**
+ * A grow-only dictionary that maps strings to dense int codes and back. Used by the columnar
+ * storage mode of the in-memory backend. Looking up a code is lock-free.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@ThreadSafe
+final class ReportingInMemoryStringDictionary
+{
+  /** The code used for <code>null</code> values */
+  static final int NULL_CODE = -1;
+
+  private final Map <String, Integer> m_aCodes = new ConcurrentHashMap <> ();
+  private final ReportingInMemoryChunkedList <String> m_aValues = new ReportingInMemoryChunkedList <> ();
+
+  /**
+   * Get the code of the provided value, adding it if it is not yet contained.
+   *
+   * @param sValue
+   *        The value to encode. May be <code>null</code>.
+   * @return The code or {@link #NULL_CODE} for <code>null</code>.
+   */
+  int getOrAddCode (@Nullable final String sValue)
+  {
+    if (sValue == null)
+      return NULL_CODE;
+    // The value is published before the mapping function returns
+    return m_aCodes.computeIfAbsent (sValue, k -> Integer.valueOf (m_aValues.add (k))).intValue ();
+  }
+
+  /**
+   * Get the value of the provided code.
+   *
+   * @param nCode
+   *        The code as returned by {@link #getOrAddCode(String)}.
+   * @return The value or <code>null</code> for {@link #NULL_CODE}.
+   */
+  @Nullable
+  String getValue (final int nCode)
+  {
+    return nCode == NULL_CODE ? null : m_aValues.get (nCode);
+  }
+
+  /**
+   * @return The number of distinct values contained.
+   */
+  @Nonnegative
+  int size ()
+  {
+    return m_aValues.size ();
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import static org.junit.Assert.assertEquals;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.config.Config;
+import com.helger.config.IConfig;
+import com.helger.config.source.resource.properties.ConfigurationSourceProperties;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.reporting.api.backend.IPeppolReportingBackendSPI;
+import com.helger.peppol.reporting.testbackend.AbstractPeppolReportingBackendSPITest;
+
+/**
+ * SPI contract test for {@link PeppolReportingBackendInMemorySPI} in the columnar storage mode.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolReportingBackendInMemoryColumnarSPITest extends AbstractPeppolReportingBackendSPITest
+{
+  @Override
+  @NonNull
+  protected IPeppolReportingBackendSPI createBackend ()
+  {
+    return new PeppolReportingBackendInMemorySPI ();
+  }
+
+  @Override
+  @NonNull
+  protected IConfig getConfig ()
+  {
+    return new Config (new ConfigurationSourceProperties (new ClassPathResource ("application-columnar.properties",
+                                                                                 PeppolReportingBackendInMemoryColumnarSPITest.class.getClassLoader ())));
+  }
+
+  @Test
+  public void testStorageMode ()
+  {
+    assertEquals (EReportingInMemoryStorageMode.COLUMNAR,
+                  ((PeppolReportingBackendInMemorySPI) m_aBackend).getStorageMode ());
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsSet;
+import com.helger.config.Config;
+import com.helger.config.IConfig;
+import com.helger.config.source.resource.properties.ConfigurationSourceProperties;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.api.backend.IPeppolReportingBackendSPI;
+import com.helger.peppol.reporting.api.backend.PeppolReportingBackendException;
+import com.helger.peppol.reporting.testbackend.AbstractPeppolReportingBackendSPITest;
+import com.helger.peppol.reporting.testbackend.PeppolReportingTestItems;
+
+/**
+ * SPI contract test for {@link PeppolReportingBackendInMemorySPI} in the off-heap storage mode.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolReportingBackendInMemoryOffHeapSPITest extends AbstractPeppolReportingBackendSPITest
+{
+  @Override
+  @NonNull
+  protected IPeppolReportingBackendSPI createBackend ()
+  {
+    return new PeppolReportingBackendInMemorySPI ();
+  }
+
+  @Override
+  @NonNull
+  protected IConfig getConfig ()
+  {
+    return new Config (new ConfigurationSourceProperties (new ClassPathResource ("application-offheap.properties",
+                                                                                 PeppolReportingBackendInMemoryOffHeapSPITest.class.getClassLoader ())));
+  }
+
+  @Test
+  public void testStorageMode ()
+  {
+    assertEquals (EReportingInMemoryStorageMode.OFFHEAP,
+                  ((PeppolReportingBackendInMemorySPI) m_aBackend).getStorageMode ());
+  }
+
+  @Test
+  public void testManyArenasAndRemoveDays () throws PeppolReportingBackendException
+  {
+    final PeppolReportingBackendInMemorySPI aBackend = (PeppolReportingBackendInMemorySPI) m_aBackend;
+    final LocalDate aOldDate = LocalDate.of (2012, 5, 1);
+    final LocalDate aNewDate = aOldDate.plusDays (1);
+
+    // Enough items to span multiple arenas
+    final ICommonsList <PeppolReportingItem> aExpected = new CommonsArrayList <> ();
+    for (int i = 0; i < 5000; ++i)
+    {
+      final PeppolReportingItem aItem = PeppolReportingTestItems.sendingItem (aOldDate, i);
+      aBackend.storeReportingItem (aItem);
+      aExpected.add (aItem);
+    }
+    aBackend.storeReportingItem (PeppolReportingTestItems.receivingItem (aNewDate, 0));
+
+    final ICommonsList <PeppolReportingItem> aRead = new CommonsArrayList <> ();
+    aBackend.forEachReportingItem (aOldDate, aOldDate, aRead::add);
+    assertEquals (aExpected, aRead);
+
+    assertEquals (1, aBackend.removeDaysBefore (aNewDate));
+    aRead.clear ();
+    aBackend.forEachReportingItem (aOldDate, aNewDate, aRead::add);
+    assertEquals (1, aRead.size ());
+  }
+
+  @Test
+  public void testConcurrentStoreAndRemoveDays () throws Exception
+  {
+    final PeppolReportingBackendInMemorySPI aBackend = (PeppolReportingBackendInMemorySPI) m_aBackend;
+    final LocalDate aOldDate = LocalDate.of (2012, 6, 1);
+    final LocalDate aNewDate = aOldDate.plusDays (1);
+    final int nItems = 20_000;
+
+    final AtomicBoolean aWriterDone = new AtomicBoolean (false);
+    final CompletableFuture <Void> aRemover = CompletableFuture.runAsync ( () -> {
+      try
+      {
+        while (!aWriterDone.get ())
+          aBackend.removeDaysBefore (aNewDate);
+      }
+      catch (final PeppolReportingBackendException ex)
+      {
+        throw new IllegalStateException (ex);
+      }
+    });
+
+    // Storing into a day that is removed concurrently must never fail
+    try
+    {
+      for (int i = 0; i < nItems; ++i)
+        aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aOldDate, i));
+    }
+    finally
+    {
+      aWriterDone.set (true);
+    }
+    aRemover.get (1, TimeUnit.MINUTES);
+
+    // A removal only drops items stored before it, so a suffix of the items must remain
+    final ICommonsSet <PeppolReportingItem> aRead = new CommonsHashSet <> ();
+    aBackend.forEachReportingItem (aOldDate, aOldDate, aRead::add);
+    for (int i = nItems - aRead.size (); i < nItems; ++i)
+      assertTrue ("Item " + i + " is missing", aRead.contains (PeppolReportingTestItems.sendingItem (aOldDate, i)));
+  }
+}
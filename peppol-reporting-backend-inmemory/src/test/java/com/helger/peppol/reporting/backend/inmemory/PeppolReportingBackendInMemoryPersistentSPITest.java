@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.ICommonsSet;
+import com.helger.config.Config;
+import com.helger.config.IConfig;
+import com.helger.config.source.resource.properties.ConfigurationSourceProperties;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.api.backend.IPeppolReportingBackendSPI;
+import com.helger.peppol.reporting.api.backend.PeppolReportingBackendException;
+import com.helger.peppol.reporting.testbackend.AbstractPeppolReportingBackendSPITest;
+import com.helger.peppol.reporting.testbackend.PeppolReportingTestItems;
+
+/**
+ * SPI contract test for {@link PeppolReportingBackendInMemorySPI} with snapshot and journal
+ * persistence enabled.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolReportingBackendInMemoryPersistentSPITest extends AbstractPeppolReportingBackendSPITest
+{
+  @BeforeClass
+  public static void beforeClass ()
+  {
+    // Start with an empty directory for every run
+    final File [] aFiles = new File ("target/inmemory-persistence").listFiles ();
+    if (aFiles != null)
+      for (final File aFile : aFiles)
+        aFile.delete ();
+  }
+
+  @Override
+  @NonNull
+  protected IPeppolReportingBackendSPI createBackend ()
+  {
+    return new PeppolReportingBackendInMemorySPI ();
+  }
+
+  @Override
+  @NonNull
+  protected IConfig getConfig ()
+  {
+    return new Config (new ConfigurationSourceProperties (new ClassPathResource ("application-persistent.properties",
+                                                                                 PeppolReportingBackendInMemoryPersistentSPITest.class.getClassLoader ())));
+  }
+
+  @NonNull
+  private static ICommonsSet <PeppolReportingItem> _read (@NonNull final IPeppolReportingBackendSPI aBackend,
+                                                         @NonNull final LocalDate aDate) throws PeppolReportingBackendException
+  {
+    final ICommonsSet <PeppolReportingItem> ret = new CommonsHashSet <> ();
+    aBackend.forEachReportingItem (aDate, aDate, ret::add);
+    return ret;
+  }
+
+  @Test
+  public void testRestoreFromSnapshotAndJournal () throws PeppolReportingBackendException
+  {
+    final PeppolReportingBackendInMemorySPI aBackend = (PeppolReportingBackendInMemorySPI) m_aBackend;
+    assertTrue (aBackend.isPersistenceEnabled ());
+
+    final LocalDate aDate = testRunBaseDate ();
+    final ICommonsSet <PeppolReportingItem> aExpected = new CommonsHashSet <> ();
+    for (int i = 0; i < 50; ++i)
+      aExpected.add (PeppolReportingTestItems.sendingItem (aDate, i));
+    for (final PeppolReportingItem aItem : aExpected)
+      aBackend.storeReportingItem (aItem);
+
+    // Half in the snapshot, half in the journal
+    aBackend.writeSnapshot ();
+    for (int i = 0; i < 50; ++i)
+    {
+      final PeppolReportingItem aItem = PeppolReportingTestItems.receivingItem (aDate, 100 + i);
+      aExpected.add (aItem);
+      aBackend.storeReportingItem (aItem);
+    }
+
+    // Simulate a restart with a fresh instance, while the first one is still
+    // running (so no final snapshot is written)
+    final PeppolReportingBackendInMemorySPI aRestarted = new PeppolReportingBackendInMemorySPI ();
+    assertTrue (aRestarted.initBackend (getConfig ()).isSuccess ());
+    try
+    {
+      assertEquals (aExpected, _read (aRestarted, aDate));
+    }
+    finally
+    {
+      aRestarted.shutdownBackend ();
+    }
+  }
+
+  @Test
+  public void testConcurrentStoreAndRemoveDaysRestore () throws Exception
+  {
+    final PeppolReportingBackendInMemorySPI aBackend = (PeppolReportingBackendInMemorySPI) m_aBackend;
+    final LocalDate aOldDate = testRunBaseDate ();
+    final LocalDate aNewDate = aOldDate.plusDays (1);
+
+    final AtomicBoolean aWriterDone = new AtomicBoolean (false);
+    final CompletableFuture <Void> aRemover = CompletableFuture.runAsync ( () -> {
+      try
+      {
+        while (!aWriterDone.get ())
+          aBackend.removeDaysBefore (aNewDate);
+      }
+      catch (final PeppolReportingBackendException ex)
+      {
+        throw new IllegalStateException (ex);
+      }
+    });
+    try
+    {
+      for (int i = 0; i < 500; ++i)
+        aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aOldDate, i));
+    }
+    finally
+    {
+      aWriterDone.set (true);
+    }
+    aRemover.get (1, TimeUnit.MINUTES);
+
+    // Memory and journal must agree, so that removed items do not reappear after a restart
+    final ICommonsSet <PeppolReportingItem> aExpected = _read (aBackend, aOldDate);
+    final PeppolReportingBackendInMemorySPI aRestarted = new PeppolReportingBackendInMemorySPI ();
+    assertTrue (aRestarted.initBackend (getConfig ()).isSuccess ());
+    try
+    {
+      assertEquals (aExpected, _read (aRestarted, aOldDate));
+    }
+    finally
+    {
+      aRestarted.shutdownBackend ();
+    }
+  }
+}
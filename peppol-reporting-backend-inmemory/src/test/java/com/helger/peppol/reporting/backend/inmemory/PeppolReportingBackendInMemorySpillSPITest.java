@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.time.LocalDate;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.ICommonsSet;
+import com.helger.config.Config;
+import com.helger.config.IConfig;
+import com.helger.config.source.resource.properties.ConfigurationSourceProperties;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.api.backend.IPeppolReportingBackendSPI;
+import com.helger.peppol.reporting.api.backend.PeppolReportingBackendException;
+import com.helger.peppol.reporting.testbackend.AbstractPeppolReportingBackendSPITest;
+import com.helger.peppol.reporting.testbackend.PeppolReportingTestItems;
+
+/**
+ * SPI contract test for {@link PeppolReportingBackendInMemorySPI} with a heap budget that forces
+ * spilling.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolReportingBackendInMemorySpillSPITest extends AbstractPeppolReportingBackendSPITest
+{
+  @Override
+  @NonNull
+  protected IPeppolReportingBackendSPI createBackend ()
+  {
+    return new PeppolReportingBackendInMemorySPI ();
+  }
+
+  @Override
+  @NonNull
+  protected IConfig getConfig ()
+  {
+    return new Config (new ConfigurationSourceProperties (new ClassPathResource ("application-spill.properties",
+                                                                                 PeppolReportingBackendInMemorySpillSPITest.class.getClassLoader ())));
+  }
+
+  @Test
+  public void testSpillAndReadBack () throws PeppolReportingBackendException
+  {
+    assertEquals (1, ((PeppolReportingBackendInMemorySPI) m_aBackend).getMaxHeapBytes ());
+
+    final LocalDate aBaseDate = LocalDate.of (2011, 3, 1);
+    final ICommonsSet <PeppolReportingItem> aExpected = new CommonsHashSet <> ();
+    // Alternate between the days, so that spilled days are reloaded as well
+    for (int i = 0; i < 30; ++i)
+    {
+      final PeppolReportingItem aItem = PeppolReportingTestItems.sendingItem (aBaseDate.plusDays (i % 3), i);
+      m_aBackend.storeReportingItem (aItem);
+      aExpected.add (aItem);
+    }
+
+    // The last day is active, the two others are spilled
+    final String [] aSpillFiles = new File ("target/inmemory-spill").list ( (d, n) -> n.startsWith ("spill-"));
+    assertEquals (2, aSpillFiles.length);
+
+    final ICommonsSet <PeppolReportingItem> aRead = new CommonsHashSet <> ();
+    m_aBackend.forEachReportingItem (aBaseDate, aBaseDate.plusDays (2), aRead::add);
+    assertEquals (aExpected, aRead);
+
+    // Shutdown removes the spill files
+    m_aBackend.shutdownBackend ();
+    assertTrue (new File ("target/inmemory-spill").list ( (d, n) -> n.startsWith ("spill-")).length == 0);
+  }
+}
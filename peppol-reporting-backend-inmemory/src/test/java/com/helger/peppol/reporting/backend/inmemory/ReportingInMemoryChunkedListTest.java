@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.inmemory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link ReportingInMemoryChunkedList}.
+ *
+ * @author Philip Helger
+ */
+public final class ReportingInMemoryChunkedListTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final ReportingInMemoryChunkedList <Integer> aList = new ReportingInMemoryChunkedList <> ();
+    assertEquals (0, aList.size ());
+    assertFalse (aList.iterator (0).hasNext ());
+
+    // Span multiple chunks
+    for (int i = 0; i < 10_000; ++i)
+      aList.add (Integer.valueOf (i));
+    assertEquals (10_000, aList.size ());
+    for (int i = 0; i < 10_000; ++i)
+      assertEquals (i, aList.get (i).intValue ());
+
+    // The snapshot is not affected by later additions
+    final Iterator <Integer> it = aList.iterator (500);
+    aList.add (Integer.valueOf (-1));
+    int nCount = 0;
+    while (it.hasNext ())
+      assertEquals (nCount++, it.next ().intValue ());
+    assertEquals (500, nCount);
+  }
+
+  @Test
+  public void testConcurrentAdd () throws Exception
+  {
+    final ReportingInMemoryChunkedList <Integer> aList = new ReportingInMemoryChunkedList <> ();
+    final int nThreads = 8;
+    final int nPerThread = 20_000;
+    final ExecutorService aES = Executors.newFixedThreadPool (nThreads);
+    for (int t = 0; t < nThreads; ++t)
+    {
+      final int nBase = t * nPerThread;
+      aES.submit ( () -> {
+        for (int i = 0; i < nPerThread; ++i)
+          aList.add (Integer.valueOf (nBase + i));
+      });
+    }
+    aES.shutdown ();
+    assertTrue (aES.awaitTermination (1, TimeUnit.MINUTES));
+
+    assertEquals (nThreads * nPerThread, aList.size ());
+    final boolean [] aSeen = new boolean [nThreads * nPerThread];
+    final Iterator <Integer> it = aList.iterator (aList.size ());
+    while (it.hasNext ())
+    {
+      final int n = it.next ().intValue ();
+      assertFalse (aSeen[n]);
+      aSeen[n] = true;
+    }
+  }
+
+  @Test
+  public void testGetOwnElementWhileOthersWrite () throws Exception
+  {
+    final ReportingInMemoryChunkedList <Integer> aList = new ReportingInMemoryChunkedList <> ();
+    final int nThreads = 8;
+    final int nPerThread = 20_000;
+    final ExecutorService aES = Executors.newFixedThreadPool (nThreads);
+    final AtomicInteger aFailures = new AtomicInteger (0);
+    for (int t = 0; t < nThreads; ++t)
+    {
+      final int nBase = t * nPerThread;
+      aES.submit ( () -> {
+        int nLastSize = 0;
+        for (int i = 0; i < nPerThread; ++i)
+        {
+          // The own element is readable immediately, even if an earlier slot is still empty
+          final int nIndex = aList.add (Integer.valueOf (nBase + i));
+          if (aList.get (nIndex).intValue () != nBase + i)
+            aFailures.incrementAndGet ();
+          // The size never shrinks
+          final int nSize = aList.size ();
+          if (nSize < nLastSize)
+            aFailures.incrementAndGet ();
+          nLastSize = nSize;
+        }
+      });
+    }
+    aES.shutdown ();
+    assertTrue (aES.awaitTermination (1, TimeUnit.MINUTES));
+
+    assertEquals (0, aFailures.get ());
+    assertEquals (nThreads * nPerThread, aList.size ());
+  }
+}
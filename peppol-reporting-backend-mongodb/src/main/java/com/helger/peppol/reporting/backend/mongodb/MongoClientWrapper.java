@@ -16,6 +16,7 @@
  */
 package com.helger.peppol.reporting.backend.mongodb;
 
+import java.util.Date;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -164,4 +165,15 @@ public class MongoClientWrapper implements AutoCloseable
 
     return m_aDatabase.getCollection (sName);
   }
+
+  /**
+   * @return The current time of the MongoDB server, as returned by the <code>hello</code> command.
+   *         Never <code>null</code>.
+   * @since 4.2.1
+   */
+  @NonNull
+  public Date getServerTime ()
+  {
+    return m_aDatabase.runCommand (new Document ("hello", Integer.valueOf (1))).getDate ("localTime");
+  }
 }
@@ -16,34 +16,60 @@
  */
 package com.helger.peppol.reporting.backend.mongodb;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
 
 import org.bson.Document;
 import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ELockType;
 import com.helger.annotation.concurrent.GuardedBy;
+import com.helger.annotation.concurrent.MustBeLocked;
 import com.helger.annotation.style.IsSPIImplementation;
 import com.helger.annotation.style.OverrideOnDemand;
 import com.helger.annotation.style.UsedViaReflection;
+import com.helger.base.concurrent.SimpleLock;
 import com.helger.base.concurrent.SimpleReadWriteLock;
 import com.helger.base.enforce.ValueEnforcer;
 import com.helger.base.state.ESuccess;
 import com.helger.base.string.StringHelper;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
 import com.helger.config.IConfig;
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.EReportingItemField;
+import com.helger.peppol.reporting.api.IPeppolReportingItemView;
 import com.helger.peppol.reporting.api.PeppolReportingHelper;
 import com.helger.peppol.reporting.api.PeppolReportingItem;
 import com.helger.peppol.reporting.api.backend.IPeppolReportingBackendSPI;
 import com.helger.peppol.reporting.api.backend.PeppolReportingBackendException;
+import com.helger.peppol.reporting.api.backend.PeppolReportingChangeBatch;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemPage;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemPublisher;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemQuery;
 import com.helger.peppolid.CIdentifier;
 import com.mongodb.MongoClientException;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
 import com.mongodb.client.model.Sorts;
 
 /**
@@ -60,13 +86,52 @@ public class PeppolReportingBackendMongoDBSPI implements IPeppolReportingBackend
   public static final String CONFIG_PEPPOL_REPORTING_MONGODB_CONNECTIONSTRING = CONFIG_PREFIX + "connectionstring";
   public static final String CONFIG_PEPPOL_REPORTING_MONGODB_DBNAME = CONFIG_PREFIX + "dbname";
   public static final String CONFIG_PEPPOL_REPORTING_MONGODB_COLLECTION = CONFIG_PREFIX + "collection";
+  /**
+   * Configuration key for the number of seconds after which an item is expected to be inserted,
+   * after its store sequence was reserved. Missing sequences before an item stored at least that
+   * long ago are considered as failed inserts or unused reservations and are skipped by the change
+   * feed. A block of reserved sequences is only used for half of this time.
+   *
+   * @since 4.2.1
+   */
+  public static final String CONFIG_PEPPOL_REPORTING_MONGODB_STORE_SEQUENCE_SETTLE_SECONDS = CONFIG_PREFIX +
+                                                                                            "store-sequence.settle-seconds";
+  public static final int DEFAULT_PEPPOL_REPORTING_MONGODB_STORE_SEQUENCE_SETTLE_SECONDS = 60;
+  /**
+   * Configuration key for the number of store sequences that each process reserves at once. Larger
+   * blocks need fewer updates of the shared counter document.
+   *
+   * @since 4.2.1
+   */
+  public static final String CONFIG_PEPPOL_REPORTING_MONGODB_STORE_SEQUENCE_BLOCK_SIZE = CONFIG_PREFIX +
+                                                                                         "store-sequence.block-size";
+  public static final int DEFAULT_PEPPOL_REPORTING_MONGODB_STORE_SEQUENCE_BLOCK_SIZE = 100;
 
   private static final Logger LOGGER = LoggerFactory.getLogger (PeppolReportingBackendMongoDBSPI.class);
+  private static final String BSON_ID = "_id";
+  /** The suffix of the collection with the store sequence counter */
+  private static final String COUNTER_COLLECTION_SUFFIX = "-counter";
+  private static final String COUNTER_ID_SEQUENCE = "itemseq";
+  private static final String BSON_COUNTER_VALUE = "value";
+  /** The server time of the last reservation */
+  private static final String BSON_COUNTER_TS = "ts";
 
   private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
   @GuardedBy ("m_aRWLock")
   private MongoClientWrapper m_aClientWrapper;
   private String m_sCollection;
+  private int m_nStoreSequenceSettleSeconds;
+  private int m_nStoreSequenceBlockSize;
+  // The block of store sequences reserved by this process
+  private final SimpleLock m_aSequenceLock = new SimpleLock ();
+  @GuardedBy ("m_aSequenceLock")
+  private long m_nBlockNextSequence;
+  @GuardedBy ("m_aSequenceLock")
+  private long m_nBlockEndSequenceExcl;
+  @GuardedBy ("m_aSequenceLock")
+  private long m_nBlockServerMillis;
+  @GuardedBy ("m_aSequenceLock")
+  private long m_nBlockNanos;
 
   @UsedViaReflection
   public PeppolReportingBackendMongoDBSPI ()
@@ -144,6 +209,15 @@ public class PeppolReportingBackendMongoDBSPI implements IPeppolReportingBackend
       if (StringHelper.isEmpty (m_sCollection))
         throw new IllegalStateException ("The Peppol Reporting MongoDB backend collection name may not be empty");
 
+      m_nStoreSequenceSettleSeconds = Math.max (0,
+                                                aConfig.getAsInt (CONFIG_PEPPOL_REPORTING_MONGODB_STORE_SEQUENCE_SETTLE_SECONDS,
+                                                                  DEFAULT_PEPPOL_REPORTING_MONGODB_STORE_SEQUENCE_SETTLE_SECONDS));
+      final int nBlockSize = aConfig.getAsInt (CONFIG_PEPPOL_REPORTING_MONGODB_STORE_SEQUENCE_BLOCK_SIZE,
+                                               DEFAULT_PEPPOL_REPORTING_MONGODB_STORE_SEQUENCE_BLOCK_SIZE);
+      m_nStoreSequenceBlockSize = Math.max (1, nBlockSize);
+      // A block reserved before belongs to a previous configuration
+      m_aSequenceLock.locked ( () -> m_nBlockNextSequence = m_nBlockEndSequenceExcl);
+
       // It may take some time, until the "DB writable" field returns true
     });
 
@@ -159,6 +233,10 @@ public class PeppolReportingBackendMongoDBSPI implements IPeppolReportingBackend
       _getCollection ().createIndex (Indexes.ascending (PeppolReportingMongoDBHelper.BSON_EXCHANGEDATE,
                                                         PeppolReportingMongoDBHelper.BSON_EXCHANGEDT));
       _getCollection ().createIndex (Indexes.ascending (PeppolReportingMongoDBHelper.BSON_EXCHANGEDATE));
+      _getCollection ().createIndex (Indexes.ascending (PeppolReportingMongoDBHelper.BSON_EXCHANGEDATE, BSON_ID));
+      _getCollection ().createIndex (Indexes.ascending (PeppolReportingMongoDBHelper.BSON_EXCHANGEDATE,
+                                                        PeppolReportingMongoDBHelper.BSON_DIRECTION));
+      _getCollection ().createIndex (Indexes.ascending (PeppolReportingMongoDBHelper.BSON_SEQUENCE));
     }
     catch (final MongoClientException ex)
     {
@@ -206,6 +284,62 @@ public class PeppolReportingBackendMongoDBSPI implements IPeppolReportingBackend
     return m_aRWLock.readLockedGet ( () -> m_aClientWrapper.getCollection (m_sCollection));
   }
 
+  @NonNull
+  private MongoCollection <Document> _getCounterCollection ()
+  {
+    return m_aRWLock.readLockedGet ( () -> m_aClientWrapper.getCollection (m_sCollection + COUNTER_COLLECTION_SUFFIX));
+  }
+
+  /**
+   * Reserve a new block of store sequences by atomically incrementing the shared counter. The
+   * counter document also receives the server time of the reservation.
+   */
+  @MustBeLocked (ELockType.WRITE)
+  private void _reserveStoreSequenceBlock ()
+  {
+    // Taken before the request, so that the derived store times are never too early
+    final long nNanos = System.nanoTime ();
+    final Document aOldValue = new Document ("$ifNull",
+                                             new CommonsArrayList <> ("$" + BSON_COUNTER_VALUE, Long.valueOf (0)));
+    final Document aIncrement = new Document ("$add",
+                                              new CommonsArrayList <> (aOldValue,
+                                                                       Long.valueOf (m_nStoreSequenceBlockSize)));
+    final Document aUpdate = new Document ("$set",
+                                           new Document (BSON_COUNTER_VALUE, aIncrement).append (BSON_COUNTER_TS,
+                                                                                                 "$$NOW"));
+    final Document aCounter = _getCounterCollection ().findOneAndUpdate (Filters.eq (BSON_ID, COUNTER_ID_SEQUENCE),
+                                                                         new CommonsArrayList <> (aUpdate),
+                                                                         new FindOneAndUpdateOptions ().upsert (true)
+                                                                                                       .returnDocument (ReturnDocument.AFTER));
+    m_nBlockEndSequenceExcl = ((Number) aCounter.get (BSON_COUNTER_VALUE)).longValue () + 1;
+    m_nBlockNextSequence = m_nBlockEndSequenceExcl - m_nStoreSequenceBlockSize;
+    m_nBlockServerMillis = aCounter.getDate (BSON_COUNTER_TS).getTime ();
+    m_nBlockNanos = nNanos;
+  }
+
+  /**
+   * Assign the next store sequence of this process and the store time to the provided document.
+   * The store time is the server time of the block reservation plus the time passed since then, so
+   * it does not depend on the local clock. A block is only used for half of the settle time, so
+   * that all of its sequences are either inserted or skipped by the change feed.
+   *
+   * @param aDoc
+   *        The document to be inserted. May not be <code>null</code>.
+   */
+  private void _assignStoreSequence (@NonNull final Document aDoc)
+  {
+    m_aSequenceLock.locked ( () -> {
+      if (m_nBlockNextSequence >= m_nBlockEndSequenceExcl ||
+          System.nanoTime () - m_nBlockNanos >= m_nStoreSequenceSettleSeconds * 500_000_000L)
+        _reserveStoreSequenceBlock ();
+
+      final long nSequence = m_nBlockNextSequence++;
+      final long nStoredMillis = m_nBlockServerMillis + (System.nanoTime () - m_nBlockNanos) / 1_000_000L;
+      aDoc.append (PeppolReportingMongoDBHelper.BSON_SEQUENCE, Long.valueOf (nSequence))
+          .append (PeppolReportingMongoDBHelper.BSON_STOREDTS, new Date (nStoredMillis));
+    });
+  }
+
   private boolean _isDBWritable ()
   {
     return m_aRWLock.readLockedBoolean ( () -> m_aClientWrapper.isDBWritable ());
@@ -228,7 +362,11 @@ public class PeppolReportingBackendMongoDBSPI implements IPeppolReportingBackend
         throw new IllegalStateException ("The Peppol Reporting MongoDB is not writable");
 
       // Write to collection
-      if (!_getCollection ().insertOne (PeppolReportingMongoDBHelper.toBson (aReportingItem)).wasAcknowledged ())
+      // The store sequence is usually taken from the block of this process, so only the insert
+      // needs a round trip
+      final Document aDoc = PeppolReportingMongoDBHelper.toBson (aReportingItem);
+      _assignStoreSequence (aDoc);
+      if (!_getCollection ().insertOne (aDoc).wasAcknowledged ())
         throw new IllegalStateException ("Failed to insert into Peppol Reporting MongoDB Collection");
 
       if (LOGGER.isDebugEnabled ())
@@ -244,8 +382,8 @@ public class PeppolReportingBackendMongoDBSPI implements IPeppolReportingBackend
   }
 
   @NonNull
-  public Iterable <PeppolReportingItem> iterateReportingItems (@NonNull final LocalDate aStartDateIncl,
-                                                               @NonNull final LocalDate aEndDateIncl) throws PeppolReportingBackendException
+  private FindIterable <Document> _findItems (@NonNull final LocalDate aStartDateIncl,
+                                              @NonNull final LocalDate aEndDateIncl)
   {
     ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
     ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
@@ -264,8 +402,305 @@ public class PeppolReportingBackendMongoDBSPI implements IPeppolReportingBackend
     if (LOGGER.isDebugEnabled ())
       LOGGER.debug ("Using MongoDB filter '" + aFilter.toBsonDocument ().toJson () + "'");
 
+    return _getCollection ().find (aFilter).sort (Sorts.ascending (PeppolReportingMongoDBHelper.BSON_EXCHANGEDT));
+  }
+
+  @NonNull
+  public Iterable <PeppolReportingItem> iterateReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                                               @NonNull final LocalDate aEndDateIncl) throws PeppolReportingBackendException
+  {
+    return _findItems (aStartDateIncl, aEndDateIncl).map (PeppolReportingMongoDBHelper::toDomain);
+  }
+
+  /**
+   * Filters on the exchange date and the exchange date time, so that the
+   * <code>(exchangedate, exchangedt)</code> index can be used.
+   */
+  @NonNull
+  public Iterable <PeppolReportingItem> iterateReportingItems (@NonNull final Instant aFromIncl,
+                                                               @NonNull final Instant aToExcl) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aFromIncl, "FromIncl");
+    ValueEnforcer.notNull (aToExcl, "ToExcl");
+    ValueEnforcer.isFalse ( () -> aToExcl.isBefore (aFromIncl), "ToExcl must be >= FromIncl");
+
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Querying Peppol Reporting Items from MongoDB between " + aFromIncl + " and " + aToExcl);
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting MongoDB backend is not initialized");
+
+    // Round to the precision of the stored items
+    final long nFromMillis = PeppolReportingHelper.getCeilingEpochMillis (aFromIncl);
+    final long nToMillis = PeppolReportingHelper.getCeilingEpochMillis (aToExcl);
+    if (nFromMillis >= nToMillis)
+      return new CommonsArrayList <> ();
+
+    final LocalDate aStartDate = LocalDate.ofInstant (Instant.ofEpochMilli (nFromMillis), ZoneOffset.UTC);
+    final LocalDate aEndDate = LocalDate.ofInstant (Instant.ofEpochMilli (nToMillis - 1), ZoneOffset.UTC);
+    final Bson aFilter = Filters.and (Filters.gte (PeppolReportingMongoDBHelper.BSON_EXCHANGEDATE, aStartDate),
+                                      Filters.lte (PeppolReportingMongoDBHelper.BSON_EXCHANGEDATE, aEndDate),
+                                      Filters.gte (PeppolReportingMongoDBHelper.BSON_EXCHANGEDT, new Date (nFromMillis)),
+                                      Filters.lt (PeppolReportingMongoDBHelper.BSON_EXCHANGEDT, new Date (nToMillis)));
+
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Using MongoDB filter '" + aFilter.toBsonDocument ().toJson () + "'");
+
     return _getCollection ().find (aFilter)
                             .sort (Sorts.ascending (PeppolReportingMongoDBHelper.BSON_EXCHANGEDT))
                             .map (PeppolReportingMongoDBHelper::toDomain);
   }
+
+  /**
+   * The MongoDB cursor fetches batches of the maximum chunk size, and is closed when the
+   * subscription ends.
+   */
+  @NonNull
+  public Flow.Publisher <PeppolReportingItem> publishReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                                                     @NonNull final LocalDate aEndDateIncl) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting MongoDB backend is not initialized");
+
+    return new PeppolReportingItemPublisher (nMaxChunkSize -> {
+      final MongoCursor <PeppolReportingItem> aCursor = _findItems (aStartDateIncl, aEndDateIncl).batchSize (nMaxChunkSize)
+                                                                                                .map (PeppolReportingMongoDBHelper::toDomain)
+                                                                                                .iterator ();
+      return PeppolReportingItemPublisher.IChunkSource.ofIterator (aCursor);
+    });
+  }
+
+  /**
+   * Uses <code>countDocuments</code>, that can be answered from the exchange date and direction
+   * index.
+   */
+  @Nonnegative
+  public long countReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                   @NonNull final LocalDate aEndDateIncl,
+                                   @Nullable final EReportingDirection eDirection) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting MongoDB backend is not initialized");
+
+    Bson aFilter = Filters.and (Filters.gte (PeppolReportingMongoDBHelper.BSON_EXCHANGEDATE, aStartDateIncl),
+                                Filters.lte (PeppolReportingMongoDBHelper.BSON_EXCHANGEDATE, aEndDateIncl));
+    if (eDirection != null)
+      aFilter = Filters.and (aFilter, Filters.eq (PeppolReportingMongoDBHelper.BSON_DIRECTION, eDirection.getID ()));
+    return _getCollection ().countDocuments (aFilter);
+  }
+
+  /**
+   * Keyset pagination on the exchange date and the <code>_id</code> of the documents. The
+   * continuation token is the exchange date and the hex representation of the last
+   * <code>_id</code> returned, so no page has to skip previously read documents.
+   */
+  @NonNull
+  public PeppolReportingItemPage readReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                                     @NonNull final LocalDate aEndDateIncl,
+                                                     @Nonnegative final int nPageSize,
+                                                     @Nullable final String sContinuationToken) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    ValueEnforcer.isGT0 (nPageSize, "PageSize");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting MongoDB backend is not initialized");
+
+    Bson aFilter = Filters.and (Filters.gte (PeppolReportingMongoDBHelper.BSON_EXCHANGEDATE, aStartDateIncl),
+                                Filters.lte (PeppolReportingMongoDBHelper.BSON_EXCHANGEDATE, aEndDateIncl));
+    if (sContinuationToken != null)
+    {
+      // Token layout is "date:objectid"
+      final int nSep = sContinuationToken.indexOf (':');
+      final LocalDate aLastDate;
+      final ObjectId aLastID;
+      try
+      {
+        if (nSep < 0)
+          throw new IllegalArgumentException ("Missing separator");
+        aLastDate = LocalDate.parse (sContinuationToken.substring (0, nSep));
+        aLastID = new ObjectId (sContinuationToken.substring (nSep + 1));
+      }
+      catch (final IllegalArgumentException | DateTimeParseException ex)
+      {
+        throw new IllegalArgumentException ("Invalid continuation token '" + sContinuationToken + "' provided", ex);
+      }
+      aFilter = Filters.and (aFilter,
+                             Filters.or (Filters.gt (PeppolReportingMongoDBHelper.BSON_EXCHANGEDATE, aLastDate),
+                                         Filters.and (Filters.eq (PeppolReportingMongoDBHelper.BSON_EXCHANGEDATE,
+                                                                  aLastDate),
+                                                      Filters.gt (BSON_ID, aLastID))));
+    }
+
+    // Read one more document, to know if there is a next page
+    final ICommonsList <Document> aDocs = new CommonsArrayList <> ();
+    _getCollection ().find (aFilter)
+                     .sort (Sorts.ascending (PeppolReportingMongoDBHelper.BSON_EXCHANGEDATE, BSON_ID))
+                     .limit (nPageSize + 1)
+                     .into (aDocs);
+
+    if (aDocs.size () <= nPageSize)
+      return PeppolReportingItemPage.createLastPage (aDocs.getAllMapped (PeppolReportingMongoDBHelper::toDomain));
+
+    aDocs.remove (nPageSize);
+    final ICommonsList <PeppolReportingItem> aItems = aDocs.getAllMapped (PeppolReportingMongoDBHelper::toDomain);
+    // The exchange date is derived from the exchange date time when storing
+    final String sNextToken = aItems.getLastOrNull ().getExchangeDTUTC ().toLocalDate () +
+                              ":" +
+                              aDocs.getLastOrNull ().getObjectId (BSON_ID).toHexString ();
+    return new PeppolReportingItemPage (aItems, sNextToken);
+  }
+
+  public void forEachReportingItemView (@NonNull final LocalDate aStartDateIncl,
+                                        @NonNull final LocalDate aEndDateIncl,
+                                        @NonNull final Consumer <? super IPeppolReportingItemView> aConsumer) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+    // One view for all documents
+    final ReportingMongoDBItemView aView = new ReportingMongoDBItemView ();
+    _findItems (aStartDateIncl, aEndDateIncl).forEach (aDoc -> {
+      aView.setDocument (aDoc);
+      aConsumer.accept (aView);
+    });
+  }
+
+  /**
+   * The criteria are added to the MongoDB filter and only the projected fields are read.
+   */
+  public void forEachReportingItemView (@NonNull final LocalDate aStartDateIncl,
+                                        @NonNull final LocalDate aEndDateIncl,
+                                        @NonNull final PeppolReportingItemQuery aQuery,
+                                        @NonNull final Consumer <? super IPeppolReportingItemView> aConsumer) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    ValueEnforcer.notNull (aQuery, "Query");
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting MongoDB backend is not initialized");
+
+    final ICommonsList <Bson> aFilters = new CommonsArrayList <> ();
+    aFilters.add (Filters.gte (PeppolReportingMongoDBHelper.BSON_EXCHANGEDATE, aStartDateIncl));
+    aFilters.add (Filters.lte (PeppolReportingMongoDBHelper.BSON_EXCHANGEDATE, aEndDateIncl));
+    // The direction is stored with its ID, so all criteria are plain string comparisons
+    for (final Map.Entry <EReportingItemField, String> aEntry : aQuery.getAllCriteria ().entrySet ())
+      aFilters.add (Filters.eq (PeppolReportingMongoDBHelper.getBsonName (aEntry.getKey ()), aEntry.getValue ()));
+    final Bson aFilter = Filters.and (aFilters);
+
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Using MongoDB filter '" + aFilter.toBsonDocument ().toJson () + "' for " + aQuery);
+
+    FindIterable <Document> aFind = _getCollection ().find (aFilter);
+    if (!aQuery.isFullProjection ())
+    {
+      final ICommonsList <String> aFieldNames = new CommonsArrayList <> ();
+      for (final EReportingItemField eField : aQuery.getAllProjectedFields ())
+        aFieldNames.add (PeppolReportingMongoDBHelper.getBsonName (eField));
+      aFind = aFind.projection (Projections.include (aFieldNames));
+    }
+
+    // One view for all documents
+    final ReportingMongoDBItemView aView = new ReportingMongoDBItemView ();
+    aFind.sort (Sorts.ascending (PeppolReportingMongoDBHelper.BSON_EXCHANGEDT)).forEach (aDoc -> {
+      aView.setDocument (aDoc);
+      aConsumer.accept (aView);
+    });
+  }
+
+  /**
+   * The store sequence is taken from blocks that each process reserves from an atomic counter in a
+   * separate collection (see {@link #CONFIG_PEPPOL_REPORTING_MONGODB_STORE_SEQUENCE_BLOCK_SIZE}).
+   * Documents stored by older versions have no store sequence and are therefore not part of the
+   * change feed.
+   */
+  public boolean isStoreSequenceSupported ()
+  {
+    return true;
+  }
+
+  /**
+   * Returns the highest store sequence of a stored document, using the index on the store sequence
+   * field. Sequences that are reserved but not used yet are not considered.
+   */
+  @Nonnegative
+  public long getCurrentStoreSequence () throws PeppolReportingBackendException
+  {
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting MongoDB backend is not initialized");
+
+    final Document aDoc = _getCollection ().find (Filters.exists (PeppolReportingMongoDBHelper.BSON_SEQUENCE))
+                                           .sort (Sorts.descending (PeppolReportingMongoDBHelper.BSON_SEQUENCE))
+                                           .projection (Projections.include (PeppolReportingMongoDBHelper.BSON_SEQUENCE))
+                                           .limit (1)
+                                           .first ();
+    return aDoc == null ? 0 : ((Number) aDoc.get (PeppolReportingMongoDBHelper.BSON_SEQUENCE)).longValue ();
+  }
+
+  /**
+   * Uses the index on the store sequence field. The sequence is reserved before the insert, so a
+   * missing sequence is either not inserted yet, its insert failed or it was never used. Reading
+   * stops at the first missing sequence, unless the item after it was stored before the settle
+   * time (see {@link #CONFIG_PEPPOL_REPORTING_MONGODB_STORE_SEQUENCE_SETTLE_SECONDS}). Both times
+   * are server times.
+   */
+  @NonNull
+  public PeppolReportingChangeBatch iterateStoredSince (@Nonnegative final long nSequenceExcl,
+                                                        @Nonnegative final long nSequenceToIncl,
+                                                        @Nonnegative final int nMaxItems) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.isGE0 (nSequenceExcl, "SequenceExcl");
+    ValueEnforcer.isGE0 (nSequenceToIncl, "SequenceToIncl");
+    ValueEnforcer.isGT0 (nMaxItems, "MaxItems");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting MongoDB backend is not initialized");
+
+    // Read one more document, to know if there are more items
+    final ICommonsList <Document> aDocs = new CommonsArrayList <> (nMaxItems + 1);
+    _getCollection ().find (Filters.and (Filters.gt (PeppolReportingMongoDBHelper.BSON_SEQUENCE,
+                                                     Long.valueOf (nSequenceExcl)),
+                                         Filters.lte (PeppolReportingMongoDBHelper.BSON_SEQUENCE,
+                                                      Long.valueOf (nSequenceToIncl))))
+                     .sort (Sorts.ascending (PeppolReportingMongoDBHelper.BSON_SEQUENCE))
+                     .limit (nMaxItems + 1)
+                     .forEach (aDocs::add);
+
+    final Date aServerNow = m_aRWLock.readLockedGet ( () -> m_aClientWrapper.getServerTime ());
+    final Date aSettled = new Date (aServerNow.getTime () - m_nStoreSequenceSettleSeconds * 1000L);
+    final ICommonsList <PeppolReportingItem> ret = new CommonsArrayList <> (nMaxItems);
+    long nLastSequence = nSequenceExcl;
+    boolean bMissing = false;
+    for (final Document aDoc : aDocs)
+    {
+      if (ret.size () == nMaxItems)
+        break;
+
+      final long nSequence = ((Number) aDoc.get (PeppolReportingMongoDBHelper.BSON_SEQUENCE)).longValue ();
+      if (nSequence != nLastSequence + 1)
+      {
+        final Date aStoredDT = aDoc.getDate (PeppolReportingMongoDBHelper.BSON_STOREDTS);
+        if (aStoredDT != null && aStoredDT.after (aSettled))
+        {
+          // A lower sequence may not be inserted yet - continue here next time
+          bMissing = true;
+          break;
+        }
+      }
+      ret.add (PeppolReportingMongoDBHelper.toDomain (aDoc));
+      nLastSequence = nSequence;
+    }
+    return new PeppolReportingChangeBatch (ret, nLastSequence, !bMissing && aDocs.size () > nMaxItems);
+  }
 }
@@ -22,9 +22,11 @@ import java.util.Date;
 import org.bson.Document;
 import org.jspecify.annotations.NonNull;
 
+import com.helger.annotation.Nonempty;
 import com.helger.annotation.concurrent.Immutable;
 import com.helger.base.enforce.ValueEnforcer;
 import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.EReportingItemField;
 import com.helger.peppol.reporting.api.PeppolReportingItem;
 import com.helger.typeconvert.impl.TypeConverter;
 
@@ -44,10 +46,59 @@ public final class PeppolReportingMongoDBHelper
   public static final String BSON_C1CC = "c1cc";
   public static final String BSON_C4CC = "c4cc";
   public static final String BSON_ENDUSERID = "enduserid";
+  /** The store sequence, that is not part of the reporting item itself */
+  public static final String BSON_SEQUENCE = "seq";
+  /** The time the store sequence was assigned, that is not part of the reporting item itself */
+  public static final String BSON_STOREDTS = "storedts";
 
   private PeppolReportingMongoDBHelper ()
   {}
 
+  /**
+   * Get the BSON field name of the provided reporting item field.
+   *
+   * @param eField
+   *        The reporting item field. May not be <code>null</code>.
+   * @return The BSON field name and never <code>null</code>.
+   * @since 4.2.1
+   */
+  @NonNull
+  @Nonempty
+  public static String getBsonName (@NonNull final EReportingItemField eField)
+  {
+    ValueEnforcer.notNull (eField, "Field");
+
+    switch (eField)
+    {
+      case EXCHANGE_DATETIME:
+        return BSON_EXCHANGEDT;
+      case DIRECTION:
+        return BSON_DIRECTION;
+      case C2_ID:
+        return BSON_C2ID;
+      case C3_ID:
+        return BSON_C3ID;
+      case DOCTYPE_ID_SCHEME:
+        return BSON_DTIDSCHEME;
+      case DOCTYPE_ID_VALUE:
+        return BSON_DTIDVALUE;
+      case PROCESS_ID_SCHEME:
+        return BSON_PROCIDSCHEME;
+      case PROCESS_ID_VALUE:
+        return BSON_PROCIDVALUE;
+      case TRANSPORT_PROTOCOL:
+        return BSON_TRANSPORTID;
+      case C1_COUNTRY_CODE:
+        return BSON_C1CC;
+      case C4_COUNTRY_CODE:
+        return BSON_C4CC;
+      case END_USER_ID:
+        return BSON_ENDUSERID;
+      default:
+        throw new IllegalArgumentException ("Unsupported field " + eField);
+    }
+  }
+
   /**
    * Convert a {@link PeppolReportingItem} to a BSON document.
    *
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.mongodb;
+
+import org.bson.Document;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.IPeppolReportingItemView;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * A reusable {@link IPeppolReportingItemView} positioned on a single BSON document, as created by
+ * {@link PeppolReportingMongoDBHelper#toBson(PeppolReportingItem)}.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@NotThreadSafe
+final class ReportingMongoDBItemView implements IPeppolReportingItemView
+{
+  private Document m_aDoc;
+  private EReportingDirection m_eDirection;
+
+  void setDocument (@NonNull final Document aDoc)
+  {
+    m_aDoc = aDoc;
+    m_eDirection = EReportingDirection.getFromIDOrThrow (aDoc.getString (PeppolReportingMongoDBHelper.BSON_DIRECTION));
+  }
+
+  public long getExchangeEpochMillis ()
+  {
+    return m_aDoc.getDate (PeppolReportingMongoDBHelper.BSON_EXCHANGEDT).getTime ();
+  }
+
+  @NonNull
+  public EReportingDirection getDirection ()
+  {
+    return m_eDirection;
+  }
+
+  @NonNull
+  @Nonempty
+  public String getC2ID ()
+  {
+    return m_aDoc.getString (PeppolReportingMongoDBHelper.BSON_C2ID);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getC3ID ()
+  {
+    return m_aDoc.getString (PeppolReportingMongoDBHelper.BSON_C3ID);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getDocTypeIDScheme ()
+  {
+    return m_aDoc.getString (PeppolReportingMongoDBHelper.BSON_DTIDSCHEME);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getDocTypeIDValue ()
+  {
+    return m_aDoc.getString (PeppolReportingMongoDBHelper.BSON_DTIDVALUE);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getProcessIDScheme ()
+  {
+    return m_aDoc.getString (PeppolReportingMongoDBHelper.BSON_PROCIDSCHEME);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getProcessIDValue ()
+  {
+    return m_aDoc.getString (PeppolReportingMongoDBHelper.BSON_PROCIDVALUE);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getTransportProtocol ()
+  {
+    return m_aDoc.getString (PeppolReportingMongoDBHelper.BSON_TRANSPORTID);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getC1CountryCode ()
+  {
+    return m_aDoc.getString (PeppolReportingMongoDBHelper.BSON_C1CC);
+  }
+
+  @Nullable
+  public String getC4CountryCode ()
+  {
+    return m_aDoc.getString (PeppolReportingMongoDBHelper.BSON_C4CC);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getEndUserID ()
+  {
+    return m_aDoc.getString (PeppolReportingMongoDBHelper.BSON_ENDUSERID);
+  }
+
+  @NonNull
+  public PeppolReportingItem getAsItem ()
+  {
+    return PeppolReportingMongoDBHelper.toDomain (m_aDoc);
+  }
+}
@@ -19,6 +19,14 @@ package com.helger.peppol.reporting.backend.redis;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import org.jspecify.annotations.NonNull;
@@ -27,6 +35,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
 import com.helger.annotation.concurrent.ELockType;
 import com.helger.annotation.concurrent.GuardedBy;
 import com.helger.annotation.concurrent.MustBeLocked;
@@ -40,16 +49,25 @@ import com.helger.base.string.StringHelper;
 import com.helger.collection.commons.CommonsArrayList;
 import com.helger.collection.commons.ICommonsList;
 import com.helger.config.IConfig;
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.IPeppolReportingItemView;
 import com.helger.peppol.reporting.api.PeppolReportingHelper;
 import com.helger.peppol.reporting.api.PeppolReportingItem;
 import com.helger.peppol.reporting.api.backend.IPeppolReportingBackendSPI;
+import com.helger.peppol.reporting.api.backend.PeppolReportingBackend;
 import com.helger.peppol.reporting.api.backend.PeppolReportingBackendException;
+import com.helger.peppol.reporting.api.backend.PeppolReportingChangeBatch;
+import com.helger.peppol.reporting.api.backend.PeppolReportingDayPosition;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemPage;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemPublisher;
 import com.helger.peppolid.CIdentifier;
 
-import redis.clients.jedis.AbstractTransaction;
+import redis.clients.jedis.AbstractPipeline;
 import redis.clients.jedis.DefaultJedisClientConfig;
 import redis.clients.jedis.RedisClient;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
 
 /**
  * SPI implementation of {@link IPeppolReportingBackendSPI} for Redis.
@@ -65,11 +83,69 @@ public class PeppolReportingBackendRedisSPI implements IPeppolReportingBackendSP
   public static final String CONFIG_PEPPOL_REPORTING_REDIS_PASSWORD = "peppol.reporting.redis.password";
   public static final int DEFAULT_REDIS_PORT = 6379;
 
+  /** The maximum number of asynchronously stored items written in one pipelined transaction */
+  public static final int ASYNC_MAX_PIPELINE_SIZE = 1000;
+
   private static final Logger LOGGER = LoggerFactory.getLogger (PeppolReportingBackendRedisSPI.class);
+  private static final int COUNT_PAGE_SIZE = 1000;
+  /** The counter of the item IDs, that is also the store sequence */
+  private static final String KEY_ITEM_INDEX = "peppol:reporting:itemidx";
+  /**
+   * The first item ID stored atomically. Older versions reserved the IDs outside of the
+   * transaction, so failed transactions may have left gaps below it.
+   */
+  private static final String KEY_ITEM_INDEX_ATOMIC_START = "peppol:reporting:itemidx-atomic-start";
+  /**
+   * Reserves the IDs and stores the item hashes and day list references in one atomic step. All
+   * touched keys are passed as KEYS: the ID counter, the atomic start, the n item hashes and the n
+   * day lists. Because the item hash keys contain the IDs, the caller provides the counter value it
+   * expects as ARGV[1]. If the counter has a different value, nothing is written and
+   * <code>{0, counter}</code> is returned, so that the caller can retry with the new value.
+   * Otherwise <code>{1, last ID}</code> is returned. ARGV continues per item with the number of hash
+   * fields and the field/value pairs.
+   */
+  private static final String SCRIPT_STORE_ITEMS = "local n = (#KEYS - 2) / 2\n" +
+                                                   "local cur = tonumber(redis.call('GET', KEYS[1]) or '0')\n" +
+                                                   "if cur ~= tonumber(ARGV[1]) then\n" +
+                                                   "  return {0, cur}\n" +
+                                                   "end\n" +
+                                                   "redis.call('SET', KEYS[1], cur + n)\n" +
+                                                   "redis.call('SETNX', KEYS[2], cur + 1)\n" +
+                                                   "local a = 2\n" +
+                                                   "for i = 1, n do\n" +
+                                                   "  local f = tonumber(ARGV[a])\n" +
+                                                   "  redis.call('HSET', KEYS[2 + i], unpack(ARGV, a + 1, a + 2 * f))\n" +
+                                                   "  redis.call('RPUSH', KEYS[2 + n + i], KEYS[2 + i])\n" +
+                                                   "  a = a + 1 + 2 * f\n" +
+                                                   "end\n" +
+                                                   "return {1, cur + n}";
+  /** The maximum number of attempts to store items, if other clients reserved IDs in between */
+  private static final int STORE_MAX_ATTEMPTS = 100;
+
+  /**
+   * An asynchronously stored item together with its future.
+   */
+  private static final class AsyncItem
+  {
+    private final PeppolReportingItem m_aItem;
+    private final CompletableFuture <Void> m_aFuture;
+
+    AsyncItem (@NonNull final PeppolReportingItem aItem, @NonNull final CompletableFuture <Void> aFuture)
+    {
+      m_aItem = aItem;
+      m_aFuture = aFuture;
+    }
+  }
 
   private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
   @GuardedBy ("m_aRWLock")
   private RedisClient m_aRedisClient;
+  private final Queue <AsyncItem> m_aAsyncQueue = new ConcurrentLinkedQueue <> ();
+  private final AtomicBoolean m_aAsyncDrainScheduled = new AtomicBoolean (false);
+  // The SHA1 of the loaded store script
+  private volatile String m_sStoreScriptSHA1;
+  // The last known value of the ID counter - the expected value for the next store
+  private final AtomicLong m_aItemIndexHint = new AtomicLong (0);
 
   @NonNull
   @Nonempty
@@ -131,10 +207,11 @@ public class PeppolReportingBackendRedisSPI implements IPeppolReportingBackendSP
     if (aRedisClient == null)
       return ESuccess.FAILURE;
 
-    // Check connectivity
+    // Check connectivity and load the store script once
     try
     {
       aRedisClient.ping ();
+      m_sStoreScriptSHA1 = aRedisClient.scriptLoad (SCRIPT_STORE_ITEMS);
     }
     catch (final JedisException ex)
     {
@@ -187,6 +264,93 @@ public class PeppolReportingBackendRedisSPI implements IPeppolReportingBackendSP
            StringHelper.getLeadingZero (aDate.getDayOfMonth (), 2);
   }
 
+  /**
+   * Run the store script, preferably by its SHA1. If the script is not known to the server (e.g.
+   * after a restart or <code>SCRIPT FLUSH</code>), it is sent again.
+   */
+  @NonNull
+  private Object _evalStoreScript (@NonNull final List <String> aKeys, @NonNull final List <String> aArgs)
+  {
+    try
+    {
+      return m_aRedisClient.evalsha (m_sStoreScriptSHA1, aKeys, aArgs);
+    }
+    catch (final JedisNoScriptException ex)
+    {
+      // EVAL also caches the script again
+      return m_aRedisClient.eval (SCRIPT_STORE_ITEMS, aKeys, aArgs);
+    }
+  }
+
+  /**
+   * Store all provided items with a single script call, that reserves the IDs and stores the items
+   * atomically. So no other client can see a reserved ID without its item. If another client
+   * reserved IDs in between, the call is repeated with the new IDs.
+   *
+   * @param aItems
+   *        The eligible items to store. May neither be <code>null</code> nor empty.
+   * @throws PeppolReportingBackendException
+   *         In case of a Redis error
+   */
+  private void _storeItems (@NonNull @Nonempty final ICommonsList <PeppolReportingItem> aItems) throws PeppolReportingBackendException
+  {
+    try
+    {
+      // The arguments don't depend on the IDs
+      final ICommonsList <String> aArgs = new CommonsArrayList <> ();
+      aArgs.add ("");
+      final ICommonsList <String> aDayKeys = new CommonsArrayList <> (aItems.size ());
+      for (final PeppolReportingItem aReportingItem : aItems)
+      {
+        final Map <String, String> aMap = PeppolReportingRedisHelper.toMap (aReportingItem);
+        // Append reference to list of entries per day. RPUSH (not LPUSH) is
+        // used so that subsequent LRANGE 0 -1 reads return the items in
+        // insertion order, matching the behaviour of the other backends.
+        aDayKeys.add ("peppol:reporting:" + _getDayKey (aReportingItem.getExchangeDTUTC ().toLocalDate ()));
+        aArgs.add (Integer.toString (aMap.size ()));
+        for (final Map.Entry <String, String> aEntry : aMap.entrySet ())
+        {
+          aArgs.add (aEntry.getKey ());
+          aArgs.add (aEntry.getValue ());
+        }
+      }
+
+      for (int nAttempt = 0; nAttempt < STORE_MAX_ATTEMPTS; ++nAttempt)
+      {
+        final long nExpected = m_aItemIndexHint.get ();
+        final ICommonsList <String> aKeys = new CommonsArrayList <> (2 + 2 * aItems.size ());
+        aKeys.add (KEY_ITEM_INDEX);
+        aKeys.add (KEY_ITEM_INDEX_ATOMIC_START);
+        for (int i = 0; i < aItems.size (); ++i)
+          aKeys.add ("peppol:reporting:item:" + (nExpected + 1 + i));
+        aKeys.addAll (aDayKeys);
+        aArgs.set (0, Long.toString (nExpected));
+
+        final List <?> aResult = (List <?>) _evalStoreScript (aKeys, aArgs);
+        final long nCounter = ((Long) aResult.get (1)).longValue ();
+        // Remember the current counter value for the next call
+        m_aItemIndexHint.accumulateAndGet (nCounter, Math::max);
+        if (((Long) aResult.get (0)).longValue () == 1)
+          return;
+        if (nCounter < nExpected)
+        {
+          // E.g. the data was deleted - start over
+          m_aItemIndexHint.set (nCounter);
+        }
+      }
+      throw new PeppolReportingBackendException ("Failed to reserve the IDs of " +
+                                                 aItems.size () +
+                                                 " Peppol Reporting Item(s) in Redis after " +
+                                                 STORE_MAX_ATTEMPTS +
+                                                 " attempts");
+    }
+    catch (final JedisException ex)
+    {
+      LOGGER.error ("Failed to store " + aItems.size () + " Peppol Reporting Item(s) in Redis: " + ex.getMessage ());
+      throw new PeppolReportingBackendException ("Failed to store Peppol Reporting Item in Redis", ex);
+    }
+  }
+
   public void storeReportingItem (@NonNull final PeppolReportingItem aReportingItem) throws PeppolReportingBackendException
   {
     ValueEnforcer.notNull (aReportingItem, "ReportingItem");
@@ -200,45 +364,109 @@ public class PeppolReportingBackendRedisSPI implements IPeppolReportingBackendSP
       if (!isInitialized ())
         throw new IllegalStateException ("The Peppol Reporting Redis backend is not initialized");
 
+      _storeItems (new CommonsArrayList <> (aReportingItem));
+
+      if (LOGGER.isDebugEnabled ())
+        LOGGER.debug ("Successfully stored Peppol Reporting Item in Redis");
+    }
+    else
+    {
+      LOGGER.info ("Not storing Peppol Reporting Item in Redis, as the document type is not eligable for reporting (" +
+                   CIdentifier.getURIEncoded (aReportingItem.getDocTypeIDScheme (),
+                                              aReportingItem.getDocTypeIDValue ()) +
+                   ")");
+    }
+  }
+
+  /**
+   * Store all pending asynchronous items in pipelined chunks, until the queue is empty.
+   */
+  private void _drainAsyncQueue ()
+  {
+    final ICommonsList <PeppolReportingItem> aItems = new CommonsArrayList <> ();
+    final ICommonsList <CompletableFuture <Void>> aFutures = new CommonsArrayList <> ();
+    while (true)
+    {
+      AsyncItem aAsyncItem;
+      while (aItems.size () < ASYNC_MAX_PIPELINE_SIZE && (aAsyncItem = m_aAsyncQueue.poll ()) != null)
+      {
+        aItems.add (aAsyncItem.m_aItem);
+        aFutures.add (aAsyncItem.m_aFuture);
+      }
+
+      if (aItems.isEmpty ())
+      {
+        m_aAsyncDrainScheduled.set (false);
+        // Check for items that were queued after the last poll
+        if (m_aAsyncQueue.isEmpty () || !m_aAsyncDrainScheduled.compareAndSet (false, true))
+          return;
+        continue;
+      }
+
       try
       {
-        // Get new unique ID
-        final long nID = m_aRedisClient.incr ("peppol:reporting:itemidx");
+        if (!isInitialized ())
+          throw new IllegalStateException ("The Peppol Reporting Redis backend is not initialized");
 
-        try (final AbstractTransaction t = m_aRedisClient.multi ())
-        {
-          // Store main data
-          final String sMapKey = "peppol:reporting:item:" + nID;
-          t.hset (sMapKey, PeppolReportingRedisHelper.toMap (aReportingItem));
-
-          // Append reference to list of entries per day. RPUSH (not LPUSH) is
-          // used so that subsequent LRANGE 0 -1 reads return the items in
-          // insertion order, matching the behaviour of the other backends.
-          t.rpush ("peppol:reporting:" + _getDayKey (aReportingItem.getExchangeDTUTC ().toLocalDate ()), sMapKey);
-          t.exec ();
-        }
+        _storeItems (aItems);
+        aFutures.forEach (x -> x.complete (null));
+
+        if (LOGGER.isDebugEnabled ())
+          LOGGER.debug ("Successfully stored " + aItems.size () + " Peppol Reporting Item(s) asynchronously in Redis");
       }
-      catch (final JedisException ex)
+      catch (final PeppolReportingBackendException | RuntimeException ex)
       {
-        LOGGER.error ("Failed to store Peppol Reporting Item in Redis: " + ex.getMessage ());
-        throw new PeppolReportingBackendException ("Failed to store Peppol Reporting Item in Redis", ex);
+        aFutures.forEach (x -> x.completeExceptionally (new CompletionException (ex)));
       }
-
-      if (LOGGER.isDebugEnabled ())
-        LOGGER.debug ("Successfully stored Peppol Reporting Item in Redis");
+      aItems.clear ();
+      aFutures.clear ();
     }
-    else
+  }
+
+  /**
+   * Stores the item asynchronously. All items that are queued while a previous chunk is being
+   * written are stored together with a single ID reservation and a single pipelined transaction.
+   */
+  @NonNull
+  public CompletableFuture <Void> storeReportingItemAsync (@NonNull final PeppolReportingItem aReportingItem)
+  {
+    ValueEnforcer.notNull (aReportingItem, "ReportingItem");
+
+    if (!PeppolReportingHelper.isDocumentTypeEligableForReporting (aReportingItem.getDocTypeIDScheme (),
+                                                                   aReportingItem.getDocTypeIDValue ()))
     {
       LOGGER.info ("Not storing Peppol Reporting Item in Redis, as the document type is not eligable for reporting (" +
                    CIdentifier.getURIEncoded (aReportingItem.getDocTypeIDScheme (),
                                               aReportingItem.getDocTypeIDValue ()) +
                    ")");
+      return CompletableFuture.completedFuture (null);
     }
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting Redis backend is not initialized");
+
+    final CompletableFuture <Void> ret = new CompletableFuture <> ();
+    m_aAsyncQueue.add (new AsyncItem (aReportingItem, ret));
+    if (m_aAsyncDrainScheduled.compareAndSet (false, true))
+    {
+      try
+      {
+        PeppolReportingBackend.getAsyncExecutor ().execute (this::_drainAsyncQueue);
+      }
+      catch (final RejectedExecutionException ex)
+      {
+        m_aAsyncDrainScheduled.set (false);
+        AsyncItem aAsyncItem;
+        while ((aAsyncItem = m_aAsyncQueue.poll ()) != null)
+          aAsyncItem.m_aFuture.completeExceptionally (ex);
+      }
+    }
+    return ret;
   }
 
-  public void forEachReportingItem (@NonNull final LocalDate aStartDateIncl,
-                                    @NonNull final LocalDate aEndDateIncl,
-                                    @NonNull final Consumer <? super PeppolReportingItem> aConsumer) throws PeppolReportingBackendException
+  private void _forEachHash (@NonNull final LocalDate aStartDateIncl,
+                             @NonNull final LocalDate aEndDateIncl,
+                             @NonNull final Consumer <Map <String, String>> aConsumer)
   {
     ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
     ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
@@ -261,8 +489,7 @@ public class PeppolReportingBackendRedisSPI implements IPeppolReportingBackendSP
       for (final String sKey : aAllHashKeys)
       {
         final Map <String, String> aHashMap = m_aRedisClient.hgetAll (sKey);
-        final PeppolReportingItem aReportingItem = PeppolReportingRedisHelper.toDomain (aHashMap);
-        aConsumer.accept (aReportingItem);
+        aConsumer.accept (aHashMap);
 
         nCounter++;
       }
@@ -275,6 +502,27 @@ public class PeppolReportingBackendRedisSPI implements IPeppolReportingBackendSP
       LOGGER.debug ("Found a total of " + nCounter + " matching documents in Redis");
   }
 
+  public void forEachReportingItem (@NonNull final LocalDate aStartDateIncl,
+                                    @NonNull final LocalDate aEndDateIncl,
+                                    @NonNull final Consumer <? super PeppolReportingItem> aConsumer) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+    _forEachHash (aStartDateIncl, aEndDateIncl, aHashMap -> aConsumer.accept (PeppolReportingRedisHelper.toDomain (aHashMap)));
+  }
+
+  public void forEachReportingItemView (@NonNull final LocalDate aStartDateIncl,
+                                        @NonNull final LocalDate aEndDateIncl,
+                                        @NonNull final Consumer <? super IPeppolReportingItemView> aConsumer) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+    // One view for all hashes
+    final ReportingRedisItemView aView = new ReportingRedisItemView ();
+    _forEachHash (aStartDateIncl, aEndDateIncl, aHashMap -> {
+      aView.setHash (aHashMap);
+      aConsumer.accept (aView);
+    });
+  }
+
   @NonNull
   public Iterable <PeppolReportingItem> iterateReportingItems (@NonNull final LocalDate aStartDateIncl,
                                                                @NonNull final LocalDate aEndDateIncl) throws PeppolReportingBackendException
@@ -283,4 +531,305 @@ public class PeppolReportingBackendRedisSPI implements IPeppolReportingBackendSP
     forEachReportingItem (aStartDateIncl, aEndDateIncl, ret::add);
     return ret;
   }
+
+  /**
+   * Read all provided item hashes in a single pipeline.
+   */
+  @NonNull
+  private ICommonsList <PeppolReportingItem> _readItems (@NonNull final List <String> aHashKeys)
+  {
+    final ICommonsList <Response <Map <String, String>>> aResponses = new CommonsArrayList <> (aHashKeys.size ());
+    try (final AbstractPipeline aPipeline = m_aRedisClient.pipelined ())
+    {
+      for (final String sKey : aHashKeys)
+        aResponses.add (aPipeline.hgetAll (sKey));
+      aPipeline.sync ();
+    }
+    return aResponses.getAllMapped (x -> PeppolReportingRedisHelper.toDomain (x.get ()));
+  }
+
+  /**
+   * Reads the day lists page by page via <code>LRANGE</code> and fetches the hashes of each page in
+   * a single pipeline.
+   */
+  private final class RedisChunkSource implements PeppolReportingItemPublisher.IChunkSource
+  {
+    private final LocalDate m_aEndDateIncl;
+    private LocalDate m_aCurDate;
+    private long m_nOffset = 0;
+
+    RedisChunkSource (@NonNull final LocalDate aStartDateIncl, @NonNull final LocalDate aEndDateIncl)
+    {
+      m_aCurDate = aStartDateIncl;
+      m_aEndDateIncl = aEndDateIncl;
+    }
+
+    @Override
+    @NonNull
+    public ICommonsList <PeppolReportingItem> readNextChunk (@Nonnegative final int nMaxItems) throws PeppolReportingBackendException
+    {
+      if (!isInitialized ())
+        throw new IllegalStateException ("The Peppol Reporting Redis backend is not initialized");
+
+      try
+      {
+        while (m_aCurDate.compareTo (m_aEndDateIncl) <= 0)
+        {
+          final String sListKey = "peppol:reporting:" + _getDayKey (m_aCurDate);
+          final List <String> aHashKeys = m_aRedisClient.lrange (sListKey, m_nOffset, m_nOffset + nMaxItems - 1);
+          if (aHashKeys.isEmpty ())
+          {
+            // Next day
+            m_aCurDate = m_aCurDate.plusDays (1);
+            m_nOffset = 0;
+            continue;
+          }
+          m_nOffset += aHashKeys.size ();
+
+          return _readItems (aHashKeys);
+        }
+        return new CommonsArrayList <> ();
+      }
+      catch (final JedisException ex)
+      {
+        throw new PeppolReportingBackendException ("Failed to read Peppol Reporting Items from Redis", ex);
+      }
+    }
+  }
+
+  /**
+   * Each chunk is read with one <code>LRANGE</code> page of the day list and one pipeline for the
+   * hashes of that page.
+   */
+  @NonNull
+  public Flow.Publisher <PeppolReportingItem> publishReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                                                     @NonNull final LocalDate aEndDateIncl) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting Redis backend is not initialized");
+
+    return new PeppolReportingItemPublisher (nMaxChunkSize -> new RedisChunkSource (aStartDateIncl, aEndDateIncl));
+  }
+
+  /**
+   * The continuation token is the day and the index inside the list of that day. Each page is read
+   * with <code>LRANGE</code> and one pipeline for the hashes.
+   */
+  @NonNull
+  public PeppolReportingItemPage readReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                                     @NonNull final LocalDate aEndDateIncl,
+                                                     @Nonnegative final int nPageSize,
+                                                     @Nullable final String sContinuationToken) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    ValueEnforcer.isGT0 (nPageSize, "PageSize");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting Redis backend is not initialized");
+
+    final PeppolReportingDayPosition aStartPos = PeppolReportingDayPosition.getStartPosition (aStartDateIncl,
+                                                                                              sContinuationToken);
+    final ICommonsList <PeppolReportingItem> ret = new CommonsArrayList <> ();
+    try
+    {
+      LocalDate aCurDate = aStartPos.getDay ();
+      long nOffset = aStartPos.getPosition ();
+      while (aCurDate.compareTo (aEndDateIncl) <= 0)
+      {
+        final String sListKey = "peppol:reporting:" + _getDayKey (aCurDate);
+        // Read one more key, to know if there is a next page
+        final int nMissing = nPageSize - ret.size ();
+        final List <String> aHashKeys = m_aRedisClient.lrange (sListKey, nOffset, nOffset + nMissing);
+        if (aHashKeys.size () > nMissing)
+        {
+          ret.addAll (_readItems (aHashKeys.subList (0, nMissing)));
+          return new PeppolReportingItemPage (ret,
+                                              new PeppolReportingDayPosition (aCurDate, nOffset + nMissing).getAsToken ());
+        }
+        ret.addAll (_readItems (aHashKeys));
+
+        // Next day
+        aCurDate = aCurDate.plusDays (1);
+        nOffset = 0;
+      }
+    }
+    catch (final JedisException ex)
+    {
+      throw new PeppolReportingBackendException ("Failed to read Peppol Reporting Items from Redis", ex);
+    }
+    return PeppolReportingItemPage.createLastPage (ret);
+  }
+
+  /**
+   * Counting all items uses pipelined <code>LLEN</code> calls on the day lists. Counting a single
+   * direction reads the day lists page by page and only fetches the direction field of each hash
+   * in a pipeline.
+   */
+  @Nonnegative
+  public long countReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                   @NonNull final LocalDate aEndDateIncl,
+                                   @Nullable final EReportingDirection eDirection) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting Redis backend is not initialized");
+
+    long ret = 0;
+    try
+    {
+      if (eDirection == null)
+      {
+        final ICommonsList <Response <Long>> aResponses = new CommonsArrayList <> ();
+        try (final AbstractPipeline aPipeline = m_aRedisClient.pipelined ())
+        {
+          LocalDate aCurDate = aStartDateIncl;
+          while (aCurDate.compareTo (aEndDateIncl) <= 0)
+          {
+            aResponses.add (aPipeline.llen ("peppol:reporting:" + _getDayKey (aCurDate)));
+            aCurDate = aCurDate.plusDays (1);
+          }
+          aPipeline.sync ();
+        }
+        for (final Response <Long> aResponse : aResponses)
+          ret += aResponse.get ().longValue ();
+      }
+      else
+      {
+        final String sDirectionID = eDirection.getID ();
+        LocalDate aCurDate = aStartDateIncl;
+        while (aCurDate.compareTo (aEndDateIncl) <= 0)
+        {
+          final String sListKey = "peppol:reporting:" + _getDayKey (aCurDate);
+          long nOffset = 0;
+          List <String> aHashKeys;
+          do
+          {
+            aHashKeys = m_aRedisClient.lrange (sListKey, nOffset, nOffset + COUNT_PAGE_SIZE - 1);
+            if (!aHashKeys.isEmpty ())
+            {
+              final ICommonsList <Response <String>> aResponses = new CommonsArrayList <> (aHashKeys.size ());
+              try (final AbstractPipeline aPipeline = m_aRedisClient.pipelined ())
+              {
+                for (final String sKey : aHashKeys)
+                  aResponses.add (aPipeline.hget (sKey, PeppolReportingRedisHelper.KEY_DIRECTION));
+                aPipeline.sync ();
+              }
+              for (final Response <String> aResponse : aResponses)
+                if (sDirectionID.equals (aResponse.get ()))
+                  ret++;
+              nOffset += aHashKeys.size ();
+            }
+          } while (aHashKeys.size () == COUNT_PAGE_SIZE);
+          aCurDate = aCurDate.plusDays (1);
+        }
+      }
+    }
+    catch (final JedisException ex)
+    {
+      throw new PeppolReportingBackendException ("Failed to count Peppol Reporting Items in Redis", ex);
+    }
+    return ret;
+  }
+
+  /**
+   * The item ID counter is the store sequence.
+   */
+  public boolean isStoreSequenceSupported ()
+  {
+    return true;
+  }
+
+  @Nonnegative
+  public long getCurrentStoreSequence () throws PeppolReportingBackendException
+  {
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting Redis backend is not initialized");
+
+    try
+    {
+      final String sValue = m_aRedisClient.get (KEY_ITEM_INDEX);
+      return sValue == null ? 0 : Long.parseLong (sValue);
+    }
+    catch (final JedisException | NumberFormatException ex)
+    {
+      throw new PeppolReportingBackendException ("Failed to read the Peppol Reporting store sequence from Redis", ex);
+    }
+  }
+
+  /**
+   * The item hashes are addressed directly by their ID and fetched in pipelined chunks. Items are
+   * stored atomically with their ID, so reading stops at the first missing hash. Only IDs below the
+   * first atomically stored ID may be missing, because of failed transactions of older versions,
+   * and they are skipped.
+   */
+  @NonNull
+  public PeppolReportingChangeBatch iterateStoredSince (@Nonnegative final long nSequenceExcl,
+                                                        @Nonnegative final long nSequenceToIncl,
+                                                        @Nonnegative final int nMaxItems) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.isGE0 (nSequenceExcl, "SequenceExcl");
+    ValueEnforcer.isGE0 (nSequenceToIncl, "SequenceToIncl");
+    ValueEnforcer.isGT0 (nMaxItems, "MaxItems");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting Redis backend is not initialized");
+
+    final ICommonsList <PeppolReportingItem> ret = new CommonsArrayList <> (nMaxItems);
+    long nLastSequence = nSequenceExcl;
+    boolean bMissing = false;
+    long nUpperSequence = nSequenceToIncl;
+    try
+    {
+      final String sAtomicStart = m_aRedisClient.get (KEY_ITEM_INDEX_ATOMIC_START);
+      final long nAtomicStart = sAtomicStart == null ? Long.MAX_VALUE : Long.parseLong (sAtomicStart);
+      nUpperSequence = Math.min (nSequenceToIncl, getCurrentStoreSequence ());
+
+      long nNextID = nSequenceExcl + 1;
+      while (ret.size () < nMaxItems && nNextID <= nUpperSequence && !bMissing)
+      {
+        // Read only as many hashes as items are still missing
+        final int nChunkSize = (int) Math.min (nMaxItems - ret.size (), nUpperSequence - nNextID + 1);
+        final ICommonsList <Response <Map <String, String>>> aResponses = new CommonsArrayList <> (nChunkSize);
+        try (final AbstractPipeline aPipeline = m_aRedisClient.pipelined ())
+        {
+          for (int i = 0; i < nChunkSize; ++i)
+            aResponses.add (aPipeline.hgetAll ("peppol:reporting:item:" + (nNextID + i)));
+          aPipeline.sync ();
+        }
+        for (int i = 0; i < nChunkSize && !bMissing; ++i)
+        {
+          final long nID = nNextID + i;
+          final Map <String, String> aHash = aResponses.get (i).get ();
+          if (aHash != null && !aHash.isEmpty ())
+          {
+            ret.add (PeppolReportingRedisHelper.toDomain (aHash));
+            nLastSequence = nID;
+          }
+          else
+            if (nID >= nAtomicStart)
+            {
+              // Not visible yet - continue here next time
+              bMissing = true;
+            }
+        }
+        nNextID += nChunkSize;
+      }
+    }
+    catch (final JedisException | NumberFormatException ex)
+    {
+      throw new PeppolReportingBackendException ("Failed to read stored Peppol Reporting Items from Redis", ex);
+    }
+    return new PeppolReportingChangeBatch (ret,
+                                           nLastSequence,
+                                           ret.size () == nMaxItems && !bMissing && nLastSequence < nUpperSequence);
+  }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.redis;
+
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.datetime.format.PDTFromString;
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.IPeppolReportingItemView;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * A reusable {@link IPeppolReportingItemView} positioned on a single Redis hash, as created by
+ * {@link PeppolReportingRedisHelper#toMap(PeppolReportingItem)}.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@NotThreadSafe
+final class ReportingRedisItemView implements IPeppolReportingItemView
+{
+  private Map <String, String> m_aHash;
+  private EReportingDirection m_eDirection;
+
+  void setHash (@NonNull final Map <String, String> aHash)
+  {
+    m_aHash = aHash;
+    m_eDirection = EReportingDirection.getFromIDOrThrow (aHash.get (PeppolReportingRedisHelper.KEY_DIRECTION));
+  }
+
+  public long getExchangeEpochMillis ()
+  {
+    return PDTFromString.getLocalDateTimeFromString (m_aHash.get (PeppolReportingRedisHelper.KEY_EXCHANGEDT),
+                                                     DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                        .toInstant (ZoneOffset.UTC)
+                        .toEpochMilli ();
+  }
+
+  @NonNull
+  public EReportingDirection getDirection ()
+  {
+    return m_eDirection;
+  }
+
+  @NonNull
+  @Nonempty
+  public String getC2ID ()
+  {
+    return m_aHash.get (PeppolReportingRedisHelper.KEY_C2ID);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getC3ID ()
+  {
+    return m_aHash.get (PeppolReportingRedisHelper.KEY_C3ID);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getDocTypeIDScheme ()
+  {
+    return m_aHash.get (PeppolReportingRedisHelper.KEY_DTIDSCHEME);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getDocTypeIDValue ()
+  {
+    return m_aHash.get (PeppolReportingRedisHelper.KEY_DTIDVALUE);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getProcessIDScheme ()
+  {
+    return m_aHash.get (PeppolReportingRedisHelper.KEY_PROCIDSCHEME);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getProcessIDValue ()
+  {
+    return m_aHash.get (PeppolReportingRedisHelper.KEY_PROCIDVALUE);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getTransportProtocol ()
+  {
+    return m_aHash.get (PeppolReportingRedisHelper.KEY_TRANSPORTID);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getC1CountryCode ()
+  {
+    return m_aHash.get (PeppolReportingRedisHelper.KEY_C1CC);
+  }
+
+  @Nullable
+  public String getC4CountryCode ()
+  {
+    return m_aHash.get (PeppolReportingRedisHelper.KEY_C4CC);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getEndUserID ()
+  {
+    return m_aHash.get (PeppolReportingRedisHelper.KEY_ENDUSERID);
+  }
+
+  @NonNull
+  public PeppolReportingItem getAsItem ()
+  {
+    return PeppolReportingRedisHelper.toDomain (m_aHash);
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonempty;
+import com.helger.base.id.IHasID;
+import com.helger.db.api.EDatabaseSystemType;
+
+/**
+ * The different Flyway migration sets of the SQL backend. The base set is always applied. All
+ * other sets are opt-in and each one uses its own Flyway history table, so that they can be
+ * enabled at any point in time independent of the versions already applied by the base set.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+public enum EReportingFlywayMigrationSet implements IHasID <String>
+{
+  /** The base set of tables that is always required */
+  BASE ("base", ""),
+  /** Native range partitioning of the reporting item table by exchange month */
+  PARTITIONING ("partitioning", "-partitioning"),
+  /** Daily rollup tables for TSR and EUSR that are maintained by the application */
+  ROLLUP ("rollup", "-rollup"),
+  /** Exchange date column and covering indexes for TSR and EUSR style queries */
+  COVERING ("covering", "-covering");
+
+  private final String m_sID;
+  private final String m_sSuffix;
+
+  EReportingFlywayMigrationSet (@NonNull @Nonempty final String sID, @NonNull final String sSuffix)
+  {
+    m_sID = sID;
+    m_sSuffix = sSuffix;
+  }
+
+  @NonNull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  /**
+   * @return <code>true</code> if this is the base migration set, <code>false</code> if it is an
+   *         opt-in migration set.
+   */
+  public boolean isBase ()
+  {
+    return this == BASE;
+  }
+
+  /**
+   * Get the classpath location of the migration scripts of this set for the provided database
+   * type.
+   *
+   * @param eDBType
+   *        The database type to use. May not be <code>null</code>.
+   * @return The classpath location like <code>db/reporting-postgresql-partitioning</code>. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  @Nonempty
+  public String getLocation (@NonNull final EDatabaseSystemType eDBType)
+  {
+    return "db/reporting-" + eDBType.getID () + m_sSuffix;
+  }
+
+  /**
+   * Get the Flyway history table to be used for this migration set.
+   *
+   * @param sBaseHistoryTable
+   *        The history table of the base migration set. May neither be <code>null</code> nor
+   *        empty.
+   * @return The history table name for this set. Never <code>null</code>.
+   */
+  @NonNull
+  @Nonempty
+  public String getHistoryTable (@NonNull @Nonempty final String sBaseHistoryTable)
+  {
+    return isBase () ? sBaseHistoryTable : sBaseHistoryTable + "_" + m_sID;
+  }
+}
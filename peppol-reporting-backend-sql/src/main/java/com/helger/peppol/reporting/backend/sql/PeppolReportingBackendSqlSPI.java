@@ -17,15 +17,32 @@
 package com.helger.peppol.reporting.backend.sql;
 
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
 import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
 
+import javax.sql.DataSource;
+
+import org.apache.commons.dbcp2.BasicDataSource;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
 import com.helger.annotation.concurrent.GuardedBy;
 import com.helger.annotation.style.IsSPIImplementation;
 import com.helger.annotation.style.OverrideOnDemand;
@@ -35,7 +52,9 @@ import com.helger.base.enforce.ValueEnforcer;
 import com.helger.base.state.ESuccess;
 import com.helger.base.string.StringImplode;
 import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashSet;
 import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsSet;
 import com.helger.config.IConfig;
 import com.helger.db.api.EDatabaseSystemType;
 import com.helger.db.api.config.IJdbcConfiguration;
@@ -47,10 +66,17 @@ import com.helger.db.jdbc.callback.ConstantPreparedStatementDataProvider;
 import com.helger.db.jdbc.executor.DBExecutor;
 import com.helger.db.jdbc.executor.DBResultRow;
 import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.EReportingItemField;
+import com.helger.peppol.reporting.api.IPeppolReportingItemView;
 import com.helger.peppol.reporting.api.PeppolReportingHelper;
 import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.api.PeppolReportingItemBatch;
 import com.helger.peppol.reporting.api.backend.IPeppolReportingBackendSPI;
 import com.helger.peppol.reporting.api.backend.PeppolReportingBackendException;
+import com.helger.peppol.reporting.api.backend.PeppolReportingChangeBatch;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemPage;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemQuery;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemPublisher;
 import com.helger.peppolid.CIdentifier;
 
 /**
@@ -62,12 +88,79 @@ import com.helger.peppolid.CIdentifier;
 @IsSPIImplementation
 public class PeppolReportingBackendSqlSPI implements IPeppolReportingBackendSPI
 {
+  /**
+   * Configuration key to enable native monthly range partitioning of the reporting item table.
+   * Supported for PostgreSQL, MySQL and Oracle only.
+   *
+   * @since 4.2.1
+   */
+  public static final String CONFIG_PEPPOL_REPORTING_SQL_PARTITIONING_ENABLED = "peppol.reporting.sql.partitioning.enabled";
+  public static final boolean DEFAULT_PEPPOL_REPORTING_SQL_PARTITIONING_ENABLED = false;
+
+  /**
+   * Configuration key to enable the daily rollup tables for TSR and EUSR that are updated with every
+   * stored reporting item.
+   *
+   * @since 4.2.1
+   */
+  public static final String CONFIG_PEPPOL_REPORTING_SQL_ROLLUP_ENABLED = "peppol.reporting.sql.rollup.enabled";
+  public static final boolean DEFAULT_PEPPOL_REPORTING_SQL_ROLLUP_ENABLED = false;
+
+  /**
+   * Configuration key to enable the <code>exchangedate</code> column and the covering indexes for TSR
+   * and EUSR style queries.
+   *
+   * @since 4.2.1
+   */
+  public static final String CONFIG_PEPPOL_REPORTING_SQL_COVERING_INDEXES_ENABLED = "peppol.reporting.sql.covering-indexes.enabled";
+  public static final boolean DEFAULT_PEPPOL_REPORTING_SQL_COVERING_INDEXES_ENABLED = false;
+
+  /**
+   * Configuration key to enable the prepared statement pool of the connection pool.
+   *
+   * @since 4.2.1
+   */
+  public static final String CONFIG_PEPPOL_REPORTING_SQL_STATEMENT_POOL_ENABLED = "peppol.reporting.sql.statement-pool.enabled";
+  public static final boolean DEFAULT_PEPPOL_REPORTING_SQL_STATEMENT_POOL_ENABLED = true;
+
+  /**
+   * Configuration key for the maximum number of pooled prepared statements per connection.
+   *
+   * @since 4.2.1
+   */
+  public static final String CONFIG_PEPPOL_REPORTING_SQL_STATEMENT_POOL_MAX = "peppol.reporting.sql.statement-pool.max";
+  public static final int DEFAULT_PEPPOL_REPORTING_SQL_STATEMENT_POOL_MAX = 50;
+
+  /**
+   * Configuration key for the number of reporting items that are committed together in a bulk
+   * import.
+   *
+   * @since 4.2.1
+   */
+  public static final String CONFIG_PEPPOL_REPORTING_SQL_BULK_IMPORT_CHUNK_SIZE = "peppol.reporting.sql.bulk-import.chunk-size";
+  public static final int DEFAULT_PEPPOL_REPORTING_SQL_BULK_IMPORT_CHUNK_SIZE = 10_000;
+
+  /**
+   * Configuration key for the number of seconds after which all concurrently stored items are
+   * expected to be committed. Only items stored at least that long ago are part of the safe store
+   * sequence of the change feed. Every transaction storing items must complete within half of this
+   * time.
+   *
+   * @since 4.2.1
+   */
+  public static final String CONFIG_PEPPOL_REPORTING_SQL_STORE_SEQUENCE_SETTLE_SECONDS = "peppol.reporting.sql.store-sequence.settle-seconds";
+  public static final int DEFAULT_PEPPOL_REPORTING_SQL_STORE_SEQUENCE_SETTLE_SECONDS = 60;
+
+  // The number of items per JDBC batch in a bulk import
+  private static final int BULK_IMPORT_JDBC_BATCH_SIZE = 1_000;
+
   private static final Logger LOGGER = LoggerFactory.getLogger (PeppolReportingBackendSqlSPI.class);
   private static final EnumSet <EDatabaseSystemType> ALLOWED_DB_TYPES = EnumSet.of (EDatabaseSystemType.MYSQL,
                                                                                     EDatabaseSystemType.POSTGRESQL,
                                                                                     EDatabaseSystemType.SQLSERVER,
                                                                                     EDatabaseSystemType.DB2,
-                                                                                    EDatabaseSystemType.ORACLE);
+                                                                                    EDatabaseSystemType.ORACLE,
+                                                                                    EDatabaseSystemType.H2);
 
   private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
   @GuardedBy ("m_aRWLock")
@@ -75,7 +168,24 @@ public class PeppolReportingBackendSqlSPI implements IPeppolReportingBackendSPI
   private ReportingJdbcConfiguration m_aJdbcConfig;
   @GuardedBy ("m_aRWLock")
   private DataSourceProviderFromJdbcConfiguration m_aDSP;
+  // All connections are obtained via this wrapper
+  private ReportingSqlTimedDataSource m_aTimedDS;
   private String m_sTableNamePrefix;
+  private ReportingSqlPartitionManager m_aPartitionMgr;
+  private ReportingSqlRollupManager m_aRollupMgr;
+  private ReportingSqlItemWriter m_aItemWriter;
+  private ReportingSqlItemAggregator m_aAggregator;
+  private String m_sSelectItemsSQL;
+  private String m_sSelectItemsByInstantSQL;
+  private String m_sSelectFirstPageSQL;
+  private String m_sCountItemsSQL;
+  private String m_sCountItemsByDirectionSQL;
+  private String m_sSelectNextPageSQL;
+  private String m_sSelectStoredSinceSQL;
+  private String m_sMaxSequenceSQL;
+  private String m_sSafeSequenceSQL;
+  private int m_nBulkImportChunkSize;
+  private boolean m_bUsePostgreSQLCopy;
 
   @UsedViaReflection
   public PeppolReportingBackendSqlSPI ()
@@ -88,6 +198,14 @@ public class PeppolReportingBackendSqlSPI implements IPeppolReportingBackendSPI
     return "SQL";
   }
 
+  /**
+   * Create the DataSource provider. The returned provider must not have handed out a connection
+   * yet, as the prepared statement pool settings are applied afterwards.
+   *
+   * @param aJdbcConfig
+   *        The JDBC configuration to use. Never <code>null</code>.
+   * @return The new DataSource provider. May be <code>null</code> to indicate an error.
+   */
   @Nullable
   @OverrideOnDemand
   protected DataSourceProviderFromJdbcConfiguration createReportingDataSourceProvider (@NonNull final IJdbcConfiguration aJdbcConfig)
@@ -95,6 +213,95 @@ public class PeppolReportingBackendSqlSPI implements IPeppolReportingBackendSPI
     return new DataSourceProviderFromJdbcConfiguration (aJdbcConfig);
   }
 
+  private static void _configureStatementPool (@NonNull final DataSourceProviderFromJdbcConfiguration aDSP,
+                                               final boolean bStatementPoolEnabled,
+                                               final int nStatementPoolMax)
+  {
+    if (bStatementPoolEnabled)
+    {
+      final DataSource aDS = aDSP.getDataSource ();
+      if (aDS instanceof final BasicDataSource aBDS)
+      {
+        // DBCP2 only reads this when the pool is started with the first connection
+        if (aBDS.getNumActive () + aBDS.getNumIdle () > 0)
+          LOGGER.warn ("Cannot enable Peppol Reporting SQL prepared statement pooling, because the connection pool was already started");
+        else
+        {
+          aBDS.setPoolPreparedStatements (true);
+          aBDS.setMaxOpenPreparedStatements (nStatementPoolMax);
+        }
+      }
+      else
+        LOGGER.warn ("Cannot enable Peppol Reporting SQL prepared statement pooling, because the DataSource is not a DBCP2 BasicDataSource");
+    }
+  }
+
+  private static boolean _isPostgreSQLDriverPresent ()
+  {
+    try
+    {
+      Class.forName ("org.postgresql.PGConnection");
+      return true;
+    }
+    catch (final ClassNotFoundException ex)
+    {
+      LOGGER.warn ("The PostgreSQL JDBC driver is not on the classpath - bulk import will use JDBC batches");
+      return false;
+    }
+  }
+
+  /**
+   * @return The SQL expression for the current database time, in the same time zone as the
+   *         <code>storedts</code> column.
+   */
+  @NonNull
+  private static String _getStoredNow (@NonNull final EDatabaseSystemType eDBType)
+  {
+    switch (eDBType)
+    {
+      case POSTGRESQL:
+        return "(CURRENT_TIMESTAMP AT TIME ZONE 'UTC')";
+      case MYSQL:
+        return "UTC_TIMESTAMP(3)";
+      case SQLSERVER:
+        return "SYSUTCDATETIME()";
+      case DB2:
+        return "CURRENT TIMESTAMP";
+      case ORACLE:
+        return "SYS_EXTRACT_UTC(SYSTIMESTAMP)";
+      case H2:
+        return "CAST(CURRENT_TIMESTAMP AT TIME ZONE 'UTC' AS timestamp(3))";
+      default:
+        throw new IllegalArgumentException ("Unsupported database type " + eDBType);
+    }
+  }
+
+  /**
+   * @return The SQL expression for the provided timestamp expression minus the provided seconds.
+   */
+  @NonNull
+  private static String _getMinusSeconds (@NonNull final EDatabaseSystemType eDBType,
+                                          @NonNull final String sTimestamp,
+                                          final int nSeconds)
+  {
+    switch (eDBType)
+    {
+      case POSTGRESQL:
+        return sTimestamp + " - " + nSeconds + " * INTERVAL '1 second'";
+      case MYSQL:
+        return sTimestamp + " - INTERVAL " + nSeconds + " SECOND";
+      case SQLSERVER:
+      case H2:
+        return "DATEADD(SECOND, -" + nSeconds + ", " + sTimestamp + ")";
+      case DB2:
+        return sTimestamp + " - " + nSeconds + " SECONDS";
+      case ORACLE:
+        return sTimestamp + " - NUMTODSINTERVAL(" + nSeconds + ", 'SECOND')";
+      default:
+        throw new IllegalArgumentException ("Unsupported database type " + eDBType);
+    }
+  }
+
   @NonNull
   public ESuccess initBackend (@NonNull final IConfig aConfig)
   {
@@ -122,9 +329,51 @@ public class PeppolReportingBackendSqlSPI implements IPeppolReportingBackendSPI
                                                                                                     aJdbcConfig);
       final FlywayConfiguration aFlywayConfig = aBuilder.build ();
 
+      // Check optional partitioning
+      boolean bPartitioning = aConfig.getAsBoolean (CONFIG_PEPPOL_REPORTING_SQL_PARTITIONING_ENABLED,
+                                                    DEFAULT_PEPPOL_REPORTING_SQL_PARTITIONING_ENABLED);
+      if (bPartitioning && !ReportingSqlPartitionManager.isSupported (eDBType))
+      {
+        LOGGER.warn ("Peppol Reporting SQL partitioning is not supported for database type '" +
+                     eDBType.getID () +
+                     "' and is therefore ignored");
+        bPartitioning = false;
+      }
+
+      // Check optional rollup
+      final boolean bRollup = aConfig.getAsBoolean (CONFIG_PEPPOL_REPORTING_SQL_ROLLUP_ENABLED,
+                                                    DEFAULT_PEPPOL_REPORTING_SQL_ROLLUP_ENABLED);
+
+      final ICommonsList <EReportingFlywayMigrationSet> aOptInMigrationSets = new CommonsArrayList <> ();
+      if (bPartitioning)
+        aOptInMigrationSets.add (EReportingFlywayMigrationSet.PARTITIONING);
+      if (bRollup)
+        aOptInMigrationSets.add (EReportingFlywayMigrationSet.ROLLUP);
+
+      // Check optional covering indexes
+      final boolean bCovering = aConfig.getAsBoolean (CONFIG_PEPPOL_REPORTING_SQL_COVERING_INDEXES_ENABLED,
+                                                      DEFAULT_PEPPOL_REPORTING_SQL_COVERING_INDEXES_ENABLED);
+      if (bCovering)
+        aOptInMigrationSets.add (EReportingFlywayMigrationSet.COVERING);
+
+      // Check optional statement pool
+      final boolean bStatementPoolEnabled = aConfig.getAsBoolean (CONFIG_PEPPOL_REPORTING_SQL_STATEMENT_POOL_ENABLED,
+                                                                  DEFAULT_PEPPOL_REPORTING_SQL_STATEMENT_POOL_ENABLED);
+      final int nStatementPoolMax = aConfig.getAsInt (CONFIG_PEPPOL_REPORTING_SQL_STATEMENT_POOL_MAX,
+                                                      DEFAULT_PEPPOL_REPORTING_SQL_STATEMENT_POOL_MAX);
+
       // Run Flyway
       if (aFlywayConfig.isFlywayEnabled ())
+      {
         ReportingFlywayMigrator.Singleton.INSTANCE.runFlyway (eDBType, aJdbcConfig, aFlywayConfig);
+        for (final EReportingFlywayMigrationSet eMigrationSet : aOptInMigrationSets)
+        {
+          final FlywayConfiguration aOptInFlywayConfig = new ReportingFlywayConfigurationBuilder (aConfig,
+                                                                                                  aJdbcConfig,
+                                                                                                  eMigrationSet).build ();
+          ReportingFlywayMigrator.Singleton.INSTANCE.runFlyway (eDBType, aJdbcConfig, aOptInFlywayConfig, eMigrationSet);
+        }
+      }
       else
         LOGGER.warn ("Peppol Reporting Flyway Migration is disabled according to the configuration key '" +
                      aBuilder.getConfigKeyEnabled () +
@@ -133,10 +382,87 @@ public class PeppolReportingBackendSqlSPI implements IPeppolReportingBackendSPI
       // Remember stuff
       m_aConfig = aConfig;
       m_aJdbcConfig = aJdbcConfig;
-      m_aDSP = createReportingDataSourceProvider (aJdbcConfig);
-      if (m_aDSP == null)
+      final DataSourceProviderFromJdbcConfiguration aDSP = createReportingDataSourceProvider (aJdbcConfig);
+      if (aDSP == null)
         throw new IllegalStateException ("Failed to create Peppol Reporting SQL DB DataSource provider");
+      // Must be applied before the first connection is obtained
+      _configureStatementPool (aDSP, bStatementPoolEnabled, nStatementPoolMax);
+      m_aDSP = aDSP;
+      m_aTimedDS = new ReportingSqlTimedDataSource (aDSP.getDataSource ());
       m_sTableNamePrefix = DBSystemHelper.getTableNamePrefix (eDBType, aJdbcConfig.getJdbcSchema ());
+
+      // Create all static SQL statements once
+      m_aItemWriter = new ReportingSqlItemWriter (m_aTimedDS, m_sTableNamePrefix);
+      m_aAggregator = new ReportingSqlItemAggregator (eDBType, m_sTableNamePrefix, bCovering);
+      m_sSelectItemsSQL = "SELECT " +
+                          ReportingSqlItemWriter.ITEM_COLUMNS +
+                          " FROM " +
+                          m_sTableNamePrefix +
+                          "peppol_reporting_item" +
+                          " WHERE " +
+                          m_aAggregator.getDateRangeCondition ();
+      // Directly on the exchange date time, so that the index and the partitions can be used
+      m_sSelectItemsByInstantSQL = "SELECT " +
+                                   ReportingSqlItemWriter.ITEM_COLUMNS +
+                                   " FROM " +
+                                   m_sTableNamePrefix +
+                                   "peppol_reporting_item" +
+                                   " WHERE exchangedt >= ? AND exchangedt < ?";
+      m_sCountItemsSQL = "SELECT COUNT(*) FROM " +
+                         m_sTableNamePrefix +
+                         "peppol_reporting_item" +
+                         " WHERE " +
+                         m_aAggregator.getDateRangeCondition ();
+      m_sCountItemsByDirectionSQL = m_sCountItemsSQL + " AND sending = ?";
+      // Keyset pagination on the exchange date time and the surrogate ID
+      final String sSelectPageSQL = "SELECT " +
+                                    ReportingSqlItemWriter.ITEM_COLUMNS +
+                                    ", id FROM " +
+                                    m_sTableNamePrefix +
+                                    "peppol_reporting_item" +
+                                    " WHERE " +
+                                    m_aAggregator.getDateRangeCondition ();
+      m_sSelectFirstPageSQL = sSelectPageSQL + " ORDER BY exchangedt, id";
+      m_sSelectNextPageSQL = sSelectPageSQL +
+                             " AND (exchangedt > ? OR (exchangedt = ? AND id > ?))" +
+                             " ORDER BY exchangedt, id";
+      // The surrogate ID is the store sequence of the change feed
+      m_sSelectStoredSinceSQL = "SELECT " +
+                                ReportingSqlItemWriter.ITEM_COLUMNS +
+                                ", id FROM " +
+                                m_sTableNamePrefix +
+                                "peppol_reporting_item" +
+                                " WHERE id > ? AND id <= ? ORDER BY id";
+      m_sMaxSequenceSQL = "SELECT COALESCE(MAX(id), 0) FROM " + m_sTableNamePrefix + "peppol_reporting_item";
+      // The storing transaction of an item stored before the settle time started early enough, that
+      // all transactions storing lower IDs completed as well. As every transaction completes within
+      // half the settle time, the highest such ID is stored at most one settle time before the last
+      // one, so only this part of the index on (storedts, id) is read.
+      final int nSettleSeconds = Math.max (0,
+                                           aConfig.getAsInt (CONFIG_PEPPOL_REPORTING_SQL_STORE_SEQUENCE_SETTLE_SECONDS,
+                                                             DEFAULT_PEPPOL_REPORTING_SQL_STORE_SEQUENCE_SETTLE_SECONDS));
+      m_sSafeSequenceSQL = "SELECT COALESCE(MAX(i.id), 0) FROM " +
+                           m_sTableNamePrefix +
+                           "peppol_reporting_item i, (SELECT MAX(storedts) AS maxts FROM " +
+                           m_sTableNamePrefix +
+                           "peppol_reporting_item WHERE storedts <= " +
+                           _getMinusSeconds (eDBType, _getStoredNow (eDBType), nSettleSeconds) +
+                           ") m WHERE i.storedts <= m.maxts AND i.storedts >= " +
+                           _getMinusSeconds (eDBType, "m.maxts", nSettleSeconds);
+
+      // Bulk import
+      m_nBulkImportChunkSize = Math.max (1,
+                                         aConfig.getAsInt (CONFIG_PEPPOL_REPORTING_SQL_BULK_IMPORT_CHUNK_SIZE,
+                                                           DEFAULT_PEPPOL_REPORTING_SQL_BULK_IMPORT_CHUNK_SIZE));
+      m_bUsePostgreSQLCopy = eDBType == EDatabaseSystemType.POSTGRESQL && _isPostgreSQLDriverPresent ();
+      if (bPartitioning)
+      {
+        m_aPartitionMgr = new ReportingSqlPartitionManager (eDBType, aJdbcConfig.getJdbcSchema (), m_sTableNamePrefix);
+        m_aPartitionMgr.init (_newExecutor ());
+      }
+      else
+        m_aPartitionMgr = null;
+      m_aRollupMgr = bRollup ? new ReportingSqlRollupManager (eDBType, m_sTableNamePrefix) : null;
     });
 
     if (!isInitialized ())
@@ -170,6 +496,20 @@ public class PeppolReportingBackendSqlSPI implements IPeppolReportingBackendSPI
             LOGGER.error ("Failed to close Peppol Reporting DataSource provider", ex);
           }
         m_aDSP = null;
+        m_aTimedDS = null;
+        m_aPartitionMgr = null;
+        m_aRollupMgr = null;
+        m_aItemWriter = null;
+        m_aAggregator = null;
+        m_sSelectItemsSQL = null;
+        m_sSelectItemsByInstantSQL = null;
+        m_sSelectFirstPageSQL = null;
+        m_sCountItemsSQL = null;
+        m_sCountItemsByDirectionSQL = null;
+        m_sSelectNextPageSQL = null;
+        m_sSelectStoredSinceSQL = null;
+        m_sMaxSequenceSQL = null;
+        m_sSafeSequenceSQL = null;
       });
     }
     else
@@ -179,7 +519,7 @@ public class PeppolReportingBackendSqlSPI implements IPeppolReportingBackendSPI
   @NonNull
   private DBExecutor _newExecutor ()
   {
-    return new ReportingDBExecutor (m_aDSP, m_aJdbcConfig);
+    return new ReportingDBExecutor (m_aTimedDS, m_aJdbcConfig);
   }
 
   public void storeReportingItem (@NonNull final PeppolReportingItem aReportingItem) throws PeppolReportingBackendException
@@ -195,41 +535,38 @@ public class PeppolReportingBackendSqlSPI implements IPeppolReportingBackendSPI
       if (!isInitialized ())
         throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
 
-      final DBExecutor aExecutor = _newExecutor ();
-      final ESuccess eSuccess = aExecutor.performInTransaction ( () -> {
-        // Create new
-        final long nCreated = aExecutor.insertOrUpdateOrDelete ("INSERT INTO " +
-                                                                m_sTableNamePrefix +
-                                                                "peppol_reporting_item (exchangedt, sending, c2id, c3id, dtscheme, dtvalue, procscheme, procvalue, tp, c1cc, c4cc, enduserid)" +
-                                                                " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
-                                                                new ConstantPreparedStatementDataProvider (DBValueHelper.toTimestamp (aReportingItem.getExchangeDTUTC ()
-                                                                                                                                                    .toLocalDateTime ()),
-                                                                                                           Boolean.valueOf (aReportingItem.isSending ()),
-                                                                                                           DBValueHelper.getTrimmedToLength (aReportingItem.getC2ID (),
-                                                                                                                                             PeppolReportingItem.MAX_LEN_C2_ID),
-                                                                                                           DBValueHelper.getTrimmedToLength (aReportingItem.getC3ID (),
-                                                                                                                                             PeppolReportingItem.MAX_LEN_C3_ID),
-                                                                                                           DBValueHelper.getTrimmedToLength (aReportingItem.getDocTypeIDScheme (),
-                                                                                                                                             PeppolReportingItem.MAX_LEN_DOCTYPE_SCHEME),
-                                                                                                           DBValueHelper.getTrimmedToLength (aReportingItem.getDocTypeIDValue (),
-                                                                                                                                             PeppolReportingItem.MAX_LEN_DOCTYPE_VALUE),
-                                                                                                           DBValueHelper.getTrimmedToLength (aReportingItem.getProcessIDScheme (),
-                                                                                                                                             PeppolReportingItem.MAX_LEN_PROCESS_SCHEME),
-                                                                                                           DBValueHelper.getTrimmedToLength (aReportingItem.getProcessIDValue (),
-                                                                                                                                             PeppolReportingItem.MAX_LEN_PROCESS_VALUE),
-                                                                                                           DBValueHelper.getTrimmedToLength (aReportingItem.getTransportProtocol (),
-                                                                                                                                             PeppolReportingItem.MAX_LEN_TRANSPORT_PROTOCOL),
-                                                                                                           DBValueHelper.getTrimmedToLength (aReportingItem.getC1CountryCode (),
-                                                                                                                                             PeppolReportingItem.MAX_LEN_C1_COUNTRY_CODE),
-                                                                                                           DBValueHelper.getTrimmedToLength (aReportingItem.getC4CountryCode (),
-                                                                                                                                             PeppolReportingItem.MAX_LEN_C4_COUNTRY_CODE),
-                                                                                                           DBValueHelper.getTrimmedToLength (aReportingItem.getEndUserID (),
-                                                                                                                                             PeppolReportingItem.MAX_LEN_END_USER_ID)));
-        if (nCreated != 1)
-          throw new IllegalStateException ("Failed to create new SQL DB entry (" + nCreated + ")");
-      });
-      if (eSuccess.isFailure ())
-        throw new IllegalStateException ("Failed to insert Peppol Reporting item into SQL DB");
+      // Make sure the target partition exists - DDL must happen outside of the transaction
+      if (m_aPartitionMgr != null)
+        m_aPartitionMgr.ensurePartition (this::_newExecutor, YearMonth.from (aReportingItem.getExchangeDTUTC ()));
+
+      if (m_aRollupMgr == null)
+      {
+        // A single statement does not need an explicit transaction
+        try
+        {
+          m_aItemWriter.insertAutoCommit (aReportingItem);
+        }
+        catch (final SQLException ex)
+        {
+          throw new PeppolReportingBackendException ("Failed to insert Peppol Reporting item into SQL DB", ex);
+        }
+      }
+      else
+      {
+        final DBExecutor aExecutor = _newExecutor ();
+        final ESuccess eSuccess = aExecutor.performInTransaction ( () -> {
+          // Create new
+          final long nCreated = aExecutor.insertOrUpdateOrDelete (m_aItemWriter.getInsertSQL (),
+                                                                  new ConstantPreparedStatementDataProvider (ReportingSqlItemWriter.getItemValues (aReportingItem)));
+          if (nCreated != 1)
+            throw new IllegalStateException ("Failed to create new SQL DB entry (" + nCreated + ")");
+
+          // Update the rollup in the same transaction
+          m_aRollupMgr.onItemStored (aExecutor, aReportingItem);
+        });
+        if (eSuccess.isFailure ())
+          throw new PeppolReportingBackendException ("Failed to insert Peppol Reporting item into SQL DB");
+      }
 
       if (LOGGER.isDebugEnabled ())
         LOGGER.debug ("Successfully stored Peppol Reporting Item in SQL DB");
@@ -243,6 +580,470 @@ public class PeppolReportingBackendSqlSPI implements IPeppolReportingBackendSPI
     }
   }
 
+  private void _bulkImportChunk (@NonNull final ICommonsList <PeppolReportingItem> aChunk) throws PeppolReportingBackendException
+  {
+    // Make sure all target partitions exist
+    if (m_aPartitionMgr != null)
+    {
+      final ICommonsSet <YearMonth> aMonths = new CommonsHashSet <> ();
+      for (final PeppolReportingItem aItem : aChunk)
+      {
+        final YearMonth aMonth = YearMonth.from (aItem.getExchangeDTUTC ());
+        if (aMonths.add (aMonth))
+          m_aPartitionMgr.ensurePartition (this::_newExecutor, aMonth);
+      }
+    }
+
+    try
+    {
+      if (m_bUsePostgreSQLCopy)
+      {
+        try (final Connection aConnection = m_aItemWriter.getConnection ())
+        {
+          if (!aConnection.getAutoCommit ())
+            aConnection.setAutoCommit (true);
+          final long nCopied = ReportingPostgreSQLCopyWriter.Singleton.INSTANCE.copyItems (aConnection,
+                                                                                          m_sTableNamePrefix,
+                                                                                          aChunk);
+          if (nCopied != aChunk.size ())
+            throw new PeppolReportingBackendException ("Copied " + nCopied + " rows instead of " + aChunk.size ());
+        }
+      }
+      else
+        m_aItemWriter.insertBatch (aChunk, BULK_IMPORT_JDBC_BATCH_SIZE);
+    }
+    catch (final SQLException | IOException ex)
+    {
+      throw new PeppolReportingBackendException ("Failed to bulk import " + aChunk.size () + " Peppol Reporting items into SQL DB",
+                                                 ex);
+    }
+  }
+
+  /**
+   * Import a large number of reporting items at once, e.g. when migrating historical data from
+   * another backend. On PostgreSQL the items are written with <code>COPY ... FROM STDIN (FORMAT
+   * binary)</code> (if the PostgreSQL JDBC driver is present), on all other databases large JDBC
+   * batches are used. The items are committed in chunks of the configured size (see
+   * {@link #CONFIG_PEPPOL_REPORTING_SQL_BULK_IMPORT_CHUNK_SIZE}), so a failure leaves all previous
+   * chunks in the database. Reporting items with a document type that is not eligible for reporting
+   * are skipped.
+   * <p>
+   * If the rollup is enabled, it is rebuilt at the end for all days of the committed chunks, also if
+   * a later chunk failed. The current day (UTC) and later days are never rebuilt implicitly, so
+   * callers must not bulk import items of the live day. If they do anyway, they must call
+   * {@link #rebuildRollup(LocalDate, LocalDate)} for these days explicitly.
+   * </p>
+   *
+   * @param aItems
+   *        The reporting items to import. May not be <code>null</code>.
+   * @param aProgressConsumer
+   *        An optional consumer that is invoked after every committed chunk. May be
+   *        <code>null</code>.
+   * @return The final import status. Never <code>null</code>.
+   * @throws PeppolReportingBackendException
+   *         If a chunk could not be imported
+   * @throws IllegalStateException
+   *         If the backend is not initialized
+   * @since 4.2.1
+   */
+  @NonNull
+  public ReportingSqlBulkImportStatus bulkImportReportingItems (@NonNull final Iterable <? extends PeppolReportingItem> aItems,
+                                                                @Nullable final Consumer <? super ReportingSqlBulkImportStatus> aProgressConsumer) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aItems, "Items");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
+
+    LOGGER.info ("Starting bulk import of Peppol Reporting Items into SQL DB using " +
+                 (m_bUsePostgreSQLCopy ? "PostgreSQL COPY" : "JDBC batches"));
+
+    final long nStartNanos = System.nanoTime ();
+    final ICommonsList <PeppolReportingItem> aChunk = new CommonsArrayList <> (m_nBulkImportChunkSize);
+    long nImported = 0;
+    long nSkipped = 0;
+    // Days of the current chunk
+    LocalDate aChunkMinDay = null;
+    LocalDate aChunkMaxDay = null;
+    // Days of all committed chunks
+    LocalDate aMinDay = null;
+    LocalDate aMaxDay = null;
+    ReportingSqlBulkImportStatus aStatus = new ReportingSqlBulkImportStatus (0, 0, Duration.ZERO);
+    boolean bCompleted = false;
+    try
+    {
+      final Iterator <? extends PeppolReportingItem> it = aItems.iterator ();
+      while (it.hasNext ())
+      {
+        final PeppolReportingItem aItem = it.next ();
+        if (PeppolReportingHelper.isDocumentTypeEligableForReporting (aItem.getDocTypeIDScheme (),
+                                                                      aItem.getDocTypeIDValue ()))
+        {
+          aChunk.add (aItem);
+          final LocalDate aDay = aItem.getExchangeDTUTC ().toLocalDate ();
+          if (aChunkMinDay == null || aDay.isBefore (aChunkMinDay))
+            aChunkMinDay = aDay;
+          if (aChunkMaxDay == null || aDay.isAfter (aChunkMaxDay))
+            aChunkMaxDay = aDay;
+        }
+        else
+          nSkipped++;
+
+        if (aChunk.size () >= m_nBulkImportChunkSize || (!it.hasNext () && aChunk.isNotEmpty ()))
+        {
+          _bulkImportChunk (aChunk);
+          nImported += aChunk.size ();
+          aChunk.clear ();
+
+          // The chunk is committed
+          if (aMinDay == null || aChunkMinDay.isBefore (aMinDay))
+            aMinDay = aChunkMinDay;
+          if (aMaxDay == null || aChunkMaxDay.isAfter (aMaxDay))
+            aMaxDay = aChunkMaxDay;
+          aChunkMinDay = null;
+          aChunkMaxDay = null;
+
+          aStatus = new ReportingSqlBulkImportStatus (nImported,
+                                                      nSkipped,
+                                                      Duration.ofNanos (System.nanoTime () - nStartNanos));
+          if (LOGGER.isDebugEnabled ())
+            LOGGER.debug ("Bulk imported " + nImported + " Peppol Reporting Items so far");
+          if (aProgressConsumer != null)
+            aProgressConsumer.accept (aStatus);
+        }
+      }
+      bCompleted = true;
+    }
+    finally
+    {
+      if (m_aRollupMgr != null && aMinDay != null)
+      {
+        if (bCompleted)
+          _rebuildRollupAfterBulkImport (aMinDay, aMaxDay);
+        else
+        {
+          // Don't hide the original exception
+          try
+          {
+            _rebuildRollupAfterBulkImport (aMinDay, aMaxDay);
+          }
+          catch (final PeppolReportingBackendException | RuntimeException ex)
+          {
+            LOGGER.error ("Failed to rebuild the Peppol Reporting rollup after the failed bulk import", ex);
+          }
+        }
+      }
+    }
+
+    aStatus = new ReportingSqlBulkImportStatus (nImported, nSkipped, Duration.ofNanos (System.nanoTime () - nStartNanos));
+    LOGGER.info ("Finished bulk import of " +
+                 nImported +
+                 " Peppol Reporting Items into SQL DB in " +
+                 aStatus.getDuration ().toMillis () +
+                 " ms (" +
+                 Math.round (aStatus.getItemsPerSecond ()) +
+                 " items/s); " +
+                 nSkipped +
+                 " items were skipped");
+    return aStatus;
+  }
+
+  private void _rebuildRollupAfterBulkImport (@NonNull final LocalDate aMinDay,
+                                              @NonNull final LocalDate aMaxDay) throws PeppolReportingBackendException
+  {
+    // Never rebuild the live current day implicitly
+    final LocalDate aLastDay = LocalDate.now (ZoneOffset.UTC).minusDays (1);
+    if (aMaxDay.isAfter (aLastDay))
+      LOGGER.warn ("Bulk imported Peppol Reporting Items of the current day or later - the rollup of " +
+                   (aMinDay.isAfter (aLastDay) ? aMinDay : aLastDay.plusDays (1)) +
+                   " to " +
+                   aMaxDay +
+                   " is not rebuilt automatically");
+    if (!aMinDay.isAfter (aLastDay))
+      rebuildRollup (aMinDay, aMaxDay.isAfter (aLastDay) ? aLastDay : aMaxDay);
+  }
+
+  /**
+   * @return <code>true</code> if bulk imports use PostgreSQL <code>COPY</code> instead of JDBC
+   *         batches.
+   */
+  boolean isPostgreSQLCopyUsed ()
+  {
+    return m_aRWLock.readLockedBoolean ( () -> m_bUsePostgreSQLCopy);
+  }
+
+  /**
+   * Get a snapshot of the current connection pool statistics.
+   *
+   * @return The statistics and never <code>null</code>.
+   * @throws IllegalStateException
+   *         If the backend is not initialized
+   * @since 4.2.1
+   */
+  @NonNull
+  public ReportingSqlPoolStatistics getPoolStatistics ()
+  {
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
+
+    return m_aRWLock.readLockedGet ( () -> {
+      int nNumActive = -1;
+      int nNumIdle = -1;
+      int nMaxTotal = -1;
+      long nMaxWaitMillis = -1;
+      final DataSource aDS = m_aDSP.getDataSource ();
+      if (aDS instanceof final BasicDataSource aBDS)
+      {
+        nNumActive = aBDS.getNumActive ();
+        nNumIdle = aBDS.getNumIdle ();
+        nMaxTotal = aBDS.getMaxTotal ();
+        nMaxWaitMillis = aBDS.getMaxWaitDuration ().toMillis ();
+      }
+      return new ReportingSqlPoolStatistics (nNumActive,
+                                             nNumIdle,
+                                             nMaxTotal,
+                                             nMaxWaitMillis,
+                                             m_aTimedDS.getConnectionAcquireCount (),
+                                             m_aTimedDS.getConnectionAcquireMillisTotal (),
+                                             m_aTimedDS.getConnectionAcquireMillisMax ());
+    });
+  }
+
+  /**
+   * @return <code>true</code> if native monthly range partitioning is enabled and supported for the
+   *         configured database type.
+   * @since 4.2.1
+   */
+  public boolean isPartitioningEnabled ()
+  {
+    return m_aRWLock.readLockedBoolean ( () -> m_aPartitionMgr != null);
+  }
+
+  /**
+   * Drop all partitions containing only reporting items of months before the provided month. This
+   * is a very cheap way to implement a retention policy, compared to a <code>DELETE</code>
+   * statement. This only works if partitioning is enabled.
+   *
+   * @param aFirstMonthToKeep
+   *        The first month which should not be dropped. May not be <code>null</code>.
+   * @return The number of dropped partitions. Always &ge; 0.
+   * @throws IllegalStateException
+   *         If the backend is not initialized or if partitioning is not enabled
+   * @since 4.2.1
+   */
+  public int dropPartitionsBefore (@NonNull final YearMonth aFirstMonthToKeep)
+  {
+    ValueEnforcer.notNull (aFirstMonthToKeep, "FirstMonthToKeep");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
+    if (m_aPartitionMgr == null)
+      throw new IllegalStateException ("Peppol Reporting SQL partitioning is not enabled");
+
+    return m_aPartitionMgr.dropPartitionsBefore (_newExecutor (), aFirstMonthToKeep);
+  }
+
+  /**
+   * @return <code>true</code> if the daily rollup tables are enabled.
+   * @since 4.2.1
+   */
+  public boolean isRollupEnabled ()
+  {
+    return m_aRWLock.readLockedBoolean ( () -> m_aRollupMgr != null);
+  }
+
+  @NonNull
+  private ReportingSqlRollupManager _getRollupManager ()
+  {
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
+    final ReportingSqlRollupManager ret = m_aRollupMgr;
+    if (ret == null)
+      throw new IllegalStateException ("Peppol Reporting SQL rollup is not enabled");
+    return ret;
+  }
+
+  /**
+   * Iterate all daily TSR rollup entries of the provided date range. Summing up the counts of all
+   * entries results in the same numbers as iterating all raw reporting items, but needs to read
+   * only one row per day and unique dimension combination.
+   *
+   * @param aStartDateIncl
+   *        Start date inclusive. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        End date inclusive. May not be <code>null</code>.
+   * @param aConsumer
+   *        The consumer to be invoked for each entry. May not be <code>null</code>.
+   * @throws IllegalStateException
+   *         If the backend is not initialized or if the rollup is not enabled
+   * @since 4.2.1
+   */
+  public void forEachRollupDayEntry (@NonNull final LocalDate aStartDateIncl,
+                                     @NonNull final LocalDate aEndDateIncl,
+                                     @NonNull final Consumer <? super ReportingRollupDayEntry> aConsumer)
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    _getRollupManager ().forEachDayEntry (_newExecutor (), aStartDateIncl, aEndDateIncl, aConsumer);
+  }
+
+  /**
+   * Iterate all daily EUSR rollup entries of the provided date range. The same end user may occur
+   * on multiple days, so the consumer is responsible for counting distinct end users.
+   *
+   * @param aStartDateIncl
+   *        Start date inclusive. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        End date inclusive. May not be <code>null</code>.
+   * @param aConsumer
+   *        The consumer to be invoked for each entry. May not be <code>null</code>.
+   * @throws IllegalStateException
+   *         If the backend is not initialized or if the rollup is not enabled
+   * @since 4.2.1
+   */
+  public void forEachRollupEndUserEntry (@NonNull final LocalDate aStartDateIncl,
+                                         @NonNull final LocalDate aEndDateIncl,
+                                         @NonNull final Consumer <? super ReportingRollupEndUserEntry> aConsumer)
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    _getRollupManager ().forEachEndUserEntry (_newExecutor (), aStartDateIncl, aEndDateIncl, aConsumer);
+  }
+
+  /**
+   * Aggregate the raw reporting items of the provided date range into the same structure as the
+   * daily TSR rollup entries. This works without the rollup tables, but profits from the covering
+   * indexes, if enabled.
+   *
+   * @param aStartDateIncl
+   *        Start date inclusive. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        End date inclusive. May not be <code>null</code>.
+   * @param aConsumer
+   *        The consumer to be invoked for each entry. May not be <code>null</code>.
+   * @throws IllegalStateException
+   *         If the backend is not initialized
+   * @since 4.2.1
+   */
+  public void forEachAggregatedDayEntry (@NonNull final LocalDate aStartDateIncl,
+                                         @NonNull final LocalDate aEndDateIncl,
+                                         @NonNull final Consumer <? super ReportingRollupDayEntry> aConsumer)
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
+
+    m_aAggregator.forEachDayEntry (_newExecutor (), aStartDateIncl, aEndDateIncl, aConsumer);
+  }
+
+  /**
+   * Aggregate the raw reporting items of the provided date range into the same structure as the
+   * daily EUSR rollup entries. This works without the rollup tables, but profits from the covering
+   * indexes, if enabled.
+   *
+   * @param aStartDateIncl
+   *        Start date inclusive. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        End date inclusive. May not be <code>null</code>.
+   * @param aConsumer
+   *        The consumer to be invoked for each entry. May not be <code>null</code>.
+   * @throws IllegalStateException
+   *         If the backend is not initialized
+   * @since 4.2.1
+   */
+  public void forEachAggregatedEndUserEntry (@NonNull final LocalDate aStartDateIncl,
+                                             @NonNull final LocalDate aEndDateIncl,
+                                             @NonNull final Consumer <? super ReportingRollupEndUserEntry> aConsumer)
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
+
+    m_aAggregator.forEachEndUserEntry (_newExecutor (), aStartDateIncl, aEndDateIncl, aConsumer);
+  }
+
+  /**
+   * Recreate the daily rollup entries of the provided date range from the raw reporting items. This
+   * is required once, if the rollup is enabled on a database that already contains reporting
+   * items. Each day is rebuilt in a separate transaction, that first locks the rollup entries of
+   * the day, then reads the reporting items and finally replaces the rollup entries. Items that are
+   * stored concurrently wait for the lock, so that their rollup update is applied on top of the
+   * rebuilt entries. On H2 only the existing rollup entries can be locked, so the current day
+   * should only be rebuilt without concurrent writers.
+   *
+   * @param aStartDateIncl
+   *        Start date inclusive. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        End date inclusive. May not be <code>null</code>.
+   * @return The total number of processed reporting items. Always &ge; 0.
+   * @throws PeppolReportingBackendException
+   *         In case a day could not be rebuilt
+   * @throws IllegalStateException
+   *         If the backend is not initialized or if the rollup is not enabled
+   * @since 4.2.1
+   */
+  public long rebuildRollup (@NonNull final LocalDate aStartDateIncl,
+                             @NonNull final LocalDate aEndDateIncl) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+
+    final ReportingSqlRollupManager aRollupMgr = _getRollupManager ();
+    long nTotal = 0;
+    LocalDate aDay = aStartDateIncl;
+    while (aDay.compareTo (aEndDateIncl) <= 0)
+    {
+      final LocalDate aCurDay = aDay;
+      final DBExecutor aExecutor = _newExecutor ();
+      final long [] aCount = new long [1];
+      if (aExecutor.performInTransaction ( () -> {
+        aRollupMgr.lockDay (aExecutor, aCurDay);
+
+        // Read the items in the same transaction, after the lock was acquired
+        final ICommonsList <DBResultRow> aDBResult = aExecutor.queryAll (m_sSelectItemsSQL,
+                                                                         m_aAggregator.getDateRangeParams (aCurDay,
+                                                                                                           aCurDay));
+        if (aDBResult == null)
+          throw new IllegalStateException ("Failed to read the Peppol Reporting Items of " + aCurDay);
+        final ICommonsList <PeppolReportingItem> aItems = new CommonsArrayList <> (aDBResult.size ());
+        final ReportingSqlItemView aView = new ReportingSqlItemView ();
+        for (final DBResultRow aRow : aDBResult)
+        {
+          aView.setRow (aRow);
+          aItems.add (aView.getAsItem ());
+        }
+
+        aCount[0] = aRollupMgr.rebuildDay (aExecutor, aCurDay, aItems);
+      }).isFailure ())
+        throw new PeppolReportingBackendException ("Failed to rebuild Peppol Reporting rollup for " + aCurDay);
+      nTotal += aCount[0];
+      aDay = aDay.plusDays (1);
+    }
+    LOGGER.info ("Rebuilt Peppol Reporting rollup between " +
+                 aStartDateIncl +
+                 " and " +
+                 aEndDateIncl +
+                 " from " +
+                 nTotal +
+                 " reporting items");
+    return nTotal;
+  }
+
   @NonNull
   public Iterable <PeppolReportingItem> iterateReportingItems (@NonNull final LocalDate aStartDateIncl,
                                                                @NonNull final LocalDate aEndDateIncl) throws PeppolReportingBackendException
@@ -257,36 +1058,427 @@ public class PeppolReportingBackendSqlSPI implements IPeppolReportingBackendSPI
     if (!isInitialized ())
       throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
 
-    final ICommonsList <DBResultRow> aDBResult = _newExecutor ().queryAll ("SELECT exchangedt, sending, c2id, c3id, dtscheme, dtvalue, procscheme, procvalue, tp, c1cc, c4cc, enduserid" +
-                                                                           " FROM " +
-                                                                           m_sTableNamePrefix +
-                                                                           "peppol_reporting_item" +
-                                                                           " WHERE exchangedt >= ? AND exchangedt < ?",
-                                                                           new ConstantPreparedStatementDataProvider (DBValueHelper.toTimestamp (aStartDateIncl.atStartOfDay ()),
-                                                                                                                      DBValueHelper.toTimestamp (aEndDateIncl.plusDays (1)
-                                                                                                                                                             .atStartOfDay ())));
+    final ICommonsList <DBResultRow> aDBResult = _newExecutor ().queryAll (m_sSelectItemsSQL,
+                                                                           m_aAggregator.getDateRangeParams (aStartDateIncl,
+                                                                                                             aEndDateIncl));
 
     final ICommonsList <PeppolReportingItem> ret = new CommonsArrayList <> ();
     if (aDBResult != null)
+    {
+      final ReportingSqlItemView aView = new ReportingSqlItemView ();
       for (final DBResultRow aRow : aDBResult)
       {
-        ret.add (PeppolReportingItem.builder ()
-                                    .exchangeDateTimeInUTC (aRow.getAsLocalDateTime (0))
-                                    .direction (aRow.getAsBoolean (1) ? EReportingDirection.SENDING
-                                                                      : EReportingDirection.RECEIVING)
-                                    .c2ID (aRow.getAsString (2))
-                                    .c3ID (aRow.getAsString (3))
-                                    .docTypeIDScheme (aRow.getAsString (4))
-                                    .docTypeIDValue (aRow.getAsString (5))
-                                    .processIDScheme (aRow.getAsString (6))
-                                    .processIDValue (aRow.getAsString (7))
-                                    .transportProtocol (aRow.getAsString (8))
-                                    .c1CountryCode (aRow.getAsString (9))
-                                    .c4CountryCode (aRow.getAsString (10))
-                                    .endUserID (aRow.getAsString (11))
-                                    .build ());
+        aView.setRow (aRow);
+        ret.add (aView.getAsItem ());
       }
+    }
+
+    return ret;
+  }
 
+  /**
+   * Uses a range condition on the <code>exchangedt</code> column, that is stored in UTC.
+   */
+  @NonNull
+  public Iterable <PeppolReportingItem> iterateReportingItems (@NonNull final Instant aFromIncl,
+                                                               @NonNull final Instant aToExcl) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aFromIncl, "FromIncl");
+    ValueEnforcer.notNull (aToExcl, "ToExcl");
+    ValueEnforcer.isFalse ( () -> aToExcl.isBefore (aFromIncl), "ToExcl must be >= FromIncl");
+
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Querying Peppol Reporting Items from SQL DB between " + aFromIncl + " and " + aToExcl);
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
+
+    // Round to the precision of the stored items
+    final LocalDateTime aFrom = LocalDateTime.ofInstant (Instant.ofEpochMilli (PeppolReportingHelper.getCeilingEpochMillis (aFromIncl)),
+                                                         ZoneOffset.UTC);
+    final LocalDateTime aTo = LocalDateTime.ofInstant (Instant.ofEpochMilli (PeppolReportingHelper.getCeilingEpochMillis (aToExcl)),
+                                                       ZoneOffset.UTC);
+    final ICommonsList <DBResultRow> aDBResult = _newExecutor ().queryAll (m_sSelectItemsByInstantSQL,
+                                                                           new ConstantPreparedStatementDataProvider (DBValueHelper.toTimestamp (aFrom),
+                                                                                                                      DBValueHelper.toTimestamp (aTo)));
+
+    final ICommonsList <PeppolReportingItem> ret = new CommonsArrayList <> ();
+    if (aDBResult != null)
+    {
+      final ReportingSqlItemView aView = new ReportingSqlItemView ();
+      for (final DBResultRow aRow : aDBResult)
+      {
+        aView.setRow (aRow);
+        ret.add (aView.getAsItem ());
+      }
+    }
     return ret;
   }
+
+  /**
+   * Each subscription uses its own server side cursor with the maximum chunk size as JDBC fetch
+   * size. The connection is kept until the subscription ends.
+   */
+  @NonNull
+  public Flow.Publisher <PeppolReportingItem> publishReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                                                     @NonNull final LocalDate aEndDateIncl) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
+
+    final Object [] aParams = m_aAggregator.getDateRangeValues (aStartDateIncl, aEndDateIncl);
+    return new PeppolReportingItemPublisher (nMaxChunkSize -> ReportingSqlItemCursor.open (m_aItemWriter,
+                                                                                          m_sSelectItemsSQL,
+                                                                                          aParams,
+                                                                                          nMaxChunkSize));
+  }
+
+  /**
+   * Uses a <code>COUNT(*)</code> query, that can be answered from the indexes.
+   */
+  @Nonnegative
+  public long countReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                   @NonNull final LocalDate aEndDateIncl,
+                                   @Nullable final EReportingDirection eDirection) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
+
+    final Object [] aDateRangeValues = m_aAggregator.getDateRangeValues (aStartDateIncl, aEndDateIncl);
+    final ICommonsList <DBResultRow> aDBResult;
+    if (eDirection == null)
+      aDBResult = _newExecutor ().queryAll (m_sCountItemsSQL,
+                                            new ConstantPreparedStatementDataProvider (aDateRangeValues));
+    else
+      aDBResult = _newExecutor ().queryAll (m_sCountItemsByDirectionSQL,
+                                            new ConstantPreparedStatementDataProvider (aDateRangeValues[0],
+                                                                                       aDateRangeValues[1],
+                                                                                       Boolean.valueOf (eDirection.isSending ())));
+    if (aDBResult == null || aDBResult.isEmpty ())
+      throw new PeppolReportingBackendException ("Failed to count Peppol Reporting Items between " +
+                                                 aStartDateIncl +
+                                                 " and " +
+                                                 aEndDateIncl);
+    return aDBResult.getFirstOrNull ().getAsLong (0);
+  }
+
+  /**
+   * Keyset pagination on the exchange date time and the surrogate <code>id</code> column, using
+   * the <code>(exchangedt, id)</code> index. The continuation token contains the exchange date
+   * time in epoch milliseconds and the ID of the last returned row, so no page has to skip
+   * previously read rows.
+   */
+  @NonNull
+  public PeppolReportingItemPage readReportingItems (@NonNull final LocalDate aStartDateIncl,
+                                                     @NonNull final LocalDate aEndDateIncl,
+                                                     @Nonnegative final int nPageSize,
+                                                     @Nullable final String sContinuationToken) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    ValueEnforcer.isGT0 (nPageSize, "PageSize");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
+
+    final ICommonsList <Object> aParams = new CommonsArrayList <> ();
+    for (final Object aValue : m_aAggregator.getDateRangeValues (aStartDateIncl, aEndDateIncl))
+      aParams.add (aValue);
+    if (sContinuationToken != null)
+    {
+      // Token layout is "epochMillis:id"
+      final int nSep = sContinuationToken.indexOf (':');
+      try
+      {
+        if (nSep < 0)
+          throw new NumberFormatException ("Missing separator");
+        final long nTokenMillis = Long.parseLong (sContinuationToken.substring (0, nSep));
+        final long nTokenID = Long.parseLong (sContinuationToken.substring (nSep + 1));
+        final Object aLastDT = DBValueHelper.toTimestamp (LocalDateTime.ofInstant (Instant.ofEpochMilli (nTokenMillis),
+                                                                                   ZoneOffset.UTC));
+        aParams.add (aLastDT);
+        aParams.add (aLastDT);
+        aParams.add (Long.valueOf (nTokenID));
+      }
+      catch (final NumberFormatException ex)
+      {
+        throw new IllegalArgumentException ("Invalid continuation token '" + sContinuationToken + "' provided", ex);
+      }
+    }
+
+    final ICommonsList <PeppolReportingItem> ret = new CommonsArrayList <> (nPageSize);
+    long nLastID = 0;
+    try (final Connection aConnection = m_aItemWriter.getConnection ();
+         final PreparedStatement aPS = aConnection.prepareStatement (sContinuationToken == null ? m_sSelectFirstPageSQL
+                                                                                                : m_sSelectNextPageSQL))
+    {
+      for (int i = 0; i < aParams.size (); ++i)
+        aPS.setObject (i + 1, aParams.get (i));
+      // Read one more row, to know if there is a next page
+      aPS.setMaxRows (nPageSize + 1);
+      try (final ResultSet aRS = aPS.executeQuery ())
+      {
+        while (aRS.next ())
+        {
+          if (ret.size () == nPageSize)
+          {
+            // There is at least one more row
+            return new PeppolReportingItemPage (ret, ret.getLastOrNull ().getExchangeEpochMillis () + ":" + nLastID);
+          }
+          ret.add (ReportingSqlItemCursor.readItem (aRS));
+          nLastID = aRS.getLong (13);
+        }
+      }
+    }
+    catch (final SQLException ex)
+    {
+      throw new PeppolReportingBackendException ("Failed to read Peppol Reporting Items page from SQL DB", ex);
+    }
+    return PeppolReportingItemPage.createLastPage (ret);
+  }
+
+  /**
+   * The surrogate <code>id</code> column is the store sequence.
+   */
+  public boolean isStoreSequenceSupported ()
+  {
+    return true;
+  }
+
+  @Nonnegative
+  public long getCurrentStoreSequence () throws PeppolReportingBackendException
+  {
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
+
+    final ICommonsList <DBResultRow> aDBResult = _newExecutor ().queryAll (m_sMaxSequenceSQL);
+    if (aDBResult == null || aDBResult.isEmpty ())
+      throw new PeppolReportingBackendException ("Failed to determine the current Peppol Reporting store sequence");
+    return aDBResult.getFirstOrNull ().getAsLong (0);
+  }
+
+  /**
+   * The highest ID of the items stored before the settle time (see
+   * {@link #CONFIG_PEPPOL_REPORTING_SQL_STORE_SEQUENCE_SETTLE_SECONDS}). This requires that the IDs
+   * are assigned in increasing order, which is not the case for Oracle RAC sequences with
+   * <code>NOORDER</code>.
+   */
+  @Nonnegative
+  public long getSafeStoreSequence () throws PeppolReportingBackendException
+  {
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
+
+    final ICommonsList <DBResultRow> aDBResult = _newExecutor ().queryAll (m_sSafeSequenceSQL);
+    if (aDBResult == null || aDBResult.isEmpty ())
+      throw new PeppolReportingBackendException ("Failed to determine the safe Peppol Reporting store sequence");
+    return aDBResult.getFirstOrNull ().getAsLong (0);
+  }
+
+  /**
+   * Uses the index on the surrogate <code>id</code> column. If the batch is not full, the last
+   * sequence is the upper bound, so gaps of rolled back inserts are skipped.
+   */
+  @NonNull
+  public PeppolReportingChangeBatch iterateStoredSince (@Nonnegative final long nSequenceExcl,
+                                                        @Nonnegative final long nSequenceToIncl,
+                                                        @Nonnegative final int nMaxItems) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.isGE0 (nSequenceExcl, "SequenceExcl");
+    ValueEnforcer.isGE0 (nSequenceToIncl, "SequenceToIncl");
+    ValueEnforcer.isGT0 (nMaxItems, "MaxItems");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
+
+    final ICommonsList <PeppolReportingItem> ret = new CommonsArrayList <> ();
+    if (nSequenceToIncl <= nSequenceExcl)
+      return new PeppolReportingChangeBatch (ret, nSequenceExcl, false);
+
+    long nLastID = nSequenceExcl;
+    try (final Connection aConnection = m_aItemWriter.getConnection ();
+         final PreparedStatement aPS = aConnection.prepareStatement (m_sSelectStoredSinceSQL))
+    {
+      aPS.setLong (1, nSequenceExcl);
+      aPS.setLong (2, nSequenceToIncl);
+      // Read one more row, to know if there are more items
+      aPS.setMaxRows (nMaxItems + 1);
+      try (final ResultSet aRS = aPS.executeQuery ())
+      {
+        while (aRS.next ())
+        {
+          if (ret.size () == nMaxItems)
+            return new PeppolReportingChangeBatch (ret, nLastID, true);
+          ret.add (ReportingSqlItemCursor.readItem (aRS));
+          nLastID = aRS.getLong (13);
+        }
+      }
+    }
+    catch (final SQLException ex)
+    {
+      throw new PeppolReportingBackendException ("Failed to read stored Peppol Reporting Items from SQL DB", ex);
+    }
+    // All items up to the upper bound were read
+    return new PeppolReportingChangeBatch (ret, nSequenceToIncl, false);
+  }
+
+  public void forEachReportingItemView (@NonNull final LocalDate aStartDateIncl,
+                                        @NonNull final LocalDate aEndDateIncl,
+                                        @NonNull final Consumer <? super IPeppolReportingItemView> aConsumer) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Scanning Peppol Reporting Items from SQL DB between " + aStartDateIncl + " and " + aEndDateIncl);
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
+
+    // The result row object is reused by the executor, and so is the view
+    final ReportingSqlItemView aView = new ReportingSqlItemView ();
+    if (_newExecutor ().queryAll (m_sSelectItemsSQL,
+                                  m_aAggregator.getDateRangeParams (aStartDateIncl, aEndDateIncl),
+                                  aRow -> {
+                                    aView.setRow (aRow);
+                                    aConsumer.accept (aView);
+                                  })
+                       .isFailure ())
+      throw new PeppolReportingBackendException ("Failed to scan Peppol Reporting Items between " +
+                                                 aStartDateIncl +
+                                                 " and " +
+                                                 aEndDateIncl);
+  }
+
+  /**
+   * The batch is filled directly from the JDBC result set, with the fetch size set to the batch
+   * size.
+   */
+  public void forEachReportingItemBatch (@NonNull final LocalDate aStartDateIncl,
+                                         @NonNull final LocalDate aEndDateIncl,
+                                         @Nonnegative final int nBatchSize,
+                                         @NonNull final Consumer <? super PeppolReportingItemBatch> aConsumer) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
+
+    final PeppolReportingItemBatch aBatch = new PeppolReportingItemBatch (nBatchSize);
+    final ReportingSqlItemCursor aCursor = ReportingSqlItemCursor.open (m_aItemWriter,
+                                                                        m_sSelectItemsSQL,
+                                                                        m_aAggregator.getDateRangeValues (aStartDateIncl,
+                                                                                                          aEndDateIncl),
+                                                                        nBatchSize);
+    try
+    {
+      boolean bMore;
+      do
+      {
+        bMore = aCursor.readNextBatch (aBatch);
+        if (!aBatch.isEmpty ())
+        {
+          aConsumer.accept (aBatch);
+          aBatch.clear ();
+        }
+      } while (bMore);
+    }
+    finally
+    {
+      aCursor.close ();
+    }
+  }
+
+  /**
+   * The criteria are translated into the <code>WHERE</code> clause and only the projected columns
+   * are selected.
+   */
+  public void forEachReportingItemView (@NonNull final LocalDate aStartDateIncl,
+                                        @NonNull final LocalDate aEndDateIncl,
+                                        @NonNull final PeppolReportingItemQuery aQuery,
+                                        @NonNull final Consumer <? super IPeppolReportingItemView> aConsumer) throws PeppolReportingBackendException
+  {
+    ValueEnforcer.notNull (aStartDateIncl, "StartDateIncl");
+    ValueEnforcer.notNull (aEndDateIncl, "EndDateIncl");
+    ValueEnforcer.isTrue ( () -> aEndDateIncl.compareTo (aStartDateIncl) >= 0, "EndDateIncl must be >= StartDateIncl");
+    ValueEnforcer.notNull (aQuery, "Query");
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    if (!isInitialized ())
+      throw new IllegalStateException ("The Peppol Reporting SQL DB backend is not initialized");
+
+    // Select the projected columns in field order. The exchange date time and the direction are
+    // always selected, as every view needs them.
+    final EReportingItemField [] aFields = EReportingItemField.values ();
+    final int [] aColumnIndex = new int [aFields.length];
+    final StringBuilder aSB = new StringBuilder ("SELECT ");
+    int nColumns = 0;
+    for (final EReportingItemField eField : aFields)
+      if (eField.isAlwaysProjected () || aQuery.isProjected (eField))
+      {
+        if (nColumns > 0)
+          aSB.append (", ");
+        aSB.append (ReportingSqlItemView.getColumnName (eField));
+        aColumnIndex[eField.ordinal ()] = nColumns++;
+      }
+      else
+        aColumnIndex[eField.ordinal ()] = -1;
+    aSB.append (" FROM ")
+       .append (m_sTableNamePrefix)
+       .append ("peppol_reporting_item WHERE ")
+       .append (m_aAggregator.getDateRangeCondition ());
+
+    final ICommonsList <Object> aParams = new CommonsArrayList <> ();
+    for (final Object aValue : m_aAggregator.getDateRangeValues (aStartDateIncl, aEndDateIncl))
+      aParams.add (aValue);
+    for (final Map.Entry <EReportingItemField, String> aEntry : aQuery.getAllCriteria ().entrySet ())
+    {
+      final EReportingItemField eField = aEntry.getKey ();
+      aSB.append (" AND ").append (ReportingSqlItemView.getColumnName (eField)).append (" = ?");
+      if (eField == EReportingItemField.DIRECTION)
+        aParams.add (Boolean.valueOf (aQuery.getDirection ().isSending ()));
+      else
+      {
+        // Trimmed the same way as when storing the item
+        final int nMaxLength = ReportingSqlItemView.getMaxLength (eField);
+        aParams.add (nMaxLength < 0 ? aEntry.getValue ()
+                                    : DBValueHelper.getTrimmedToLength (aEntry.getValue (), nMaxLength));
+      }
+    }
+
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Querying Peppol Reporting Items from SQL DB between " +
+                    aStartDateIncl +
+                    " and " +
+                    aEndDateIncl +
+                    " using " +
+                    aQuery);
+
+    final ReportingSqlItemView aView = new ReportingSqlItemView (aColumnIndex);
+    if (_newExecutor ().queryAll (aSB.toString (),
+                                  new ConstantPreparedStatementDataProvider (aParams.toArray ()),
+                                  aRow -> {
+                                    aView.setRow (aRow);
+                                    aConsumer.accept (aView);
+                                  })
+                       .isFailure ())
+      throw new PeppolReportingBackendException ("Failed to query Peppol Reporting Items between " +
+                                                 aStartDateIncl +
+                                                 " and " +
+                                                 aEndDateIncl);
+  }
 }
@@ -18,6 +18,7 @@ package com.helger.peppol.reporting.backend.sql;
 
 import org.jspecify.annotations.NonNull;
 
+import com.helger.base.string.StringHelper;
 import com.helger.config.IConfig;
 import com.helger.db.flyway.FlywayConfigurationBuilderConfig;
 
@@ -30,9 +31,30 @@ import com.helger.db.flyway.FlywayConfigurationBuilderConfig;
 public class ReportingFlywayConfigurationBuilder extends FlywayConfigurationBuilderConfig
 {
   public static final String FLYWAY_CONFIG_PREFIX = "peppol.reporting.flyway.";
+  /** The Flyway default history table name */
+  public static final String DEFAULT_HISTORY_TABLE = "flyway_schema_history";
 
   public ReportingFlywayConfigurationBuilder (@NonNull final IConfig aConfig,
                                               @NonNull final ReportingJdbcConfiguration aJdbcConfig)
+  {
+    this (aConfig, aJdbcConfig, EReportingFlywayMigrationSet.BASE);
+  }
+
+  /**
+   * Constructor for a specific migration set. All opt-in migration sets use a separate history
+   * table, derived from the configured one.
+   *
+   * @param aConfig
+   *        The configuration to use. May not be <code>null</code>.
+   * @param aJdbcConfig
+   *        The JDBC configuration to fall back to. May not be <code>null</code>.
+   * @param eMigrationSet
+   *        The migration set to build the configuration for. May not be <code>null</code>.
+   * @since 4.2.1
+   */
+  public ReportingFlywayConfigurationBuilder (@NonNull final IConfig aConfig,
+                                              @NonNull final ReportingJdbcConfiguration aJdbcConfig,
+                                              @NonNull final EReportingFlywayMigrationSet eMigrationSet)
   {
     super (aConfig, FLYWAY_CONFIG_PREFIX);
 
@@ -43,5 +65,8 @@ public class ReportingFlywayConfigurationBuilder extends FlywayConfigurationBuil
       jdbcUser (aJdbcConfig.getJdbcUser ());
     if (jdbcPassword () == null)
       jdbcPassword (aJdbcConfig.getJdbcPassword ());
+
+    if (!eMigrationSet.isBase ())
+      historyTable (eMigrationSet.getHistoryTable (StringHelper.getNotEmpty (historyTable (), DEFAULT_HISTORY_TABLE)));
   }
 }
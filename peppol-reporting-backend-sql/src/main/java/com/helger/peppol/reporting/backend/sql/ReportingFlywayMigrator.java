@@ -50,14 +50,23 @@ final class ReportingFlywayMigrator
   void runFlyway (@NonNull final EDatabaseSystemType eDBType,
                   @NonNull final ReportingJdbcConfiguration aJdbcConfig,
                   @NonNull final FlywayConfiguration aFlywayConfig)
+  {
+    runFlyway (eDBType, aJdbcConfig, aFlywayConfig, EReportingFlywayMigrationSet.BASE);
+  }
+
+  void runFlyway (@NonNull final EDatabaseSystemType eDBType,
+                  @NonNull final ReportingJdbcConfiguration aJdbcConfig,
+                  @NonNull final FlywayConfiguration aFlywayConfig,
+                  @NonNull final EReportingFlywayMigrationSet eMigrationSet)
   {
     ValueEnforcer.notNull (eDBType, "DBType");
     ValueEnforcer.notNull (aJdbcConfig, "JdbcConfig");
     ValueEnforcer.notNull (aFlywayConfig, "FlywayConfig");
+    ValueEnforcer.notNull (eMigrationSet, "MigrationSet");
 
     FlywayMigrationRunner.runFlyway (aJdbcConfig,
                                      aFlywayConfig,
-                                     "db/reporting-" + eDBType.getID (),
+                                     eMigrationSet.getLocation (eDBType),
                                      (JavaMigration []) null,
                                      (Callback []) null);
   }
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.postgresql.PGConnection;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * This class has the sole purpose of encapsulating the org.postgresql classes, so that the
+ * PostgreSQL JDBC driver is only needed if the PostgreSQL bulk import is used. It writes reporting
+ * items with <code>COPY ... FROM STDIN (FORMAT binary)</code>.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+final class ReportingPostgreSQLCopyWriter
+{
+  // Indirection level to not load org.postgresql classes by default
+  @Immutable
+  public static final class Singleton
+  {
+    static final ReportingPostgreSQLCopyWriter INSTANCE = new ReportingPostgreSQLCopyWriter ();
+
+    private Singleton ()
+    {}
+  }
+
+  private static final byte [] COPY_SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0 };
+  // PostgreSQL timestamps are microseconds since 2000-01-01
+  private static final LocalDateTime PG_EPOCH = LocalDateTime.of (2000, 1, 1, 0, 0);
+
+  private ReportingPostgreSQLCopyWriter ()
+  {}
+
+  private static void _writeString (@NonNull final DataOutputStream aDOS, @Nullable final String s) throws IOException
+  {
+    if (s == null)
+      aDOS.writeInt (-1);
+    else
+    {
+      final byte [] aBytes = s.getBytes (StandardCharsets.UTF_8);
+      aDOS.writeInt (aBytes.length);
+      aDOS.write (aBytes);
+    }
+  }
+
+  /**
+   * Create the binary COPY representation of the provided items.
+   *
+   * @param aItems
+   *        The items to encode. May not be <code>null</code>.
+   * @return The encoded bytes. Never <code>null</code>.
+   * @throws IOException
+   *         In case of an internal error
+   */
+  @NonNull
+  static byte [] getBinaryCopyData (@NonNull final List <? extends PeppolReportingItem> aItems) throws IOException
+  {
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream (aItems.size () * 256);
+    try (final DataOutputStream aDOS = new DataOutputStream (aBAOS))
+    {
+      // Header: signature, flags and header extension length
+      aDOS.write (COPY_SIGNATURE);
+      aDOS.writeInt (0);
+      aDOS.writeInt (0);
+
+      for (final PeppolReportingItem aItem : aItems)
+      {
+        final Object [] aValues = ReportingSqlItemWriter.getItemValues (aItem);
+        aDOS.writeShort (ReportingSqlItemWriter.ITEM_COLUMN_COUNT);
+
+        // exchangedt as timestamp
+        aDOS.writeInt (8);
+        aDOS.writeLong (ChronoUnit.MICROS.between (PG_EPOCH, aItem.getExchangeDTUTC ().toLocalDateTime ()));
+
+        // sending as boolean
+        aDOS.writeInt (1);
+        aDOS.writeByte (aItem.isSending () ? 1 : 0);
+
+        // All the rest are strings
+        for (int i = 2; i < aValues.length; ++i)
+          _writeString (aDOS, (String) aValues[i]);
+      }
+
+      // Trailer
+      aDOS.writeShort (-1);
+    }
+    return aBAOS.toByteArray ();
+  }
+
+  /**
+   * Copy all provided items into the reporting item table.
+   *
+   * @param aConnection
+   *        The JDBC connection to use. Must be a PostgreSQL connection, potentially wrapped by a
+   *        connection pool. May not be <code>null</code>.
+   * @param sTableNamePrefix
+   *        The table name prefix to use. May not be <code>null</code>.
+   * @param aItems
+   *        The items to copy. May not be <code>null</code>.
+   * @return The number of rows copied.
+   * @throws SQLException
+   *         On DB error
+   * @throws IOException
+   *         On encoding error
+   */
+  long copyItems (@NonNull final Connection aConnection,
+                  @NonNull final String sTableNamePrefix,
+                  @NonNull final List <? extends PeppolReportingItem> aItems) throws SQLException, IOException
+  {
+    ValueEnforcer.notNull (aConnection, "Connection");
+    ValueEnforcer.notNull (sTableNamePrefix, "TableNamePrefix");
+    ValueEnforcer.notNull (aItems, "Items");
+
+    final PGConnection aPGConnection = aConnection.unwrap (PGConnection.class);
+    final String sSQL = "COPY " +
+                        sTableNamePrefix +
+                        "peppol_reporting_item (" +
+                        ReportingSqlItemWriter.ITEM_COLUMNS +
+                        ") FROM STDIN (FORMAT binary)";
+    return aPGConnection.getCopyAPI ().copyIn (sSQL, new ByteArrayInputStream (getBinaryCopyData (aItems)));
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import java.time.LocalDate;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+
+/**
+ * A single row of the daily TSR rollup table. It contains the number of transactions exchanged on a
+ * single day for a unique combination of all TSR dimensions.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@Immutable
+public final class ReportingRollupDayEntry
+{
+  private final LocalDate m_aDay;
+  private final boolean m_bSending;
+  private final String m_sOtherServiceProviderID;
+  private final String m_sDocTypeIDScheme;
+  private final String m_sDocTypeIDValue;
+  private final String m_sProcessIDScheme;
+  private final String m_sProcessIDValue;
+  private final String m_sTransportProtocol;
+  private final String m_sC1CountryCode;
+  private final String m_sC4CountryCode;
+  private final long m_nCount;
+
+  public ReportingRollupDayEntry (@NonNull final LocalDate aDay,
+                                  final boolean bSending,
+                                  @NonNull final String sOtherServiceProviderID,
+                                  @NonNull final String sDocTypeIDScheme,
+                                  @NonNull final String sDocTypeIDValue,
+                                  @NonNull final String sProcessIDScheme,
+                                  @NonNull final String sProcessIDValue,
+                                  @NonNull final String sTransportProtocol,
+                                  @NonNull final String sC1CountryCode,
+                                  @Nullable final String sC4CountryCode,
+                                  final long nCount)
+  {
+    ValueEnforcer.notNull (aDay, "Day");
+    ValueEnforcer.notNull (sOtherServiceProviderID, "OtherServiceProviderID");
+    ValueEnforcer.notNull (sDocTypeIDScheme, "DocTypeIDScheme");
+    ValueEnforcer.notNull (sDocTypeIDValue, "DocTypeIDValue");
+    ValueEnforcer.notNull (sProcessIDScheme, "ProcessIDScheme");
+    ValueEnforcer.notNull (sProcessIDValue, "ProcessIDValue");
+    ValueEnforcer.notNull (sTransportProtocol, "TransportProtocol");
+    ValueEnforcer.notNull (sC1CountryCode, "C1CountryCode");
+    ValueEnforcer.isGE0 (nCount, "Count");
+    m_aDay = aDay;
+    m_bSending = bSending;
+    m_sOtherServiceProviderID = sOtherServiceProviderID;
+    m_sDocTypeIDScheme = sDocTypeIDScheme;
+    m_sDocTypeIDValue = sDocTypeIDValue;
+    m_sProcessIDScheme = sProcessIDScheme;
+    m_sProcessIDValue = sProcessIDValue;
+    m_sTransportProtocol = sTransportProtocol;
+    m_sC1CountryCode = sC1CountryCode;
+    m_sC4CountryCode = sC4CountryCode;
+    m_nCount = nCount;
+  }
+
+  /**
+   * @return The UTC day of the exchange. Never <code>null</code>.
+   */
+  @NonNull
+  public LocalDate getDay ()
+  {
+    return m_aDay;
+  }
+
+  public boolean isSending ()
+  {
+    return m_bSending;
+  }
+
+  public boolean isReceiving ()
+  {
+    return !m_bSending;
+  }
+
+  /**
+   * @return C3 ID for sending, C2 ID for receiving. Never <code>null</code>.
+   */
+  @NonNull
+  public String getOtherServiceProviderID ()
+  {
+    return m_sOtherServiceProviderID;
+  }
+
+  @NonNull
+  public String getDocTypeIDScheme ()
+  {
+    return m_sDocTypeIDScheme;
+  }
+
+  @NonNull
+  public String getDocTypeIDValue ()
+  {
+    return m_sDocTypeIDValue;
+  }
+
+  @NonNull
+  public String getProcessIDScheme ()
+  {
+    return m_sProcessIDScheme;
+  }
+
+  @NonNull
+  public String getProcessIDValue ()
+  {
+    return m_sProcessIDValue;
+  }
+
+  @NonNull
+  public String getTransportProtocol ()
+  {
+    return m_sTransportProtocol;
+  }
+
+  @NonNull
+  public String getC1CountryCode ()
+  {
+    return m_sC1CountryCode;
+  }
+
+  @Nullable
+  public String getC4CountryCode ()
+  {
+    return m_sC4CountryCode;
+  }
+
+  /**
+   * @return The number of transactions of this day with exactly these dimensions. Always &ge; 0.
+   */
+  public long getCount ()
+  {
+    return m_nCount;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Day", m_aDay)
+                                       .append ("Sending", m_bSending)
+                                       .append ("OtherServiceProviderID", m_sOtherServiceProviderID)
+                                       .append ("DocTypeIDScheme", m_sDocTypeIDScheme)
+                                       .append ("DocTypeIDValue", m_sDocTypeIDValue)
+                                       .append ("ProcessIDScheme", m_sProcessIDScheme)
+                                       .append ("ProcessIDValue", m_sProcessIDValue)
+                                       .append ("TransportProtocol", m_sTransportProtocol)
+                                       .append ("C1CountryCode", m_sC1CountryCode)
+                                       .append ("C4CountryCode", m_sC4CountryCode)
+                                       .append ("Count", m_nCount)
+                                       .getToString ();
+  }
+}
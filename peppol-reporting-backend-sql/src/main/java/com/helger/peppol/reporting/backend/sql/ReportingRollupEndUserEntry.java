@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import java.time.LocalDate;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+
+/**
+ * A single row of the daily EUSR rollup table. It states that a specific end user was involved in
+ * at least one exchange on a single day with a unique combination of all EUSR dimensions.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@Immutable
+public final class ReportingRollupEndUserEntry
+{
+  private final LocalDate m_aDay;
+  private final boolean m_bSending;
+  private final String m_sDocTypeIDScheme;
+  private final String m_sDocTypeIDValue;
+  private final String m_sProcessIDScheme;
+  private final String m_sProcessIDValue;
+  private final String m_sEndUserCountryCode;
+  private final String m_sEndUserID;
+
+  public ReportingRollupEndUserEntry (@NonNull final LocalDate aDay,
+                                      final boolean bSending,
+                                      @NonNull final String sDocTypeIDScheme,
+                                      @NonNull final String sDocTypeIDValue,
+                                      @NonNull final String sProcessIDScheme,
+                                      @NonNull final String sProcessIDValue,
+                                      @Nullable final String sEndUserCountryCode,
+                                      @NonNull final String sEndUserID)
+  {
+    ValueEnforcer.notNull (aDay, "Day");
+    ValueEnforcer.notNull (sDocTypeIDScheme, "DocTypeIDScheme");
+    ValueEnforcer.notNull (sDocTypeIDValue, "DocTypeIDValue");
+    ValueEnforcer.notNull (sProcessIDScheme, "ProcessIDScheme");
+    ValueEnforcer.notNull (sProcessIDValue, "ProcessIDValue");
+    ValueEnforcer.notNull (sEndUserID, "EndUserID");
+    m_aDay = aDay;
+    m_bSending = bSending;
+    m_sDocTypeIDScheme = sDocTypeIDScheme;
+    m_sDocTypeIDValue = sDocTypeIDValue;
+    m_sProcessIDScheme = sProcessIDScheme;
+    m_sProcessIDValue = sProcessIDValue;
+    m_sEndUserCountryCode = sEndUserCountryCode;
+    m_sEndUserID = sEndUserID;
+  }
+
+  /**
+   * @return The UTC day of the exchange. Never <code>null</code>.
+   */
+  @NonNull
+  public LocalDate getDay ()
+  {
+    return m_aDay;
+  }
+
+  public boolean isSending ()
+  {
+    return m_bSending;
+  }
+
+  @NonNull
+  public String getDocTypeIDScheme ()
+  {
+    return m_sDocTypeIDScheme;
+  }
+
+  @NonNull
+  public String getDocTypeIDValue ()
+  {
+    return m_sDocTypeIDValue;
+  }
+
+  @NonNull
+  public String getProcessIDScheme ()
+  {
+    return m_sProcessIDScheme;
+  }
+
+  @NonNull
+  public String getProcessIDValue ()
+  {
+    return m_sProcessIDValue;
+  }
+
+  /**
+   * @return C1 country code for sending, C4 country code for receiving. May be <code>null</code>.
+   */
+  @Nullable
+  public String getEndUserCountryCode ()
+  {
+    return m_sEndUserCountryCode;
+  }
+
+  @NonNull
+  public String getEndUserID ()
+  {
+    return m_sEndUserID;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Day", m_aDay)
+                                       .append ("Sending", m_bSending)
+                                       .append ("DocTypeIDScheme", m_sDocTypeIDScheme)
+                                       .append ("DocTypeIDValue", m_sDocTypeIDValue)
+                                       .append ("ProcessIDScheme", m_sProcessIDScheme)
+                                       .append ("ProcessIDValue", m_sProcessIDValue)
+                                       .append ("EndUserCountryCode", m_sEndUserCountryCode)
+                                       .append ("EndUserID", m_sEndUserID)
+                                       .getToString ();
+  }
+}
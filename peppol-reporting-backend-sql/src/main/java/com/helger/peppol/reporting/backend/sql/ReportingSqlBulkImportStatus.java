@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import java.time.Duration;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+
+/**
+ * The progress respectively the final result of a bulk import into the SQL backend.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@Immutable
+public final class ReportingSqlBulkImportStatus
+{
+  private final long m_nImportedCount;
+  private final long m_nSkippedCount;
+  private final Duration m_aDuration;
+
+  public ReportingSqlBulkImportStatus (final long nImportedCount,
+                                       final long nSkippedCount,
+                                       @NonNull final Duration aDuration)
+  {
+    ValueEnforcer.isGE0 (nImportedCount, "ImportedCount");
+    ValueEnforcer.isGE0 (nSkippedCount, "SkippedCount");
+    ValueEnforcer.notNull (aDuration, "Duration");
+    m_nImportedCount = nImportedCount;
+    m_nSkippedCount = nSkippedCount;
+    m_aDuration = aDuration;
+  }
+
+  /**
+   * @return The number of reporting items imported so far. Always &ge; 0.
+   */
+  public long getImportedCount ()
+  {
+    return m_nImportedCount;
+  }
+
+  /**
+   * @return The number of reporting items skipped so far, because the document type is not eligible
+   *         for reporting. Always &ge; 0.
+   */
+  public long getSkippedCount ()
+  {
+    return m_nSkippedCount;
+  }
+
+  /**
+   * @return The time elapsed since the start of the import. Never <code>null</code>.
+   */
+  @NonNull
+  public Duration getDuration ()
+  {
+    return m_aDuration;
+  }
+
+  /**
+   * @return The average number of imported reporting items per second. Always &ge; 0.
+   */
+  public double getItemsPerSecond ()
+  {
+    final long nMillis = m_aDuration.toMillis ();
+    return nMillis <= 0 ? 0 : m_nImportedCount * 1000d / nMillis;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("ImportedCount", m_nImportedCount)
+                                       .append ("SkippedCount", m_nSkippedCount)
+                                       .append ("Duration", m_aDuration)
+                                       .getToString ();
+  }
+}
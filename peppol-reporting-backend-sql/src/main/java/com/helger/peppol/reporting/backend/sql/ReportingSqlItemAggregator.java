@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.db.api.EDatabaseSystemType;
+import com.helger.db.api.helper.DBValueHelper;
+import com.helger.db.jdbc.callback.ConstantPreparedStatementDataProvider;
+import com.helger.db.jdbc.callback.IPreparedStatementDataProvider;
+import com.helger.db.jdbc.executor.DBExecutor;
+import com.helger.db.jdbc.executor.DBResultRow;
+
+/**
+ * Aggregating queries on the raw <code>peppol_reporting_item</code> table, that return the same
+ * data structures as the rollup tables. If the covering indexes are enabled (see
+ * {@link EReportingFlywayMigrationSet#COVERING}), the <code>exchangedate</code> column is used, so
+ * that the queries can be answered from the indexes. Otherwise the date is calculated on the fly.
+ * All SQL statements are created once in the constructor.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@Immutable
+final class ReportingSqlItemAggregator
+{
+  private static final String TSR_COLUMNS = "sending, c2id, c3id, dtscheme, dtvalue, procscheme, procvalue, tp, c1cc, c4cc";
+  private static final String EUSR_COLUMNS = "sending, dtscheme, dtvalue, procscheme, procvalue, c1cc, c4cc, enduserid";
+
+  private final boolean m_bCovering;
+  private final String m_sDateRangeCondition;
+  private final String m_sTSRSQL;
+  private final String m_sEUSRSQL;
+
+  ReportingSqlItemAggregator (@NonNull final EDatabaseSystemType eDBType,
+                              @NonNull final String sTableNamePrefix,
+                              final boolean bCovering)
+  {
+    ValueEnforcer.notNull (eDBType, "DBType");
+    ValueEnforcer.notNull (sTableNamePrefix, "TableNamePrefix");
+
+    m_bCovering = bCovering;
+    final String sDate = bCovering ? "exchangedate" : getExchangeDateExpression (eDBType);
+    m_sDateRangeCondition = bCovering ? "exchangedate >= ? AND exchangedate <= ?"
+                                      : "exchangedt >= ? AND exchangedt < ?";
+    final String sTable = sTableNamePrefix + "peppol_reporting_item";
+    m_sTSRSQL = "SELECT " +
+                sDate +
+                ", " +
+                TSR_COLUMNS +
+                ", COUNT(*) FROM " +
+                sTable +
+                " WHERE " +
+                m_sDateRangeCondition +
+                " GROUP BY " +
+                sDate +
+                ", " +
+                TSR_COLUMNS;
+    m_sEUSRSQL = "SELECT DISTINCT " + sDate + ", " + EUSR_COLUMNS + " FROM " + sTable + " WHERE " + m_sDateRangeCondition;
+  }
+
+  /**
+   * @param eDBType
+   *        Database type. May not be <code>null</code>.
+   * @return The SQL expression to extract the date of the <code>exchangedt</code> column.
+   */
+  @NonNull
+  @Nonempty
+  static String getExchangeDateExpression (@NonNull final EDatabaseSystemType eDBType)
+  {
+    switch (eDBType)
+    {
+      case ORACLE:
+        // Casting a timestamp to date keeps the time in Oracle
+        return "TRUNC(exchangedt)";
+      case DB2:
+        return "DATE(exchangedt)";
+      default:
+        return "CAST(exchangedt AS date)";
+    }
+  }
+
+  /**
+   * @return The SQL condition selecting all items of a date range. Use
+   *         {@link #getDateRangeParams(LocalDate, LocalDate)} to get the matching parameters.
+   */
+  @NonNull
+  @Nonempty
+  String getDateRangeCondition ()
+  {
+    return m_sDateRangeCondition;
+  }
+
+  /**
+   * @param aStartDateIncl
+   *        Start date inclusive. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        End date inclusive. May not be <code>null</code>.
+   * @return The parameter values for {@link #getDateRangeCondition()}, for direct use with JDBC.
+   */
+  @NonNull
+  Object [] getDateRangeValues (@NonNull final LocalDate aStartDateIncl, @NonNull final LocalDate aEndDateIncl)
+  {
+    if (m_bCovering)
+      return new Object [] { Date.valueOf (aStartDateIncl), Date.valueOf (aEndDateIncl) };
+    return new Object [] { DBValueHelper.toTimestamp (aStartDateIncl.atStartOfDay ()),
+                           DBValueHelper.toTimestamp (aEndDateIncl.plusDays (1).atStartOfDay ()) };
+  }
+
+  /**
+   * @param aStartDateIncl
+   *        Start date inclusive. May not be <code>null</code>.
+   * @param aEndDateIncl
+   *        End date inclusive. May not be <code>null</code>.
+   * @return The parameters for {@link #getDateRangeCondition()}.
+   */
+  @NonNull
+  IPreparedStatementDataProvider getDateRangeParams (@NonNull final LocalDate aStartDateIncl,
+                                                     @NonNull final LocalDate aEndDateIncl)
+  {
+    return new ConstantPreparedStatementDataProvider (getDateRangeValues (aStartDateIncl, aEndDateIncl));
+  }
+
+  void forEachDayEntry (@NonNull final DBExecutor aExecutor,
+                        @NonNull final LocalDate aStartDateIncl,
+                        @NonNull final LocalDate aEndDateIncl,
+                        @NonNull final Consumer <? super ReportingRollupDayEntry> aConsumer)
+  {
+    final ICommonsList <DBResultRow> aRows = aExecutor.queryAll (m_sTSRSQL,
+                                                                 getDateRangeParams (aStartDateIncl, aEndDateIncl));
+    if (aRows != null)
+      for (final DBResultRow aRow : aRows)
+      {
+        final boolean bSending = aRow.getAsBoolean (1);
+        aConsumer.accept (new ReportingRollupDayEntry (aRow.getAsLocalDate (0),
+                                                       bSending,
+                                                       // Other SP
+                                                       aRow.getAsString (bSending ? 3 : 2),
+                                                       aRow.getAsString (4),
+                                                       aRow.getAsString (5),
+                                                       aRow.getAsString (6),
+                                                       aRow.getAsString (7),
+                                                       aRow.getAsString (8),
+                                                       aRow.getAsString (9),
+                                                       aRow.getAsString (10),
+                                                       aRow.getAsLong (11)));
+      }
+  }
+
+  void forEachEndUserEntry (@NonNull final DBExecutor aExecutor,
+                            @NonNull final LocalDate aStartDateIncl,
+                            @NonNull final LocalDate aEndDateIncl,
+                            @NonNull final Consumer <? super ReportingRollupEndUserEntry> aConsumer)
+  {
+    final ICommonsList <DBResultRow> aRows = aExecutor.queryAll (m_sEUSRSQL,
+                                                                 getDateRangeParams (aStartDateIncl, aEndDateIncl));
+    if (aRows != null)
+      for (final DBResultRow aRow : aRows)
+      {
+        final boolean bSending = aRow.getAsBoolean (1);
+        aConsumer.accept (new ReportingRollupEndUserEntry (aRow.getAsLocalDate (0),
+                                                           bSending,
+                                                           aRow.getAsString (2),
+                                                           aRow.getAsString (3),
+                                                           aRow.getAsString (4),
+                                                           aRow.getAsString (5),
+                                                           // End user country: C1 or C4
+                                                           aRow.getAsString (bSending ? 6 : 7),
+                                                           aRow.getAsString (8)));
+      }
+  }
+}
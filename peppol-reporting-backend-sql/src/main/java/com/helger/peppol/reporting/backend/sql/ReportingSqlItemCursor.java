@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.ZoneOffset;
+
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.api.PeppolReportingItemBatch;
+import com.helger.peppol.reporting.api.backend.PeppolReportingBackendException;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemPublisher;
+
+/**
+ * A server side cursor over the reporting item select statement, that reads the rows in chunks.
+ * The JDBC fetch size is set to the maximum chunk size, so that the driver only transfers the rows
+ * that are requested. The connection is kept open until the cursor is closed. The column order
+ * must match the select statement of {@link PeppolReportingBackendSqlSPI}.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@NotThreadSafe
+final class ReportingSqlItemCursor implements PeppolReportingItemPublisher.IChunkSource
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (ReportingSqlItemCursor.class);
+
+  private final Connection m_aConnection;
+  private final boolean m_bOldAutoCommit;
+  private final PreparedStatement m_aPS;
+  private final ResultSet m_aRS;
+
+  private ReportingSqlItemCursor (@NonNull final Connection aConnection,
+                                  final boolean bOldAutoCommit,
+                                  @NonNull final PreparedStatement aPS,
+                                  @NonNull final ResultSet aRS)
+  {
+    m_aConnection = aConnection;
+    m_bOldAutoCommit = bOldAutoCommit;
+    m_aPS = aPS;
+    m_aRS = aRS;
+  }
+
+  /**
+   * Open a new cursor.
+   *
+   * @param aWriter
+   *        The item writer to obtain the connection from. May not be <code>null</code>.
+   * @param sSelectSQL
+   *        The select statement. May not be <code>null</code>.
+   * @param aParams
+   *        The parameter values of the select statement. May not be <code>null</code>.
+   * @param nFetchSize
+   *        The JDBC fetch size to use. Must be &gt; 0.
+   * @return The new cursor. Never <code>null</code>.
+   * @throws PeppolReportingBackendException
+   *         if the query could not be executed
+   */
+  @NonNull
+  static ReportingSqlItemCursor open (@NonNull final ReportingSqlItemWriter aWriter,
+                                      @NonNull final String sSelectSQL,
+                                      @NonNull final Object [] aParams,
+                                      @Nonnegative final int nFetchSize) throws PeppolReportingBackendException
+  {
+    Connection aConnection = null;
+    try
+    {
+      aConnection = aWriter.getConnection ();
+      // PostgreSQL only uses a server side cursor outside of auto-commit mode
+      final boolean bOldAutoCommit = aConnection.getAutoCommit ();
+      if (bOldAutoCommit)
+        aConnection.setAutoCommit (false);
+
+      final PreparedStatement aPS = aConnection.prepareStatement (sSelectSQL,
+                                                                  ResultSet.TYPE_FORWARD_ONLY,
+                                                                  ResultSet.CONCUR_READ_ONLY);
+      try
+      {
+        for (int i = 0; i < aParams.length; ++i)
+          aPS.setObject (i + 1, aParams[i]);
+        aPS.setFetchSize (nFetchSize);
+        return new ReportingSqlItemCursor (aConnection, bOldAutoCommit, aPS, aPS.executeQuery ());
+      }
+      catch (final SQLException ex)
+      {
+        aPS.close ();
+        if (bOldAutoCommit)
+          aConnection.setAutoCommit (true);
+        throw ex;
+      }
+    }
+    catch (final SQLException ex)
+    {
+      if (aConnection != null)
+      {
+        try
+        {
+          aConnection.close ();
+        }
+        catch (final SQLException ex2)
+        {
+          LOGGER.warn ("Failed to close SQL connection", ex2);
+        }
+      }
+      throw new PeppolReportingBackendException ("Failed to query Peppol Reporting Items from SQL DB", ex);
+    }
+  }
+
+  /**
+   * Read the reporting item from the current row of the provided result set. The first columns
+   * must be the ones of {@link ReportingSqlItemWriter#ITEM_COLUMNS} in that order.
+   *
+   * @param aRS
+   *        The result set positioned on a row. May not be <code>null</code>.
+   * @return The reporting item. Never <code>null</code>.
+   * @throws SQLException
+   *         on error
+   */
+  @NonNull
+  static PeppolReportingItem readItem (@NonNull final ResultSet aRS) throws SQLException
+  {
+    // All mandatory columns are declared NOT NULL, so no need to re-validate
+    return PeppolReportingItem.createTrusted (aRS.getTimestamp (1)
+                                                 .toLocalDateTime ()
+                                                 .toInstant (ZoneOffset.UTC)
+                                                 .toEpochMilli (),
+                                              aRS.getBoolean (2) ? EReportingDirection.SENDING
+                                                                 : EReportingDirection.RECEIVING,
+                                              aRS.getString (3),
+                                              aRS.getString (4),
+                                              aRS.getString (5),
+                                              aRS.getString (6),
+                                              aRS.getString (7),
+                                              aRS.getString (8),
+                                              aRS.getString (9),
+                                              aRS.getString (10),
+                                              aRS.getString (11),
+                                              aRS.getString (12));
+  }
+
+  /**
+   * Fill the provided batch directly from the result set, without creating item objects.
+   *
+   * @param aBatch
+   *        The empty batch to fill. May not be <code>null</code>.
+   * @return <code>true</code> if the batch was filled completely and more rows may follow,
+   *         <code>false</code> if the end of the result set was reached.
+   * @throws PeppolReportingBackendException
+   *         on error
+   */
+  boolean readNextBatch (@NonNull final PeppolReportingItemBatch aBatch) throws PeppolReportingBackendException
+  {
+    try
+    {
+      while (!aBatch.isFull ())
+      {
+        if (!m_aRS.next ())
+          return false;
+        aBatch.add (m_aRS.getTimestamp (1).toLocalDateTime ().toInstant (ZoneOffset.UTC).toEpochMilli (),
+                    !m_aRS.getBoolean (2),
+                    m_aRS.getString (3),
+                    m_aRS.getString (4),
+                    m_aRS.getString (5),
+                    m_aRS.getString (6),
+                    m_aRS.getString (7),
+                    m_aRS.getString (8),
+                    m_aRS.getString (9),
+                    m_aRS.getString (10),
+                    m_aRS.getString (11),
+                    m_aRS.getString (12));
+      }
+      return true;
+    }
+    catch (final SQLException ex)
+    {
+      throw new PeppolReportingBackendException ("Failed to read Peppol Reporting Items from SQL DB", ex);
+    }
+  }
+
+  @NonNull
+  public ICommonsList <PeppolReportingItem> readNextChunk (@Nonnegative final int nMaxItems) throws PeppolReportingBackendException
+  {
+    final ICommonsList <PeppolReportingItem> ret = new CommonsArrayList <> (nMaxItems);
+    try
+    {
+      while (ret.size () < nMaxItems && m_aRS.next ())
+        ret.add (readItem (m_aRS));
+    }
+    catch (final SQLException ex)
+    {
+      throw new PeppolReportingBackendException ("Failed to read Peppol Reporting Items from SQL DB", ex);
+    }
+    return ret;
+  }
+
+  public void close () throws PeppolReportingBackendException
+  {
+    try
+    {
+      try
+      {
+        m_aRS.close ();
+        m_aPS.close ();
+        if (m_bOldAutoCommit)
+        {
+          // Nothing was modified - just end the transaction
+          m_aConnection.commit ();
+          m_aConnection.setAutoCommit (true);
+        }
+      }
+      finally
+      {
+        m_aConnection.close ();
+      }
+    }
+    catch (final SQLException ex)
+    {
+      throw new PeppolReportingBackendException ("Failed to close Peppol Reporting SQL DB cursor", ex);
+    }
+  }
+}
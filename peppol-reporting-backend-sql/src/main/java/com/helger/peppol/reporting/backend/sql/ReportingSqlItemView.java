@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import java.time.ZoneOffset;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.db.jdbc.executor.DBResultRow;
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.EReportingItemField;
+import com.helger.peppol.reporting.api.IPeppolReportingItemView;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * A reusable {@link IPeppolReportingItemView} positioned on a single result row of the reporting
+ * item select statement. By default the column order must match the select statement of
+ * {@link PeppolReportingBackendSqlSPI}. For projected queries a column index per
+ * {@link EReportingItemField} can be provided. The exchange date time and the direction must always
+ * be selected. Fields that were not selected return <code>null</code> and {@link #getAsItem()}
+ * fails, as described in {@link IPeppolReportingItemView}.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@NotThreadSafe
+final class ReportingSqlItemView implements IPeppolReportingItemView
+{
+  private static final int [] ALL_COLUMNS;
+  static
+  {
+    ALL_COLUMNS = new int [EReportingItemField.values ().length];
+    for (int i = 0; i < ALL_COLUMNS.length; ++i)
+      ALL_COLUMNS[i] = i;
+  }
+
+  // The result column index per field ordinal, or -1 if the field was not selected
+  private final int [] m_aColumnIndex;
+  private final boolean m_bAllColumns;
+  private DBResultRow m_aRow;
+
+  ReportingSqlItemView ()
+  {
+    this (ALL_COLUMNS);
+  }
+
+  ReportingSqlItemView (@NonNull final int [] aColumnIndex)
+  {
+    ValueEnforcer.notNull (aColumnIndex, "ColumnIndex");
+    ValueEnforcer.isTrue (aColumnIndex.length == ALL_COLUMNS.length, "ColumnIndex has the wrong length");
+    ValueEnforcer.isTrue (aColumnIndex[EReportingItemField.EXCHANGE_DATETIME.ordinal ()] >= 0,
+                          "The exchange date time must be selected");
+    ValueEnforcer.isTrue (aColumnIndex[EReportingItemField.DIRECTION.ordinal ()] >= 0,
+                          "The direction must be selected");
+    m_aColumnIndex = aColumnIndex;
+    boolean bAllColumns = true;
+    for (final int nIndex : aColumnIndex)
+      if (nIndex < 0)
+      {
+        bAllColumns = false;
+        break;
+      }
+    m_bAllColumns = bAllColumns;
+  }
+
+  /**
+   * Get the column name of the provided field in the <code>peppol_reporting_item</code> table.
+   *
+   * @param eField
+   *        The field to get the column name of. May not be <code>null</code>.
+   * @return The column name. Never <code>null</code>.
+   */
+  @NonNull
+  @Nonempty
+  static String getColumnName (@NonNull final EReportingItemField eField)
+  {
+    // The direction is stored as a boolean flag
+    if (eField == EReportingItemField.DIRECTION)
+      return "sending";
+    // All other field IDs are identical to the column names
+    return eField.getID ();
+  }
+
+  /**
+   * Get the maximum length of the provided field in the <code>peppol_reporting_item</code> table.
+   * Values are trimmed to this length when they are written, so criteria values must be trimmed
+   * the same way to match.
+   *
+   * @param eField
+   *        The field to get the maximum length of. May not be <code>null</code>.
+   * @return The maximum length or -1 if the field is not stored as a string.
+   */
+  static int getMaxLength (@NonNull final EReportingItemField eField)
+  {
+    switch (eField)
+    {
+      case C2_ID:
+        return PeppolReportingItem.MAX_LEN_C2_ID;
+      case C3_ID:
+        return PeppolReportingItem.MAX_LEN_C3_ID;
+      case DOCTYPE_ID_SCHEME:
+        return PeppolReportingItem.MAX_LEN_DOCTYPE_SCHEME;
+      case DOCTYPE_ID_VALUE:
+        return PeppolReportingItem.MAX_LEN_DOCTYPE_VALUE;
+      case PROCESS_ID_SCHEME:
+        return PeppolReportingItem.MAX_LEN_PROCESS_SCHEME;
+      case PROCESS_ID_VALUE:
+        return PeppolReportingItem.MAX_LEN_PROCESS_VALUE;
+      case TRANSPORT_PROTOCOL:
+        return PeppolReportingItem.MAX_LEN_TRANSPORT_PROTOCOL;
+      case C1_COUNTRY_CODE:
+        return PeppolReportingItem.MAX_LEN_C1_COUNTRY_CODE;
+      case C4_COUNTRY_CODE:
+        return PeppolReportingItem.MAX_LEN_C4_COUNTRY_CODE;
+      case END_USER_ID:
+        return PeppolReportingItem.MAX_LEN_END_USER_ID;
+      default:
+        return -1;
+    }
+  }
+
+  @Nullable
+  private String _getString (@NonNull final EReportingItemField eField)
+  {
+    final int nIndex = m_aColumnIndex[eField.ordinal ()];
+    return nIndex < 0 ? null : m_aRow.getAsString (nIndex);
+  }
+
+  void setRow (@NonNull final DBResultRow aRow)
+  {
+    m_aRow = aRow;
+  }
+
+  public long getExchangeEpochMillis ()
+  {
+    final int nIndex = m_aColumnIndex[EReportingItemField.EXCHANGE_DATETIME.ordinal ()];
+    return m_aRow.getAsLocalDateTime (nIndex).toInstant (ZoneOffset.UTC).toEpochMilli ();
+  }
+
+  @NonNull
+  public EReportingDirection getDirection ()
+  {
+    final int nIndex = m_aColumnIndex[EReportingItemField.DIRECTION.ordinal ()];
+    return m_aRow.getAsBoolean (nIndex) ? EReportingDirection.SENDING : EReportingDirection.RECEIVING;
+  }
+
+  @NonNull
+  @Nonempty
+  public String getC2ID ()
+  {
+    return _getString (EReportingItemField.C2_ID);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getC3ID ()
+  {
+    return _getString (EReportingItemField.C3_ID);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getDocTypeIDScheme ()
+  {
+    return _getString (EReportingItemField.DOCTYPE_ID_SCHEME);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getDocTypeIDValue ()
+  {
+    return _getString (EReportingItemField.DOCTYPE_ID_VALUE);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getProcessIDScheme ()
+  {
+    return _getString (EReportingItemField.PROCESS_ID_SCHEME);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getProcessIDValue ()
+  {
+    return _getString (EReportingItemField.PROCESS_ID_VALUE);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getTransportProtocol ()
+  {
+    return _getString (EReportingItemField.TRANSPORT_PROTOCOL);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getC1CountryCode ()
+  {
+    return _getString (EReportingItemField.C1_COUNTRY_CODE);
+  }
+
+  @Nullable
+  public String getC4CountryCode ()
+  {
+    return _getString (EReportingItemField.C4_COUNTRY_CODE);
+  }
+
+  @NonNull
+  @Nonempty
+  public String getEndUserID ()
+  {
+    return _getString (EReportingItemField.END_USER_ID);
+  }
+
+  @NonNull
+  public PeppolReportingItem getAsItem ()
+  {
+    if (!m_bAllColumns)
+      throw new IllegalStateException ("Cannot create a Peppol Reporting Item from a projection that does not contain all fields");
+
+    // All mandatory columns are declared NOT NULL, so no need to re-validate
+    return PeppolReportingItem.createTrusted (getExchangeEpochMillis (),
+                                              getDirection (),
+                                              getC2ID (),
+                                              getC3ID (),
+                                              getDocTypeIDScheme (),
+                                              getDocTypeIDValue (),
+                                              getProcessIDScheme (),
+                                              getProcessIDValue (),
+                                              getTransportProtocol (),
+                                              getC1CountryCode (),
+                                              getC4CountryCode (),
+                                              getEndUserID ());
+  }
+}
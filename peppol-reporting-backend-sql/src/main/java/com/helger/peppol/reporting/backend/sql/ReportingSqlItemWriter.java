@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.db.api.helper.DBValueHelper;
+import com.helger.db.jdbc.IHasDataSource;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * Low level writer for the <code>peppol_reporting_item</code> table that bypasses the generic
+ * {@link com.helger.db.jdbc.executor.DBExecutor}. The SQL statement is created only once, and the
+ * {@link PreparedStatement} is requested from the pooled connection every time, so that the
+ * statement pool of the connection pool can hand out the already prepared statement.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@ThreadSafe
+final class ReportingSqlItemWriter
+{
+  static final String ITEM_COLUMNS = "exchangedt, sending, c2id, c3id, dtscheme, dtvalue, procscheme, procvalue, tp, c1cc, c4cc, enduserid";
+  static final int ITEM_COLUMN_COUNT = 12;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (ReportingSqlItemWriter.class);
+
+  private final IHasDataSource m_aDSP;
+  private final String m_sInsertSQL;
+
+  ReportingSqlItemWriter (@NonNull final IHasDataSource aDSP, @NonNull final String sTableNamePrefix)
+  {
+    ValueEnforcer.notNull (aDSP, "DSP");
+    ValueEnforcer.notNull (sTableNamePrefix, "TableNamePrefix");
+    m_aDSP = aDSP;
+    m_sInsertSQL = createInsertSQL (sTableNamePrefix);
+  }
+
+  @NonNull
+  @Nonempty
+  static String createInsertSQL (@NonNull final String sTableNamePrefix)
+  {
+    return "INSERT INTO " +
+           sTableNamePrefix +
+           "peppol_reporting_item (" +
+           ITEM_COLUMNS +
+           ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+  }
+
+  @NonNull
+  @Nonempty
+  String getInsertSQL ()
+  {
+    return m_sInsertSQL;
+  }
+
+  /**
+   * Get the values of the provided item in the order of {@link #ITEM_COLUMNS}, trimmed to the
+   * maximum column lengths.
+   *
+   * @param aItem
+   *        Source item. May not be <code>null</code>.
+   * @return A new array with {@link #ITEM_COLUMN_COUNT} elements.
+   */
+  @NonNull
+  static Object [] getItemValues (@NonNull final PeppolReportingItem aItem)
+  {
+    return new Object [] { DBValueHelper.toTimestamp (aItem.getExchangeDTUTC ().toLocalDateTime ()),
+                           Boolean.valueOf (aItem.isSending ()),
+                           DBValueHelper.getTrimmedToLength (aItem.getC2ID (), PeppolReportingItem.MAX_LEN_C2_ID),
+                           DBValueHelper.getTrimmedToLength (aItem.getC3ID (), PeppolReportingItem.MAX_LEN_C3_ID),
+                           DBValueHelper.getTrimmedToLength (aItem.getDocTypeIDScheme (),
+                                                             PeppolReportingItem.MAX_LEN_DOCTYPE_SCHEME),
+                           DBValueHelper.getTrimmedToLength (aItem.getDocTypeIDValue (),
+                                                             PeppolReportingItem.MAX_LEN_DOCTYPE_VALUE),
+                           DBValueHelper.getTrimmedToLength (aItem.getProcessIDScheme (),
+                                                             PeppolReportingItem.MAX_LEN_PROCESS_SCHEME),
+                           DBValueHelper.getTrimmedToLength (aItem.getProcessIDValue (),
+                                                             PeppolReportingItem.MAX_LEN_PROCESS_VALUE),
+                           DBValueHelper.getTrimmedToLength (aItem.getTransportProtocol (),
+                                                             PeppolReportingItem.MAX_LEN_TRANSPORT_PROTOCOL),
+                           DBValueHelper.getTrimmedToLength (aItem.getC1CountryCode (),
+                                                             PeppolReportingItem.MAX_LEN_C1_COUNTRY_CODE),
+                           DBValueHelper.getTrimmedToLength (aItem.getC4CountryCode (),
+                                                             PeppolReportingItem.MAX_LEN_C4_COUNTRY_CODE),
+                           DBValueHelper.getTrimmedToLength (aItem.getEndUserID (),
+                                                             PeppolReportingItem.MAX_LEN_END_USER_ID) };
+  }
+
+  /**
+   * Set all parameters of the insert statement.
+   *
+   * @param aPS
+   *        The prepared statement to fill. May not be <code>null</code>.
+   * @param aItem
+   *        The item to take the values from. May not be <code>null</code>.
+   * @throws SQLException
+   *         on error
+   */
+  static void setItemParameters (@NonNull final PreparedStatement aPS,
+                                 @NonNull final PeppolReportingItem aItem) throws SQLException
+  {
+    final Object [] aValues = getItemValues (aItem);
+    for (int i = 0; i < aValues.length; ++i)
+    {
+      final Object aValue = aValues[i];
+      if (aValue == null)
+        aPS.setNull (i + 1, Types.VARCHAR);
+      else
+        aPS.setObject (i + 1, aValue);
+    }
+  }
+
+  @NonNull
+  Connection getConnection () throws SQLException
+  {
+    return m_aDSP.getDataSource ().getConnection ();
+  }
+
+  /**
+   * Insert a single item in auto-commit mode.
+   *
+   * @param aItem
+   *        The item to insert. May not be <code>null</code>.
+   * @throws SQLException
+   *         on error
+   */
+  void insertAutoCommit (@NonNull final PeppolReportingItem aItem) throws SQLException
+  {
+    try (final Connection aConnection = getConnection ())
+    {
+      if (!aConnection.getAutoCommit ())
+        aConnection.setAutoCommit (true);
+      try (final PreparedStatement aPS = aConnection.prepareStatement (m_sInsertSQL))
+      {
+        setItemParameters (aPS, aItem);
+        final int nCreated = aPS.executeUpdate ();
+        if (nCreated != 1)
+          throw new SQLException ("Failed to create new SQL DB entry (" + nCreated + ")");
+      }
+    }
+
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Inserted Peppol Reporting Item in auto-commit mode");
+  }
+
+  /**
+   * Insert all provided items with JDBC batches in a single transaction.
+   *
+   * @param aItems
+   *        The items to insert. May not be <code>null</code>.
+   * @param nBatchSize
+   *        The number of items per JDBC batch. Must be &gt; 0.
+   * @throws SQLException
+   *         on error
+   */
+  void insertBatch (@NonNull final List <? extends PeppolReportingItem> aItems, final int nBatchSize) throws SQLException
+  {
+    try (final Connection aConnection = getConnection ())
+    {
+      final boolean bOldAutoCommit = aConnection.getAutoCommit ();
+      if (bOldAutoCommit)
+        aConnection.setAutoCommit (false);
+      try (final PreparedStatement aPS = aConnection.prepareStatement (m_sInsertSQL))
+      {
+        int nInBatch = 0;
+        for (final PeppolReportingItem aItem : aItems)
+        {
+          setItemParameters (aPS, aItem);
+          aPS.addBatch ();
+          if (++nInBatch == nBatchSize)
+          {
+            aPS.executeBatch ();
+            nInBatch = 0;
+          }
+        }
+        if (nInBatch > 0)
+          aPS.executeBatch ();
+        aConnection.commit ();
+      }
+      catch (final SQLException ex)
+      {
+        aConnection.rollback ();
+        throw ex;
+      }
+      finally
+      {
+        if (bOldAutoCommit)
+          aConnection.setAutoCommit (true);
+      }
+    }
+  }
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.concurrent.GuardedBy;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.concurrent.SimpleLock;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.string.StringHelper;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.db.api.EDatabaseSystemType;
+import com.helger.db.jdbc.callback.ConstantPreparedStatementDataProvider;
+import com.helger.db.jdbc.executor.DBExecutor;
+import com.helger.db.jdbc.executor.DBResultRow;
+
+/**
+ * Manages the monthly range partitions of the <code>peppol_reporting_item</code> table. It is only
+ * used if partitioning is enabled in the configuration. The partitioned table layout itself is
+ * created by the {@link EReportingFlywayMigrationSet#PARTITIONING} migration set.
+ * <ul>
+ * <li>PostgreSQL uses declarative partitioning. One partition table named
+ * <code>peppol_reporting_item_pYYYYMM</code> is created on demand per exchange month.</li>
+ * <li>MySQL uses <code>RANGE COLUMNS</code> partitioning with a trailing <code>MAXVALUE</code>
+ * partition. New months are split off that trailing partition on demand.</li>
+ * <li>Oracle uses interval partitioning, so the database creates new partitions itself. The
+ * initial range partition (everything before {@link #ORACLE_INTERVAL_START}) can never be dropped
+ * and is therefore left untouched.</li>
+ * </ul>
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@ThreadSafe
+final class ReportingSqlPartitionManager
+{
+  static final String TABLE_NAME = "peppol_reporting_item";
+  static final String PARTITION_NAME_PREFIX = "p";
+  static final String MYSQL_MAXVALUE_PARTITION = "pmax";
+  /**
+   * The first month handled by Oracle interval partitioning. Must match the upper bound of the
+   * <code>p_initial</code> range partition of the Oracle partitioning migration.
+   */
+  static final YearMonth ORACLE_INTERVAL_START = YearMonth.of (1900, 1);
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (ReportingSqlPartitionManager.class);
+
+  private final EDatabaseSystemType m_eDBType;
+  private final String m_sSchemaName;
+  private final String m_sTableNamePrefix;
+  // All months for which a partition is known to exist
+  private final Set <YearMonth> m_aKnownMonths = ConcurrentHashMap.newKeySet ();
+  // Avoid concurrent DDL from within the same JVM
+  private final SimpleLock m_aDDLLock = new SimpleLock ();
+  @GuardedBy ("m_aDDLLock")
+  private YearMonth m_aMySQLMaxMonth;
+
+  /**
+   * @param eDBType
+   *        Database type. May not be <code>null</code>.
+   * @param sSchemaName
+   *        The configured schema name. May be <code>null</code> to use the default schema of the
+   *        connection.
+   * @param sTableNamePrefix
+   *        The table name prefix derived from the schema name. May not be <code>null</code>.
+   */
+  ReportingSqlPartitionManager (@NonNull final EDatabaseSystemType eDBType,
+                                @Nullable final String sSchemaName,
+                                @NonNull final String sTableNamePrefix)
+  {
+    ValueEnforcer.notNull (eDBType, "DBType");
+    ValueEnforcer.notNull (sTableNamePrefix, "TableNamePrefix");
+    m_eDBType = eDBType;
+    m_sSchemaName = StringHelper.isEmpty (sSchemaName) ? null : sSchemaName;
+    m_sTableNamePrefix = sTableNamePrefix;
+  }
+
+  /**
+   * @param eDBType
+   *        Database type to check. May be <code>null</code>.
+   * @return <code>true</code> if native range partitioning is supported for the provided database
+   *         type.
+   */
+  static boolean isSupported (@Nullable final EDatabaseSystemType eDBType)
+  {
+    return eDBType == EDatabaseSystemType.POSTGRESQL ||
+           eDBType == EDatabaseSystemType.MYSQL ||
+           eDBType == EDatabaseSystemType.ORACLE;
+  }
+
+  @NonNull
+  @Nonempty
+  static String getPartitionName (@NonNull final YearMonth aYM)
+  {
+    return PARTITION_NAME_PREFIX +
+           StringHelper.getLeadingZero (aYM.getYear (), 4) +
+           StringHelper.getLeadingZero (aYM.getMonthValue (), 2);
+  }
+
+  @Nullable
+  static YearMonth getMonthFromPartitionName (@Nullable final String sPartitionName)
+  {
+    // Works for "p202601" as well as for "peppol_reporting_item_p202601"
+    if (sPartitionName == null || sPartitionName.length () < 7)
+      return null;
+    final String sSuffix = sPartitionName.substring (sPartitionName.length () - 6);
+    if (sPartitionName.charAt (sPartitionName.length () - 7) != 'p')
+      return null;
+    for (final char c : sSuffix.toCharArray ())
+      if (c < '0' || c > '9')
+        return null;
+    final int nMonth = Integer.parseInt (sSuffix.substring (4));
+    if (nMonth < 1 || nMonth > 12)
+      return null;
+    return YearMonth.of (Integer.parseInt (sSuffix.substring (0, 4)), nMonth);
+  }
+
+  @NonNull
+  private static String _getTimestampLiteral (@NonNull final YearMonth aYM)
+  {
+    return StringHelper.getLeadingZero (aYM.getYear (), 4) +
+           "-" +
+           StringHelper.getLeadingZero (aYM.getMonthValue (), 2) +
+           "-01 00:00:00";
+  }
+
+  @NonNull
+  private String _getTableName ()
+  {
+    return m_sTableNamePrefix + TABLE_NAME;
+  }
+
+  @NonNull
+  private ICommonsList <String> _getAllExistingPartitionNames (@NonNull final DBExecutor aExecutor)
+  {
+    final ICommonsList <DBResultRow> aRows;
+    switch (m_eDBType)
+    {
+      case POSTGRESQL:
+        aRows = aExecutor.queryAll ("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid" +
+                                    " WHERE i.inhparent = CAST(? AS regclass)",
+                                    new ConstantPreparedStatementDataProvider (_getTableName ()));
+        break;
+      case MYSQL:
+        // The information schema only knows the bare table name - the schema is a separate column
+        if (m_sSchemaName == null)
+          aRows = aExecutor.queryAll ("SELECT partition_name FROM information_schema.partitions" +
+                                      " WHERE table_schema = DATABASE() AND table_name = ? AND partition_name IS NOT NULL",
+                                      new ConstantPreparedStatementDataProvider (TABLE_NAME));
+        else
+          aRows = aExecutor.queryAll ("SELECT partition_name FROM information_schema.partitions" +
+                                      " WHERE table_schema = ? AND table_name = ? AND partition_name IS NOT NULL",
+                                      new ConstantPreparedStatementDataProvider (m_sSchemaName, TABLE_NAME));
+        break;
+      case ORACLE:
+        // Unquoted identifiers are stored in upper case in the data dictionary
+        if (m_sSchemaName == null)
+          aRows = aExecutor.queryAll ("SELECT partition_name FROM user_tab_partitions WHERE table_name = ?",
+                                      new ConstantPreparedStatementDataProvider (TABLE_NAME.toUpperCase (Locale.ROOT)));
+        else
+          aRows = aExecutor.queryAll ("SELECT partition_name FROM all_tab_partitions WHERE table_owner = ? AND table_name = ?",
+                                      new ConstantPreparedStatementDataProvider (m_sSchemaName.toUpperCase (Locale.ROOT),
+                                                                                 TABLE_NAME.toUpperCase (Locale.ROOT)));
+        break;
+      default:
+        aRows = null;
+        break;
+    }
+
+    final ICommonsList <String> ret = new CommonsArrayList <> ();
+    if (aRows != null)
+      for (final DBResultRow aRow : aRows)
+        ret.add (aRow.getAsString (0));
+    return ret;
+  }
+
+  /**
+   * Read all existing partitions from the database. Must be called once after the Flyway migration
+   * was performed.
+   *
+   * @param aExecutor
+   *        The DB executor to use. May not be <code>null</code>.
+   */
+  void init (@NonNull final DBExecutor aExecutor)
+  {
+    m_aDDLLock.lock ();
+    try
+    {
+      m_aKnownMonths.clear ();
+      m_aMySQLMaxMonth = null;
+      for (final String sName : _getAllExistingPartitionNames (aExecutor))
+      {
+        final YearMonth aYM = getMonthFromPartitionName (sName);
+        if (aYM != null)
+        {
+          m_aKnownMonths.add (aYM);
+          if (m_aMySQLMaxMonth == null || aYM.isAfter (m_aMySQLMaxMonth))
+            m_aMySQLMaxMonth = aYM;
+        }
+      }
+      LOGGER.info ("Found " + m_aKnownMonths.size () + " existing monthly partitions of the Peppol Reporting table");
+    }
+    finally
+    {
+      m_aDDLLock.unlock ();
+    }
+  }
+
+  /**
+   * Make sure a partition for the provided month exists. This method is cheap if the partition is
+   * already known.
+   *
+   * @param aExecutorSupplier
+   *        The supplier for the DB executor to use. Only invoked if the partition is not yet known.
+   *        May not be <code>null</code>.
+   * @param aYM
+   *        The month to ensure a partition for. May not be <code>null</code>.
+   */
+  void ensurePartition (@NonNull final Supplier <? extends DBExecutor> aExecutorSupplier, @NonNull final YearMonth aYM)
+  {
+    // Oracle creates the partitions on its own
+    if (m_eDBType == EDatabaseSystemType.ORACLE || m_aKnownMonths.contains (aYM))
+      return;
+
+    m_aDDLLock.lock ();
+    try
+    {
+      // Check again inside the lock
+      if (m_aKnownMonths.contains (aYM))
+        return;
+
+      final DBExecutor aExecutor = aExecutorSupplier.get ();
+
+      if (m_eDBType == EDatabaseSystemType.POSTGRESQL)
+      {
+        final String sSQL = "CREATE TABLE IF NOT EXISTS " +
+                            m_sTableNamePrefix +
+                            TABLE_NAME +
+                            "_" +
+                            getPartitionName (aYM) +
+                            " PARTITION OF " +
+                            _getTableName () +
+                            " FOR VALUES FROM ('" +
+                            _getTimestampLiteral (aYM) +
+                            "') TO ('" +
+                            _getTimestampLiteral (aYM.plusMonths (1)) +
+                            "')";
+        if (aExecutor.executeStatement (sSQL).isFailure ())
+          throw new IllegalStateException ("Failed to create Peppol Reporting partition for " + aYM);
+      }
+      else
+        if (m_eDBType == EDatabaseSystemType.MYSQL)
+        {
+          // Rows of earlier months are already covered by the first partition with a higher bound
+          if (m_aMySQLMaxMonth == null || aYM.isAfter (m_aMySQLMaxMonth))
+          {
+            final String sSQL = "ALTER TABLE " +
+                                _getTableName () +
+                                " REORGANIZE PARTITION " +
+                                MYSQL_MAXVALUE_PARTITION +
+                                " INTO (PARTITION " +
+                                getPartitionName (aYM) +
+                                " VALUES LESS THAN ('" +
+                                _getTimestampLiteral (aYM.plusMonths (1)) +
+                                "'), PARTITION " +
+                                MYSQL_MAXVALUE_PARTITION +
+                                " VALUES LESS THAN (MAXVALUE))";
+            if (aExecutor.executeStatement (sSQL).isFailure ())
+            {
+              // Maybe another node was faster
+              init (aExecutor);
+              if (m_aMySQLMaxMonth == null || aYM.isAfter (m_aMySQLMaxMonth))
+                throw new IllegalStateException ("Failed to create Peppol Reporting partition for " + aYM);
+              return;
+            }
+            m_aMySQLMaxMonth = aYM;
+          }
+        }
+
+      LOGGER.info ("Ensured Peppol Reporting partition for " + aYM);
+      m_aKnownMonths.add (aYM);
+    }
+    finally
+    {
+      m_aDDLLock.unlock ();
+    }
+  }
+
+  /**
+   * Drop all partitions that only contain data of months before the provided month. This is the
+   * cheap way of applying a retention policy. Data in a partition that also contains later months
+   * (e.g. the MySQL catch-all partition) is never dropped.
+   *
+   * @param aExecutor
+   *        The DB executor to use. May not be <code>null</code>.
+   * @param aFirstMonthToKeep
+   *        The first month to keep. May not be <code>null</code>.
+   * @return The number of dropped partitions. Always &ge; 0.
+   */
+  int dropPartitionsBefore (@NonNull final DBExecutor aExecutor, @NonNull final YearMonth aFirstMonthToKeep)
+  {
+    m_aDDLLock.lock ();
+    try
+    {
+      int nDropped = 0;
+      for (final String sName : _getAllExistingPartitionNames (aExecutor))
+      {
+        final YearMonth aYM = getMonthFromPartitionName (sName);
+        if (aYM != null && aYM.isBefore (aFirstMonthToKeep))
+        {
+          final String sSQL;
+          switch (m_eDBType)
+          {
+            case POSTGRESQL:
+              sSQL = "DROP TABLE " + m_sTableNamePrefix + sName;
+              break;
+            case MYSQL:
+              sSQL = "ALTER TABLE " + _getTableName () + " DROP PARTITION " + sName;
+              break;
+            default:
+              sSQL = null;
+              break;
+          }
+          if (sSQL != null && aExecutor.executeStatement (sSQL).isSuccess ())
+          {
+            m_aKnownMonths.remove (aYM);
+            nDropped++;
+          }
+        }
+      }
+
+      if (m_eDBType == EDatabaseSystemType.ORACLE)
+      {
+        // Interval partitions have system generated names - drop them by content
+        final ICommonsList <DBResultRow> aRows = aExecutor.queryAll ("SELECT MIN(exchangedt) FROM " +
+                                                                     _getTableName (),
+                                                                     new ConstantPreparedStatementDataProvider ());
+        final LocalDateTime aMinDT = aRows == null || aRows.isEmpty () ? null : aRows.getFirstOrNull ()
+                                                                                  .getAsLocalDateTime (0);
+        if (aMinDT != null)
+        {
+          // "DROP PARTITION FOR" a value of the initial range partition fails, as the last range
+          // partition of an interval partitioned table can never be dropped
+          YearMonth aCur = YearMonth.from (aMinDT);
+          if (aCur.isBefore (ORACLE_INTERVAL_START))
+            aCur = ORACLE_INTERVAL_START;
+          while (aCur.isBefore (aFirstMonthToKeep))
+          {
+            if (aExecutor.executeStatement ("ALTER TABLE " +
+                                            _getTableName () +
+                                            " DROP PARTITION FOR (TIMESTAMP '" +
+                                            _getTimestampLiteral (aCur) +
+                                            "') UPDATE INDEXES")
+                         .isSuccess ())
+              nDropped++;
+            aCur = aCur.plusMonths (1);
+          }
+        }
+      }
+
+      LOGGER.info ("Dropped " + nDropped + " Peppol Reporting partitions before " + aFirstMonthToKeep);
+      return nDropped;
+    }
+    finally
+    {
+      m_aDDLLock.unlock ();
+    }
+  }
+}
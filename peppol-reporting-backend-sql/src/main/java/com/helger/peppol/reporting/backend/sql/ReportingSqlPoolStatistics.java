@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.tostring.ToStringGenerator;
+
+/**
+ * A snapshot of the connection pool statistics of the SQL backend. All pool related values are
+ * <code>-1</code> if the underlying data source is not a DBCP2 connection pool.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@Immutable
+public final class ReportingSqlPoolStatistics
+{
+  private final int m_nNumActive;
+  private final int m_nNumIdle;
+  private final int m_nMaxTotal;
+  private final long m_nMaxWaitMillis;
+  private final long m_nConnectionAcquireCount;
+  private final long m_nConnectionAcquireMillisTotal;
+  private final long m_nConnectionAcquireMillisMax;
+
+  public ReportingSqlPoolStatistics (final int nNumActive,
+                                     final int nNumIdle,
+                                     final int nMaxTotal,
+                                     final long nMaxWaitMillis,
+                                     final long nConnectionAcquireCount,
+                                     final long nConnectionAcquireMillisTotal,
+                                     final long nConnectionAcquireMillisMax)
+  {
+    m_nNumActive = nNumActive;
+    m_nNumIdle = nNumIdle;
+    m_nMaxTotal = nMaxTotal;
+    m_nMaxWaitMillis = nMaxWaitMillis;
+    m_nConnectionAcquireCount = nConnectionAcquireCount;
+    m_nConnectionAcquireMillisTotal = nConnectionAcquireMillisTotal;
+    m_nConnectionAcquireMillisMax = nConnectionAcquireMillisMax;
+  }
+
+  /**
+   * @return The number of connections currently borrowed from the pool or <code>-1</code>.
+   */
+  public int getNumActive ()
+  {
+    return m_nNumActive;
+  }
+
+  /**
+   * @return The number of idle connections in the pool or <code>-1</code>.
+   */
+  public int getNumIdle ()
+  {
+    return m_nNumIdle;
+  }
+
+  /**
+   * @return The maximum number of connections of the pool (negative for unlimited) or
+   *         <code>-1</code>.
+   */
+  public int getMaxTotal ()
+  {
+    return m_nMaxTotal;
+  }
+
+  /**
+   * @return The configured maximum time in milliseconds to wait for a free connection (negative for
+   *         indefinitely) or <code>-1</code>.
+   */
+  public long getMaxWaitMillis ()
+  {
+    return m_nMaxWaitMillis;
+  }
+
+  /**
+   * @return The number of connections obtained by the backend.
+   */
+  public long getConnectionAcquireCount ()
+  {
+    return m_nConnectionAcquireCount;
+  }
+
+  /**
+   * @return The total time in milliseconds spent waiting for connections by the backend.
+   */
+  public long getConnectionAcquireMillisTotal ()
+  {
+    return m_nConnectionAcquireMillisTotal;
+  }
+
+  /**
+   * @return The average time in milliseconds spent waiting for a connection by the backend. 0 if
+   *         no connection was obtained so far.
+   */
+  public double getConnectionAcquireMillisAverage ()
+  {
+    return m_nConnectionAcquireCount == 0 ? 0 : (double) m_nConnectionAcquireMillisTotal / m_nConnectionAcquireCount;
+  }
+
+  /**
+   * @return The longest time in milliseconds spent waiting for a single connection by the
+   *         backend.
+   */
+  public long getConnectionAcquireMillisMax ()
+  {
+    return m_nConnectionAcquireMillisMax;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("NumActive", m_nNumActive)
+                                       .append ("NumIdle", m_nNumIdle)
+                                       .append ("MaxTotal", m_nMaxTotal)
+                                       .append ("MaxWaitMillis", m_nMaxWaitMillis)
+                                       .append ("ConnectionAcquireCount", m_nConnectionAcquireCount)
+                                       .append ("ConnectionAcquireMillisTotal", m_nConnectionAcquireMillisTotal)
+                                       .append ("ConnectionAcquireMillisMax", m_nConnectionAcquireMillisMax)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,540 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.string.StringImplode;
+import com.helger.collection.commons.CommonsLinkedHashMap;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.db.api.EDatabaseSystemType;
+import com.helger.db.api.helper.DBValueHelper;
+import com.helger.db.jdbc.callback.ConstantPreparedStatementDataProvider;
+import com.helger.db.jdbc.executor.DBExecutor;
+import com.helger.db.jdbc.executor.DBResultRow;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+
+/**
+ * Maintains the daily rollup tables <code>peppol_reporting_rollup_day</code> (transaction counters
+ * for TSR) and <code>peppol_reporting_rollup_enduser</code> (distinct end users for EUSR). The
+ * tables are created by the {@link EReportingFlywayMigrationSet#ROLLUP} migration set.
+ * <p>
+ * Because the natural keys of both tables are too long to be used as primary keys on all databases,
+ * all dimension values (except for day and direction) are combined into a SHA-256 hash that is used
+ * as part of the primary key instead.
+ * </p>
+ * All SQL statements are created once in the constructor.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@Immutable
+final class ReportingSqlRollupManager
+{
+  static final String TABLE_NAME_DAY = "peppol_reporting_rollup_day";
+  static final String TABLE_NAME_ENDUSER = "peppol_reporting_rollup_enduser";
+
+  // Column names and the DB2 types required for the parameter casts (H2 uses BOOLEAN for "sending")
+  private static final String [] [] COLUMNS_DAY = { { "rday", "DATE" },
+                                                    { "sending", "SMALLINT" },
+                                                    { "dimhash", "CHAR(64)" },
+                                                    { "othersp", "VARCHAR(64)" },
+                                                    { "dtscheme", "VARCHAR(64)" },
+                                                    { "dtvalue", "VARCHAR(500)" },
+                                                    { "procscheme", "VARCHAR(64)" },
+                                                    { "procvalue", "VARCHAR(200)" },
+                                                    { "tp", "VARCHAR(64)" },
+                                                    { "c1cc", "VARCHAR(2)" },
+                                                    { "c4cc", "VARCHAR(2)" },
+                                                    { "cnt", "BIGINT" } };
+  private static final String [] [] COLUMNS_ENDUSER = { { "rday", "DATE" },
+                                                        { "sending", "SMALLINT" },
+                                                        { "dimhash", "CHAR(64)" },
+                                                        { "dtscheme", "VARCHAR(64)" },
+                                                        { "dtvalue", "VARCHAR(500)" },
+                                                        { "procscheme", "VARCHAR(64)" },
+                                                        { "procvalue", "VARCHAR(200)" },
+                                                        { "euc", "VARCHAR(2)" },
+                                                        { "enduserid", "VARCHAR(256)" } };
+  private static final String KEY_COLUMNS = "rday, sending, dimhash";
+
+  private final String m_sUpsertDaySQL;
+  private final String m_sInsertEndUserSQL;
+  private final String m_sSelectDaySQL;
+  private final String m_sSelectEndUserSQL;
+  private final String m_sDeleteDaySQL;
+  private final String m_sDeleteEndUserSQL;
+  // Either a table lock or a locking select with the day as the only parameter
+  private final String m_sLockDaySQL;
+  private final boolean m_bLockDayIsTableLock;
+
+  ReportingSqlRollupManager (@NonNull final EDatabaseSystemType eDBType, @NonNull final String sTableNamePrefix)
+  {
+    ValueEnforcer.notNull (eDBType, "DBType");
+    ValueEnforcer.notNull (sTableNamePrefix, "TableNamePrefix");
+
+    final String sTableDay = sTableNamePrefix + TABLE_NAME_DAY;
+    final String sTableEndUser = sTableNamePrefix + TABLE_NAME_ENDUSER;
+    m_sUpsertDaySQL = _createUpsertSQL (eDBType, sTableDay, COLUMNS_DAY, true);
+    m_sInsertEndUserSQL = _createUpsertSQL (eDBType, sTableEndUser, COLUMNS_ENDUSER, false);
+    m_sSelectDaySQL = "SELECT rday, sending, othersp, dtscheme, dtvalue, procscheme, procvalue, tp, c1cc, c4cc, cnt FROM " +
+                      sTableDay +
+                      " WHERE rday >= ? AND rday <= ?";
+    m_sSelectEndUserSQL = "SELECT rday, sending, dtscheme, dtvalue, procscheme, procvalue, euc, enduserid FROM " +
+                          sTableEndUser +
+                          " WHERE rday >= ? AND rday <= ?";
+    m_sDeleteDaySQL = "DELETE FROM " + sTableDay + " WHERE rday = ?";
+    m_sDeleteEndUserSQL = "DELETE FROM " + sTableEndUser + " WHERE rday = ?";
+    switch (eDBType)
+    {
+      case POSTGRESQL:
+      case ORACLE:
+      case DB2:
+        // Row locks do not block the insertion of new rows - lock the table but allow reading
+        m_sLockDaySQL = "LOCK TABLE " + sTableDay + " IN EXCLUSIVE MODE";
+        m_bLockDayIsTableLock = true;
+        break;
+      case SQLSERVER:
+        // HOLDLOCK takes key range locks that also block inserts into the day
+        m_sLockDaySQL = "SELECT rday FROM " + sTableDay + " WITH (UPDLOCK, HOLDLOCK) WHERE rday = ?";
+        m_bLockDayIsTableLock = false;
+        break;
+      default:
+        // MySQL uses next-key locks that also block inserts into the day. H2 only locks the
+        // existing rows.
+        m_sLockDaySQL = "SELECT rday FROM " + sTableDay + " WHERE rday = ? FOR UPDATE";
+        m_bLockDayIsTableLock = false;
+        break;
+    }
+  }
+
+  @NonNull
+  private static String _getColumnList (@NonNull final String [] [] aColumns, @NonNull final String sPrefix)
+  {
+    return StringImplode.imploder ().source (Arrays.asList (aColumns), x -> sPrefix + x[0]).separator (", ").build ();
+  }
+
+  @NonNull
+  private static String _getParamList (final int nCount)
+  {
+    return "?, ".repeat (nCount - 1) + "?";
+  }
+
+  /**
+   * Create the dialect specific "insert or update" statement.
+   *
+   * @param eDBType
+   *        Database type
+   * @param sTable
+   *        Fully qualified table name
+   * @param aColumns
+   *        All columns. The last one is the counter column, if <code>bCounter</code> is
+   *        <code>true</code>.
+   * @param bCounter
+   *        <code>true</code> to add the new counter value to an existing row, <code>false</code> to
+   *        leave existing rows untouched.
+   * @return The SQL statement with one parameter per column.
+   */
+  @NonNull
+  private static String _createUpsertSQL (@NonNull final EDatabaseSystemType eDBType,
+                                          @NonNull final String sTable,
+                                          @NonNull final String [] [] aColumns,
+                                          final boolean bCounter)
+  {
+    final String sColumns = _getColumnList (aColumns, "");
+    final String sParams = _getParamList (aColumns.length);
+    switch (eDBType)
+    {
+      case POSTGRESQL:
+        return "INSERT INTO " +
+               sTable +
+               " AS t (" +
+               sColumns +
+               ") VALUES (" +
+               sParams +
+               ") ON CONFLICT (" +
+               KEY_COLUMNS +
+               ") DO " +
+               (bCounter ? "UPDATE SET cnt = t.cnt + EXCLUDED.cnt" : "NOTHING");
+      case MYSQL:
+        return "INSERT INTO " +
+               sTable +
+               " (" +
+               sColumns +
+               ") VALUES (" +
+               sParams +
+               ") ON DUPLICATE KEY UPDATE " +
+               (bCounter ? "cnt = cnt + VALUES(cnt)" : "rday = rday");
+      default:
+      {
+        // SQL Server, Oracle, DB2 and H2 use MERGE
+        final StringBuilder aSB = new StringBuilder ("MERGE INTO ").append (sTable);
+        switch (eDBType)
+        {
+          case SQLSERVER:
+            aSB.append (" WITH (HOLDLOCK) AS t USING (SELECT ");
+            aSB.append (StringImplode.imploder ().source (Arrays.asList (aColumns), x -> "? AS " + x[0]).separator (", ").build ());
+            aSB.append (") AS s");
+            break;
+          case ORACLE:
+            aSB.append (" t USING (SELECT ");
+            aSB.append (StringImplode.imploder ().source (Arrays.asList (aColumns), x -> "? AS " + x[0]).separator (", ").build ());
+            aSB.append (" FROM dual) s");
+            break;
+          default:
+            // DB2 and H2 need explicit types for the parameters
+            aSB.append (" AS t USING (VALUES (");
+            aSB.append (StringImplode.imploder ()
+                                     .source (Arrays.asList (aColumns),
+                                              x -> "CAST(? AS " +
+                                                   (eDBType == EDatabaseSystemType.H2 && x[0].equals ("sending") ? "BOOLEAN"
+                                                                                                               : x[1]) +
+                                                   ")")
+                                     .separator (", ")
+                                     .build ());
+            aSB.append (")) AS s (").append (sColumns).append (')');
+            break;
+        }
+        aSB.append (" ON (t.rday = s.rday AND t.sending = s.sending AND t.dimhash = s.dimhash)");
+        if (bCounter)
+          aSB.append (" WHEN MATCHED THEN UPDATE SET t.cnt = t.cnt + s.cnt");
+        aSB.append (" WHEN NOT MATCHED THEN INSERT (")
+           .append (sColumns)
+           .append (") VALUES (")
+           .append (_getColumnList (aColumns, "s."))
+           .append (')');
+        if (eDBType == EDatabaseSystemType.SQLSERVER)
+        {
+          // SQL Server requires MERGE to be terminated by a semicolon
+          aSB.append (';');
+        }
+        return aSB.toString ();
+      }
+    }
+  }
+
+  /**
+   * Create the hash over all the provided dimension values.
+   *
+   * @param aValues
+   *        The values to hash. Each value may be <code>null</code>.
+   * @return The lower case hex encoded SHA-256 hash. Always 64 chars long.
+   */
+  @NonNull
+  @Nonempty
+  static String getDimensionHash (@NonNull final String... aValues)
+  {
+    try
+    {
+      final MessageDigest aMD = MessageDigest.getInstance ("SHA-256");
+      for (final String s : aValues)
+      {
+        // Distinguish between null and empty
+        if (s != null)
+          aMD.update (s.getBytes (StandardCharsets.UTF_8));
+        else
+          aMD.update ((byte) 1);
+        // Separator
+        aMD.update ((byte) 0);
+      }
+      return HexFormat.of ().formatHex (aMD.digest ());
+    }
+    catch (final NoSuchAlgorithmException ex)
+    {
+      throw new IllegalStateException ("SHA-256 is not supported", ex);
+    }
+  }
+
+  @NonNull
+  private static Object [] _getDayParams (@NonNull final LocalDate aDay,
+                                          final boolean bSending,
+                                          @NonNull final String sOtherSPID,
+                                          @NonNull final String sDTScheme,
+                                          @NonNull final String sDTValue,
+                                          @NonNull final String sProcScheme,
+                                          @NonNull final String sProcValue,
+                                          @NonNull final String sTP,
+                                          @NonNull final String sC1CC,
+                                          @Nullable final String sC4CC,
+                                          final long nCount)
+  {
+    return new Object [] { Date.valueOf (aDay),
+                           Boolean.valueOf (bSending),
+                           getDimensionHash (sOtherSPID, sDTScheme, sDTValue, sProcScheme, sProcValue, sTP, sC1CC, sC4CC),
+                           sOtherSPID,
+                           sDTScheme,
+                           sDTValue,
+                           sProcScheme,
+                           sProcValue,
+                           sTP,
+                           sC1CC,
+                           sC4CC,
+                           Long.valueOf (nCount) };
+  }
+
+  @NonNull
+  private static Object [] _getEndUserParams (@NonNull final LocalDate aDay,
+                                              final boolean bSending,
+                                              @NonNull final String sDTScheme,
+                                              @NonNull final String sDTValue,
+                                              @NonNull final String sProcScheme,
+                                              @NonNull final String sProcValue,
+                                              @Nullable final String sEUC,
+                                              @NonNull final String sEndUserID)
+  {
+    return new Object [] { Date.valueOf (aDay),
+                           Boolean.valueOf (bSending),
+                           getDimensionHash (sDTScheme, sDTValue, sProcScheme, sProcValue, sEUC, sEndUserID),
+                           sDTScheme,
+                           sDTValue,
+                           sProcScheme,
+                           sProcValue,
+                           sEUC,
+                           sEndUserID };
+  }
+
+  /**
+   * Trimmed view on a reporting item, so that the rollup contains the same values as the item
+   * table.
+   */
+  private static final class TrimmedItem
+  {
+    private final LocalDate m_aDay;
+    private final boolean m_bSending;
+    private final String m_sOtherSPID;
+    private final String m_sDTScheme;
+    private final String m_sDTValue;
+    private final String m_sProcScheme;
+    private final String m_sProcValue;
+    private final String m_sTP;
+    private final String m_sC1CC;
+    private final String m_sC4CC;
+    private final String m_sEUC;
+    private final String m_sEndUserID;
+
+    TrimmedItem (@NonNull final PeppolReportingItem aItem)
+    {
+      m_aDay = aItem.getExchangeDTUTC ().toLocalDate ();
+      m_bSending = aItem.isSending ();
+      m_sOtherSPID = DBValueHelper.getTrimmedToLength (aItem.getOtherServiceProviderID (),
+                                                       m_bSending ? PeppolReportingItem.MAX_LEN_C3_ID
+                                                                  : PeppolReportingItem.MAX_LEN_C2_ID);
+      m_sDTScheme = DBValueHelper.getTrimmedToLength (aItem.getDocTypeIDScheme (),
+                                                      PeppolReportingItem.MAX_LEN_DOCTYPE_SCHEME);
+      m_sDTValue = DBValueHelper.getTrimmedToLength (aItem.getDocTypeIDValue (), PeppolReportingItem.MAX_LEN_DOCTYPE_VALUE);
+      m_sProcScheme = DBValueHelper.getTrimmedToLength (aItem.getProcessIDScheme (),
+                                                        PeppolReportingItem.MAX_LEN_PROCESS_SCHEME);
+      m_sProcValue = DBValueHelper.getTrimmedToLength (aItem.getProcessIDValue (),
+                                                       PeppolReportingItem.MAX_LEN_PROCESS_VALUE);
+      m_sTP = DBValueHelper.getTrimmedToLength (aItem.getTransportProtocol (),
+                                                PeppolReportingItem.MAX_LEN_TRANSPORT_PROTOCOL);
+      m_sC1CC = DBValueHelper.getTrimmedToLength (aItem.getC1CountryCode (), PeppolReportingItem.MAX_LEN_C1_COUNTRY_CODE);
+      m_sC4CC = DBValueHelper.getTrimmedToLength (aItem.getC4CountryCode (), PeppolReportingItem.MAX_LEN_C4_COUNTRY_CODE);
+      m_sEUC = m_bSending ? m_sC1CC : m_sC4CC;
+      m_sEndUserID = DBValueHelper.getTrimmedToLength (aItem.getEndUserID (), PeppolReportingItem.MAX_LEN_END_USER_ID);
+    }
+  }
+
+  /**
+   * Update the rollup tables for a single new reporting item. This should be called inside the
+   * same transaction that stores the reporting item.
+   *
+   * @param aExecutor
+   *        The DB executor to use. May not be <code>null</code>.
+   * @param aItem
+   *        The reporting item that was stored. May not be <code>null</code>.
+   */
+  void onItemStored (@NonNull final DBExecutor aExecutor, @NonNull final PeppolReportingItem aItem)
+  {
+    final TrimmedItem t = new TrimmedItem (aItem);
+
+    final long nDay = aExecutor.insertOrUpdateOrDelete (m_sUpsertDaySQL,
+                                                        new ConstantPreparedStatementDataProvider (_getDayParams (t.m_aDay,
+                                                                                                                  t.m_bSending,
+                                                                                                                  t.m_sOtherSPID,
+                                                                                                                  t.m_sDTScheme,
+                                                                                                                  t.m_sDTValue,
+                                                                                                                  t.m_sProcScheme,
+                                                                                                                  t.m_sProcValue,
+                                                                                                                  t.m_sTP,
+                                                                                                                  t.m_sC1CC,
+                                                                                                                  t.m_sC4CC,
+                                                                                                                  1)));
+    if (nDay < 1)
+      throw new IllegalStateException ("Failed to update SQL DB rollup entry (" + nDay + ")");
+
+    // 0 rows affected is fine, if the end user is already known
+    aExecutor.insertOrUpdateOrDelete (m_sInsertEndUserSQL,
+                                      new ConstantPreparedStatementDataProvider (_getEndUserParams (t.m_aDay,
+                                                                                                    t.m_bSending,
+                                                                                                    t.m_sDTScheme,
+                                                                                                    t.m_sDTValue,
+                                                                                                    t.m_sProcScheme,
+                                                                                                    t.m_sProcValue,
+                                                                                                    t.m_sEUC,
+                                                                                                    t.m_sEndUserID)));
+  }
+
+  /**
+   * Lock the rollup entries of a single day until the end of the current transaction, so that
+   * {@link #onItemStored(DBExecutor, PeppolReportingItem)} of concurrent transactions waits. As that
+   * method always updates the day table first, locking the day table is sufficient. Must be called
+   * inside a transaction, before the reporting items of the day are read.
+   *
+   * @param aExecutor
+   *        The DB executor to use. May not be <code>null</code>.
+   * @param aDay
+   *        The day to lock. May not be <code>null</code>.
+   */
+  void lockDay (@NonNull final DBExecutor aExecutor, @NonNull final LocalDate aDay)
+  {
+    final boolean bSuccess;
+    if (m_bLockDayIsTableLock)
+      bSuccess = aExecutor.executeStatement (m_sLockDaySQL).isSuccess ();
+    else
+      bSuccess = aExecutor.queryAll (m_sLockDaySQL,
+                                     new ConstantPreparedStatementDataProvider (Date.valueOf (aDay))) != null;
+    if (!bSuccess)
+      throw new IllegalStateException ("Failed to lock the SQL DB rollup entries of " + aDay);
+  }
+
+  /**
+   * Recreate the rollup entries of a single day from the provided reporting items. This must be
+   * called inside the transaction that called {@link #lockDay(DBExecutor, LocalDate)} and that read
+   * the reporting items afterwards.
+   *
+   * @param aExecutor
+   *        The DB executor to use. May not be <code>null</code>.
+   * @param aDay
+   *        The day to rebuild. May not be <code>null</code>.
+   * @param aItems
+   *        All reporting items of that day. May not be <code>null</code>.
+   * @return The number of reporting items processed.
+   */
+  long rebuildDay (@NonNull final DBExecutor aExecutor,
+                   @NonNull final LocalDate aDay,
+                   @NonNull final Iterable <PeppolReportingItem> aItems)
+  {
+    final Date aSqlDay = Date.valueOf (aDay);
+    aExecutor.insertOrUpdateOrDelete (m_sDeleteDaySQL, new ConstantPreparedStatementDataProvider (aSqlDay));
+    aExecutor.insertOrUpdateOrDelete (m_sDeleteEndUserSQL, new ConstantPreparedStatementDataProvider (aSqlDay));
+
+    // Aggregate in memory first
+    final ICommonsMap <String, Object []> aDayRows = new CommonsLinkedHashMap <> ();
+    final ICommonsMap <String, Long> aDayCounts = new CommonsLinkedHashMap <> ();
+    final ICommonsMap <String, Object []> aEndUserRows = new CommonsLinkedHashMap <> ();
+    long nItems = 0;
+    for (final PeppolReportingItem aItem : aItems)
+    {
+      final TrimmedItem t = new TrimmedItem (aItem);
+      final Object [] aDayParams = _getDayParams (aDay,
+                                                  t.m_bSending,
+                                                  t.m_sOtherSPID,
+                                                  t.m_sDTScheme,
+                                                  t.m_sDTValue,
+                                                  t.m_sProcScheme,
+                                                  t.m_sProcValue,
+                                                  t.m_sTP,
+                                                  t.m_sC1CC,
+                                                  t.m_sC4CC,
+                                                  1);
+      final String sDayKey = t.m_bSending + ":" + aDayParams[2];
+      aDayRows.putIfAbsent (sDayKey, aDayParams);
+      aDayCounts.merge (sDayKey, Long.valueOf (1), (a, b) -> Long.valueOf (a.longValue () + b.longValue ()));
+
+      final Object [] aEndUserParams = _getEndUserParams (aDay,
+                                                          t.m_bSending,
+                                                          t.m_sDTScheme,
+                                                          t.m_sDTValue,
+                                                          t.m_sProcScheme,
+                                                          t.m_sProcValue,
+                                                          t.m_sEUC,
+                                                          t.m_sEndUserID);
+      final String sEndUserKey = t.m_bSending + ":" + aEndUserParams[2];
+      aEndUserRows.putIfAbsent (sEndUserKey, aEndUserParams);
+      nItems++;
+    }
+
+    for (final Map.Entry <String, Object []> aEntry : aDayRows.entrySet ())
+    {
+      final Object [] aParams = aEntry.getValue ();
+      aParams[aParams.length - 1] = aDayCounts.get (aEntry.getKey ());
+      aExecutor.insertOrUpdateOrDelete (m_sUpsertDaySQL, new ConstantPreparedStatementDataProvider (aParams));
+    }
+    for (final Object [] aParams : aEndUserRows.values ())
+      aExecutor.insertOrUpdateOrDelete (m_sInsertEndUserSQL, new ConstantPreparedStatementDataProvider (aParams));
+    return nItems;
+  }
+
+  void forEachDayEntry (@NonNull final DBExecutor aExecutor,
+                        @NonNull final LocalDate aStartDateIncl,
+                        @NonNull final LocalDate aEndDateIncl,
+                        @NonNull final Consumer <? super ReportingRollupDayEntry> aConsumer)
+  {
+    final ICommonsList <DBResultRow> aRows = aExecutor.queryAll (m_sSelectDaySQL,
+                                                                 new ConstantPreparedStatementDataProvider (Date.valueOf (aStartDateIncl),
+                                                                                                            Date.valueOf (aEndDateIncl)));
+    if (aRows != null)
+      for (final DBResultRow aRow : aRows)
+        aConsumer.accept (new ReportingRollupDayEntry (aRow.getAsLocalDate (0),
+                                                       aRow.getAsBoolean (1),
+                                                       aRow.getAsString (2),
+                                                       aRow.getAsString (3),
+                                                       aRow.getAsString (4),
+                                                       aRow.getAsString (5),
+                                                       aRow.getAsString (6),
+                                                       aRow.getAsString (7),
+                                                       aRow.getAsString (8),
+                                                       aRow.getAsString (9),
+                                                       aRow.getAsLong (10)));
+  }
+
+  void forEachEndUserEntry (@NonNull final DBExecutor aExecutor,
+                            @NonNull final LocalDate aStartDateIncl,
+                            @NonNull final LocalDate aEndDateIncl,
+                            @NonNull final Consumer <? super ReportingRollupEndUserEntry> aConsumer)
+  {
+    final ICommonsList <DBResultRow> aRows = aExecutor.queryAll (m_sSelectEndUserSQL,
+                                                                 new ConstantPreparedStatementDataProvider (Date.valueOf (aStartDateIncl),
+                                                                                                            Date.valueOf (aEndDateIncl)));
+    if (aRows != null)
+      for (final DBResultRow aRow : aRows)
+        aConsumer.accept (new ReportingRollupEndUserEntry (aRow.getAsLocalDate (0),
+                                                           aRow.getAsBoolean (1),
+                                                           aRow.getAsString (2),
+                                                           aRow.getAsString (3),
+                                                           aRow.getAsString (4),
+                                                           aRow.getAsString (5),
+                                                           aRow.getAsString (6),
+                                                           aRow.getAsString (7)));
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.db.jdbc.IHasDataSource;
+
+/**
+ * A {@link DataSource} wrapper that measures the time needed to obtain a connection. All
+ * connections of the SQL backend - the ones of the direct write path as well as the ones of the
+ * {@link com.helger.db.jdbc.executor.DBExecutor} - are obtained via this class, so that the
+ * statistics cover the complete pool usage.
+ *
+ * @author Philip Helger
+ * @since 4.2.1
+ */
+@ThreadSafe
+final class ReportingSqlTimedDataSource implements DataSource, IHasDataSource
+{
+  private final DataSource m_aDS;
+  private final LongAdder m_aAcquireCount = new LongAdder ();
+  private final LongAdder m_aAcquireNanosTotal = new LongAdder ();
+  private final AtomicLong m_aAcquireNanosMax = new AtomicLong (0);
+
+  ReportingSqlTimedDataSource (@NonNull final DataSource aDS)
+  {
+    ValueEnforcer.notNull (aDS, "DataSource");
+    m_aDS = aDS;
+  }
+
+  @NonNull
+  public DataSource getDataSource ()
+  {
+    return this;
+  }
+
+  private void _onAcquired (final long nStartNanos)
+  {
+    final long nDuration = System.nanoTime () - nStartNanos;
+    m_aAcquireCount.increment ();
+    m_aAcquireNanosTotal.add (nDuration);
+    m_aAcquireNanosMax.accumulateAndGet (nDuration, Math::max);
+  }
+
+  public Connection getConnection () throws SQLException
+  {
+    final long nStart = System.nanoTime ();
+    final Connection ret = m_aDS.getConnection ();
+    _onAcquired (nStart);
+    return ret;
+  }
+
+  public Connection getConnection (final String sUsername, final String sPassword) throws SQLException
+  {
+    final long nStart = System.nanoTime ();
+    final Connection ret = m_aDS.getConnection (sUsername, sPassword);
+    _onAcquired (nStart);
+    return ret;
+  }
+
+  public PrintWriter getLogWriter () throws SQLException
+  {
+    return m_aDS.getLogWriter ();
+  }
+
+  public void setLogWriter (final PrintWriter aOut) throws SQLException
+  {
+    m_aDS.setLogWriter (aOut);
+  }
+
+  public void setLoginTimeout (final int nSeconds) throws SQLException
+  {
+    m_aDS.setLoginTimeout (nSeconds);
+  }
+
+  public int getLoginTimeout () throws SQLException
+  {
+    return m_aDS.getLoginTimeout ();
+  }
+
+  public Logger getParentLogger () throws SQLFeatureNotSupportedException
+  {
+    return m_aDS.getParentLogger ();
+  }
+
+  public <T> T unwrap (final Class <T> aIface) throws SQLException
+  {
+    if (aIface.isInstance (this))
+      return aIface.cast (this);
+    return m_aDS.unwrap (aIface);
+  }
+
+  public boolean isWrapperFor (final Class <?> aIface) throws SQLException
+  {
+    return aIface.isInstance (this) || m_aDS.isWrapperFor (aIface);
+  }
+
+  long getConnectionAcquireCount ()
+  {
+    return m_aAcquireCount.sum ();
+  }
+
+  long getConnectionAcquireMillisTotal ()
+  {
+    return TimeUnit.NANOSECONDS.toMillis (m_aAcquireNanosTotal.sum ());
+  }
+
+  long getConnectionAcquireMillisMax ()
+  {
+    return TimeUnit.NANOSECONDS.toMillis (m_aAcquireNanosMax.get ());
+  }
+}
@@ -0,0 +1,33 @@
+--
+-- Copyright (C) 2023-2026 Philip Helger
+-- philip[at]helger[dot]com
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+-- The UTC exchange date as a generated column
+SET INTEGRITY FOR peppol_reporting_item OFF;
+ALTER TABLE peppol_reporting_item ADD COLUMN exchangedate date GENERATED ALWAYS AS (DATE(exchangedt));
+SET INTEGRITY FOR peppol_reporting_item IMMEDIATE CHECKED FORCE GENERATED;
+
+-- DB2 only supports INCLUDE on unique indexes, so the unique surrogate key is the last key column.
+-- The key and the included columns must fit into the index key length limit, so the table space
+-- needs a page size of at least 8 KB.
+
+-- Covering index for TSR style access
+CREATE UNIQUE INDEX peppol_reporting_item_tsr_idx ON peppol_reporting_item (exchangedate, sending, c2id, c3id, tp, id)
+  INCLUDE (dtscheme, dtvalue, procscheme, procvalue, c1cc, c4cc, exchangedt);
+
+-- Covering index for EUSR style access
+CREATE UNIQUE INDEX peppol_reporting_item_eusr_idx ON peppol_reporting_item (exchangedate, sending, c1cc, c4cc, enduserid, id)
+  INCLUDE (dtscheme, dtvalue, procscheme, procvalue, exchangedt);
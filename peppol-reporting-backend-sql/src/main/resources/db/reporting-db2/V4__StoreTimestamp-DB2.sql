@@ -0,0 +1,22 @@
+--
+-- Copyright (C) 2023-2026 Philip Helger
+-- philip[at]helger[dot]com
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+-- The time an item was stored, according to the local database server clock. It is used to determine
+-- the store sequence up to which all concurrent inserts are committed.
+ALTER TABLE peppol_reporting_item ADD COLUMN storedts timestamp(3) NOT NULL DEFAULT CURRENT TIMESTAMP;
+
+CREATE INDEX peppol_reporting_item_stored_idx ON peppol_reporting_item (storedts, id);
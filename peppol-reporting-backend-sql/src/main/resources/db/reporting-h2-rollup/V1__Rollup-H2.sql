@@ -0,0 +1,48 @@
+--
+-- Copyright (C) 2023-2026 Philip Helger
+-- philip[at]helger[dot]com
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+-- Daily transaction counters for the Transaction Statistics Report (TSR)
+-- The dimensions are identified by the SHA-256 hash "dimhash" to keep the primary key short
+CREATE TABLE peppol_reporting_rollup_day (
+  rday       date          NOT NULL,
+  sending    boolean       NOT NULL,
+  dimhash    char(64)      NOT NULL,
+  othersp    varchar(64)   NOT NULL,
+  dtscheme   varchar(64)   NOT NULL,
+  dtvalue    varchar(500)  NOT NULL,
+  procscheme varchar(64)   NOT NULL,
+  procvalue  varchar(200)  NOT NULL,
+  tp         varchar(64)   NOT NULL,
+  c1cc       varchar(2)    NOT NULL,
+  c4cc       varchar(2)    DEFAULT NULL,
+  cnt        bigint        NOT NULL,
+  PRIMARY KEY (rday, sending, dimhash)
+);
+
+-- Distinct end users per day for the End User Statistics Report (EUSR)
+CREATE TABLE peppol_reporting_rollup_enduser (
+  rday       date          NOT NULL,
+  sending    boolean       NOT NULL,
+  dimhash    char(64)      NOT NULL,
+  dtscheme   varchar(64)   NOT NULL,
+  dtvalue    varchar(500)  NOT NULL,
+  procscheme varchar(64)   NOT NULL,
+  procvalue  varchar(200)  NOT NULL,
+  euc        varchar(2)    DEFAULT NULL,
+  enduserid  varchar(256)  NOT NULL,
+  PRIMARY KEY (rday, sending, dimhash)
+);
@@ -0,0 +1,39 @@
+--
+-- Copyright (C) 2023-2026 Philip Helger
+-- philip[at]helger[dot]com
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+-- The UTC exchange date as a stored generated column
+ALTER TABLE peppol_reporting_item ADD COLUMN exchangedate date AS (CAST(exchangedt AS date)) STORED;
+
+-- MySQL has no INCLUDE clause and the InnoDB key length is limited to 3072 bytes. Peppol
+-- identifiers, transport profiles and country codes only use ASCII characters, so these columns
+-- are stored as ASCII, so that all columns of the queries fit into the index keys.
+ALTER TABLE peppol_reporting_item
+  MODIFY c2id       varchar(64)  CHARACTER SET ascii NOT NULL,
+  MODIFY c3id       varchar(64)  CHARACTER SET ascii NOT NULL,
+  MODIFY dtscheme   varchar(64)  CHARACTER SET ascii NOT NULL,
+  MODIFY dtvalue    varchar(500) CHARACTER SET ascii NOT NULL,
+  MODIFY procscheme varchar(64)  CHARACTER SET ascii NOT NULL,
+  MODIFY procvalue  varchar(200) CHARACTER SET ascii NOT NULL,
+  MODIFY tp         varchar(64)  CHARACTER SET ascii NOT NULL,
+  MODIFY c1cc       varchar(2)   CHARACTER SET ascii NOT NULL,
+  MODIFY c4cc       varchar(2)   CHARACTER SET ascii DEFAULT NULL;
+
+-- Covering index for TSR style access
+CREATE INDEX peppol_reporting_item_tsr_idx ON peppol_reporting_item (exchangedate, sending, c2id, c3id, tp, dtscheme, dtvalue, procscheme, procvalue, c1cc, c4cc, exchangedt);
+
+-- Covering index for EUSR style access
+CREATE INDEX peppol_reporting_item_eusr_idx ON peppol_reporting_item (exchangedate, sending, c1cc, c4cc, enduserid, dtscheme, dtvalue, procscheme, procvalue, exchangedt);
@@ -0,0 +1,28 @@
+--
+-- Copyright (C) 2023-2026 Philip Helger
+-- philip[at]helger[dot]com
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+-- The UTC exchange date as a virtual column
+ALTER TABLE peppol_reporting_item ADD exchangedate date GENERATED ALWAYS AS (TRUNC(CAST(exchangedt AS date))) VIRTUAL;
+
+-- Oracle has no INCLUDE clause, so the keys only contain the date range predicate and the leading
+-- grouping columns, and the remaining columns are read from the table
+
+-- Index for TSR style access
+CREATE INDEX peppol_reporting_item_tsr_idx ON peppol_reporting_item (exchangedate, sending, c2id, c3id, tp);
+
+-- Index for EUSR style access
+CREATE INDEX peppol_reporting_item_eusr_idx ON peppol_reporting_item (exchangedate, sending, c1cc, c4cc, enduserid);
@@ -0,0 +1,23 @@
+--
+-- Copyright (C) 2023-2026 Philip Helger
+-- philip[at]helger[dot]com
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+-- Requires Oracle 12.2 or later with the Partitioning option
+-- New monthly partitions are created automatically by the database
+ALTER TABLE peppol_reporting_item
+  MODIFY PARTITION BY RANGE (exchangedt) INTERVAL (NUMTOYMINTERVAL(1, 'MONTH')) (
+    PARTITION p_initial VALUES LESS THAN (TIMESTAMP '1900-01-01 00:00:00')
+  ) ONLINE UPDATE INDEXES;
@@ -0,0 +1,48 @@
+--
+-- Copyright (C) 2023-2026 Philip Helger
+-- philip[at]helger[dot]com
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+-- Daily transaction counters for the Transaction Statistics Report (TSR)
+-- The dimensions are identified by the SHA-256 hash "dimhash" to keep the primary key short
+CREATE TABLE peppol_reporting_rollup_day (
+  rday       date          NOT NULL,
+  sending    number(1)     NOT NULL,
+  dimhash    char(64)      NOT NULL,
+  othersp    varchar2(64)  NOT NULL,
+  dtscheme   varchar2(64)  NOT NULL,
+  dtvalue    varchar2(500) NOT NULL,
+  procscheme varchar2(64)  NOT NULL,
+  procvalue  varchar2(200) NOT NULL,
+  tp         varchar2(64)  NOT NULL,
+  c1cc       varchar2(2)   NOT NULL,
+  c4cc       varchar2(2)   DEFAULT NULL,
+  cnt        number(19)    NOT NULL,
+  PRIMARY KEY (rday, sending, dimhash)
+);
+
+-- Distinct end users per day for the End User Statistics Report (EUSR)
+CREATE TABLE peppol_reporting_rollup_enduser (
+  rday       date          NOT NULL,
+  sending    number(1)     NOT NULL,
+  dimhash    char(64)      NOT NULL,
+  dtscheme   varchar2(64)  NOT NULL,
+  dtvalue    varchar2(500) NOT NULL,
+  procscheme varchar2(64)  NOT NULL,
+  procvalue  varchar2(200) NOT NULL,
+  euc        varchar2(2)   DEFAULT NULL,
+  enduserid  varchar2(256) NOT NULL,
+  PRIMARY KEY (rday, sending, dimhash)
+);
@@ -0,0 +1,53 @@
+--
+-- Copyright (C) 2023-2026 Philip Helger
+-- philip[at]helger[dot]com
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+-- Convert the existing table into a table that is range partitioned by exchange month
+-- This script also works if other optional features (like covering indexes) were already applied
+ALTER TABLE peppol_reporting_item RENAME TO peppol_reporting_item_old;
+
+CREATE TABLE peppol_reporting_item (LIKE peppol_reporting_item_old INCLUDING DEFAULTS INCLUDING GENERATED) PARTITION BY RANGE (exchangedt);
+
+DO $$
+DECLARE
+  r record;
+  m timestamp;
+  cols text;
+BEGIN
+  -- Move all indexes to the new table
+  FOR r IN SELECT indexname, indexdef FROM pg_indexes WHERE schemaname = current_schema() AND tablename = 'peppol_reporting_item_old'
+  LOOP
+    EXECUTE format('DROP INDEX %I', r.indexname);
+    EXECUTE replace(r.indexdef, '.peppol_reporting_item_old ', '.peppol_reporting_item ');
+  END LOOP;
+
+  -- Create one partition for every month that already contains data
+  FOR m IN SELECT DISTINCT date_trunc('month', exchangedt) FROM peppol_reporting_item_old
+  LOOP
+    EXECUTE format('CREATE TABLE peppol_reporting_item_p%s PARTITION OF peppol_reporting_item FOR VALUES FROM (%L) TO (%L)',
+                   to_char(m, 'YYYYMM'),
+                   m,
+                   m + interval '1 month');
+  END LOOP;
+
+  -- Copy all data, except for generated columns
+  SELECT string_agg(quote_ident(column_name), ', ' ORDER BY ordinal_position) INTO cols
+    FROM information_schema.columns
+    WHERE table_schema = current_schema() AND table_name = 'peppol_reporting_item_old' AND is_generated = 'NEVER';
+  EXECUTE format('INSERT INTO peppol_reporting_item (%s) SELECT %s FROM peppol_reporting_item_old', cols, cols);
+END $$;
+
+DROP TABLE peppol_reporting_item_old;
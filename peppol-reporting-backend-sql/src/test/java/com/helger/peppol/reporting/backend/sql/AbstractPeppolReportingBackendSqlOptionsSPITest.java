@@ -0,0 +1,322 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.collection.commons.ICommonsSet;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.api.backend.PeppolReportingBackendException;
+import com.helger.peppol.reporting.testbackend.PeppolReportingTestItems;
+
+/**
+ * Base class for the SQL backend's SPI contract tests with the optional features (rollup tables
+ * and covering indexes) switched on. Bulk imports are checked as well, as they take a different
+ * write path. Next to the regular contract tests, the TSR and
+ * EUSR dimensions read via the optional paths are compared with the ones derived from the plain
+ * reporting items.
+ *
+ * @author Philip Helger
+ */
+abstract class AbstractPeppolReportingBackendSqlOptionsSPITest extends AbstractPeppolReportingBackendSqlSPITest
+{
+  @NonNull
+  protected final PeppolReportingBackendSqlSPI getSqlBackend ()
+  {
+    return (PeppolReportingBackendSqlSPI) m_aBackend;
+  }
+
+  /**
+   * @return Items for a single day, covering both directions and the same end user multiple times.
+   */
+  @NonNull
+  private static ICommonsList <PeppolReportingItem> _createItems (@NonNull final LocalDate aDay)
+  {
+    final ICommonsList <PeppolReportingItem> ret = new CommonsArrayList <> ();
+    for (int i = 0; i < 3; ++i)
+      ret.add (PeppolReportingTestItems.sendingItem (aDay, 620 + i));
+    ret.add (PeppolReportingTestItems.sendingItem (aDay, 620));
+    ret.add (PeppolReportingTestItems.receivingItem (aDay, 623));
+    ret.add (PeppolReportingTestItems.receivingItem (aDay, 623));
+    ret.add (PeppolReportingTestItems.receivingItem (aDay, 624));
+    return ret;
+  }
+
+  @NonNull
+  private static String _getTSRKey (final boolean bSending,
+                                    final String sOtherServiceProviderID,
+                                    final String sDocTypeIDScheme,
+                                    final String sDocTypeIDValue,
+                                    final String sProcessIDScheme,
+                                    final String sProcessIDValue,
+                                    final String sTransportProtocol,
+                                    final String sC1CountryCode,
+                                    final String sC4CountryCode)
+  {
+    return bSending +
+           "|" +
+           sOtherServiceProviderID +
+           "|" +
+           sDocTypeIDScheme +
+           "|" +
+           sDocTypeIDValue +
+           "|" +
+           sProcessIDScheme +
+           "|" +
+           sProcessIDValue +
+           "|" +
+           sTransportProtocol +
+           "|" +
+           sC1CountryCode +
+           "|" +
+           sC4CountryCode;
+  }
+
+  @NonNull
+  private static String _getTSRKey (@NonNull final ReportingRollupDayEntry aEntry)
+  {
+    return _getTSRKey (aEntry.isSending (),
+                       aEntry.getOtherServiceProviderID (),
+                       aEntry.getDocTypeIDScheme (),
+                       aEntry.getDocTypeIDValue (),
+                       aEntry.getProcessIDScheme (),
+                       aEntry.getProcessIDValue (),
+                       aEntry.getTransportProtocol (),
+                       aEntry.getC1CountryCode (),
+                       aEntry.getC4CountryCode ());
+  }
+
+  @NonNull
+  private static String _getTSRKey (@NonNull final PeppolReportingItem aItem)
+  {
+    return _getTSRKey (aItem.isSending (),
+                       aItem.getOtherServiceProviderID (),
+                       aItem.getDocTypeIDScheme (),
+                       aItem.getDocTypeIDValue (),
+                       aItem.getProcessIDScheme (),
+                       aItem.getProcessIDValue (),
+                       aItem.getTransportProtocol (),
+                       aItem.getC1CountryCode (),
+                       aItem.getC4CountryCode ());
+  }
+
+  @NonNull
+  private static String _getEUSRKey (final boolean bSending,
+                                     final String sDocTypeIDScheme,
+                                     final String sDocTypeIDValue,
+                                     final String sProcessIDScheme,
+                                     final String sProcessIDValue,
+                                     final String sEndUserCountryCode,
+                                     final String sEndUserID)
+  {
+    return bSending +
+           "|" +
+           sDocTypeIDScheme +
+           "|" +
+           sDocTypeIDValue +
+           "|" +
+           sProcessIDScheme +
+           "|" +
+           sProcessIDValue +
+           "|" +
+           sEndUserCountryCode +
+           "|" +
+           sEndUserID;
+  }
+
+  @NonNull
+  private static String _getEUSRKey (@NonNull final ReportingRollupEndUserEntry aEntry)
+  {
+    return _getEUSRKey (aEntry.isSending (),
+                        aEntry.getDocTypeIDScheme (),
+                        aEntry.getDocTypeIDValue (),
+                        aEntry.getProcessIDScheme (),
+                        aEntry.getProcessIDValue (),
+                        aEntry.getEndUserCountryCode (),
+                        aEntry.getEndUserID ());
+  }
+
+  @NonNull
+  private static String _getEUSRKey (@NonNull final PeppolReportingItem aItem)
+  {
+    return _getEUSRKey (aItem.isSending (),
+                        aItem.getDocTypeIDScheme (),
+                        aItem.getDocTypeIDValue (),
+                        aItem.getProcessIDScheme (),
+                        aItem.getProcessIDValue (),
+                        aItem.getEndUserCountryCode (),
+                        aItem.getEndUserID ());
+  }
+
+  /**
+   * The plain path: TSR counts derived from the reporting items of a day.
+   */
+  @NonNull
+  private ICommonsMap <String, Long> _getPlainTSR (@NonNull final LocalDate aDay) throws PeppolReportingBackendException
+  {
+    final ICommonsMap <String, Long> ret = new CommonsHashMap <> ();
+    for (final PeppolReportingItem aItem : m_aBackend.iterateReportingItems (aDay, aDay))
+      ret.merge (_getTSRKey (aItem), Long.valueOf (1), Long::sum);
+    return ret;
+  }
+
+  /**
+   * The plain path: distinct EUSR dimensions derived from the reporting items of a day.
+   */
+  @NonNull
+  private ICommonsSet <String> _getPlainEUSR (@NonNull final LocalDate aDay) throws PeppolReportingBackendException
+  {
+    final ICommonsSet <String> ret = new CommonsHashSet <> ();
+    for (final PeppolReportingItem aItem : m_aBackend.iterateReportingItems (aDay, aDay))
+      ret.add (_getEUSRKey (aItem));
+    return ret;
+  }
+
+  @NonNull
+  private ICommonsMap <String, Long> _getRollupTSR (@NonNull final LocalDate aDay)
+  {
+    final ICommonsMap <String, Long> ret = new CommonsHashMap <> ();
+    getSqlBackend ().forEachRollupDayEntry (aDay,
+                                            aDay,
+                                            x -> ret.merge (_getTSRKey (x), Long.valueOf (x.getCount ()), Long::sum));
+    return ret;
+  }
+
+  @NonNull
+  private ICommonsSet <String> _getRollupEUSR (@NonNull final LocalDate aDay)
+  {
+    final ICommonsSet <String> ret = new CommonsHashSet <> ();
+    getSqlBackend ().forEachRollupEndUserEntry (aDay, aDay, x -> ret.add (_getEUSRKey (x)));
+    return ret;
+  }
+
+  @NonNull
+  private ICommonsMap <String, Long> _getAggregatedTSR (@NonNull final LocalDate aDay)
+  {
+    final ICommonsMap <String, Long> ret = new CommonsHashMap <> ();
+    getSqlBackend ().forEachAggregatedDayEntry (aDay,
+                                                aDay,
+                                                x -> ret.merge (_getTSRKey (x), Long.valueOf (x.getCount ()), Long::sum));
+    return ret;
+  }
+
+  @NonNull
+  private ICommonsSet <String> _getAggregatedEUSR (@NonNull final LocalDate aDay)
+  {
+    final ICommonsSet <String> ret = new CommonsHashSet <> ();
+    getSqlBackend ().forEachAggregatedEndUserEntry (aDay, aDay, x -> ret.add (_getEUSRKey (x)));
+    return ret;
+  }
+
+  /**
+   * Check that the TSR counts of a day grew by exactly the provided items and that all EUSR
+   * dimensions of the provided items are present. Items stored on the same day by earlier runs
+   * against a shared database don't matter.
+   */
+  private static void _assertAdded (@NonNull final ICommonsMap <String, Long> aTSRBefore,
+                                    @NonNull final ICommonsMap <String, Long> aTSRAfter,
+                                    @NonNull final ICommonsSet <String> aEUSRAfter,
+                                    @NonNull final ICommonsList <PeppolReportingItem> aItems)
+  {
+    final ICommonsMap <String, Long> aExpected = new CommonsHashMap <> (aTSRBefore);
+    for (final PeppolReportingItem aItem : aItems)
+    {
+      aExpected.merge (_getTSRKey (aItem), Long.valueOf (1), Long::sum);
+      assertTrue (aEUSRAfter.contains (_getEUSRKey (aItem)));
+    }
+    assertEquals (aExpected, aTSRAfter);
+  }
+
+  @Test
+  public void testRollupMatchesPlainItems () throws PeppolReportingBackendException
+  {
+    assertTrue (getSqlBackend ().isRollupEnabled ());
+
+    final LocalDate aDay = testRunBaseDate ();
+    final ICommonsMap <String, Long> aTSRBefore = _getPlainTSR (aDay);
+    final ICommonsList <PeppolReportingItem> aItems = _createItems (aDay);
+    for (final PeppolReportingItem aItem : aItems)
+      m_aBackend.storeReportingItem (aItem);
+
+    final ICommonsMap <String, Long> aPlainTSR = _getPlainTSR (aDay);
+    final ICommonsSet <String> aPlainEUSR = _getPlainEUSR (aDay);
+    _assertAdded (aTSRBefore, aPlainTSR, aPlainEUSR, aItems);
+
+    // Maintained while storing
+    assertEquals (aPlainTSR, _getRollupTSR (aDay));
+    assertEquals (aPlainEUSR, _getRollupEUSR (aDay));
+
+    // Rebuilding must not change anything
+    assertEquals (aPlainTSR.values ().stream ().mapToLong (Long::longValue).sum (),
+                  getSqlBackend ().rebuildRollup (aDay, aDay));
+    assertEquals (aPlainTSR, _getRollupTSR (aDay));
+    assertEquals (aPlainEUSR, _getRollupEUSR (aDay));
+  }
+
+  @Test
+  public void testAggregatedMatchesPlainItems () throws PeppolReportingBackendException
+  {
+    final LocalDate aDay = testRunBaseDate ().plusDays (1);
+    final ICommonsMap <String, Long> aTSRBefore = _getPlainTSR (aDay);
+    final ICommonsList <PeppolReportingItem> aItems = _createItems (aDay);
+    for (final PeppolReportingItem aItem : aItems)
+      m_aBackend.storeReportingItem (aItem);
+
+    final ICommonsMap <String, Long> aPlainTSR = _getPlainTSR (aDay);
+    final ICommonsSet <String> aPlainEUSR = _getPlainEUSR (aDay);
+    _assertAdded (aTSRBefore, aPlainTSR, aPlainEUSR, aItems);
+
+    // Answered from the covering indexes, if enabled
+    assertEquals (aPlainTSR, _getAggregatedTSR (aDay));
+    assertEquals (aPlainEUSR, _getAggregatedEUSR (aDay));
+  }
+
+  @Test
+  public void testBulkImportMatchesPlainItems () throws PeppolReportingBackendException
+  {
+    final LocalDate aDay = testRunBaseDate ().plusDays (2);
+    final ICommonsMap <String, Long> aTSRBefore = _getPlainTSR (aDay);
+    final ICommonsList <PeppolReportingItem> aItems = _createItems (aDay);
+    final ReportingSqlBulkImportStatus aStatus = getSqlBackend ().bulkImportReportingItems (aItems, null);
+    assertEquals (aItems.size (), aStatus.getImportedCount ());
+    assertEquals (0, aStatus.getSkippedCount ());
+
+    final ICommonsMap <String, Long> aPlainTSR = _getPlainTSR (aDay);
+    final ICommonsSet <String> aPlainEUSR = _getPlainEUSR (aDay);
+    _assertAdded (aTSRBefore, aPlainTSR, aPlainEUSR, aItems);
+
+    // The rollup is rebuilt after the import
+    if (getSqlBackend ().isRollupEnabled ())
+    {
+      assertEquals (aPlainTSR, _getRollupTSR (aDay));
+      assertEquals (aPlainEUSR, _getRollupEUSR (aDay));
+    }
+    assertEquals (aPlainTSR, _getAggregatedTSR (aDay));
+    assertEquals (aPlainEUSR, _getAggregatedEUSR (aDay));
+  }
+}
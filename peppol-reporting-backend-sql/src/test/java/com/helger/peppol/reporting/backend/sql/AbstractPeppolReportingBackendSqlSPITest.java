@@ -16,14 +16,26 @@
  */
 package com.helger.peppol.reporting.backend.sql;
 
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+
 import org.jspecify.annotations.NonNull;
+import org.junit.Test;
 
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
 import com.helger.config.Config;
 import com.helger.config.IConfig;
 import com.helger.config.source.resource.properties.ConfigurationSourceProperties;
 import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.reporting.api.EReportingItemField;
+import com.helger.peppol.reporting.api.PeppolReportingItem;
 import com.helger.peppol.reporting.api.backend.IPeppolReportingBackendSPI;
+import com.helger.peppol.reporting.api.backend.PeppolReportingBackendException;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemQuery;
 import com.helger.peppol.reporting.testbackend.AbstractPeppolReportingBackendSPITest;
+import com.helger.peppol.reporting.testbackend.PeppolReportingTestItems;
 
 /**
  * Base class for the SQL backend's SPI contract tests. Concrete subclasses pick the database
@@ -51,4 +63,56 @@ abstract class AbstractPeppolReportingBackendSqlSPITest extends AbstractPeppolRe
     return new Config (new ConfigurationSourceProperties (new ClassPathResource (getConfigFileName (),
                                                                                  AbstractPeppolReportingBackendSqlSPITest.class.getClassLoader ())));
   }
+
+  @Test
+  public void testProjectedView () throws PeppolReportingBackendException
+  {
+    final LocalDate aDate = testRunBaseDate ();
+    final PeppolReportingItem aItem = PeppolReportingTestItems.sendingItem (aDate, 630);
+    m_aBackend.storeReportingItem (aItem);
+
+    // Collect outside of the callback, so that no assertion error is swallowed by the executor
+    final ICommonsList <String> aValues = new CommonsArrayList <> ();
+    m_aBackend.forEachReportingItemView (aDate,
+                                         aDate,
+                                         new PeppolReportingItemQuery ().endUserID (aItem.getEndUserID ())
+                                                                        .projection (EReportingItemField.C3_ID),
+                                         aView -> {
+                                           String sAsItem;
+                                           try
+                                           {
+                                             aView.getAsItem ();
+                                             sAsItem = "item";
+                                           }
+                                           catch (final IllegalStateException ex)
+                                           {
+                                             sAsItem = "failed";
+                                           }
+                                           aValues.add (aView.getExchangeEpochMillis () +
+                                                        "/" +
+                                                        aView.getDirection ().getID () +
+                                                        "/" +
+                                                        aView.getC3ID () +
+                                                        "/" +
+                                                        aView.getC2ID () +
+                                                        "/" +
+                                                        sAsItem);
+                                         });
+    // The exchange date time and the direction are always selected, the C2 ID is not
+    assertEquals (new CommonsArrayList <> (aItem.getExchangeEpochMillis () +
+                                           "/" +
+                                           aItem.getDirection ().getID () +
+                                           "/" +
+                                           aItem.getC3ID () +
+                                           "/null/failed"),
+                  aValues);
+
+    // A full projection creates complete items
+    final ICommonsList <PeppolReportingItem> aItems = new CommonsArrayList <> ();
+    m_aBackend.forEachReportingItemView (aDate,
+                                         aDate,
+                                         new PeppolReportingItemQuery ().endUserID (aItem.getEndUserID ()),
+                                         aView -> aItems.add (aView.getAsItem ()));
+    assertEquals (new CommonsArrayList <> (aItem), aItems);
+  }
 }
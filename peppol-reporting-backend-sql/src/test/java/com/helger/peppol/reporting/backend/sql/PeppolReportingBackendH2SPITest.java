@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * SPI contract test for {@link PeppolReportingBackendSqlSPI} against
+ * H2 in embedded file mode. No database server is needed.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolReportingBackendH2SPITest extends AbstractPeppolReportingBackendSqlSPITest
+{
+  @Override
+  @NonNull
+  protected String getConfigFileName ()
+  {
+    return "application-h2.properties";
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import static org.junit.Assert.assertTrue;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+/**
+ * SPI contract test for {@link PeppolReportingBackendSqlSPI} against PostgreSQL with the rollup
+ * tables and the covering indexes enabled. Bulk imports use <code>COPY</code>. A separate schema is
+ * used, because the optional migrations cannot be reverted.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolReportingBackendPostgreSqlOptionsSPITest extends AbstractPeppolReportingBackendSqlOptionsSPITest
+{
+  @Override
+  @NonNull
+  protected String getConfigFileName ()
+  {
+    return "application-postgresql-options.properties";
+  }
+
+  @Test
+  public void testCopyIsUsed ()
+  {
+    assertTrue (getSqlBackend ().isPostgreSQLCopyUsed ());
+  }
+}
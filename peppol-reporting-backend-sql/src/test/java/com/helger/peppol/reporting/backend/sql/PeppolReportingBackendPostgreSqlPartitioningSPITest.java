@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.peppol.reporting.api.backend.PeppolReportingBackendException;
+import com.helger.peppol.reporting.testbackend.PeppolReportingTestItems;
+
+/**
+ * SPI contract test for {@link PeppolReportingBackendSqlSPI} against PostgreSQL with monthly range
+ * partitioning enabled. A separate schema is used, because the partitioning migration cannot be
+ * reverted.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolReportingBackendPostgreSqlPartitioningSPITest extends AbstractPeppolReportingBackendSqlSPITest
+{
+  @Override
+  @NonNull
+  protected String getConfigFileName ()
+  {
+    return "application-postgresql-partitioning.properties";
+  }
+
+  @Test
+  public void testDropPartitionsBefore () throws PeppolReportingBackendException
+  {
+    final PeppolReportingBackendSqlSPI aBackend = (PeppolReportingBackendSqlSPI) m_aBackend;
+    assertTrue (aBackend.isPartitioningEnabled ());
+
+    final LocalDate aOld = testRunBaseDate ();
+    final LocalDate aNew = aOld.plusMonths (2);
+    aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aOld, 1));
+    aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aNew, 1));
+    assertEquals (1, aBackend.countReportingItems (aOld, aOld, null));
+    assertEquals (1, aBackend.countReportingItems (aNew, aNew, null));
+
+    // Drops at least the partition of the old month
+    assertTrue (aBackend.dropPartitionsBefore (YearMonth.from (aOld).plusMonths (1)) >= 1);
+    assertEquals (0, aBackend.countReportingItems (aOld, aOld, null));
+    assertEquals (1, aBackend.countReportingItems (aNew, aNew, null));
+
+    // The dropped month can be written again, as the partition is re-created on demand
+    aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aOld, 2));
+    assertEquals (1, aBackend.countReportingItems (aOld, aOld, null));
+  }
+}
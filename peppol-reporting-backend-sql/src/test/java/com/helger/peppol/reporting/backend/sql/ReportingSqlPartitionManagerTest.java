@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.reporting.backend.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.YearMonth;
+
+import org.junit.Test;
+
+import com.helger.db.api.EDatabaseSystemType;
+
+/**
+ * Test class for class {@link ReportingSqlPartitionManager}.
+ *
+ * @author Philip Helger
+ */
+public final class ReportingSqlPartitionManagerTest
+{
+  @Test
+  public void testIsSupported ()
+  {
+    assertTrue (ReportingSqlPartitionManager.isSupported (EDatabaseSystemType.POSTGRESQL));
+    assertTrue (ReportingSqlPartitionManager.isSupported (EDatabaseSystemType.MYSQL));
+    assertTrue (ReportingSqlPartitionManager.isSupported (EDatabaseSystemType.ORACLE));
+    assertFalse (ReportingSqlPartitionManager.isSupported (EDatabaseSystemType.H2));
+    assertFalse (ReportingSqlPartitionManager.isSupported (null));
+  }
+
+  @Test
+  public void testPartitionName ()
+  {
+    assertEquals ("p202601", ReportingSqlPartitionManager.getPartitionName (YearMonth.of (2026, 1)));
+    assertEquals ("p190012", ReportingSqlPartitionManager.getPartitionName (YearMonth.of (1900, 12)));
+
+    for (final YearMonth aYM : new YearMonth [] { YearMonth.of (1900, 1), YearMonth.of (2026, 12) })
+    {
+      final String sName = ReportingSqlPartitionManager.getPartitionName (aYM);
+      assertEquals (aYM, ReportingSqlPartitionManager.getMonthFromPartitionName (sName));
+      // PostgreSQL partition table name
+      assertEquals (aYM,
+                    ReportingSqlPartitionManager.getMonthFromPartitionName (ReportingSqlPartitionManager.TABLE_NAME +
+                                                                            "_" +
+                                                                            sName));
+    }
+  }
+
+  @Test
+  public void testMonthFromPartitionNameInvalid ()
+  {
+    assertNull (ReportingSqlPartitionManager.getMonthFromPartitionName (null));
+    assertNull (ReportingSqlPartitionManager.getMonthFromPartitionName (""));
+    assertNull (ReportingSqlPartitionManager.getMonthFromPartitionName ("p2026"));
+    assertNull (ReportingSqlPartitionManager.getMonthFromPartitionName ("p202613"));
+    assertNull (ReportingSqlPartitionManager.getMonthFromPartitionName ("p202600"));
+    assertNull (ReportingSqlPartitionManager.getMonthFromPartitionName ("x202601"));
+    assertNull (ReportingSqlPartitionManager.getMonthFromPartitionName ("p2026a1"));
+    // The MySQL catch-all and the Oracle initial partition
+    assertNull (ReportingSqlPartitionManager.getMonthFromPartitionName (ReportingSqlPartitionManager.MYSQL_MAXVALUE_PARTITION));
+    assertNull (ReportingSqlPartitionManager.getMonthFromPartitionName ("P_INITIAL"));
+    // Oracle system generated interval partition names
+    assertNull (ReportingSqlPartitionManager.getMonthFromPartitionName ("SYS_P12345"));
+  }
+}
@@ -22,9 +22,18 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
@@ -35,13 +44,22 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashMap;
 import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
 import com.helger.collection.commons.ICommonsSet;
 import com.helger.config.ConfigFactory;
 import com.helger.config.IConfig;
+import com.helger.peppol.reporting.api.EReportingDirection;
+import com.helger.peppol.reporting.api.EReportingItemField;
 import com.helger.peppol.reporting.api.PeppolReportingItem;
 import com.helger.peppol.reporting.api.backend.IPeppolReportingBackendSPI;
 import com.helger.peppol.reporting.api.backend.PeppolReportingBackendException;
+import com.helger.peppol.reporting.api.backend.PeppolReportingChangeBatch;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemPage;
+import com.helger.peppol.reporting.api.backend.PeppolReportingItemQuery;
 
 /**
  * Abstract JUnit 4 base class containing the SPI contract tests every
@@ -182,6 +200,32 @@ public abstract class AbstractPeppolReportingBackendSPITest
     return ret;
   }
 
+  /**
+   * A source that passes all of its items to the provided consumer.
+   *
+   * @param <T>
+   *        The item type
+   */
+  @FunctionalInterface
+  private interface IItemSource <T>
+  {
+    void forEachItem (@NonNull Consumer <? super T> aConsumer) throws Exception;
+  }
+
+  /**
+   * Collect all items of the provided source into a multiset, represented as the count per item, so
+   * that duplicate and missing items are both detected. Use it for both sides of a comparison.
+   */
+  @NonNull
+  private static <T> ICommonsMap <T, Integer> _toCounts (@NonNull final IItemSource <T> aSource) throws Exception
+  {
+    final ICommonsMap <T, Integer> ret = new CommonsHashMap <> ();
+    aSource.forEachItem (x -> ret.merge (x,
+                                         Integer.valueOf (1),
+                                         (a, b) -> Integer.valueOf (a.intValue () + b.intValue ())));
+    return ret;
+  }
+
   // ---------------------------------------------------------------------
   // Lifecycle / state machine
   // ---------------------------------------------------------------------
@@ -464,6 +508,412 @@ public abstract class AbstractPeppolReportingBackendSPITest
                   aViaForEach);
   }
 
+  @Test
+  public void testForEachCountsMatchIterate () throws Exception
+  {
+    final LocalDate aBase = testRunBaseDate ();
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aBase, 503));
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.receivingItem (aBase, 504));
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.receivingItem (aBase.plusDays (1), 505));
+
+    final ICommonsMap <PeppolReportingItem, Integer> aViaIterate = _toCounts (_iterating (aBase, aBase.plusDays (1)));
+
+    final ICommonsMap <PeppolReportingItem, Integer> aViaForEach = _toCounts (c -> {
+      m_aBackend.forEachReportingItem (aBase, aBase.plusDays (1), c);
+    });
+
+    assertEquals ("forEachReportingItem must return every item as often as iterateReportingItems",
+                  aViaIterate,
+                  aViaForEach);
+  }
+
+  @Test
+  public void testForEachViewMatchesIterate () throws Exception
+  {
+    final LocalDate aBase = testRunBaseDate ();
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aBase, 510));
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.receivingItem (aBase, 511));
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.receivingItem (aBase.plusDays (1), 512));
+
+    final ICommonsMap <PeppolReportingItem, Integer> aViaIterate = _toCounts (_iterating (aBase, aBase.plusDays (1)));
+
+    final ICommonsMap <PeppolReportingItem, Integer> aViaView = _toCounts (c -> {
+      m_aBackend.forEachReportingItemView (aBase, aBase.plusDays (1), aView -> {
+        final PeppolReportingItem aItem = aView.getAsItem ();
+        // The view must expose the same data as the item
+        assertEquals (aItem.getExchangeEpochMillis (), aView.getExchangeEpochMillis ());
+        assertEquals (aItem.getDirection (), aView.getDirection ());
+        assertEquals (aItem.getOtherServiceProviderID (), aView.getOtherServiceProviderID ());
+        assertEquals (aItem.getTransportProtocol (), aView.getTransportProtocol ());
+        assertEquals (aItem.getC4CountryCode (), aView.getC4CountryCode ());
+        assertEquals (aItem.getEndUserCountryCode (), aView.getEndUserCountryCode ());
+        assertEquals (aItem.getEndUserID (), aView.getEndUserID ());
+        c.accept (aItem);
+      });
+    });
+
+    assertEquals ("forEachReportingItemView must return the same multiset as iterateReportingItems",
+                  aViaIterate,
+                  aViaView);
+  }
+
+  @Test
+  public void testForEachBatchMatchesIterate () throws Exception
+  {
+    final LocalDate aBase = testRunBaseDate ();
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aBase, 520));
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.receivingItem (aBase, 521));
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aBase.plusDays (1), 522));
+
+    final ICommonsMap <PeppolReportingItem, Integer> aViaIterate = _toCounts (_iterating (aBase, aBase.plusDays (1)));
+
+    // Use a batch size that requires multiple batches
+    final ICommonsMap <PeppolReportingItem, Integer> aViaBatch = _toCounts (c -> {
+      m_aBackend.forEachReportingItemBatch (aBase, aBase.plusDays (1), 2, aBatch -> {
+        assertFalse (aBatch.isEmpty ());
+        aBatch.forEachView (aView -> c.accept (aView.getAsItem ()));
+      });
+    });
+
+    assertEquals ("forEachReportingItemBatch must return the same multiset as iterateReportingItems",
+                  aViaIterate,
+                  aViaBatch);
+  }
+
+  @Test
+  public void testStreamMatchesIterate () throws Exception
+  {
+    final LocalDate aBase = testRunBaseDate ();
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aBase, 530));
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.receivingItem (aBase.plusDays (1), 531));
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aBase.plusDays (3), 532));
+
+    final ICommonsMap <PeppolReportingItem, Integer> aViaIterate = _toCounts (_iterating (aBase, aBase.plusDays (3)));
+
+    final ICommonsMap <PeppolReportingItem, Integer> aViaStream = _toCounts (c -> {
+      try (final Stream <PeppolReportingItem> aStream = m_aBackend.streamReportingItems (aBase, aBase.plusDays (3)))
+      {
+        aStream.forEach (c);
+      }
+    });
+    assertEquals ("streamReportingItems must return the same multiset as iterateReportingItems",
+                  aViaIterate,
+                  aViaStream);
+
+    // Parallel processing splits along day boundaries
+    final ICommonsMap <PeppolReportingItem, Integer> aViaParallel = _toCounts (c -> {
+      try (final Stream <PeppolReportingItem> aStream = m_aBackend.streamReportingItems (aBase, aBase.plusDays (3)))
+      {
+        aStream.parallel ().collect (Collectors.toList ()).forEach (c);
+      }
+    });
+    assertEquals ("A parallel stream must return the same multiset as iterateReportingItems",
+                  aViaIterate,
+                  aViaParallel);
+  }
+
+  @Test
+  public void testStoreAsync () throws PeppolReportingBackendException
+  {
+    final LocalDate aBase = testRunBaseDate ();
+    final PeppolReportingItem aItem1 = PeppolReportingTestItems.sendingItem (aBase, 540);
+    final PeppolReportingItem aItem2 = PeppolReportingTestItems.receivingItem (aBase, 541);
+    final PeppolReportingItem aItem3 = PeppolReportingTestItems.sendingItem (aBase, 542);
+
+    // Hand off all items before waiting
+    CompletableFuture.allOf (m_aBackend.storeReportingItemAsync (aItem1),
+                             m_aBackend.storeReportingItemAsync (aItem2),
+                             m_aBackend.storeReportingItemAsync (aItem3),
+                             m_aBackend.storeReportingItemAsync (PeppolReportingTestItems.nonEligibleItem (aBase)))
+                     .join ();
+
+    final ICommonsSet <PeppolReportingItem> aFound = _drainToSet (m_aBackend.iterateReportingItems (aBase, aBase));
+    assertTrue ("Asynchronously stored items must be returned: " + aFound,
+                aFound.contains (aItem1) && aFound.contains (aItem2) && aFound.contains (aItem3));
+  }
+
+  @Test
+  public void testPublisherMatchesIterate () throws Exception
+  {
+    final LocalDate aBase = testRunBaseDate ();
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aBase, 550));
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.receivingItem (aBase, 551));
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aBase.plusDays (1), 552));
+
+    final ICommonsMap <PeppolReportingItem, Integer> aViaIterate = _toCounts (_iterating (aBase, aBase.plusDays (1)));
+
+    // Request one item after the other
+    final ICommonsMap <PeppolReportingItem, Integer> aViaPublisher = _toCounts (c -> {
+      final CompletableFuture <Void> aDone = new CompletableFuture <> ();
+      m_aBackend.publishReportingItems (aBase, aBase.plusDays (1)).subscribe (new Flow.Subscriber <> ()
+      {
+        private Flow.Subscription m_aSubscription;
+
+        public void onSubscribe (final Flow.Subscription aSubscription)
+        {
+          m_aSubscription = aSubscription;
+          aSubscription.request (1);
+        }
+
+        public void onNext (final PeppolReportingItem aItem)
+        {
+          c.accept (aItem);
+          m_aSubscription.request (1);
+        }
+
+        public void onError (final Throwable t)
+        {
+          aDone.completeExceptionally (t);
+        }
+
+        public void onComplete ()
+        {
+          aDone.complete (null);
+        }
+      });
+      aDone.get (30, TimeUnit.SECONDS);
+    });
+
+    assertEquals ("publishReportingItems must return the same multiset as iterateReportingItems",
+                  aViaIterate,
+                  aViaPublisher);
+  }
+
+  @Test
+  public void testReadPagesMatchesIterate () throws Exception
+  {
+    final LocalDate aBase = testRunBaseDate ();
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aBase, 560));
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.receivingItem (aBase, 561));
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aBase.plusDays (1), 562));
+
+    final ICommonsMap <PeppolReportingItem, Integer> aViaIterate = _toCounts (_iterating (aBase, aBase.plusDays (1)));
+
+    // Read with small pages until there is no continuation token
+    final ICommonsMap <PeppolReportingItem, Integer> aViaPages = _toCounts (c -> {
+      String sToken = null;
+      do
+      {
+        final PeppolReportingItemPage aPage = m_aBackend.readReportingItems (aBase, aBase.plusDays (1), 2, sToken);
+        assertTrue (aPage.getItemCount () <= 2);
+        aPage.getAllItems ().forEach (c);
+        sToken = aPage.getContinuationToken ();
+      } while (sToken != null);
+    });
+
+    assertEquals ("readReportingItems must return the same multiset as iterateReportingItems",
+                  aViaIterate,
+                  aViaPages);
+  }
+
+  @Test
+  public void testCountMatchesIterate () throws Exception
+  {
+    final LocalDate aBase = testRunBaseDate ();
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aBase, 570));
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.receivingItem (aBase, 571));
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.sendingItem (aBase.plusDays (1), 572));
+
+    long nTotal = 0;
+    long nSending = 0;
+    for (final PeppolReportingItem aItem : m_aBackend.iterateReportingItems (aBase, aBase.plusDays (1)))
+    {
+      nTotal++;
+      if (aItem.isSending ())
+        nSending++;
+    }
+    assertTrue (nTotal >= 3);
+
+    assertEquals (nTotal, m_aBackend.countReportingItems (aBase, aBase.plusDays (1)));
+    assertEquals (nSending, m_aBackend.countReportingItems (aBase, aBase.plusDays (1), EReportingDirection.SENDING));
+    assertEquals (nTotal - nSending,
+                  m_aBackend.countReportingItems (aBase, aBase.plusDays (1), EReportingDirection.RECEIVING));
+  }
+
+  @Test
+  public void testQueryMatchesFilteredIterate () throws Exception
+  {
+    final LocalDate aBase = testRunBaseDate ();
+    final PeppolReportingItem aSending = PeppolReportingTestItems.sendingItem (aBase, 580);
+    m_aBackend.storeReportingItem (aSending);
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.receivingItem (aBase, 581));
+    m_aBackend.storeReportingItem (PeppolReportingTestItems.receivingItem (aBase.plusDays (1), 582));
+
+    // Criteria on direction and end user ID, with complete items
+    final ICommonsMap <PeppolReportingItem, Integer> aExpectedItems = _toCounts (c -> {
+      for (final PeppolReportingItem aItem : m_aBackend.iterateReportingItems (aBase, aBase.plusDays (1)))
+        if (aItem.isSending () && "eu580".equals (aItem.getEndUserID ()))
+          c.accept (aItem);
+    });
+    assertTrue (aExpectedItems.containsKey (aSending));
+
+    final ICommonsMap <PeppolReportingItem, Integer> aFound = _toCounts (c -> {
+      m_aBackend.forEachReportingItem (aBase,
+                                       aBase.plusDays (1),
+                                       new PeppolReportingItemQuery ().directionSending ().endUserID ("eu580"),
+                                       c);
+    });
+    assertEquals (aExpectedItems, aFound);
+
+    // Criteria on the C4 country code with a projection on the end user ID
+    final ICommonsMap <String, Integer> aExpected = _toCounts (c -> {
+      for (final PeppolReportingItem aItem : m_aBackend.iterateReportingItems (aBase, aBase.plusDays (1)))
+        if ("DE".equals (aItem.getC4CountryCode ()) && "pop000002".equals (aItem.getC3ID ()))
+          c.accept (aItem.getDirection ().getID () + ":" + aItem.getEndUserID ());
+    });
+    assertTrue (aExpected.size () >= 2);
+
+    final ICommonsMap <String, Integer> aActual = _toCounts (c -> {
+      m_aBackend.forEachReportingItemView (aBase,
+                                           aBase.plusDays (1),
+                                           new PeppolReportingItemQuery ().c4CountryCode ("DE")
+                                                                          .c3ID ("pop000002")
+                                                                          .projection (EReportingItemField.END_USER_ID),
+                                           aView -> c.accept (aView.getDirection ().getID () +
+                                                              ":" +
+                                                              aView.getEndUserID ()));
+    });
+    assertEquals (aExpected, aActual);
+  }
+
+  @Test
+  public void testInstantRangeMatchesFilteredIterate () throws Exception
+  {
+    final LocalDate aBase = testRunBaseDate ();
+    final PeppolReportingItem aBefore = PeppolReportingTestItems.sendingItem (aBase, 590);
+    final PeppolReportingItem aFirst = PeppolReportingTestItems.sendingItem (aBase, 591);
+    final PeppolReportingItem aSecond = PeppolReportingTestItems.receivingItem (aBase.plusDays (1), 592);
+    final PeppolReportingItem aAfter = PeppolReportingTestItems.sendingItem (aBase.plusDays (1), 593);
+    m_aBackend.storeReportingItem (aBefore);
+    m_aBackend.storeReportingItem (aFirst);
+    m_aBackend.storeReportingItem (aSecond);
+    m_aBackend.storeReportingItem (aAfter);
+
+    // The end is exclusive
+    final Instant aFrom = aFirst.getExchangeDTUTC ().toInstant ();
+    final Instant aTo = aAfter.getExchangeDTUTC ().toInstant ();
+
+    final ICommonsMap <PeppolReportingItem, Integer> aExpected = _toCounts (c -> {
+      for (final PeppolReportingItem aItem : m_aBackend.iterateReportingItems (aBase, aBase.plusDays (1)))
+      {
+        final Instant aExchange = aItem.getExchangeDTUTC ().toInstant ();
+        if (!aExchange.isBefore (aFrom) && aExchange.isBefore (aTo))
+          c.accept (aItem);
+      }
+    });
+
+    final ICommonsMap <PeppolReportingItem, Integer> aFound = _toCounts (c -> {
+      m_aBackend.iterateReportingItems (aFrom, aTo).forEach (c);
+    });
+    assertEquals (aExpected, aFound);
+    assertTrue (aFound.containsKey (aFirst));
+    assertTrue (aFound.containsKey (aSecond));
+    assertFalse (aFound.containsKey (aBefore));
+    assertFalse (aFound.containsKey (aAfter));
+
+    // Empty range
+    assertFalse (m_aBackend.iterateReportingItems (aFrom, aFrom).iterator ().hasNext ());
+  }
+
+  @Test
+  public void testStoredSinceReturnsNewItems () throws Exception
+  {
+    Assume.assumeTrue ("Backend does not support a store sequence", m_aBackend.isStoreSequenceSupported ());
+
+    final LocalDate aBase = testRunBaseDate ();
+    final long nStartSequence = m_aBackend.getCurrentStoreSequence ();
+    final ICommonsSet <PeppolReportingItem> aStored = new CommonsHashSet <> ();
+    aStored.add (PeppolReportingTestItems.sendingItem (aBase, 600));
+    aStored.add (PeppolReportingTestItems.receivingItem (aBase, 601));
+    // A late arriving item of an older day
+    aStored.add (PeppolReportingTestItems.sendingItem (aBase.minusDays (3), 602));
+    for (final PeppolReportingItem aItem : aStored)
+      m_aBackend.storeReportingItem (aItem);
+    final long nEndSequence = m_aBackend.getCurrentStoreSequence ();
+    assertTrue (nEndSequence >= nStartSequence + aStored.size ());
+
+    // Read in small batches - with a single writer everything up to the current sequence is visible
+    final ICommonsSet <PeppolReportingItem> aFound = new CommonsHashSet <> ();
+    long nSequence = nStartSequence;
+    PeppolReportingChangeBatch aBatch;
+    do
+    {
+      aBatch = m_aBackend.iterateStoredSince (nSequence, nEndSequence, 2);
+      assertTrue (aBatch.getItemCount () <= 2);
+      assertTrue (aBatch.getLastSequence () >= nSequence);
+      assertTrue (aBatch.getLastSequence () <= nEndSequence);
+      aFound.addAll (aBatch.getAllItems ());
+      nSequence = aBatch.getLastSequence ();
+    } while (aBatch.isMoreAvailable ());
+    assertTrue ("Missing: " + _missing (aStored, aFound), aFound.containsAll (aStored));
+    assertEquals (nEndSequence, nSequence);
+
+    // Nothing new since the last batch
+    aBatch = m_aBackend.iterateStoredSince (nSequence, nEndSequence, 10);
+    assertEquals (0, aBatch.getItemCount ());
+    assertEquals (nSequence, aBatch.getLastSequence ());
+  }
+
+  @Test
+  public void testStoredSinceWithConcurrentWriters () throws Exception
+  {
+    Assume.assumeTrue ("Backend does not support a store sequence", m_aBackend.isStoreSequenceSupported ());
+
+    final LocalDate aBase = testRunBaseDate ();
+    final int nWriters = 4;
+    final int nItemsPerWriter = 25;
+    final long nStartSequence = m_aBackend.getCurrentStoreSequence ();
+
+    final ICommonsList <PeppolReportingItem> aAllItems = new CommonsArrayList <> ();
+    final ICommonsList <Future <?>> aWriters = new CommonsArrayList <> ();
+    final ExecutorService aExecutor = Executors.newFixedThreadPool (nWriters);
+    for (int nWriter = 0; nWriter < nWriters; ++nWriter)
+    {
+      final ICommonsList <PeppolReportingItem> aItems = new CommonsArrayList <> ();
+      for (int i = 0; i < nItemsPerWriter; ++i)
+        aItems.add (PeppolReportingTestItems.sendingItem (aBase, 640 + nWriter * nItemsPerWriter + i));
+      aAllItems.addAll (aItems);
+      aWriters.add (aExecutor.submit ( () -> {
+        for (final PeppolReportingItem aItem : aItems)
+          m_aBackend.storeReportingItem (aItem);
+        return null;
+      }));
+    }
+    aExecutor.shutdown ();
+
+    // Follow the change feed while the writers are running, until it caught up with all writes
+    final ICommonsList <PeppolReportingItem> aFoundItems = new CommonsArrayList <> ();
+    final long nTimeout = System.currentTimeMillis () + 60_000;
+    long nSequence = nStartSequence;
+    long nFinalSequence = -1;
+    while (true)
+    {
+      final PeppolReportingChangeBatch aBatch = m_aBackend.iterateStoredSince (nSequence, 10);
+      assertTrue (aBatch.getLastSequence () >= nSequence);
+      aFoundItems.addAll (aBatch.getAllItems ());
+      nSequence = aBatch.getLastSequence ();
+      if (!aBatch.isMoreAvailable ())
+      {
+        if (nFinalSequence < 0 && aExecutor.isTerminated ())
+        {
+          // Propagate writer errors
+          for (final Future <?> aWriter : aWriters)
+            aWriter.get ();
+          nFinalSequence = m_aBackend.getCurrentStoreSequence ();
+        }
+        if (nFinalSequence >= 0 && nSequence >= nFinalSequence)
+          break;
+        assertTrue ("The change feed did not catch up with the writers", System.currentTimeMillis () < nTimeout);
+        Thread.sleep (50);
+      }
+    }
+
+    // Every item exactly once
+    final ICommonsMap <PeppolReportingItem, Integer> aExpected = _toCounts (aAllItems::forEach);
+    final ICommonsMap <PeppolReportingItem, Integer> aFound = _toCounts (aFoundItems::forEach);
+    assertEquals (aExpected, aFound);
+  }
+
   @Test
   public void testNonEligibleDocTypeFiltered () throws PeppolReportingBackendException
   {
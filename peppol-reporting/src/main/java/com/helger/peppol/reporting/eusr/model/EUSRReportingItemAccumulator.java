@@ -21,12 +21,16 @@ import java.util.Map;
 import org.jspecify.annotations.NonNull;
 
 import com.helger.annotation.Nonempty;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.equals.EqualsHelper;
 import com.helger.base.numeric.BigHelper;
 import com.helger.collection.commons.CommonsHashSet;
 import com.helger.collection.commons.CommonsTreeMap;
 import com.helger.collection.commons.ICommonsSet;
 import com.helger.collection.commons.ICommonsSortedMap;
+import com.helger.peppol.reporting.api.IPeppolReportingItemView;
 import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.api.PeppolReportingItemBatch;
 import com.helger.peppol.reporting.jaxb.eusr.v110.EndUserStatisticsReportType;
 import com.helger.peppol.reporting.jaxb.eusr.v110.FullSetType;
 import com.helger.peppol.reporting.jaxb.eusr.v110.SubsetKeyType;
@@ -37,7 +41,7 @@ import com.helger.peppolid.peppol.doctype.EPredefinedDocumentTypeIdentifier;
 /**
  * Accumulator for EUSR reporting items that supports batched (streaming) input.
  * <p>
- * Use {@link #accept(PeppolReportingItem)} to feed items one by one (potentially across many
+ * Use {@link #accept(IPeppolReportingItemView)} to feed items one by one (potentially across many
  * batches), then call {@link #fillReport(EndUserStatisticsReportType)} to populate the report.
  * </p>
  * <p>
@@ -77,13 +81,45 @@ public class EUSRReportingItemAccumulator
   private final ICommonsSortedMap <SubsetKeyDT_EUC, EndUserCounter> m_aMapDT_EUC = new CommonsTreeMap <> ();
   private final ICommonsSortedMap <SubsetKeyDT_PR_EUC, EndUserCounter> m_aMapDT_PR_EUC = new CommonsTreeMap <> ();
 
+  // Last key and counter per map. Consecutive items usually have the same
+  // dimensions, so comparing with the last key avoids creating the key and
+  // the map lookup. With interned strings the equals check is a reference
+  // comparison.
+  private SubsetKeyDT_PR m_aLastKeyDT_PR;
+  private EndUserCounter m_aLastCounterDT_PR;
+  private SubsetKeyEUC m_aLastKeyEUC;
+  private EndUserCounter m_aLastCounterEUC;
+  private SubsetKeyDT_EUC m_aLastKeyDT_EUC;
+  private EndUserCounter m_aLastCounterDT_EUC;
+  private SubsetKeyDT_PR_EUC m_aLastKeyDT_PR_EUC;
+  private EndUserCounter m_aLastCounterDT_PR_EUC;
+
   public EUSRReportingItemAccumulator ()
   {}
 
-  private static boolean _isMLSDocType (@NonNull final PeppolReportingItem aItem)
+  private static boolean _isMLSDocType (@NonNull final String sDocTypeIDScheme, @NonNull final String sDocTypeIDValue)
+  {
+    return PeppolIdentifierHelper.DOCUMENT_TYPE_SCHEME_BUSDOX_DOCID_QNS.equals (sDocTypeIDScheme) &&
+      EPredefinedDocumentTypeIdentifier.PEPPOL_MLS_1_0.getValue ().equals (sDocTypeIDValue);
+  }
+
+  /**
+   * Accept a single reporting item and accumulate its data into the internal state. This may be a
+   * {@link PeppolReportingItem} or a backend cursor view, which is not referenced after this call.
+   * May be called multiple times, across multiple batches, before {@link #fillReport}.
+   *
+   * @param aItem
+   *        The reporting item; must not be {@code null}.
+   */
+  public void accept (@NonNull final IPeppolReportingItemView aItem)
   {
-    return PeppolIdentifierHelper.DOCUMENT_TYPE_SCHEME_BUSDOX_DOCID_QNS.equals (aItem.getDocTypeIDScheme ()) &&
-      EPredefinedDocumentTypeIdentifier.PEPPOL_MLS_1_0.getValue ().equals (aItem.getDocTypeIDValue ());
+    accept (aItem.getDocTypeIDScheme (),
+            aItem.getDocTypeIDValue (),
+            aItem.getProcessIDScheme (),
+            aItem.getProcessIDValue (),
+            aItem.getEndUserCountryCode (),
+            aItem.getEndUserID (),
+            aItem.isSending ());
   }
 
   /**
@@ -94,31 +130,135 @@ public class EUSRReportingItemAccumulator
    *        The reporting item; must not be {@code null}.
    */
   public void accept (@NonNull final PeppolReportingItem aItem)
+  {
+    accept ((IPeppolReportingItemView) aItem);
+  }
+
+  /**
+   * Accept all items of the provided batch and accumulate their data into the internal state.
+   * Consecutive items of the same end user with the same dimensions are detected by comparing the
+   * dictionary codes and are skipped, as they have no effect. May be called multiple times, across
+   * multiple batches, before {@link #fillReport}.
+   *
+   * @param aBatch
+   *        The batch; must not be {@code null}. It is not referenced after this call.
+   * @since 4.2.1
+   */
+  public void accept (@NonNull final PeppolReportingItemBatch aBatch)
+  {
+    ValueEnforcer.notNull (aBatch, "Batch");
+
+    final int nSize = aBatch.size ();
+    final int [] aDTScheme = aBatch.getCodes (PeppolReportingItemBatch.COL_DOCTYPE_SCHEME);
+    final int [] aDTValue = aBatch.getCodes (PeppolReportingItemBatch.COL_DOCTYPE_VALUE);
+    final int [] aPRScheme = aBatch.getCodes (PeppolReportingItemBatch.COL_PROCESS_SCHEME);
+    final int [] aPRValue = aBatch.getCodes (PeppolReportingItemBatch.COL_PROCESS_VALUE);
+    final int [] aC1CC = aBatch.getCodes (PeppolReportingItemBatch.COL_C1CC);
+    final int [] aC4CC = aBatch.getCodes (PeppolReportingItemBatch.COL_C4CC);
+    final int [] aEndUserID = aBatch.getCodes (PeppolReportingItemBatch.COL_END_USER_ID);
+
+    for (int i = 0; i < nSize; ++i)
+    {
+      final boolean bReceiving = aBatch.isReceiving (i);
+      final int nEUC = bReceiving ? aC4CC[i] : aC1CC[i];
+      if (i > 0 &&
+          aBatch.isReceiving (i - 1) == bReceiving &&
+          aEndUserID[i - 1] == aEndUserID[i] &&
+          aDTScheme[i - 1] == aDTScheme[i] &&
+          aDTValue[i - 1] == aDTValue[i] &&
+          aPRScheme[i - 1] == aPRScheme[i] &&
+          aPRValue[i - 1] == aPRValue[i] &&
+          (bReceiving ? aC4CC[i - 1] : aC1CC[i - 1]) == nEUC)
+      {
+        // Same as before - no effect
+        continue;
+      }
+
+      accept (aBatch.getString (aDTScheme[i]),
+              aBatch.getString (aDTValue[i]),
+              aBatch.getString (aPRScheme[i]),
+              aBatch.getString (aPRValue[i]),
+              aBatch.getString (nEUC),
+              aBatch.getString (aEndUserID[i]),
+              !bReceiving);
+    }
+  }
+
+  /**
+   * Accept the data of a single end user involvement (e.g. from a daily rollup table) and
+   * accumulate it into the internal state. Providing the same data more than once has no effect.
+   * May be called multiple times, across multiple batches, before {@link #fillReport}.
+   *
+   * @param sDocTypeIDScheme
+   *        Document type identifier scheme; must not be {@code null}.
+   * @param sDocTypeIDValue
+   *        Document type identifier value; must not be {@code null}.
+   * @param sProcessIDScheme
+   *        Process identifier scheme; must not be {@code null}.
+   * @param sProcessIDValue
+   *        Process identifier value; must not be {@code null}.
+   * @param sEndUserCountryCode
+   *        C1 country code for sending, C4 country code for receiving; must not be {@code null}.
+   * @param sEndUserID
+   *        The end user ID; must not be {@code null}.
+   * @param bSending
+   *        {@code true} for sending, {@code false} for receiving.
+   * @since 4.2.1
+   */
+  public void accept (@NonNull final String sDocTypeIDScheme,
+                      @NonNull final String sDocTypeIDValue,
+                      @NonNull final String sProcessIDScheme,
+                      @NonNull final String sProcessIDValue,
+                      @NonNull final String sEndUserCountryCode,
+                      @NonNull final String sEndUserID,
+                      final boolean bSending)
   {
     // explicit avoid counting MLS message for EUSR (see SPOG on MLS)
-    if (!_isMLSDocType (aItem))
+    if (!_isMLSDocType (sDocTypeIDScheme, sDocTypeIDValue))
     {
-      final SubsetKeyDT_PR aKeyDT_PR = new SubsetKeyDT_PR (aItem.getDocTypeIDScheme (),
-                                                           aItem.getDocTypeIDValue (),
-                                                           aItem.getProcessIDScheme (),
-                                                           aItem.getProcessIDValue ());
-
-      final SubsetKeyEUC aKeyEUC = new SubsetKeyEUC (aItem.getEndUserCountryCode ());
-      final SubsetKeyDT_EUC aKeyDT_EUC = new SubsetKeyDT_EUC (aItem.getDocTypeIDScheme (),
-                                                              aItem.getDocTypeIDValue (),
-                                                              aItem.getEndUserCountryCode ());
-      final SubsetKeyDT_PR_EUC aKeyDT_PR_EUC = new SubsetKeyDT_PR_EUC (aItem.getDocTypeIDScheme (),
-                                                                       aItem.getDocTypeIDValue (),
-                                                                       aItem.getProcessIDScheme (),
-                                                                       aItem.getProcessIDValue (),
-                                                                       aItem.getEndUserCountryCode ());
-
-      final String sEndUserID = aItem.getEndUserID ();
-      final boolean bSending = aItem.isSending ();
-      m_aMapDT_PR.computeIfAbsent (aKeyDT_PR, x -> new EndUserCounter ()).inc (sEndUserID, bSending);
-      m_aMapEUC.computeIfAbsent (aKeyEUC, x -> new EndUserCounter ()).inc (sEndUserID, bSending);
-      m_aMapDT_EUC.computeIfAbsent (aKeyDT_EUC, x -> new EndUserCounter ()).inc (sEndUserID, bSending);
-      m_aMapDT_PR_EUC.computeIfAbsent (aKeyDT_PR_EUC, x -> new EndUserCounter ()).inc (sEndUserID, bSending);
+      if (m_aLastKeyDT_PR == null ||
+          !EqualsHelper.equals (m_aLastKeyDT_PR.getDocTypeIDScheme (), sDocTypeIDScheme) ||
+          !EqualsHelper.equals (m_aLastKeyDT_PR.getDocTypeIDValue (), sDocTypeIDValue) ||
+          !EqualsHelper.equals (m_aLastKeyDT_PR.getProcessIDScheme (), sProcessIDScheme) ||
+          !EqualsHelper.equals (m_aLastKeyDT_PR.getProcessIDValue (), sProcessIDValue))
+      {
+        m_aLastKeyDT_PR = new SubsetKeyDT_PR (sDocTypeIDScheme, sDocTypeIDValue, sProcessIDScheme, sProcessIDValue);
+        m_aLastCounterDT_PR = m_aMapDT_PR.computeIfAbsent (m_aLastKeyDT_PR, x -> new EndUserCounter ());
+      }
+      m_aLastCounterDT_PR.inc (sEndUserID, bSending);
+
+      if (m_aLastKeyEUC == null || !EqualsHelper.equals (m_aLastKeyEUC.getEndUserCountryCode (), sEndUserCountryCode))
+      {
+        m_aLastKeyEUC = new SubsetKeyEUC (sEndUserCountryCode);
+        m_aLastCounterEUC = m_aMapEUC.computeIfAbsent (m_aLastKeyEUC, x -> new EndUserCounter ());
+      }
+      m_aLastCounterEUC.inc (sEndUserID, bSending);
+
+      if (m_aLastKeyDT_EUC == null ||
+          !EqualsHelper.equals (m_aLastKeyDT_EUC.getDocTypeIDScheme (), sDocTypeIDScheme) ||
+          !EqualsHelper.equals (m_aLastKeyDT_EUC.getDocTypeIDValue (), sDocTypeIDValue) ||
+          !EqualsHelper.equals (m_aLastKeyDT_EUC.getEndUserCountryCode (), sEndUserCountryCode))
+      {
+        m_aLastKeyDT_EUC = new SubsetKeyDT_EUC (sDocTypeIDScheme, sDocTypeIDValue, sEndUserCountryCode);
+        m_aLastCounterDT_EUC = m_aMapDT_EUC.computeIfAbsent (m_aLastKeyDT_EUC, x -> new EndUserCounter ());
+      }
+      m_aLastCounterDT_EUC.inc (sEndUserID, bSending);
+
+      if (m_aLastKeyDT_PR_EUC == null ||
+          !EqualsHelper.equals (m_aLastKeyDT_PR_EUC.getDocTypeIDScheme (), sDocTypeIDScheme) ||
+          !EqualsHelper.equals (m_aLastKeyDT_PR_EUC.getDocTypeIDValue (), sDocTypeIDValue) ||
+          !EqualsHelper.equals (m_aLastKeyDT_PR_EUC.getProcessIDScheme (), sProcessIDScheme) ||
+          !EqualsHelper.equals (m_aLastKeyDT_PR_EUC.getProcessIDValue (), sProcessIDValue) ||
+          !EqualsHelper.equals (m_aLastKeyDT_PR_EUC.getEndUserCountryCode (), sEndUserCountryCode))
+      {
+        m_aLastKeyDT_PR_EUC = new SubsetKeyDT_PR_EUC (sDocTypeIDScheme,
+                                                      sDocTypeIDValue,
+                                                      sProcessIDScheme,
+                                                      sProcessIDValue,
+                                                      sEndUserCountryCode);
+        m_aLastCounterDT_PR_EUC = m_aMapDT_PR_EUC.computeIfAbsent (m_aLastKeyDT_PR_EUC, x -> new EndUserCounter ());
+      }
+      m_aLastCounterDT_PR_EUC.inc (sEndUserID, bSending);
 
       if (bSending)
         m_aSendingEndUsers.add (sEndUserID);
@@ -19,13 +19,18 @@ package com.helger.peppol.reporting.tsr.model;
 import java.util.Map;
 
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 import com.helger.annotation.Nonempty;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.equals.EqualsHelper;
 import com.helger.base.numeric.BigHelper;
 import com.helger.collection.commons.CommonsTreeMap;
 import com.helger.collection.commons.ICommonsSortedMap;
 import com.helger.peppol.reporting.api.CPeppolReporting;
+import com.helger.peppol.reporting.api.IPeppolReportingItemView;
 import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.api.PeppolReportingItemBatch;
 import com.helger.peppol.reporting.jaxb.tsr.v101.IncomingOutgoingType;
 import com.helger.peppol.reporting.jaxb.tsr.v101.SubtotalKeyType;
 import com.helger.peppol.reporting.jaxb.tsr.v101.SubtotalType;
@@ -34,7 +39,7 @@ import com.helger.peppol.reporting.jaxb.tsr.v101.TransactionStatisticsReportType
 /**
  * Accumulator for TSR reporting items that supports batched (streaming) input.
  * <p>
- * Use {@link #accept(PeppolReportingItem)} to feed items one by one (potentially across many
+ * Use {@link #accept(IPeppolReportingItemView)} to feed items one by one (potentially across many
  * batches), then call {@link #fillReport(TransactionStatisticsReportType)} to populate the report.
  * </p>
  * <p>
@@ -52,12 +57,12 @@ public class TSRReportingItemAccumulator
     private long m_nIncoming = 0;
     private long m_nOutgoing = 0;
 
-    public void inc (final boolean bIncoming)
+    public void inc (final boolean bIncoming, final long nCount)
     {
       if (bIncoming)
-        m_nIncoming++;
+        m_nIncoming += nCount;
       else
-        m_nOutgoing++;
+        m_nOutgoing += nCount;
     }
   }
 
@@ -70,9 +75,42 @@ public class TSRReportingItemAccumulator
   private final ICommonsSortedMap <SubtotalKeySP_DT_PR, TransactionCounter> m_aMapSP_DT_PR = new CommonsTreeMap <> ();
   private final ICommonsSortedMap <SubtotalKeySP_DT_PR_CC, TransactionCounter> m_aMapSP_DT_PR_CC = new CommonsTreeMap <> ();
 
+  // Last key and counter per map. Consecutive items usually have the same
+  // dimensions, so comparing with the last key avoids creating the key and
+  // the map lookup. With interned strings the equals check is a reference
+  // comparison.
+  private SubtotalKeyTP m_aLastKeyTP;
+  private TransactionCounter m_aLastCounterTP;
+  private SubtotalKeySP_DT_PR m_aLastKeySP_DT_PR;
+  private TransactionCounter m_aLastCounterSP_DT_PR;
+  private SubtotalKeySP_DT_PR_CC m_aLastKeySP_DT_PR_CC;
+  private TransactionCounter m_aLastCounterSP_DT_PR_CC;
+
   public TSRReportingItemAccumulator ()
   {}
 
+  /**
+   * Accept a single reporting item and accumulate its data into the internal state. This may be a
+   * {@link PeppolReportingItem} or a backend cursor view, which is not referenced after this call.
+   * May be called multiple times, across multiple batches, before {@link #fillReport}.
+   *
+   * @param aItem
+   *        The reporting item; must not be {@code null}.
+   */
+  public void accept (@NonNull final IPeppolReportingItemView aItem)
+  {
+    accept (aItem.getOtherServiceProviderID (),
+            aItem.getDocTypeIDScheme (),
+            aItem.getDocTypeIDValue (),
+            aItem.getProcessIDScheme (),
+            aItem.getProcessIDValue (),
+            aItem.getTransportProtocol (),
+            aItem.getC1CountryCode (),
+            aItem.getC4CountryCode (),
+            aItem.isSending (),
+            1);
+  }
+
   /**
    * Accept a single {@link PeppolReportingItem} and accumulate its data into the internal state.
    * May be called multiple times, across multiple batches, before {@link #fillReport}.
@@ -82,33 +120,157 @@ public class TSRReportingItemAccumulator
    */
   public void accept (@NonNull final PeppolReportingItem aItem)
   {
-    final SubtotalKeyTP aKeyTP = new SubtotalKeyTP (aItem.getTransportProtocol ());
-    final SubtotalKeySP_DT_PR aKeySP_DT_PR = new SubtotalKeySP_DT_PR (aItem.getOtherServiceProviderID (),
-                                                                      aItem.getDocTypeIDScheme (),
-                                                                      aItem.getDocTypeIDValue (),
-                                                                      aItem.getProcessIDScheme (),
-                                                                      aItem.getProcessIDValue ());
+    accept ((IPeppolReportingItemView) aItem);
+  }
+
+  /**
+   * Accept all items of the provided batch and accumulate their data into the internal state.
+   * Consecutive items with the same dimensions are detected by comparing the dictionary codes and
+   * are counted at once. May be called multiple times, across multiple batches, before
+   * {@link #fillReport}.
+   *
+   * @param aBatch
+   *        The batch; must not be {@code null}. It is not referenced after this call.
+   * @since 4.2.1
+   */
+  public void accept (@NonNull final PeppolReportingItemBatch aBatch)
+  {
+    ValueEnforcer.notNull (aBatch, "Batch");
+
+    final int nSize = aBatch.size ();
+    // All columns relevant for TSR
+    final int [] [] aColumns = new int [PeppolReportingItemBatch.COL_C4CC + 1] [];
+    for (int nCol = 0; nCol < aColumns.length; ++nCol)
+      aColumns[nCol] = aBatch.getCodes (nCol);
+
+    int nStart = 0;
+    while (nStart < nSize)
+    {
+      final boolean bReceiving = aBatch.isReceiving (nStart);
 
-    final boolean bIncoming = aItem.isReceiving ();
-    m_aMapTP.computeIfAbsent (aKeyTP, x -> new TransactionCounter ()).inc (bIncoming);
-    m_aMapSP_DT_PR.computeIfAbsent (aKeySP_DT_PR, x -> new TransactionCounter ()).inc (bIncoming);
+      // Find the end of the run of items with the same dimensions
+      int nEnd = nStart + 1;
+      while (nEnd < nSize && aBatch.isReceiving (nEnd) == bReceiving && _isSameRow (aColumns, nStart, nEnd))
+        nEnd++;
+
+      final int nOtherSPCol = bReceiving ? PeppolReportingItemBatch.COL_C2ID : PeppolReportingItemBatch.COL_C3ID;
+      accept (aBatch.getString (aColumns[nOtherSPCol][nStart]),
+              aBatch.getString (aColumns[PeppolReportingItemBatch.COL_DOCTYPE_SCHEME][nStart]),
+              aBatch.getString (aColumns[PeppolReportingItemBatch.COL_DOCTYPE_VALUE][nStart]),
+              aBatch.getString (aColumns[PeppolReportingItemBatch.COL_PROCESS_SCHEME][nStart]),
+              aBatch.getString (aColumns[PeppolReportingItemBatch.COL_PROCESS_VALUE][nStart]),
+              aBatch.getString (aColumns[PeppolReportingItemBatch.COL_TRANSPORT_PROTOCOL][nStart]),
+              aBatch.getString (aColumns[PeppolReportingItemBatch.COL_C1CC][nStart]),
+              aBatch.getString (aColumns[PeppolReportingItemBatch.COL_C4CC][nStart]),
+              !bReceiving,
+              nEnd - nStart);
+      nStart = nEnd;
+    }
+  }
+
+  private static boolean _isSameRow (@NonNull final int [] [] aColumns, final int nRow1, final int nRow2)
+  {
+    for (final int [] aColumn : aColumns)
+      if (aColumn[nRow1] != aColumn[nRow2])
+        return false;
+    return true;
+  }
+
+  /**
+   * Accept pre-aggregated data of multiple transactions sharing the same dimensions (e.g. from a
+   * daily rollup table) and accumulate it into the internal state. May be called multiple times,
+   * across multiple batches, before {@link #fillReport}.
+   *
+   * @param sOtherServiceProviderID
+   *        C3 ID for sending, C2 ID for receiving; must not be {@code null}.
+   * @param sDocTypeIDScheme
+   *        Document type identifier scheme; must not be {@code null}.
+   * @param sDocTypeIDValue
+   *        Document type identifier value; must not be {@code null}.
+   * @param sProcessIDScheme
+   *        Process identifier scheme; must not be {@code null}.
+   * @param sProcessIDValue
+   *        Process identifier value; must not be {@code null}.
+   * @param sTransportProtocol
+   *        Transport protocol; must not be {@code null}.
+   * @param sC1CountryCode
+   *        C1 country code; must not be {@code null}.
+   * @param sC4CountryCode
+   *        C4 country code; may be {@code null} for sending transactions.
+   * @param bSending
+   *        {@code true} for sending (outgoing), {@code false} for receiving (incoming).
+   * @param nCount
+   *        The number of transactions to add; must be &ge; 0.
+   * @since 4.2.1
+   */
+  public void accept (@NonNull final String sOtherServiceProviderID,
+                      @NonNull final String sDocTypeIDScheme,
+                      @NonNull final String sDocTypeIDValue,
+                      @NonNull final String sProcessIDScheme,
+                      @NonNull final String sProcessIDValue,
+                      @NonNull final String sTransportProtocol,
+                      @NonNull final String sC1CountryCode,
+                      @Nullable final String sC4CountryCode,
+                      final boolean bSending,
+                      final long nCount)
+  {
+    ValueEnforcer.isGE0 (nCount, "Count");
+    if (nCount == 0)
+      return;
+
+    final boolean bIncoming = !bSending;
+
+    if (m_aLastKeyTP == null || !EqualsHelper.equals (m_aLastKeyTP.getTransportProtocol (), sTransportProtocol))
+    {
+      m_aLastKeyTP = new SubtotalKeyTP (sTransportProtocol);
+      m_aLastCounterTP = m_aMapTP.computeIfAbsent (m_aLastKeyTP, x -> new TransactionCounter ());
+    }
+    m_aLastCounterTP.inc (bIncoming, nCount);
+
+    if (m_aLastKeySP_DT_PR == null ||
+        !EqualsHelper.equals (m_aLastKeySP_DT_PR.getServiceProviderID (), sOtherServiceProviderID) ||
+        !EqualsHelper.equals (m_aLastKeySP_DT_PR.getDocTypeIDScheme (), sDocTypeIDScheme) ||
+        !EqualsHelper.equals (m_aLastKeySP_DT_PR.getDocTypeIDValue (), sDocTypeIDValue) ||
+        !EqualsHelper.equals (m_aLastKeySP_DT_PR.getProcessIDScheme (), sProcessIDScheme) ||
+        !EqualsHelper.equals (m_aLastKeySP_DT_PR.getProcessIDValue (), sProcessIDValue))
+    {
+      m_aLastKeySP_DT_PR = new SubtotalKeySP_DT_PR (sOtherServiceProviderID,
+                                                    sDocTypeIDScheme,
+                                                    sDocTypeIDValue,
+                                                    sProcessIDScheme,
+                                                    sProcessIDValue);
+      m_aLastCounterSP_DT_PR = m_aMapSP_DT_PR.computeIfAbsent (m_aLastKeySP_DT_PR, x -> new TransactionCounter ());
+    }
+    m_aLastCounterSP_DT_PR.inc (bIncoming, nCount);
 
     if (bIncoming)
     {
-      m_nTotalIncoming++;
+      m_nTotalIncoming += nCount;
 
       // This can only be counted for incoming messages, as senders never have the C4 ID
-      final SubtotalKeySP_DT_PR_CC aKeySP_DT_PR_CC = new SubtotalKeySP_DT_PR_CC (aItem.getOtherServiceProviderID (),
-                                                                                 aItem.getDocTypeIDScheme (),
-                                                                                 aItem.getDocTypeIDValue (),
-                                                                                 aItem.getProcessIDScheme (),
-                                                                                 aItem.getProcessIDValue (),
-                                                                                 aItem.getC1CountryCode (),
-                                                                                 aItem.getC4CountryCode ());
-      m_aMapSP_DT_PR_CC.computeIfAbsent (aKeySP_DT_PR_CC, x -> new TransactionCounter ()).inc (bIncoming);
+      if (m_aLastKeySP_DT_PR_CC == null ||
+          !EqualsHelper.equals (m_aLastKeySP_DT_PR_CC.getServiceProviderID (), sOtherServiceProviderID) ||
+          !EqualsHelper.equals (m_aLastKeySP_DT_PR_CC.getDocTypeIDScheme (), sDocTypeIDScheme) ||
+          !EqualsHelper.equals (m_aLastKeySP_DT_PR_CC.getDocTypeIDValue (), sDocTypeIDValue) ||
+          !EqualsHelper.equals (m_aLastKeySP_DT_PR_CC.getProcessIDScheme (), sProcessIDScheme) ||
+          !EqualsHelper.equals (m_aLastKeySP_DT_PR_CC.getProcessIDValue (), sProcessIDValue) ||
+          !EqualsHelper.equals (m_aLastKeySP_DT_PR_CC.getC1CountryCode (), sC1CountryCode) ||
+          !EqualsHelper.equals (m_aLastKeySP_DT_PR_CC.getC4CountryCode (), sC4CountryCode))
+      {
+        m_aLastKeySP_DT_PR_CC = new SubtotalKeySP_DT_PR_CC (sOtherServiceProviderID,
+                                                            sDocTypeIDScheme,
+                                                            sDocTypeIDValue,
+                                                            sProcessIDScheme,
+                                                            sProcessIDValue,
+                                                            sC1CountryCode,
+                                                            sC4CountryCode);
+        m_aLastCounterSP_DT_PR_CC = m_aMapSP_DT_PR_CC.computeIfAbsent (m_aLastKeySP_DT_PR_CC,
+                                                                       x -> new TransactionCounter ());
+      }
+      m_aLastCounterSP_DT_PR_CC.inc (bIncoming, nCount);
     }
     else
-      m_nTotalOutgoing++;
+      m_nTotalOutgoing += nCount;
   }
 
   @NonNull
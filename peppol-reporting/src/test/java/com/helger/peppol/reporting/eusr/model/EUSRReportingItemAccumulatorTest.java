@@ -30,6 +30,7 @@ import com.helger.collection.commons.CommonsArrayList;
 import com.helger.collection.commons.ICommonsList;
 import com.helger.datetime.helper.PDTFactory;
 import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.api.PeppolReportingItemBatch;
 import com.helger.peppol.reporting.jaxb.eusr.v110.EndUserStatisticsReportType;
 import com.helger.peppolid.peppol.doctype.EPredefinedDocumentTypeIdentifier;
 import com.helger.peppolid.peppol.process.EPredefinedProcessIdentifier;
@@ -157,6 +158,31 @@ public final class EUSRReportingItemAccumulatorTest
     _assertReportsEqual (eAxpected, aActual);
   }
 
+  @Test
+  public void testItemBatchMatchesList ()
+  {
+    final ICommonsList <PeppolReportingItem> aFixtures = _buildFixtures ();
+    final EndUserStatisticsReportType aExpected = _runViaList (aFixtures);
+
+    // Small capacity to use multiple chunks with the same dictionary
+    final PeppolReportingItemBatch aBatch = new PeppolReportingItemBatch (4);
+    final EUSRReportingItemAccumulator aAcc = new EUSRReportingItemAccumulator ();
+    for (final PeppolReportingItem aItem : aFixtures)
+    {
+      aBatch.add (aItem);
+      if (aBatch.isFull ())
+      {
+        aAcc.accept (aBatch);
+        aBatch.clear ();
+      }
+    }
+    aAcc.accept (aBatch);
+    final EndUserStatisticsReportType aActual = new EndUserStatisticsReportType ();
+    aAcc.fillReport (aActual);
+
+    _assertReportsEqual (aExpected, aActual);
+  }
+
   @Test
   public void testEmptyInput ()
   {
@@ -30,6 +30,7 @@ import com.helger.collection.commons.CommonsArrayList;
 import com.helger.collection.commons.ICommonsList;
 import com.helger.datetime.helper.PDTFactory;
 import com.helger.peppol.reporting.api.PeppolReportingItem;
+import com.helger.peppol.reporting.api.PeppolReportingItemBatch;
 import com.helger.peppol.reporting.jaxb.tsr.v101.TransactionStatisticsReportType;
 import com.helger.peppolid.peppol.doctype.EPredefinedDocumentTypeIdentifier;
 import com.helger.peppolid.peppol.process.EPredefinedProcessIdentifier;
@@ -143,6 +144,67 @@ public final class TSRReportingItemAccumulatorTest
     _assertReportsEqual (aExpected, aActual);
   }
 
+  @Test
+  public void testPreAggregatedMatchesList ()
+  {
+    final ICommonsList <PeppolReportingItem> aFixtures = _buildFixtures ();
+    final TransactionStatisticsReportType aExpected = _runViaList (aFixtures);
+
+    // All sending and all receiving fixtures share the same dimensions
+    final PeppolReportingItem aSending = aFixtures.getFirstOrNull ();
+    final PeppolReportingItem aReceiving = aFixtures.getLastOrNull ();
+    final TSRReportingItemAccumulator aAcc = new TSRReportingItemAccumulator ();
+    aAcc.accept (aSending.getOtherServiceProviderID (),
+                 aSending.getDocTypeIDScheme (),
+                 aSending.getDocTypeIDValue (),
+                 aSending.getProcessIDScheme (),
+                 aSending.getProcessIDValue (),
+                 aSending.getTransportProtocol (),
+                 aSending.getC1CountryCode (),
+                 aSending.getC4CountryCode (),
+                 true,
+                 5);
+    aAcc.accept (aReceiving.getOtherServiceProviderID (),
+                 aReceiving.getDocTypeIDScheme (),
+                 aReceiving.getDocTypeIDValue (),
+                 aReceiving.getProcessIDScheme (),
+                 aReceiving.getProcessIDValue (),
+                 aReceiving.getTransportProtocol (),
+                 aReceiving.getC1CountryCode (),
+                 aReceiving.getC4CountryCode (),
+                 false,
+                 4);
+    final TransactionStatisticsReportType aActual = new TransactionStatisticsReportType ();
+    aAcc.fillReport (aActual);
+
+    _assertReportsEqual (aExpected, aActual);
+  }
+
+  @Test
+  public void testItemBatchMatchesList ()
+  {
+    final ICommonsList <PeppolReportingItem> aFixtures = _buildFixtures ();
+    final TransactionStatisticsReportType aExpected = _runViaList (aFixtures);
+
+    // Small capacity to use multiple chunks with the same dictionary
+    final PeppolReportingItemBatch aBatch = new PeppolReportingItemBatch (4);
+    final TSRReportingItemAccumulator aAcc = new TSRReportingItemAccumulator ();
+    for (final PeppolReportingItem aItem : aFixtures)
+    {
+      aBatch.add (aItem);
+      if (aBatch.isFull ())
+      {
+        aAcc.accept (aBatch);
+        aBatch.clear ();
+      }
+    }
+    aAcc.accept (aBatch);
+    final TransactionStatisticsReportType aActual = new TransactionStatisticsReportType ();
+    aAcc.fillReport (aActual);
+
+    _assertReportsEqual (aExpected, aActual);
+  }
+
   @Test
   public void testEmptyInput ()
   {